@@ -0,0 +1,35 @@
+package com.example.demo.config;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCryptPasswordEncoder que pede a recodificação (upgradeEncoding) de toda senha gravada com um custo diferente
+ * do configurado. O BCryptPasswordEncoder só pede para as de custo menor: ao reduzir o custo (ex: logins lentos demais),
+ * as senhas antigas continuariam com o custo alto para sempre.
+ */
+public class BCryptComCustoConfigurado extends BCryptPasswordEncoder {
+
+    private final int custo;
+
+    /**
+     * @param custo O fator de custo do BCrypt (log2 das rodadas), entre 4 e 31.
+     */
+    public BCryptComCustoConfigurado(int custo) {
+        super(custo);
+        this.custo = custo;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        // A implementação herdada trata os hashes vazios ou fora do formato ($2a$NN$...) e os de custo menor.
+        if (super.upgradeEncoding(encodedPassword)) {
+            return true;
+        }
+        if (encodedPassword == null || encodedPassword.isEmpty()) {
+            return false;
+        }
+        // Formato já validado acima: o custo são os dois dígitos após o segundo '$' ($2a$10$... ou $2$10$...).
+        int inicio = encodedPassword.indexOf('$', 1) + 1;
+        return Integer.parseInt(encodedPassword.substring(inicio, inicio + 2)) != custo;
+    }
+}
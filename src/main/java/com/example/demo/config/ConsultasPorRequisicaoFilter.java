@@ -0,0 +1,51 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Publica a quantidade de comandos SQL executados por requisição ('hibernate.statements.por.requisicao'),
+ * com as mesmas tags de método e URI (o padrão do mapeamento, ex: /produtos/{id}) das métricas HTTP.
+ * Roda antes da cadeia do Spring Security, para incluir também a consulta do usuário autenticado.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ConsultasPorRequisicaoFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private ContadorDeConsultas contador;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        contador.iniciar();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int consultas = contador.encerrar();
+            // Requisições que não chegaram a um controller (ex: 404, recursos estáticos) ficam agrupadas em "UNKNOWN".
+            Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder("hibernate.statements.por.requisicao")
+                    .description("Comandos SQL executados por requisição HTTP")
+                    .tag("method", request.getMethod())
+                    .tag("uri", padrao != null ? padrao.toString() : "UNKNOWN")
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(consultas);
+        }
+    }
+}
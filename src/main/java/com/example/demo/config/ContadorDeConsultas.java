@@ -0,0 +1,49 @@
+package com.example.demo.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Conta os comandos SQL preparados pelo Hibernate na requisição corrente.
+ * É registrado como StatementInspector do Hibernate; a contagem só acontece entre 'iniciar' e 'encerrar'
+ * (chamados pelo ConsultasPorRequisicaoFilter), fora disso o custo é uma leitura de ThreadLocal.
+ */
+@Component
+public class ContadorDeConsultas implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private static final ThreadLocal<int[]> CONSULTAS = new ThreadLocal<>();
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] contador = CONSULTAS.get();
+        if (contador != null) {
+            contador[0]++;
+        }
+        return sql; // Não altera o SQL, apenas conta.
+    }
+
+    /**
+     * Começa a contar os comandos da thread atual.
+     */
+    public void iniciar() {
+        CONSULTAS.set(new int[1]);
+    }
+
+    /**
+     * Para de contar e devolve a quantidade de comandos desde 'iniciar'.
+     */
+    public int encerrar() {
+        int[] contador = CONSULTAS.get();
+        CONSULTAS.remove();
+        return contador != null ? contador[0] : 0;
+    }
+}
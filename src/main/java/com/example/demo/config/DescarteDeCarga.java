@@ -0,0 +1,189 @@
+package com.example.demo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Descarte adaptativo de carga: quando as requisições começam a esperar demais por uma conexão do Hikari,
+ * o SecurityFilter recusa uma fração das requisições com 503 antes de qualquer outro trabalho,
+ * em vez de deixá-las ocupar threads na fila do pool até o 'connection-timeout'.
+ * Uma thread mede cada pool (o primário e, com ReplicasDataSourceConfig, os das réplicas) a cada 'intervalo-ms':
+ * - a espera média pelas conexões entregues no intervalo (timer 'hikaricp.connections.acquire');
+ * - se há requisições aguardando uma conexão e nenhuma foi entregue há mais de 'espera-limite-ms'.
+ * Se algum pool passou do limite, a fração descartada sobe 'passo'; senão, desce meio passo.
+ * A descida mais lenta evita que o descarte ligue e desligue a cada medição, e a fração nunca passa de 'fracao-maxima',
+ * para que algumas requisições continuem chegando ao banco e mostrem quando ele se recuperou.
+ */
+@Component
+public class DescarteDeCarga implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(DescarteDeCarga.class);
+
+    // Estado de um pool entre duas medições.
+    private static final class Pool {
+
+        private final HikariDataSource dataSource;
+        private Timer esperaConexao;
+        private long entreguesAnteriores;
+        private double esperaTotalAnteriorNanos;
+        private long ultimaEntrega = System.nanoTime();
+
+        Pool(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+
+    private final boolean habilitado;
+    private final List<Pool> pools;
+    private final MeterRegistry registry;
+    private final long esperaLimiteNanos;
+    private final double passo;
+    private final double fracaoMaxima;
+    private final ScheduledExecutorService medicao = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "descarte-de-carga");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Fração das requisições recusadas; só a thread de medição escreve.
+    private volatile double fracao;
+
+    // Requisições recusadas.
+    private final LongAdder descartadas = new LongAdder();
+
+    /**
+     * @param habilitado Se o descarte está ativo.
+     * @param esperaLimiteMs Espera por uma conexão a partir da qual o pool é considerado saturado.
+     * @param intervaloMs Intervalo entre as medições.
+     * @param passo Quanto a fração descartada sobe a cada medição acima do limite.
+     * @param fracaoMaxima Fração máxima descartada.
+     */
+    @Autowired
+    public DescarteDeCarga(ObjectProvider<HikariDataSource> pools, ObjectProvider<ReplicasDataSource> replicas,
+                           ObjectProvider<MeterRegistry> registry,
+                           @Value("${api.security.load-shedding.enabled:true}") boolean habilitado,
+                           @Value("${api.security.load-shedding.acquire-threshold-ms:100}") long esperaLimiteMs,
+                           @Value("${api.security.load-shedding.interval-ms:100}") long intervaloMs,
+                           @Value("${api.security.load-shedding.step:0.1}") double passo,
+                           @Value("${api.security.load-shedding.max-fraction:0.9}") double fracaoMaxima) {
+        this(Stream.concat(pools.orderedStream(), replicas.stream().flatMap(replica -> replica.getPools().stream())).toList(),
+                registry.getIfAvailable(), habilitado, esperaLimiteMs, intervaloMs, passo, fracaoMaxima);
+    }
+
+    DescarteDeCarga(List<HikariDataSource> pools, MeterRegistry registry, boolean habilitado, long esperaLimiteMs,
+                    long intervaloMs, double passo, double fracaoMaxima) {
+        this.habilitado = habilitado;
+        this.pools = pools.stream().map(Pool::new).toList();
+        this.registry = registry;
+        this.esperaLimiteNanos = TimeUnit.MILLISECONDS.toNanos(esperaLimiteMs);
+        this.passo = passo;
+        this.fracaoMaxima = fracaoMaxima;
+        if (habilitado) {
+            medicao.scheduleWithFixedDelay(this::medir, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sorteia se a requisição atual deve ser descartada. Fora de uma sobrecarga, é só a leitura de um campo volátil.
+     */
+    public boolean descartar() {
+        double atual = fracao;
+        if (atual > 0 && ThreadLocalRandom.current().nextDouble() < atual) {
+            descartadas.increment();
+            return true;
+        }
+        return false;
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public double getFracao() {
+        return fracao;
+    }
+
+    public long getDescartadas() {
+        return descartadas.sum();
+    }
+
+    // Os nomes dos pools medidos.
+    List<String> getNomesDosPools() {
+        return pools.stream().map(pool -> pool.dataSource.getPoolName()).toList();
+    }
+
+    @Override
+    public void destroy() {
+        medicao.shutdownNow();
+    }
+
+    /**
+     * Ajusta a fração descartada pelo resultado de uma medição.
+     */
+    void ajustar(boolean saturado) {
+        double anterior = fracao;
+        double atual = saturado ? Math.min(fracaoMaxima, anterior + passo) : Math.max(0, anterior - passo / 2);
+        if (atual != anterior) {
+            fracao = atual;
+            if (anterior == 0 || atual == 0) {
+                log.warn(atual > 0 ? "Pool de conexões saturado: iniciando o descarte de carga"
+                        : "Pool de conexões recuperado: descarte de carga encerrado");
+            }
+        }
+    }
+
+    private void medir() {
+        try {
+            boolean saturado = false;
+            for (Pool pool : pools) {
+                saturado |= saturado(pool, System.nanoTime());
+            }
+            ajustar(saturado);
+        } catch (RuntimeException e) {
+            log.warn("Falha ao medir os pools de conexões", e);
+        }
+    }
+
+    private boolean saturado(Pool pool, long agora) {
+        HikariPoolMXBean mxBean = pool.dataSource.getHikariPoolMXBean();
+        if (mxBean == null) {
+            return false; // Pool ainda não iniciado.
+        }
+        if (pool.esperaConexao == null && registry != null) {
+            pool.esperaConexao = registry.find("hikaricp.connections.acquire").tag("pool", pool.dataSource.getPoolName()).timer();
+        }
+        boolean esperaMediaAcima = false;
+        if (pool.esperaConexao != null) {
+            long entregues = pool.esperaConexao.count();
+            double esperaTotal = pool.esperaConexao.totalTime(TimeUnit.NANOSECONDS);
+            if (entregues > pool.entreguesAnteriores) {
+                double esperaMedia = (esperaTotal - pool.esperaTotalAnteriorNanos) / (entregues - pool.entreguesAnteriores);
+                esperaMediaAcima = esperaMedia > esperaLimiteNanos;
+                pool.ultimaEntrega = agora;
+            }
+            pool.entreguesAnteriores = entregues;
+            pool.esperaTotalAnteriorNanos = esperaTotal;
+        }
+        // Sem o timer (métricas desligadas) ou com o pool travado, a fila de espera parada também indica saturação.
+        boolean filaParada = mxBean.getThreadsAwaitingConnection() > 0
+                && (pool.esperaConexao == null || agora - pool.ultimaEntrega > esperaLimiteNanos);
+        return esperaMediaAcima || filaParada;
+    }
+}
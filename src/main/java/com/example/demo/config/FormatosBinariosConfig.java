@@ -0,0 +1,62 @@
+package com.example.demo.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Formatos binários para os corpos que hoje são JSON: Smile (application/x-jackson-smile) e CBOR (application/cbor).
+ * Os conversores entram na lista de conversores do Spring MVC, então qualquer endpoint que devolve ou recebe
+ * um objeto via Jackson passa a aceitá-los pelo Accept/Content-Type, sem mudar o controller.
+ * JSON continua sendo o padrão: os conversores binários ficam depois do de JSON, e só são escolhidos quando
+ * o cliente pede um desses formatos explicitamente.
+ * A compressão gzip das respostas é feita pelo Tomcat (server.compression.* no application.properties).
+ */
+@Configuration
+public class FormatosBinariosConfig implements WebMvcConfigurer {
+
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+    public static final MediaType APPLICATION_CBOR = MediaType.APPLICATION_CBOR;
+
+    /**
+     * O builder injetado é o do Spring Boot (um novo a cada injeção), com os mesmos módulos e opções
+     * do ObjectMapper de JSON: datas, campos nulos e afins saem iguais nos três formatos.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Como o corpo dos controllers agora depende do Accept, as respostas informam isso a caches intermediários.
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                if (handler instanceof HandlerMethod) {
+                    response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                }
+                return true;
+            }
+        });
+    }
+}
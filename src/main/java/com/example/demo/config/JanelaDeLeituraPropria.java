@@ -0,0 +1,79 @@
+package com.example.demo.config;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Garante que um usuário leia as próprias escritas mesmo com réplicas atrasadas.
+ * Registrado como TransactionExecutionListener (o Spring Boot o aplica ao gerenciador de transações):
+ * a cada commit de uma transação de escrita feita por um usuário autenticado, guarda o instante do commit;
+ * durante a janela seguinte, as leituras desse usuário vão para o primário (ver ReplicasDataSource).
+ * Limites:
+ * - Os registros ficam na memória de cada instância da aplicação: uma leitura atendida por outra instância
+ *   não sabe da escrita e pode ir para uma réplica atrasada. Com mais de uma instância, a garantia depende
+ *   de o balanceador manter cada usuário na mesma instância durante a janela.
+ * - Só as transações que rodam com o usuário no SecurityContext são registradas sozinhas; quem grava em outra
+ *   thread (ex: a thread de escrita do IngestaoProdutosService) chama registrarEscrita na thread da requisição.
+ */
+public class JanelaDeLeituraPropria implements TransactionExecutionListener {
+
+    private final long janelaNanos;
+
+    // Login -> instante (System.nanoTime) do último commit de escrita do usuário.
+    private final Map<String, Long> ultimaEscrita = new ConcurrentHashMap<>();
+
+    /**
+     * @param janelaMs Duração da janela; deve cobrir o atraso máximo esperado das réplicas.
+     */
+    public JanelaDeLeituraPropria(long janelaMs) {
+        this.janelaNanos = TimeUnit.MILLISECONDS.toNanos(janelaMs);
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transacao, Throwable falha) {
+        if (falha == null && !transacao.isReadOnly()) {
+            registrarEscrita();
+        }
+    }
+
+    /**
+     * Abre a janela do usuário da thread atual a partir de agora (chamado depois do commit da escrita).
+     */
+    public void registrarEscrita() {
+        String login = usuarioAtual();
+        if (login != null) {
+            ultimaEscrita.put(login, System.nanoTime());
+        }
+    }
+
+    /**
+     * @return true se o usuário da thread atual confirmou uma escrita há menos que a janela.
+     */
+    public boolean isDentroDaJanela() {
+        if (ultimaEscrita.isEmpty()) {
+            return false;
+        }
+        String login = usuarioAtual();
+        Long escrita = login != null ? ultimaEscrita.get(login) : null;
+        return escrita != null && System.nanoTime() - escrita < janelaNanos;
+    }
+
+    /**
+     * Remove os registros cuja janela já terminou.
+     */
+    public void limparExpirados() {
+        long agora = System.nanoTime();
+        ultimaEscrita.values().removeIf(escrita -> agora - escrita >= janelaNanos);
+    }
+
+    private static String usuarioAtual() {
+        Authentication autenticacao = SecurityContextHolder.getContext().getAuthentication();
+        return autenticacao != null && autenticacao.isAuthenticated() ? autenticacao.getName() : null;
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limite de requisições por usuário autenticado (login), aplicado pelo SecurityFilter logo após a validação do token.
+ * Cada usuário tem um balde de tokens por rota configurada, mais um balde para as demais rotas. O balde é mantido
+ * como no GCRA ("generic cell rate algorithm"): em vez de um saldo e um relógio de reposição, guarda apenas o instante
+ * teórico em que o balde estaria cheio de novo, e cada requisição o avança com um único CAS, sem locks.
+ * Os baldes de um usuário ficam juntos em um AtomicLongArray, e os usuários em um ConcurrentHashMap: requisições
+ * de usuários diferentes não disputam nada além da leitura do mapa.
+ * Usuários cujos baldes já se encheram de novo são descartados quando o mapa atinge o tamanho máximo;
+ * um balde cheio e um balde novo são equivalentes, então o descarte não muda o limite de ninguém.
+ */
+@Component
+public class LimiteDeRequisicoes {
+
+    // Valor inicial dos baldes: qualquer instante é posterior a ele (balde cheio).
+    private static final long CHEIO = Long.MIN_VALUE;
+
+    /**
+     * Uma rota com limite próprio; 'metodo' e 'padrao' nulos = as demais rotas.
+     * @param intervaloNanos Intervalo entre requisições no ritmo sustentado (1 / requisições por segundo).
+     * @param toleranciaNanos Quanto o balde pode adiantar em relação ao relógio (intervalo * rajada).
+     */
+    private record Rota(String metodo, PathPattern padrao, long intervaloNanos, long toleranciaNanos) {
+
+        boolean atende(String metodo, PathContainer caminho) {
+            return (this.metodo == null || this.metodo.equals(metodo)) && padrao.matches(caminho);
+        }
+    }
+
+    private final boolean habilitado;
+    private final Rota[] rotas; // A última é a padrão.
+    private final int maxUsuarios;
+    private final Map<String, AtomicLongArray> baldesPorLogin = new ConcurrentHashMap<>();
+
+    // Requisições recusadas por exceder o limite.
+    private final LongAdder recusadas = new LongAdder();
+
+    /**
+     * @param habilitado Se o limite é aplicado.
+     * @param porSegundo Requisições por segundo sustentadas por usuário nas rotas sem limite próprio.
+     * @param rajada Requisições seguidas aceitas de um usuário que estava parado.
+     * @param rotas Limites próprios, no formato "[MÉTODO] /padrao/**=porSegundo/rajada"; vale a primeira que atender.
+     * @param maxUsuarios Quantidade de usuários acompanhados antes de descartar os que estão com os baldes cheios.
+     */
+    @Autowired
+    public LimiteDeRequisicoes(@Value("${api.security.rate-limit.enabled:true}") boolean habilitado,
+                               @Value("${api.security.rate-limit.per-second:50}") double porSegundo,
+                               @Value("${api.security.rate-limit.burst:100}") int rajada,
+                               @Value("${api.security.rate-limit.routes:}") List<String> rotas,
+                               @Value("${api.security.rate-limit.max-users:100000}") int maxUsuarios) {
+        this.habilitado = habilitado;
+        this.maxUsuarios = maxUsuarios;
+        List<Rota> configuradas = new ArrayList<>();
+        for (String rota : rotas) {
+            if (!rota.isBlank()) {
+                configuradas.add(lerRota(rota.trim()));
+            }
+        }
+        configuradas.add(rota(null, null, porSegundo, rajada));
+        this.rotas = configuradas.toArray(Rota[]::new);
+    }
+
+    /**
+     * Consome uma requisição do balde do usuário para a rota.
+     * @param login O login do usuário autenticado.
+     * @param metodo O método HTTP.
+     * @param caminho O caminho da requisição, sem o context path.
+     * @return 0 se a requisição está dentro do limite; senão, quantos nanossegundos faltam para a próxima ser aceita.
+     */
+    public long consumir(String login, String metodo, String caminho) {
+        if (!habilitado) {
+            return 0;
+        }
+        int indice = indiceDaRota(metodo, caminho);
+        Rota rota = rotas[indice];
+        long agora = System.nanoTime();
+        AtomicLongArray baldes = baldes(login);
+        while (true) {
+            long cheioEm = baldes.get(indice);
+            long novoCheioEm = Math.max(cheioEm, agora) + rota.intervaloNanos();
+            long excesso = novoCheioEm - agora - rota.toleranciaNanos();
+            if (excesso > 0) {
+                recusadas.increment();
+                return excesso;
+            }
+            if (baldes.compareAndSet(indice, cheioEm, novoCheioEm)) {
+                return 0;
+            }
+        }
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public long getRecusadas() {
+        return recusadas.sum();
+    }
+
+    public int getUsuarios() {
+        return baldesPorLogin.size();
+    }
+
+    // Só percorre os padrões quando há rotas com limite próprio.
+    private int indiceDaRota(String metodo, String caminho) {
+        if (rotas.length == 1) {
+            return 0;
+        }
+        PathContainer container = PathContainer.parsePath(caminho);
+        for (int i = 0; i < rotas.length - 1; i++) {
+            if (rotas[i].atende(metodo, container)) {
+                return i;
+            }
+        }
+        return rotas.length - 1;
+    }
+
+    private AtomicLongArray baldes(String login) {
+        AtomicLongArray baldes = baldesPorLogin.get(login);
+        if (baldes != null) {
+            return baldes;
+        }
+        if (baldesPorLogin.size() >= maxUsuarios) {
+            descartarBaldesCheios();
+        }
+        return baldesPorLogin.computeIfAbsent(login, chave -> {
+            long[] iniciais = new long[rotas.length];
+            Arrays.fill(iniciais, CHEIO);
+            return new AtomicLongArray(iniciais);
+        });
+    }
+
+    // Remove os usuários com todos os baldes cheios; se não bastar, remove usuários quaisquer (que perdem o histórico).
+    private void descartarBaldesCheios() {
+        long agora = System.nanoTime();
+        baldesPorLogin.values().removeIf(baldes -> {
+            for (int i = 0; i < baldes.length(); i++) {
+                if (baldes.get(i) > agora) {
+                    return false;
+                }
+            }
+            return true;
+        });
+        Iterator<String> logins = baldesPorLogin.keySet().iterator();
+        while (baldesPorLogin.size() >= maxUsuarios * 9 / 10 && logins.hasNext()) {
+            logins.next();
+            logins.remove();
+        }
+    }
+
+    // "POST /produtos/batch=2/5" ou "/produtos/export/**=1/2" (qualquer método).
+    private static Rota lerRota(String definicao) {
+        int igual = definicao.lastIndexOf('=');
+        int barra = definicao.indexOf('/', igual);
+        if (igual < 0 || barra < 0) {
+            throw new IllegalArgumentException("Limite de rota inválido (esperado '[MÉTODO] /caminho=porSegundo/rajada'): " + definicao);
+        }
+        String[] rota = definicao.substring(0, igual).trim().split("\\s+");
+        String metodo = rota.length > 1 ? rota[0].toUpperCase() : null;
+        PathPattern padrao = PathPatternParser.defaultInstance.parse(rota[rota.length - 1]);
+        return rota(metodo, padrao, Double.parseDouble(definicao.substring(igual + 1, barra).trim()),
+                Integer.parseInt(definicao.substring(barra + 1).trim()));
+    }
+
+    private static Rota rota(String metodo, PathPattern padrao, double porSegundo, int rajada) {
+        if (porSegundo <= 0 || rajada < 1) {
+            throw new IllegalArgumentException("O limite precisa de porSegundo > 0 e rajada >= 1");
+        }
+        long intervalo = (long) (TimeUnit.SECONDS.toNanos(1) / porSegundo);
+        return new Rota(metodo, padrao, intervalo, intervalo * rajada);
+    }
+}
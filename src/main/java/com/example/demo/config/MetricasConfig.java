@@ -0,0 +1,204 @@
+package com.example.demo.config;
+
+import com.example.demo.models.Modelo_Produto;
+import com.example.demo.models.Usuario;
+import com.example.demo.repository.ProdutoPaginacao;
+import com.example.demo.repository.UsuarioRepository;
+import com.example.demo.service.IngestaoProdutosService;
+import com.example.demo.service.ProdutoFeedService;
+import com.example.demo.service.ProdutoResponseCache;
+import com.example.demo.service.ProdutoSearchIndex;
+import com.example.demo.service.ProdutoSingleFlight;
+import com.example.demo.service.ReservaEstoqueService;
+import com.example.demo.service.TokenService;
+import com.example.demo.service.UsuarioPrincipalCache;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Métricas da aplicação além das que o Spring Boot já publica
+ * (http.server.requests, spring.data.repository.invocations, hikaricp.*, hibernate.*, jvm.*).
+ * Os contadores internos (LongAdder) são apenas lidos na coleta: nada é feito a mais no caminho das requisições.
+ */
+@Configuration
+public class MetricasConfig {
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private UsuarioPrincipalCache principalCache;
+
+    @Autowired
+    private PasswordEncoderIsolado passwordEncoder;
+
+    @Autowired
+    private LimiteDeRequisicoes limiteDeRequisicoes;
+
+    @Autowired
+    private DescarteDeCarga descarteDeCarga;
+
+    @Autowired
+    private ProdutoResponseCache respostaCache;
+
+    @Autowired
+    private ProdutoSearchIndex searchIndex;
+
+    @Autowired
+    private ReservaEstoqueService reservaEstoque;
+
+    @Autowired
+    private IngestaoProdutosService ingestao;
+
+    @Autowired
+    private ProdutoFeedService feed;
+
+    @Autowired
+    private ProdutoSingleFlight singleFlight;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Habilita a anotação @Timed (nos métodos de Modelo_ProdutoService e ProdutoExportService).
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public MeterBinder metricasDeAutenticacao() {
+        return registry -> {
+            FunctionCounter.builder("api.security.jwt.cache.acertos", tokenService, TokenService::getAcertosCache)
+                    .description("Validações de token respondidas pelo cache").register(registry);
+            FunctionCounter.builder("api.security.jwt.verificacoes", tokenService, TokenService::getVerificacoesAssinatura)
+                    .description("Verificações completas de assinatura JWT").register(registry);
+            FunctionCounter.builder("api.security.jwt.recusados", tokenService, TokenService::getTokensRecusados)
+                    .description("Tokens inválidos ou expirados").register(registry);
+            Gauge.builder("api.security.jwt.cache.tamanho", tokenService, TokenService::getTamanhoCache)
+                    .register(registry);
+
+            FunctionCounter.builder("api.security.usuarios.consultas", principalCache, UsuarioPrincipalCache::getConsultasAoBanco)
+                    .description("Consultas ao banco para carregar o usuário autenticado").register(registry);
+            FunctionCounter.builder("api.security.usuarios.consultas.evitadas", principalCache, UsuarioPrincipalCache::getConsultasEvitadasPorCache)
+                    .tag("origem", "cache").description("Consultas ao banco evitadas").register(registry);
+            FunctionCounter.builder("api.security.usuarios.consultas.evitadas", principalCache, UsuarioPrincipalCache::getConsultasEvitadasPorClaims)
+                    .tag("origem", "claims").description("Consultas ao banco evitadas").register(registry);
+
+            FunctionCounter.builder("api.security.senhas.rejeitadas", passwordEncoder, PasswordEncoderIsolado::getRejeicoes)
+                    .description("Operações de hash recusadas com 503 por fila cheia").register(registry);
+            Gauge.builder("api.security.senhas.fila", passwordEncoder, PasswordEncoderIsolado::getTamanhoFila)
+                    .description("Operações de hash aguardando uma thread do pool").register(registry);
+
+            FunctionCounter.builder("api.security.limite.recusadas", limiteDeRequisicoes, LimiteDeRequisicoes::getRecusadas)
+                    .description("Requisições recusadas com 429 pelo limite do usuário").register(registry);
+            Gauge.builder("api.security.limite.usuarios", limiteDeRequisicoes, LimiteDeRequisicoes::getUsuarios)
+                    .description("Usuários com baldes de limite em memória").register(registry);
+            FunctionCounter.builder("api.security.sobrecarga.descartadas", descarteDeCarga, DescarteDeCarga::getDescartadas)
+                    .description("Requisições recusadas com 503 pelo descarte de carga").register(registry);
+            Gauge.builder("api.security.sobrecarga.fracao", descarteDeCarga, DescarteDeCarga::getFracao)
+                    .description("Fração das requisições sendo descartadas").register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder metricasDeProdutos() {
+        return registry -> {
+            FunctionCounter.builder("produtos.cache.acertos", respostaCache, ProdutoResponseCache::getAcertos).register(registry);
+            FunctionCounter.builder("produtos.cache.faltas", respostaCache, ProdutoResponseCache::getFaltas).register(registry);
+            FunctionCounter.builder("produtos.cache.remocoes", respostaCache, ProdutoResponseCache::getRemocoes)
+                    .description("Entradas removidas por falta de espaço").register(registry);
+            FunctionCounter.builder("produtos.cache.expiracoes", respostaCache, ProdutoResponseCache::getExpiracoes)
+                    .description("Entradas removidas ao completar o tempo de vida").register(registry);
+            FunctionCounter.builder("produtos.cache.invalidacoes", respostaCache, ProdutoResponseCache::getInvalidacoes).register(registry);
+            Gauge.builder("produtos.cache.bytes", respostaCache, ProdutoResponseCache::getBytesOcupados)
+                    .baseUnit("bytes").register(registry);
+
+            Gauge.builder("produtos.busca.indice.tamanho", searchIndex, ProdutoSearchIndex::tamanho)
+                    .description("Produtos no índice de busca por nome").register(registry);
+            Gauge.builder("produtos.busca.indice.pronto", searchIndex, indice -> indice.isPronto() ? 1 : 0)
+                    .register(registry);
+
+            Gauge.builder("estoque.reservas.ativas", reservaEstoque, ReservaEstoqueService::getReservasAtivas).register(registry);
+            FunctionCounter.builder("estoque.reservas.recusadas", reservaEstoque, ReservaEstoqueService::getReservasRecusadas)
+                    .description("Reservas recusadas por estoque insuficiente").register(registry);
+            FunctionCounter.builder("estoque.reservas.expiradas", reservaEstoque, ReservaEstoqueService::getReservasExpiradas).register(registry);
+            FunctionCounter.builder("estoque.baixas", reservaEstoque, ReservaEstoqueService::getBaixasConfirmadas)
+                    .tag("resultado", "gravada").register(registry);
+            FunctionCounter.builder("estoque.baixas", reservaEstoque, ReservaEstoqueService::getBaixasRecusadas)
+                    .tag("resultado", "recusada").description("Confirmações recusadas pela condição do UPDATE").register(registry);
+            FunctionCounter.builder("estoque.baixas.comandos", reservaEstoque, ReservaEstoqueService::getComandosDeBaixa)
+                    .description("UPDATEs de estoque executados (as baixas do mesmo produto em um lote viram um só)").register(registry);
+            FunctionCounter.builder("estoque.baixas.lotes", reservaEstoque, ReservaEstoqueService::getLotesGravados).register(registry);
+            Gauge.builder("estoque.baixas.fila", reservaEstoque, ReservaEstoqueService::getTamanhoFila).register(registry);
+
+            FunctionCounter.builder("produtos.ingestao.produtos", ingestao, IngestaoProdutosService::getProdutosGravados)
+                    .tag("resultado", "gravado").register(registry);
+            FunctionCounter.builder("produtos.ingestao.produtos", ingestao, IngestaoProdutosService::getProdutosRecusados)
+                    .tag("resultado", "recusado").description("Produtos recusados pelo banco").register(registry);
+            FunctionCounter.builder("produtos.ingestao.fila.cheia", ingestao, IngestaoProdutosService::getCriacoesSemEspacoNaFila)
+                    .description("Criações recusadas com 503 por falta de espaço na fila").register(registry);
+            FunctionCounter.builder("produtos.ingestao.lotes", ingestao, IngestaoProdutosService::getLotesGravados)
+                    .description("Transações (commits) de lotes de criação").register(registry);
+            Gauge.builder("produtos.ingestao.fila", ingestao, IngestaoProdutosService::getTamanhoFila).register(registry);
+
+            Gauge.builder("produtos.feed.assinantes", feed, ProdutoFeedService::getAssinantes)
+                    .description("Conexões abertas em GET /produtos/stream").register(registry);
+            FunctionCounter.builder("produtos.feed.eventos", feed, ProdutoFeedService::getEventosPublicados).register(registry);
+            FunctionCounter.builder("produtos.feed.desconexoes", feed, ProdutoFeedService::getDesconectadosPorLentidao)
+                    .description("Assinantes desconectados por encher o buffer ou por uma escrita acima do tempo máximo").register(registry);
+            Gauge.builder("produtos.feed.envios-travados", feed, ProdutoFeedService::getEnviosTravados)
+                    .description("Threads de envio presas em escritas acima do tempo máximo").register(registry);
+            FunctionCounter.builder("produtos.feed.recusas", feed, ProdutoFeedService::getAssinaturasRecusadas)
+                    .description("Conexões recusadas pelo limite de assinantes").register(registry);
+
+            FunctionCounter.builder("produtos.consultas.coalescidas", singleFlight, ProdutoSingleFlight::getConsultasExecutadas)
+                    .tag("resultado", "executada").description("Leituras que consultaram o banco").register(registry);
+            FunctionCounter.builder("produtos.consultas.coalescidas", singleFlight, ProdutoSingleFlight::getConsultasCompartilhadas)
+                    .tag("resultado", "compartilhada").description("Leituras que receberam a consulta de outra requisição").register(registry);
+            FunctionCounter.builder("produtos.consultas.coalescidas.esperas.esgotadas", singleFlight, ProdutoSingleFlight::getEsperasEsgotadas)
+                    .description("Leituras recusadas com 503 por esperar demais a consulta de outra requisição").register(registry);
+        };
+    }
+
+    /**
+     * Taxa de acertos de cada região do cache de segundo nível do Hibernate (entidades e consultas).
+     * As contagens de acertos e faltas já são publicadas pelo hibernate-micrometer ('hibernate.second.level.cache.requests'
+     * e 'hibernate.cache.query.requests'); aqui fica a razão pronta, acumulada desde a subida da aplicação.
+     */
+    @Bean
+    public MeterBinder metricasDoCacheDeSegundoNivel() {
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return registry -> {
+            for (String regiao : List.of(Modelo_Produto.REGIAO_CACHE, Usuario.REGIAO_CACHE,
+                    ProdutoPaginacao.REGIAO_CONSULTAS, UsuarioRepository.REGIAO_CONSULTAS)) {
+                Gauge.builder("hibernate.cache.taxa.acertos", estatisticas, e -> taxaDeAcertos(e, regiao))
+                        .tag("regiao", regiao).description("Acertos / (acertos + faltas) da região").register(registry);
+            }
+        };
+    }
+
+    // NaN enquanto a região não foi usada (as regiões de consultas só são criadas na primeira consulta).
+    private static double taxaDeAcertos(Statistics estatisticas, String regiao) {
+        CacheRegionStatistics regiaoEstatisticas = estatisticas.getCacheRegionStatistics(regiao);
+        if (regiaoEstatisticas == null) {
+            return Double.NaN;
+        }
+        long acertos = regiaoEstatisticas.getHitCount();
+        long total = acertos + regiaoEstatisticas.getMissCount();
+        return total == 0 ? Double.NaN : (double) acertos / total;
+    }
+}
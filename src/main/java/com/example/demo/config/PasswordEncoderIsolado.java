@@ -0,0 +1,95 @@
+package com.example.demo.config;
+
+import com.example.demo.service.exceptions.ServiceUnavailableException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PasswordEncoder que executa o hashing (BCrypt) em um pool de threads dedicado e limitado.
+ * O BCrypt é propositalmente caro em CPU: executado nas threads do Tomcat, um pico de logins
+ * ocupa todos os workers e trava os endpoints de produtos. Aqui, no máximo um hash por núcleo
+ * roda ao mesmo tempo; quando a fila enche, a requisição é recusada na hora com 503.
+ * Com threads virtuais habilitadas, o pool também mantém esse trabalho de CPU fora das carrier threads.
+ */
+public class PasswordEncoderIsolado implements PasswordEncoder, DisposableBean {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+
+    // Quantidade de operações recusadas por fila cheia.
+    private final LongAdder rejeicoes = new LongAdder();
+
+    /**
+     * @param delegate O encoder que faz o trabalho de fato (BCryptPasswordEncoder).
+     * @param threads Quantidade de threads do pool (normalmente o número de núcleos).
+     * @param capacidadeFila Quantidade máxima de operações aguardando uma thread livre.
+     */
+    public PasswordEncoderIsolado(PasswordEncoder delegate, int threads, int capacidadeFila) {
+        this.delegate = delegate;
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadeFila),
+                tarefa -> {
+                    Thread thread = new Thread(tarefa, "password-hash-" + contador.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()); // Fila cheia: lança RejectedExecutionException.
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return executar(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return executar(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    // Não calcula hash: só compara o custo do hash armazenado com o configurado, pode rodar na thread atual.
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public long getRejeicoes() {
+        return rejeicoes.sum();
+    }
+
+    public int getTamanhoFila() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    // Submete a operação ao pool e aguarda o resultado. A espera é limitada pelo tamanho da fila.
+    private <T> T executar(Callable<T> operacao) {
+        try {
+            return executor.submit(operacao).get();
+        } catch (RejectedExecutionException e) {
+            rejeicoes.increment();
+            throw new ServiceUnavailableException("Servidor ocupado processando logins. Tente novamente em instantes.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Operação de senha interrompida.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.demo.config;
+
+import com.example.demo.service.ProdutoResponseCache;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Filtro que serve as leituras de produtos (GET /produtos e GET /produtos/{id}) a partir do ProdutoResponseCache.
+ * Como é registrado com a ordem padrão (a última), roda depois da cadeia do Spring Security:
+ * somente requisições já autenticadas chegam ao cache.
+ * Em um acerto, escreve os bytes armazenados sem passar pelo controller; em uma falta, captura o corpo gerado.
+ */
+@Component
+public class ProdutoResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final String PREFIXO = "/produtos";
+    // Marcador de 'tipoDeRecurso' para a listagem (que não pertence a um único produto).
+    private static final Long LISTAGEM = -1L;
+    private static final List<MediaType> FORMATOS_CACHEAVEIS = List.of(
+            MediaType.APPLICATION_JSON, FormatosBinariosConfig.APPLICATION_SMILE, FormatosBinariosConfig.APPLICATION_CBOR);
+
+    @Autowired
+    private ProdutoResponseCache cache;
+
+    /**
+     * Só participam do cache os GETs da listagem e de um produto por id.
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !cache.isHabilitado() || !"GET".equals(request.getMethod()) || tipoDeRecurso(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String chave = chave(request);
+        ProdutoResponseCache.Entrada entrada = cache.get(chave);
+        if (entrada != null) {
+            escrever(request, response, entrada);
+            return;
+        }
+
+        // Falta: gera a resposta normalmente, guardando o corpo em memória para poder armazená-lo.
+        long geracao = cache.geracao();
+        Set<String> cabecalhosAnteriores = new HashSet<>(response.getHeaderNames());
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK && isCacheavel(wrapper.getContentType())) {
+            byte[] corpo = wrapper.getContentAsByteArray();
+            // Guarda apenas os cabeçalhos definidos pelo controller (os de segurança são reescritos a cada requisição).
+            Map<String, String> cabecalhos = new LinkedHashMap<>();
+            for (String nome : wrapper.getHeaderNames()) {
+                if (!cabecalhosAnteriores.contains(nome) && !HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(nome)
+                        && !HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(nome) && !HttpHeaders.ETAG.equalsIgnoreCase(nome)) {
+                    cabecalhos.put(nome, wrapper.getHeader(nome));
+                }
+            }
+            // Reaproveita o ETag do controller (baseado na versão), para que seja o mesmo com ou sem o cache;
+            // o hash do corpo fica só como alternativa para respostas sem ETag.
+            String etag = wrapper.getHeader(HttpHeaders.ETAG);
+            if (etag == null) {
+                etag = "\"" + DigestUtils.md5DigestAsHex(corpo) + "\"";
+            }
+            Long recurso = tipoDeRecurso(request);
+            cache.put(chave, LISTAGEM.equals(recurso) ? null : recurso, new ProdutoResponseCache.Entrada(corpo, etag, wrapper.getContentType(), cabecalhos), geracao);
+            wrapper.setHeader(HttpHeaders.ETAG, etag);
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    // Escreve uma resposta armazenada (ou 304, se o cliente já tiver a mesma versão).
+    private static void escrever(HttpServletRequest request, HttpServletResponse response, ProdutoResponseCache.Entrada entrada) throws IOException {
+        response.setHeader(HttpHeaders.ETAG, entrada.etag());
+        entrada.cabecalhos().forEach(response::setHeader);
+        // checkNotModified segue as regras do If-None-Match: lista de ETags, "*" e comparação fraca (W/"...").
+        if (new ServletWebRequest(request, response).checkNotModified(entrada.etag())) {
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(entrada.contentType());
+        response.setContentLength(entrada.corpo().length);
+        response.getOutputStream().write(entrada.corpo());
+    }
+
+    // A chave inclui a query string e o Accept, pois ambos mudam o corpo da resposta.
+    private static String chave(HttpServletRequest request) {
+        String query = request.getQueryString();
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return request.getRequestURI() + (query == null ? "" : "?" + query) + "|" + (accept == null ? "" : accept);
+    }
+
+    /**
+     * Identifica o recurso: o id do produto para /produtos/{id}, -1 para a listagem /produtos
+     * ou nulo para os demais caminhos (que não são cacheados).
+     */
+    private static Long tipoDeRecurso(HttpServletRequest request) {
+        String caminho = request.getRequestURI().substring(request.getContextPath().length());
+        if (caminho.equals(PREFIXO) || caminho.equals(PREFIXO + "/")) {
+            return LISTAGEM;
+        }
+        if (caminho.startsWith(PREFIXO + "/")) {
+            String id = caminho.substring(PREFIXO.length() + 1);
+            if (!id.isEmpty() && id.length() < 19 && id.chars().allMatch(Character::isDigit)) {
+                return Long.valueOf(id);
+            }
+        }
+        return null;
+    }
+
+    // JSON e os formatos binários (ver FormatosBinariosConfig); a chave já separa as respostas pelo Accept.
+    private static boolean isCacheavel(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        MediaType tipo = MediaType.parseMediaType(contentType);
+        return FORMATOS_CACHEAVEIS.stream().anyMatch(formato -> formato.isCompatibleWith(tipo));
+    }
+}
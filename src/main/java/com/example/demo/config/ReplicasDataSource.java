@@ -0,0 +1,202 @@
+package com.example.demo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DataSource das transações somente leitura: entrega conexões de um dos pools de réplica.
+ * Cada leitura vai para uma réplica disponível, escolhida em rodízio ou pela que tem menos conexões
+ * em uso e à espera. Quando nenhuma réplica responde, ou o usuário está na janela de leitura da própria
+ * escrita (ver JanelaDeLeituraPropria), a conexão vem do primário.
+ * Uma réplica que falha ao entregar uma conexão sai do rodízio na hora; uma verificação periódica
+ * ('select 1' via Connection.isValid) a devolve quando volta a responder.
+ * É usado como 'readOnlyDataSource' do LazyConnectionDataSourceProxy (ver ReplicasDataSourceConfig).
+ */
+public class ReplicasDataSource extends AbstractDataSource implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicasDataSource.class);
+
+    public enum Balanceamento {
+        RODIZIO, MENOS_PENDENTES;
+
+        /**
+         * Converte o valor da propriedade ('rodizio' ou 'menos-pendentes').
+         */
+        public static Balanceamento of(String valor) {
+            return valueOf(valor.trim().toUpperCase().replace('-', '_'));
+        }
+    }
+
+    private static final class Replica {
+
+        private final HikariDataSource dataSource;
+        private volatile boolean disponivel = true;
+
+        private Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        // Conexões em uso mais requisições esperando uma conexão do pool.
+        private int pendentes() {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            return pool == null ? 0 : pool.getActiveConnections() + pool.getThreadsAwaitingConnection();
+        }
+    }
+
+    private final DataSource primario;
+    private final List<Replica> replicas;
+    private final Balanceamento balanceamento;
+    private final JanelaDeLeituraPropria janela;
+    private final AtomicInteger proxima = new AtomicInteger();
+    private final ScheduledExecutorService verificacao = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "datasource-replicas-verificacao");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Métricas.
+    private final LongAdder leiturasNaReplica = new LongAdder();
+    private final LongAdder leiturasPropriasNoPrimario = new LongAdder();
+    private final LongAdder leiturasSemReplicaNoPrimario = new LongAdder();
+
+    /**
+     * @param primario O pool do primário, usado quando nenhuma réplica pode atender.
+     * @param replicas Os pools das réplicas.
+     * @param balanceamento Como escolher a réplica de cada leitura.
+     * @param janela Janela de leitura da própria escrita.
+     * @param verificacaoMs Intervalo entre as verificações das réplicas.
+     */
+    public ReplicasDataSource(DataSource primario, List<HikariDataSource> replicas, Balanceamento balanceamento,
+                              JanelaDeLeituraPropria janela, long verificacaoMs) {
+        this.primario = primario;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.balanceamento = balanceamento;
+        this.janela = janela;
+        verificacao.scheduleWithFixedDelay(this::verificar, verificacaoMs, verificacaoMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (janela.isDentroDaJanela()) {
+            leiturasPropriasNoPrimario.increment();
+            return primario.getConnection();
+        }
+        int inicio = Math.floorMod(proxima.getAndIncrement(), replicas.size());
+        // Tenta as réplicas disponíveis, a partir da escolhida; as que falharem saem do rodízio.
+        for (int tentativa = 0; tentativa < replicas.size(); tentativa++) {
+            Replica replica = escolher(inicio);
+            if (replica == null) {
+                break;
+            }
+            try {
+                Connection conexao = replica.dataSource.getConnection();
+                leiturasNaReplica.increment();
+                return conexao;
+            } catch (SQLException e) {
+                marcarIndisponivel(replica, e);
+            }
+        }
+        leiturasSemReplicaNoPrimario.increment();
+        return primario.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // Como no HikariDataSource, que recusa credenciais diferentes das configuradas no pool.
+        throw new SQLFeatureNotSupportedException("As réplicas usam as credenciais configuradas nos pools");
+    }
+
+    public long getLeiturasNaReplica() {
+        return leiturasNaReplica.sum();
+    }
+
+    public long getLeiturasPropriasNoPrimario() {
+        return leiturasPropriasNoPrimario.sum();
+    }
+
+    public long getLeiturasSemReplicaNoPrimario() {
+        return leiturasSemReplicaNoPrimario.sum();
+    }
+
+    public int getReplicasDisponiveis() {
+        return (int) replicas.stream().filter(replica -> replica.disponivel).count();
+    }
+
+    /**
+     * Os pools das réplicas. Não são beans (são criados em ReplicasDataSourceConfig), então quem precisa
+     * acompanhá-los (ex: o DescarteDeCarga) os obtém por aqui.
+     */
+    public List<HikariDataSource> getPools() {
+        return replicas.stream().map(replica -> replica.dataSource).toList();
+    }
+
+    @Override
+    public void destroy() {
+        verificacao.shutdownNow();
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    // A réplica disponível a partir de 'inicio' (rodízio) ou a com menos pendentes (empates ficam com a do rodízio).
+    private Replica escolher(int inicio) {
+        Replica escolhida = null;
+        int menorPendentes = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((inicio + i) % replicas.size());
+            if (!replica.disponivel) {
+                continue;
+            }
+            if (balanceamento == Balanceamento.RODIZIO) {
+                return replica;
+            }
+            int pendentes = replica.pendentes();
+            if (pendentes < menorPendentes) {
+                escolhida = replica;
+                menorPendentes = pendentes;
+            }
+        }
+        return escolhida;
+    }
+
+    private void marcarIndisponivel(Replica replica, Exception causa) {
+        if (replica.disponivel) {
+            replica.disponivel = false;
+            log.warn("Réplica {} indisponível; leituras seguem para as demais réplicas ou para o primário: {}",
+                    replica.dataSource.getPoolName(), causa.getMessage());
+        }
+    }
+
+    // Roda na thread de verificação: testa cada réplica e limpa a janela de leitura própria.
+    private void verificar() {
+        for (Replica replica : replicas) {
+            try (Connection conexao = replica.dataSource.getConnection()) {
+                if (!conexao.isValid(1)) {
+                    // Conexões devolvidas há pouco não são revalidadas pelo Hikari: descarta esta para que a próxima seja nova.
+                    replica.dataSource.evictConnection(conexao);
+                    throw new SQLException("conexão inválida");
+                }
+                if (!replica.disponivel) {
+                    replica.disponivel = true;
+                    log.info("Réplica {} voltou a responder", replica.dataSource.getPoolName());
+                }
+            } catch (SQLException | RuntimeException e) {
+                marcarIndisponivel(replica, e);
+            }
+        }
+        janela.limparExpirados();
+    }
+}
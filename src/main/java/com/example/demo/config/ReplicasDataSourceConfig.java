@@ -0,0 +1,110 @@
+package com.example.demo.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Separa leituras e escritas: transações somente leitura (@Transactional(readOnly = true)) usam as réplicas,
+ * todas as demais usam o primário. Só é ativada quando 'datasource.replicas.urls' está definida;
+ * sem ela, o Spring Boot cria o DataSource do primário normalmente.
+ * O DataSource da aplicação é um LazyConnectionDataSourceProxy: a conexão física só é obtida no primeiro comando,
+ * quando o gerenciador de transações já marcou a conexão como somente leitura. Por isso ele consegue escolher
+ * entre o primário e o ReplicasDataSource.
+ */
+@Configuration
+@ConditionalOnProperty("datasource.replicas.urls")
+public class ReplicasDataSourceConfig {
+
+    /**
+     * O pool do primário, com as mesmas propriedades do pool criado pelo Spring Boot (spring.datasource.*).
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimario(DataSourceProperties propriedades) {
+        return propriedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public JanelaDeLeituraPropria janelaDeLeituraPropria(@Value("${datasource.replicas.atraso-maximo-ms:2000}") long atrasoMaximoMs) {
+        return new JanelaDeLeituraPropria(atrasoMaximoMs);
+    }
+
+    /**
+     * Um pool por réplica, com o mesmo driver e credenciais do primário (a menos que configuradas à parte).
+     * Os pools sobem mesmo com a réplica fora do ar: ela apenas começa fora do rodízio.
+     */
+    @Bean
+    public ReplicasDataSource dataSourceReplicas(HikariDataSource dataSourcePrimario, DataSourceProperties propriedades,
+                                                 JanelaDeLeituraPropria janela, ObjectProvider<MeterRegistry> meterRegistry,
+                                                 @Value("${datasource.replicas.urls}") List<String> urls,
+                                                 @Value("${datasource.replicas.username:${spring.datasource.username:}}") String usuario,
+                                                 @Value("${datasource.replicas.password:${spring.datasource.password:}}") String senha,
+                                                 @Value("${datasource.replicas.maximum-pool-size:0}") int tamanhoPool,
+                                                 @Value("${datasource.replicas.connection-timeout-ms:1000}") long esperaConexaoMs,
+                                                 @Value("${datasource.replicas.balanceamento:menos-pendentes}") String balanceamento,
+                                                 @Value("${datasource.replicas.verificacao-ms:5000}") long verificacaoMs) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (String url : urls) {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("replica-" + pools.size());
+            config.setJdbcUrl(url.trim());
+            config.setUsername(usuario);
+            config.setPassword(senha);
+            config.setDriverClassName(propriedades.determineDriverClassName());
+            config.setMaximumPoolSize(tamanhoPool > 0 ? tamanhoPool : dataSourcePrimario.getMaximumPoolSize());
+            // Uma réplica travada não segura a leitura: a espera é curta e a leitura segue para outra réplica ou o primário.
+            config.setConnectionTimeout(esperaConexaoMs);
+            config.setInitializationFailTimeout(-1);
+            config.setReadOnly(true);
+            if (registry != null) {
+                config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)); // hikaricp.* com pool=replica-N.
+            }
+            pools.add(new HikariDataSource(config));
+        }
+        return new ReplicasDataSource(dataSourcePrimario, pools, ReplicasDataSource.Balanceamento.of(balanceamento), janela, verificacaoMs);
+    }
+
+    /**
+     * O DataSource usado pelo JPA, pelo JdbcTemplate e pelas transações.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource dataSourcePrimario, ReplicasDataSource dataSourceReplicas) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(dataSourcePrimario);
+        dataSource.setReadOnlyDataSource(dataSourceReplicas);
+        return dataSource;
+    }
+
+    @Bean
+    public MeterBinder metricasDeReplicas(ReplicasDataSource replicas) {
+        return registry -> {
+            FunctionCounter.builder("datasource.leituras", replicas, ReplicasDataSource::getLeiturasNaReplica)
+                    .tag("destino", "replica").description("Conexões somente leitura entregues").register(registry);
+            FunctionCounter.builder("datasource.leituras", replicas, ReplicasDataSource::getLeiturasPropriasNoPrimario)
+                    .tag("destino", "primario-leitura-propria").description("Conexões somente leitura entregues").register(registry);
+            FunctionCounter.builder("datasource.leituras", replicas, ReplicasDataSource::getLeiturasSemReplicaNoPrimario)
+                    .tag("destino", "primario-sem-replica").description("Conexões somente leitura entregues").register(registry);
+            Gauge.builder("datasource.replicas.disponiveis", replicas, ReplicasDataSource::getReplicasDisponiveis)
+                    .register(registry);
+        };
+    }
+}
@@ -1,17 +1,19 @@
 package com.example.demo.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 /**
@@ -50,11 +52,22 @@ public class SecurityConfigurations {
                 
                 // Permite acesso público aos endpoints da documentação do Swagger/OpenAPI.
                 req.requestMatchers("/v3/api-docs/**", "/swagger-ui.html", "/swagger-ui/**").permitAll(); 
+
+                // Health check e coleta de métricas pelo Prometheus (sem token). Em produção, restrinja o acesso
+                // a esses caminhos na rede (ex: security group / ingress), pois expõem dados operacionais.
+                req.requestMatchers(HttpMethod.GET, "/actuator/health", "/actuator/prometheus").permitAll();
+
+                // Libera o dispatch ASYNC que finaliza respostas assíncronas (ex: a exportação em streaming).
+                // A requisição original já foi autorizada; como a API é stateless, o dispatch não teria o usuário no contexto.
+                req.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll();
                 
                 // Exige autenticação para todas as outras requisições.
                 req.anyRequest().authenticated();
             })
             
+            // Requisições sem token ou com token inválido/expirado recebem 401 (o padrão do Spring seria 403).
+            .exceptionHandling(ex -> ex.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+
             // 4. Adiciona nosso filtro personalizado (SecurityFilter) antes do filtro padrão do Spring.
             // Isso garante que nosso filtro de token seja executado primeiro para validar o JWT.
             .addFilterBefore(securityFilter, UsernamePasswordAuthenticationFilter.class)
@@ -77,10 +90,18 @@ public class SecurityConfigurations {
     /**
      * Define o algoritmo de codificação de senhas a ser usado na aplicação.
      * BCrypt é o padrão recomendado por ser forte e seguro.
+     * O hashing roda em um pool dedicado e limitado (ver PasswordEncoderIsolado), fora das threads do Tomcat.
+     * Senhas gravadas com um custo diferente do configurado são refeitas no próximo login (ver AutenticacaoService).
+     * @param custo o fator de custo do BCrypt (log2 das rodadas).
+     * @param threads quantidade de threads do pool; 0 usa o número de núcleos.
+     * @param capacidadeFila quantidade máxima de hashes aguardando; acima disso o login responde 503.
      * @return uma instância do PasswordEncoder.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoderIsolado passwordEncoder(@Value("${api.security.bcrypt.strength:10}") int custo,
+                                                  @Value("${api.security.bcrypt.threads:0}") int threads,
+                                                  @Value("${api.security.bcrypt.queue-capacity:64}") int capacidadeFila) {
+        int tamanhoPool = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new PasswordEncoderIsolado(new BCryptComCustoConfigurado(custo), tamanhoPool, capacidadeFila);
     }
 }
\ No newline at end of file
@@ -1,19 +1,30 @@
 package com.example.demo.config;
 
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.example.demo.models.Usuario;
 import com.example.demo.repository.UsuarioRepository;
 import com.example.demo.service.TokenService;
+import com.example.demo.service.UsuarioPrincipalCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Filtro de segurança que é executado uma vez para cada requisição.
@@ -22,31 +33,96 @@ import java.io.IOException;
 @Component // Marca esta classe como um componente gerenciado pelo Spring.
 public class SecurityFilter extends OncePerRequestFilter { // Garante que o filtro seja executado apenas uma vez por requisição.
 
+    // Corpos das recusas, prontos: recusar uma requisição não serializa nada.
+    private static final byte[] CORPO_LIMITE_EXCEDIDO = "{\"status\":429,\"error\":\"Too Many Requests\",\"message\":\"Limite de requisições excedido. Tente novamente mais tarde.\"}"
+            .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CORPO_SOBRECARGA = "{\"status\":503,\"error\":\"Service Unavailable\",\"message\":\"Serviço sobrecarregado. Tente novamente em instantes.\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
     @Autowired
     private TokenService tokenService;
 
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    // Cache de curta duração dos usuários autenticados, evita uma consulta ao banco por requisição.
+    @Autowired
+    private UsuarioPrincipalCache principalCache;
+
+    // Quando habilitado, o usuário é montado a partir das claims do token (id e roles), sem acesso ao banco.
+    // Alterações de roles só passam a valer nos tokens emitidos depois delas.
+    @Value("${api.security.token.claims-auth.enabled:false}")
+    private boolean autenticacaoPorClaims;
+
+    // Limite de requisições por usuário (429) e descarte de carga quando o pool de conexões satura (503).
+    @Autowired
+    private LimiteDeRequisicoes limiteDeRequisicoes;
+
+    @Autowired
+    private DescarteDeCarga descarteDeCarga;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Tempo gasto autenticando cada requisição (extração e validação do token + montagem do usuário).
+    private Timer tempoAutenticacao;
+
+    @PostConstruct
+    void registrarMetricas() {
+        tempoAutenticacao = Timer.builder("api.security.filtro")
+                .description("Tempo de autenticação por requisição no SecurityFilter")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
     /**
      * Lógica principal do filtro. Executada para cada requisição que passa por ele.
      */
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        // 0. Com o pool de conexões saturado, parte das requisições é recusada antes de qualquer outro trabalho.
+        // O health check e as métricas continuam respondendo, para que a sobrecarga possa ser observada.
+        String caminho = request.getRequestURI().substring(request.getContextPath().length());
+        if (!caminho.startsWith("/actuator/") && descarteDeCarga.descartar()) {
+            recusar(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, 1, CORPO_SOBRECARGA);
+            return;
+        }
+
         // 1. Tenta recuperar o token JWT do cabeçalho da requisição.
         var tokenJWT = recuperarToken(request);
 
         // 2. Se um token foi encontrado, prossiga com a validação.
         if (tokenJWT != null) {
+            long inicio = System.nanoTime();
             try {
-                // 2a. Valida o token e extrai o "subject" (login do usuário).
-                var subject = tokenService.getSubject(tokenJWT);
-                // 2b. Com o login, busca o usuário completo no banco de dados.
-                var usuario = usuarioRepository.findByLogin(subject);
-
-                // 2c. Se o usuário existir, cria um objeto de autenticação.
-                if (usuario != null) {
-                    var authentication = new UsernamePasswordAuthenticationToken(usuario, null, usuario.getAuthorities());
+                // 2a. Valida o token e extrai o "subject" (login do usuário) e as claims.
+                var token = tokenService.verificar(tokenJWT);
+
+                // Acima do limite do usuário, a requisição é recusada aqui, sem consultar o banco.
+                long espera = limiteDeRequisicoes.consumir(token.subject(), request.getMethod(), caminho);
+                if (espera > 0) {
+                    long segundos = TimeUnit.NANOSECONDS.toSeconds(espera - 1) + 1; // Arredondado para cima.
+                    recusar(response, 429, segundos, CORPO_LIMITE_EXCEDIDO);
+                    return;
+                }
+
+                // 2b. Monta o objeto de autenticação: pelas claims do token, se habilitado e presentes,
+                // ou com o usuário do cache (que só consulta o banco em caso de falta).
+                UsernamePasswordAuthenticationToken authentication = null;
+                if (autenticacaoPorClaims && token.possuiClaimsDoUsuario()) {
+                    var usuario = new Usuario(token.id(), token.subject(), null);
+                    var authorities = token.roles().stream().map(SimpleGrantedAuthority::new).toList();
+                    authentication = new UsernamePasswordAuthenticationToken(usuario, null, authorities);
+                    principalCache.registrarAutenticacaoPorClaims();
+                } else {
+                    var usuario = principalCache.buscar(token.subject(), usuarioRepository::findByLogin);
+                    // 2c. Se o usuário existir, cria um objeto de autenticação.
+                    if (usuario != null) {
+                        authentication = new UsernamePasswordAuthenticationToken(usuario, null, usuario.getAuthorities());
+                    }
+                }
+
+                if (authentication != null) {
                     
                     // 2d. Define o usuário como autenticado no contexto de segurança do Spring.
                     // A partir daqui, o Spring sabe que a requisição é válida e quem é o usuário.
@@ -55,7 +131,9 @@ public class SecurityFilter extends OncePerRequestFilter { // Garante que o filt
             } catch (JWTVerificationException exception){
                 // Se o token for inválido (expirado, assinatura incorreta, etc.), uma exceção é lançada.
                 // O bloco catch a captura, mas não faz nada. Isso significa que a autenticação falhou
-                // e o SecurityContextHolder permanecerá vazio. O Spring então negará o acesso (retornando 403 Forbidden).
+                // e o SecurityContextHolder permanecerá vazio. O Spring então negará o acesso (retornando 401 Unauthorized).
+            } finally {
+                tempoAutenticacao.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
             }
         }
         
@@ -65,6 +143,15 @@ public class SecurityFilter extends OncePerRequestFilter { // Garante que o filt
         filterChain.doFilter(request, response);
     }
 
+    // Responde a recusa direto, sem passar pelo restante da cadeia nem pelo tratamento de erros do Spring.
+    private static void recusar(HttpServletResponse response, int status, long tentarDepoisSegundos, byte[] corpo) throws IOException {
+        response.setStatus(status);
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(tentarDepoisSegundos));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(corpo.length);
+        response.getOutputStream().write(corpo);
+    }
+
     /**
      * Método auxiliar para extrair o token do cabeçalho "Authorization".
      * @param request a requisição HTTP.
@@ -0,0 +1,72 @@
+package com.example.demo.config;
+
+import com.example.demo.models.Modelo_Produto;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.sequence.SequenceSupport;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Garante, na subida da aplicação, que a sequência dos ids de produto ('products_seq') está à frente do maior id gravado.
+ * Os ids eram gerados por IDENTITY; quando o Hibernate cria a sequência em um banco que já tem produtos
+ * (ddl-auto=update), ela começa em 1 e todo INSERT colidiria com uma chave existente.
+ * - Com sequências nativas (ex: H2, MariaDB, PostgreSQL), a sequência é reiniciada com ALTER SEQUENCE.
+ * - No MySQL, a sequência é a tabela 'products_seq' (coluna 'next_val') e o ajuste é um UPDATE condicional,
+ *   que não faz nada se outra instância já a avançou.
+ * O otimizador 'pooled' usa os ids (valor lido - IDS_POR_BLOCO, valor lido]: por isso a sequência vai para
+ * o maior id + IDS_POR_BLOCO. Roda antes de o Tomcat aceitar requisições, quando nenhum id foi reservado ainda.
+ */
+@Component
+public class SequenciaDeProdutos {
+
+    private static final Logger log = LoggerFactory.getLogger(SequenciaDeProdutos.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceSupport sequencias;
+
+    // O EntityManagerFactory só é criado depois do ddl-auto: a tabela e a sequência já existem.
+    @Autowired
+    public SequenciaDeProdutos(EntityManagerFactory entityManagerFactory, DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.sequencias = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect().getSequenceSupport();
+    }
+
+    @PostConstruct
+    void inicializar() {
+        ajustar();
+    }
+
+    /**
+     * Avança a sequência para depois do maior id, se ela estiver atrás dele.
+     * @return true se a sequência precisou ser avançada.
+     */
+    public boolean ajustar() {
+        Long maiorId = jdbcTemplate.queryForObject("select max(id) from products", Long.class);
+        if (maiorId == null) {
+            return false;
+        }
+        long inicio = maiorId + Modelo_Produto.IDS_POR_BLOCO;
+        boolean ajustada;
+        if (sequencias.supportsSequences()) {
+            // Consome um valor (só abre um buraco nos ids) para saber onde a sequência está.
+            Long proximo = jdbcTemplate.queryForObject(sequencias.getSequenceNextValString(Modelo_Produto.SEQUENCIA), Long.class);
+            ajustada = proximo != null && proximo < inicio;
+            if (ajustada) {
+                jdbcTemplate.execute("alter sequence " + Modelo_Produto.SEQUENCIA + " restart with " + inicio);
+            }
+        } else {
+            ajustada = jdbcTemplate.update("update " + Modelo_Produto.SEQUENCIA + " set next_val = ? where next_val < ?", inicio, inicio) > 0;
+        }
+        if (ajustada) {
+            log.warn("Sequência '{}' estava atrás do maior id de produto ({}); avançada para {}", Modelo_Produto.SEQUENCIA, maiorId, inicio);
+        }
+        return ajustada;
+    }
+}
@@ -1,8 +1,18 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.LoteProdutosRequestDTO;
+import com.example.demo.dto.ProdutoFiltroDTO;
+import com.example.demo.dto.ProdutoPaginaDTO;
+import com.example.demo.dto.ProdutoParcialDTO;
+import com.example.demo.dto.ProdutoPatchDTO;
 import com.example.demo.dto.ProdutoRequestDTO;
 import com.example.demo.dto.ProdutoResponseDTO;
+import com.example.demo.dto.ResultadoLoteDTO;
+import com.example.demo.service.IngestaoProdutosService;
 import com.example.demo.service.Modelo_ProdutoService;
+import com.example.demo.service.ProdutoExportService;
+import com.example.demo.service.ProdutoFeedService;
+import com.example.demo.service.ProdutoSingleFlight;
 // Imports do Swagger/OpenAPI para documentação da API
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,10 +22,16 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -27,13 +43,27 @@ import java.util.List;
 @RequestMapping("/produtos")
 public class ProdutoController {
 
+    // Cabeçalho de resposta que carrega o cursor da próxima página na listagem paginada.
+    public static final String HEADER_PROXIMO_CURSOR = "X-Next-Cursor";
+
     // A injeção de dependência é feita na camada de serviço.
     private final Modelo_ProdutoService produtoService;
+    private final ProdutoExportService exportService;
+    private final IngestaoProdutosService ingestaoService;
+    private final ProdutoFeedService feedService;
+    // Leituras completas (findAll e findById) idênticas e simultâneas compartilham a mesma consulta ao banco.
+    private final ProdutoSingleFlight singleFlight;
 
     // Injeção de dependência via construtor: uma boa prática que torna as dependências explícitas.
     @Autowired
-    public ProdutoController(Modelo_ProdutoService produtoService) {
+    public ProdutoController(Modelo_ProdutoService produtoService, ProdutoExportService exportService,
+                             IngestaoProdutosService ingestaoService, ProdutoFeedService feedService,
+                             ProdutoSingleFlight singleFlight) {
         this.produtoService = produtoService;
+        this.exportService = exportService;
+        this.ingestaoService = ingestaoService;
+        this.feedService = feedService;
+        this.singleFlight = singleFlight;
     }
 
     // @Operation e @ApiResponses documentam o endpoint na especificação OpenAPI (Swagger).
@@ -42,61 +72,225 @@ public class ProdutoController {
         @ApiResponse(responseCode = "201", description = "Produto criado com sucesso",
             content = { @Content(mediaType = "application/json",
                 schema = @Schema(implementation = ProdutoResponseDTO.class)) }),
-        @ApiResponse(responseCode = "400", description = "Dados de entrada inválidos", content = @Content)
+        @ApiResponse(responseCode = "400", description = "Dados de entrada inválidos", content = @Content),
+        @ApiResponse(responseCode = "503", description = "Fila de ingestão cheia ou gravação ainda em andamento (só com 'produtos.ingestao.enabled')", content = @Content)
     })
     @PostMapping // Mapeia requisições HTTP POST para este método.
     public ResponseEntity<ProdutoResponseDTO> criarProduto(@Valid @RequestBody ProdutoRequestDTO produtoRequestDTO) {
         // @Valid ativa as validações (ex: @NotBlank) definidas no DTO.
         // @RequestBody converte o JSON do corpo da requisição para o objeto DTO.
-        ProdutoResponseDTO novoProduto = produtoService.save(produtoRequestDTO);
-        // Retorna o novo produto com o status HTTP 201 Created.
-        return new ResponseEntity<>(novoProduto, HttpStatus.CREATED);
+        // Com a ingestão habilitada, a criação é gravada junto com as demais que chegarem no mesmo instante (um commit por lote).
+        ProdutoResponseDTO novoProduto = ingestaoService.isHabilitada()
+                ? ingestaoService.criar(produtoRequestDTO)
+                : produtoService.save(produtoRequestDTO);
+        // Retorna o novo produto com o status HTTP 201 Created e o ETag da versão criada.
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(ProdutoEtags.forte(novoProduto)).body(novoProduto);
     }
     
+    @Operation(summary = "Aplica um lote de criações, atualizações e remoções em uma única transação")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Lote processado; o status de cada operação vem no resultado correspondente"),
+        @ApiResponse(responseCode = "400", description = "Lote vazio, grande demais ou com dados inválidos", content = @Content)
+    })
+    @PostMapping("/batch") // Mapeia requisições HTTP POST para /produtos/batch.
+    public ResponseEntity<List<ResultadoLoteDTO>> processarLote(@Valid @RequestBody LoteProdutosRequestDTO lote) {
+        List<ResultadoLoteDTO> resultados = produtoService.processarLote(lote.operacoes());
+        return ResponseEntity.ok(resultados);
+    }
+
     @Operation(summary = "Busca um produto por ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Produto encontrado",
             content = { @Content(mediaType = "application/json",
                 schema = @Schema(implementation = ProdutoResponseDTO.class)) }),
+        @ApiResponse(responseCode = "304", description = "O cliente já tem esta versão do produto (If-None-Match)", content = @Content),
+        @ApiResponse(responseCode = "400", description = "Campo desconhecido em 'fields'", content = @Content),
         @ApiResponse(responseCode = "404", description = "Produto não encontrado", content = @Content)
     })
     @GetMapping("/{id}") // Mapeia requisições GET para /produtos/{id}.
-    public ResponseEntity<ProdutoResponseDTO> obterProdutoPorId(@PathVariable Long id) {
+    public ResponseEntity<?> obterProdutoPorId(
+        @PathVariable Long id,
+
+        @Parameter(description = "Campos a devolver, separados por vírgula (ex: 'id,nome,preco'). Sem ele, o produto vem completo")
+        @RequestParam(required = false) String fields,
+
+        WebRequest request
+    ) {
+        // Requisição condicional: confere só a versão do produto. Se o cliente já tem esta versão,
+        // responde 304 sem carregar a entidade, montar o DTO ou serializar o JSON.
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(ProdutoEtags.forte(id, produtoService.findVersao(id)))) {
+            return null; // O status 304 e o ETag já foram definidos por checkNotModified.
+        }
+        if (fields != null) {
+            // Resposta esparsa: só as colunas pedidas são lidas do banco e serializadas.
+            ProdutoParcialDTO produto = produtoService.findByIdCampos(id, fields);
+            return ResponseEntity.ok().eTag(ProdutoEtags.forte(id, produto.versao())).body(produto);
+        }
         // @PathVariable extrai o valor do {id} da URL.
-        ProdutoResponseDTO produto = produtoService.findById(id);
-        // Retorna o produto encontrado com o status HTTP 200 OK.
-        return ResponseEntity.ok(produto);
+        ProdutoResponseDTO produto = singleFlight.findById(id);
+        // Retorna o produto encontrado com o status HTTP 200 OK e o ETag da versão lida.
+        return ResponseEntity.ok().eTag(ProdutoEtags.forte(produto)).body(produto);
     }
     
-    @Operation(summary = "Lista produtos com filtros e ordenação")
+    @Operation(summary = "Lista produtos com filtros e ordenação",
+        description = "Responde em JSON, Smile (Accept: application/x-jackson-smile) ou CBOR (Accept: application/cbor)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Produtos encontrados (com ETag fraco da listagem)"),
+        @ApiResponse(responseCode = "304", description = "A listagem não mudou desde o ETag informado em If-None-Match", content = @Content),
+        @ApiResponse(responseCode = "400", description = "Parâmetros inválidos ('limit', 'cursor', faixas, campo desconhecido em 'fields') "
+            + "ou combinação de filtros e ordenação sem índice", content = @Content)
+    })
     @GetMapping // Mapeia requisições GET para /produtos.
-    public ResponseEntity<List<ProdutoResponseDTO>> listarTodosProdutos(
+    public ResponseEntity<List<?>> listarTodosProdutos(
         // @Parameter documenta os parâmetros de consulta na UI do Swagger.
-        @Parameter(description = "Filtrar produtos pelo nome (parcial, case-insensitive)") 
+        @Parameter(description = "Filtrar produtos por um trecho do nome ou da descrição (sem diferenciar maiúsculas nem acentos)")
         @RequestParam(required = false) String name, // @RequestParam extrai parâmetros da URL (?name=...).
         
-        @Parameter(description = "Ordenar por preço. Use 'preco,asc' ou 'preco,desc'") 
-        @RequestParam(required = false) String sort
+        // Filtros de faixa (?minPrice=&maxPrice=&minStock=&maxStock=&createdFrom=&createdTo=), agrupados em um DTO.
+        @ParameterObject ProdutoFiltroDTO filtros,
+
+        @Parameter(description = "Ordenação por uma ou mais colunas, cada uma com direção opcional (ex: 'preco,desc', "
+            + "'quantidadeEstoque,asc,preco,asc', 'dataCriacao,desc') ou, junto com 'name', por 'relevancia'. "
+            + "Combinações de filtros e ordenação que nenhum índice atende são recusadas com 400")
+        @RequestParam(required = false) String sort,
+
+        @Parameter(description = "Cursor opaco da próxima página, devolvido no cabeçalho " + HEADER_PROXIMO_CURSOR)
+        @RequestParam(required = false) String cursor,
+
+        @Parameter(description = "Itens por página (1 a 500). Quando informado (ou com 'cursor'), a listagem é paginada")
+        @RequestParam(required = false) Integer limit,
+
+        @Parameter(description = "Campos a devolver, separados por vírgula (ex: 'id,nome,preco'). Sem ele, os produtos vêm completos")
+        @RequestParam(required = false) String fields,
+
+        WebRequest request
     ) {
-        List<ProdutoResponseDTO> produtos = produtoService.findAll(name, sort);
-        return ResponseEntity.ok(produtos);
+        // O ETag fraco vem dos pares (id, versão) dos produtos listados. Se coincidir com o If-None-Match, a resposta
+        // é 304 sem corpo; só a listagem completa sem 'fields' confere o ETag antes de ler os produtos, nos demais
+        // casos eles já foram lidos e só a serialização é evitada.
+        // Com 'fields', só as colunas pedidas são lidas do banco (projeção, sem entidades) e serializadas.
+        if (fields != null) {
+            if (cursor == null && limit == null) {
+                List<ProdutoParcialDTO> produtos = produtoService.findAllCampos(name, filtros, sort, fields);
+                return ResponseEntity.ok().eTag(ProdutoEtags.fracoParcial(produtos, null)).body(produtos);
+            }
+            ProdutoPaginaDTO<ProdutoParcialDTO> pagina = produtoService.findPageCampos(name, filtros, sort, cursor, limit, fields);
+            return comCursor(ResponseEntity.ok().eTag(ProdutoEtags.fracoParcial(pagina.conteudo(), pagina.proximoCursor())), pagina)
+                    .body(pagina.conteudo());
+        }
+
+        // Sem 'cursor' nem 'limit', mantém o comportamento original de devolver a lista completa.
+        if (cursor == null && limit == null) {
+            // Requisição condicional: o ETag sai de uma projeção de id e versão, sem carregar entidades nem montar DTOs.
+            if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                    && request.checkNotModified(ProdutoEtags.fracoParcial(produtoService.findAllVersoes(name, filtros, sort), null))) {
+                return null; // O status 304 e o ETag já foram definidos por checkNotModified.
+            }
+            List<ProdutoResponseDTO> produtos = singleFlight.findAll(name, filtros, sort);
+            return ResponseEntity.ok().eTag(ProdutoEtags.fraco(produtos, null)).body(produtos);
+        }
+
+        // Paginação por keyset: o corpo continua sendo uma lista e o cursor da próxima página vai no cabeçalho.
+        ProdutoPaginaDTO<ProdutoResponseDTO> pagina = produtoService.findPage(name, filtros, sort, cursor, limit);
+        return comCursor(ResponseEntity.ok().eTag(ProdutoEtags.fraco(pagina.conteudo(), pagina.proximoCursor())), pagina)
+                .body(pagina.conteudo());
+    }
+
+    // Acrescenta o cabeçalho com o cursor da próxima página, se houver.
+    private static ResponseEntity.BodyBuilder comCursor(ResponseEntity.BodyBuilder resposta, ProdutoPaginaDTO<?> pagina) {
+        if (pagina.proximoCursor() != null) {
+            resposta.header(HEADER_PROXIMO_CURSOR, pagina.proximoCursor());
+        }
+        return resposta;
+    }
+
+    @Operation(summary = "Exporta o catálogo completo em NDJSON ou CSV")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Catálogo exportado (uma linha por produto)", content = @Content),
+        @ApiResponse(responseCode = "400", description = "Formato não suportado", content = @Content)
+    })
+    @GetMapping("/export") // Mapeia requisições GET para /produtos/export.
+    public ResponseEntity<StreamingResponseBody> exportarProdutos(
+        @Parameter(description = "Formato de saída: 'ndjson' (padrão) ou 'csv'")
+        @RequestParam(defaultValue = "ndjson") String format
+    ) {
+        ProdutoExportService.Formato formato = ProdutoExportService.Formato.parse(format);
+        // StreamingResponseBody escreve diretamente no stream da resposta, sem montar o corpo em memória.
+        StreamingResponseBody corpo = saida -> exportService.exportar(formato, saida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(formato.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"produtos." + formato.getExtensao() + "\"")
+                .body(corpo);
+    }
+
+    @Operation(summary = "Acompanha as alterações de produtos (Server-Sent Events)",
+        description = "O primeiro evento é 'snapshot': carregue a listagem (GET /produtos) e aplique os eventos seguintes "
+            + "('criado', 'atualizado', 'removido'), cujos dados trazem o produto após a alteração. "
+            + "Ao reconectar com o cabeçalho Last-Event-ID, os eventos perdidos são reenviados (ou vem um novo 'snapshot')")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Conexão aberta; os eventos chegam conforme os produtos mudam", content = @Content),
+        @ApiResponse(responseCode = "503", description = "Limite de conexões no feed atingido", content = @Content)
+    })
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE) // Mapeia requisições GET para /produtos/stream.
+    public SseEmitter acompanharAlteracoes(
+        @Parameter(description = "Id do último evento recebido (o EventSource envia sozinho ao reconectar)")
+        @RequestHeader(value = "Last-Event-ID", required = false) String ultimoEventoId
+    ) {
+        // A requisição vira assíncrona: a conexão fica aberta sem ocupar uma thread do Tomcat.
+        return feedService.assinar(ultimoEventoId);
     }
 
     @Operation(summary = "Atualiza um produto existente")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Produto atualizado (com o ETag da nova versão)"),
+        @ApiResponse(responseCode = "404", description = "Produto não encontrado", content = @Content),
+        @ApiResponse(responseCode = "409", description = "Produto alterado por outra requisição durante a atualização", content = @Content),
+        @ApiResponse(responseCode = "412", description = "O produto não está mais na versão informada em If-Match", content = @Content)
+    })
     @PutMapping("/{id}") // Mapeia requisições HTTP PUT.
-    public ResponseEntity<ProdutoResponseDTO> atualizarProduto(@PathVariable Long id, @Valid @RequestBody ProdutoRequestDTO produtoDetailsDTO) {
-        ProdutoResponseDTO produtoAtualizado = produtoService.update(id, produtoDetailsDTO);
-        return ResponseEntity.ok(produtoAtualizado);
+    public ResponseEntity<ProdutoResponseDTO> atualizarProduto(
+        @PathVariable Long id,
+        @Valid @RequestBody ProdutoRequestDTO produtoDetailsDTO,
+        @Parameter(description = "ETag lido anteriormente; a atualização só é aplicada se o produto ainda estiver nesta versão")
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        ProdutoResponseDTO produtoAtualizado = produtoService.update(id, produtoDetailsDTO, ProdutoEtags.versaoEsperada(ifMatch, id));
+        return ResponseEntity.ok().eTag(ProdutoEtags.forte(produtoAtualizado)).body(produtoAtualizado);
+    }
+
+    @Operation(summary = "Atualiza parcialmente um produto (apenas os campos informados), em um único comando no banco")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Produto atualizado (com o ETag da nova versão)", content = @Content),
+        @ApiResponse(responseCode = "400", description = "Nenhum campo informado ou dados inválidos", content = @Content),
+        @ApiResponse(responseCode = "404", description = "Produto não encontrado", content = @Content),
+        @ApiResponse(responseCode = "412", description = "O produto não está mais na versão informada em If-Match", content = @Content)
+    })
+    @PatchMapping("/{id}") // Mapeia requisições HTTP PATCH.
+    public ResponseEntity<Void> atualizarParcialmente(
+        @PathVariable Long id,
+        @Valid @RequestBody ProdutoPatchDTO campos,
+        @Parameter(description = "ETag lido anteriormente; a atualização só é aplicada se o produto ainda estiver nesta versão")
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        // O produto não é lido de volta: a resposta não tem corpo, só o ETag da nova versão.
+        long novaVersao = produtoService.patch(id, campos, ProdutoEtags.versaoEsperada(ifMatch, id));
+        return ResponseEntity.noContent().eTag(ProdutoEtags.forte(id, novaVersao)).build();
     }
 
     @Operation(summary = "Remove um produto por ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "204", description = "Produto removido com sucesso", content = @Content),
-        @ApiResponse(responseCode = "404", description = "Produto não encontrado", content = @Content)
+        @ApiResponse(responseCode = "404", description = "Produto não encontrado", content = @Content),
+        @ApiResponse(responseCode = "412", description = "O produto não está mais na versão informada em If-Match", content = @Content)
     })
     @DeleteMapping("/{id}") // Mapeia requisições HTTP DELETE.
-    public ResponseEntity<Void> removerProduto(@PathVariable Long id) {
-        produtoService.deleteById(id);
+    public ResponseEntity<Void> removerProduto(
+        @PathVariable Long id,
+        @Parameter(description = "ETag lido anteriormente; a remoção só é aplicada se o produto ainda estiver nesta versão")
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        produtoService.deleteById(id, ProdutoEtags.versaoEsperada(ifMatch, id));
         // Retorna uma resposta vazia com status HTTP 204 No Content, indicando sucesso na remoção.
         return ResponseEntity.noContent().build();
     }
@@ -0,0 +1,84 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.ProdutoParcialDTO;
+import com.example.demo.dto.ProdutoResponseDTO;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Montagem e leitura dos ETags dos produtos, derivados da versão (@Version) e não do corpo serializado.
+ * Assim o ETag pode ser conferido antes de montar o DTO ou serializar o JSON.
+ * - Produto: ETag forte "id-versao", que muda a cada alteração do produto.
+ * - Listagem: ETag fraco sobre os pares (id, versão) na ordem da resposta e o cursor da próxima página.
+ */
+final class ProdutoEtags {
+
+    // Nenhuma versão é negativa: usado quando o If-Match não se refere a este produto, para que a pré-condição falhe.
+    private static final long VERSAO_INEXISTENTE = -1L;
+
+    private ProdutoEtags() {
+    }
+
+    static String forte(Long id, long versao) {
+        return "\"" + id + "-" + versao + "\"";
+    }
+
+    static String forte(ProdutoResponseDTO produto) {
+        return forte(produto.id(), produto.versao());
+    }
+
+    /**
+     * ETag fraco de uma listagem: duas listagens com os mesmos produtos, nas mesmas versões e na mesma ordem
+     * produzem o mesmo ETag.
+     */
+    static String fraco(List<ProdutoResponseDTO> produtos, String proximoCursor) {
+        return fraco(produtos, ProdutoResponseDTO::id, ProdutoResponseDTO::versao, proximoCursor);
+    }
+
+    /**
+     * ETag fraco de uma listagem esparsa (parâmetro 'fields'). Os campos pedidos não entram no cálculo:
+     * fazem parte da URL, e o cliente guarda uma cópia por URL.
+     */
+    static String fracoParcial(List<ProdutoParcialDTO> produtos, String proximoCursor) {
+        return fraco(produtos, ProdutoParcialDTO::id, ProdutoParcialDTO::versao, proximoCursor);
+    }
+
+    private static <T> String fraco(List<T> produtos, Function<T, Long> id, ToLongFunction<T> versao, String proximoCursor) {
+        StringBuilder texto = new StringBuilder(produtos.size() * 16);
+        for (T produto : produtos) {
+            texto.append(id.apply(produto)).append(':').append(versao.applyAsLong(produto)).append(',');
+        }
+        if (proximoCursor != null) {
+            texto.append('|').append(proximoCursor);
+        }
+        return "W/\"" + DigestUtils.md5DigestAsHex(texto.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Extrai do cabeçalho If-Match a versão esperada do produto.
+     * @return Nulo se não houver pré-condição de versão (cabeçalho ausente ou "*"); a versão do ETag forte
+     *         deste produto; ou uma versão inexistente se nenhum ETag do cabeçalho for deste produto.
+     */
+    static Long versaoEsperada(String ifMatch, Long id) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String prefixo = "\"" + id + "-";
+        for (String etag : ifMatch.split(",")) {
+            etag = etag.trim();
+            // If-Match usa comparação forte: ETags fracos (W/"...") nunca satisfazem a pré-condição.
+            if (etag.startsWith(prefixo) && etag.endsWith("\"") && etag.length() > prefixo.length() + 1) {
+                try {
+                    return Long.parseLong(etag.substring(prefixo.length(), etag.length() - 1));
+                } catch (NumberFormatException e) {
+                    // ETag malformado: continua procurando nos demais.
+                }
+            }
+        }
+        return VERSAO_INEXISTENTE;
+    }
+}
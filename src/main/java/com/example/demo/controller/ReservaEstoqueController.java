@@ -0,0 +1,68 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.ReservaEstoqueDTO;
+import com.example.demo.dto.ReservaEstoqueRequestDTO;
+import com.example.demo.service.ReservaEstoqueService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@Tag(name = "Reservas de estoque", description = "Reserva, confirmação e liberação de estoque de produtos")
+@RestController
+@RequestMapping("/estoque/reservas")
+public class ReservaEstoqueController {
+
+    private final ReservaEstoqueService reservaService;
+
+    @Autowired
+    public ReservaEstoqueController(ReservaEstoqueService reservaService) {
+        this.reservaService = reservaService;
+    }
+
+    @Operation(summary = "Reserva unidades de um produto até a confirmação, a liberação ou a expiração da reserva")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Reserva criada"),
+        @ApiResponse(responseCode = "404", description = "Produto não encontrado", content = @Content),
+        @ApiResponse(responseCode = "409", description = "Estoque insuficiente", content = @Content)
+    })
+    @PostMapping
+    public ResponseEntity<ReservaEstoqueDTO> reservar(@Valid @RequestBody ReservaEstoqueRequestDTO pedido, Authentication autenticacao) {
+        // A reserva fica vinculada ao usuário autenticado: só ele pode confirmá-la ou liberá-la.
+        ReservaEstoqueDTO reserva = reservaService.reservar(pedido.produtoId(), pedido.quantidade(), autenticacao.getName());
+        return ResponseEntity.status(HttpStatus.CREATED).body(reserva);
+    }
+
+    @Operation(summary = "Confirma a reserva, baixando o estoque do produto no banco")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Baixa gravada", content = @Content),
+        @ApiResponse(responseCode = "404", description = "Reserva não encontrada ou expirada", content = @Content),
+        @ApiResponse(responseCode = "409", description = "O estoque do produto foi reduzido e não comporta mais a reserva", content = @Content),
+        @ApiResponse(responseCode = "503", description = "Não foi possível gravar a baixa a tempo", content = @Content)
+    })
+    @PostMapping("/{id}/confirmacao")
+    public ResponseEntity<Void> confirmar(@PathVariable UUID id, Authentication autenticacao) {
+        reservaService.confirmar(id, autenticacao.getName());
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Libera a reserva, devolvendo as unidades ao estoque disponível")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Reserva liberada", content = @Content),
+        @ApiResponse(responseCode = "404", description = "Reserva não encontrada ou expirada", content = @Content)
+    })
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> liberar(@PathVariable UUID id, Authentication autenticacao) {
+        reservaService.liberar(id, autenticacao.getName());
+        return ResponseEntity.noContent().build();
+    }
+}
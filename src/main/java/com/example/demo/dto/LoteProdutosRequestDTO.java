@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+// DTO para receber um lote de operações de produtos em uma única requisição.
+public record LoteProdutosRequestDTO(
+    @NotEmpty(message = "O lote deve conter ao menos uma operação.")
+    @Size(max = 10000, message = "O lote pode conter no máximo 10000 operações.")
+    List<@Valid @NotNull OperacaoLoteDTO> operacoes
+) {}
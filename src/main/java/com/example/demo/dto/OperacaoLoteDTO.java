@@ -0,0 +1,22 @@
+package com.example.demo.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+
+// DTO de uma operação dentro de um lote enviado para POST /produtos/batch.
+// 'id' é obrigatório para ATUALIZAR e REMOVER; 'produto' é obrigatório para CRIAR e ATUALIZAR.
+public record OperacaoLoteDTO(
+    @NotNull(message = "A operação é obrigatória.")
+    TipoOperacao operacao,
+
+    Long id,
+
+    @Valid
+    ProdutoRequestDTO produto
+) {
+    public enum TipoOperacao {
+        CRIAR,
+        ATUALIZAR,
+        REMOVER
+    }
+}
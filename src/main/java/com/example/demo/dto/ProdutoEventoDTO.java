@@ -0,0 +1,10 @@
+package com.example.demo.dto;
+
+// Dados de um evento do feed de alterações (GET /produtos/stream).
+// 'tipo' repete o nome do evento SSE ('criado', 'atualizado' ou 'removido');
+// 'produto' traz o estado após a alteração e é nulo nas remoções.
+public record ProdutoEventoDTO(
+    String tipo,
+    Long id,
+    ProdutoResponseDTO produto
+) {}
@@ -0,0 +1,34 @@
+package com.example.demo.dto;
+
+import io.swagger.v3.oas.annotations.Parameter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+// Filtros de faixa da listagem de produtos, preenchidos a partir dos parâmetros da URL (?minPrice=...&maxStock=...).
+// Os nomes seguem os demais parâmetros da API; todos são opcionais e os limites são inclusivos.
+public record ProdutoFiltroDTO(
+    @Parameter(description = "Preço mínimo")
+    Double minPrice,
+
+    @Parameter(description = "Preço máximo")
+    Double maxPrice,
+
+    @Parameter(description = "Quantidade mínima em estoque")
+    Integer minStock,
+
+    @Parameter(description = "Quantidade máxima em estoque (ex: 5, para produtos acabando)")
+    Integer maxStock,
+
+    @Parameter(description = "Criados a partir de (ISO-8601, ex: 2024-01-31T00:00:00)")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    LocalDateTime createdFrom,
+
+    @Parameter(description = "Criados até (ISO-8601, ex: 2024-01-31T23:59:59)")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    LocalDateTime createdTo
+) {
+
+    // Nenhum filtro.
+    public static final ProdutoFiltroDTO NENHUM = new ProdutoFiltroDTO(null, null, null, null, null, null);
+}
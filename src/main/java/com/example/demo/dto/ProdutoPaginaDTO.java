@@ -0,0 +1,11 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+// Resultado de uma página da listagem paginada por cursor.
+// 'conteudo' traz ProdutoResponseDTO ou, com o parâmetro 'fields', ProdutoParcialDTO.
+// 'proximoCursor' é nulo quando não há mais páginas.
+public record ProdutoPaginaDTO<T>(
+    List<T> conteudo,
+    String proximoCursor
+) {}
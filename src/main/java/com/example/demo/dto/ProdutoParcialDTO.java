@@ -0,0 +1,22 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Map;
+
+// DTO de resposta com apenas os campos pedidos no parâmetro 'fields' (resposta esparsa).
+// Serializado como um objeto JSON com as entradas de 'campos'; 'id' e 'versao' são sempre lidos
+// (compõem o ETag), mas só aparecem no JSON se tiverem sido pedidos.
+public record ProdutoParcialDTO(
+    @JsonIgnore Long id,
+    @JsonIgnore long versao,
+    Map<String, Object> campos // Nome do campo (como em ProdutoResponseDTO) -> valor, na ordem de ProdutoResponseDTO.
+) {
+
+    @JsonAnyGetter
+    @Override
+    public Map<String, Object> campos() {
+        return campos;
+    }
+}
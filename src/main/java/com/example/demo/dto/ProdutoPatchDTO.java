@@ -0,0 +1,29 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+// DTO para receber dados na requisição PATCH (atualização parcial).
+// Todos os campos são opcionais: apenas os informados (não nulos) são alterados.
+public record ProdutoPatchDTO(
+    // Opcional, mas, se informado, não pode ficar em branco.
+    @Pattern(regexp = "(?s).*\\S.*", message = "O nome do produto não pode ficar em branco.")
+    @Size(max = 255)
+    String nome,
+
+    @Size(max = 1000)
+    String descricao,
+
+    @Positive(message = "O preço deve ser maior que zero.")
+    Double preco,
+
+    @Positive(message = "A quantidade em estoque deve ser um número positivo.")
+    Integer quantidadeEstoque
+) {
+
+    // Indica se a requisição não altera nenhum campo.
+    public boolean vazio() {
+        return nome == null && descricao == null && preco == null && quantidadeEstoque == null;
+    }
+}
@@ -11,7 +11,8 @@ public record ProdutoResponseDTO(
     String descricao,
     Double preco,
     Integer quantidadeEstoque,
-    LocalDateTime dataCriacao
+    LocalDateTime dataCriacao,
+    Long versao // Versão do produto; é a mesma informação do ETag, útil para clientes que guardam o JSON.
 ) {
     // Construtor auxiliar para facilitar a conversão da Entidade para DTO
     public ProdutoResponseDTO(Modelo_Produto produto) {
@@ -20,8 +21,9 @@ public record ProdutoResponseDTO(
             produto.getNome(),
             produto.getDescricao(),
             produto.getPreco(),
-            produto.getQuantidade_estoque(),
-            produto.getData_criacao()
+            produto.getQuantidadeEstoque(),
+            produto.getDataCriacao(),
+            produto.getVersao()
         );
     }
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.example.demo.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// DTO de resposta de uma reserva de estoque.
+// A reserva segura as unidades até ser confirmada, liberada ou expirar em 'expiraEm'.
+public record ReservaEstoqueDTO(
+    UUID id,
+    Long produtoId,
+    int quantidade,
+    Instant expiraEm
+) {}
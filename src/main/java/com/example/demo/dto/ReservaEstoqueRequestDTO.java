@@ -0,0 +1,14 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+// DTO para receber o pedido de reserva de estoque de um produto.
+public record ReservaEstoqueRequestDTO(
+    @NotNull(message = "O produto é obrigatório.")
+    Long produtoId,
+
+    @NotNull(message = "A quantidade é obrigatória.")
+    @Positive(message = "A quantidade deve ser maior que zero.")
+    Integer quantidade
+) {}
@@ -0,0 +1,11 @@
+package com.example.demo.dto;
+
+// DTO com o resultado de cada operação de um lote, na mesma ordem em que foram enviadas.
+// 'status' segue a semântica HTTP da operação equivalente (201, 200, 204, 400 ou 404).
+public record ResultadoLoteDTO(
+    int indice,
+    OperacaoLoteDTO.TipoOperacao operacao,
+    Long id,
+    int status,
+    String mensagem
+) {}
@@ -1,15 +1,21 @@
 package com.example.demo.models;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Column;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 // Imports para as validações do Bean Validation
 import jakarta.validation.constraints.NotBlank;
@@ -26,36 +32,70 @@ import java.time.LocalDateTime;
 @NoArgsConstructor // Lombok: gera um construtor padrão.
 @AllArgsConstructor // Lombok: gera um construtor com todos os campos.
 @Entity // Marca como uma entidade JPA.
-@Table(name = "products") // Mapeia para a tabela 'products'.
+// Mapeia para a tabela 'products'. Os índices atendem às ordenações e filtros da listagem (GET /produtos):
+// uma combinação que nenhum deles cobre é recusada (ver IndicesProduto). Todos terminam no 'id',
+// o desempate da paginação por cursor; os descendentes existem porque nem todo banco (ex: H2) percorre um índice de trás para frente.
+@Table(name = "products", indexes = {
+    @Index(name = "idx_products_nome_id", columnList = "nome, id"), // Ordenação padrão.
+    @Index(name = "idx_products_preco_id", columnList = "preco, id"), // Faixa de preço; mais baratos primeiro.
+    @Index(name = "idx_products_preco_desc_id", columnList = "preco desc, id desc"), // Mais caros primeiro.
+    @Index(name = "idx_products_estoque_preco_id", columnList = "stock_quantity, preco, id"), // Faixa de estoque; estoque e depois preço.
+    @Index(name = "idx_products_criacao_desc_id", columnList = "creation_date desc, id desc") // Janela de criação; mais novos primeiro.
+})
+// Cache de segundo nível: 'READ_WRITE' mantém o cache coerente com as transações (trava a entrada durante a escrita).
+// Os UPDATEs/DELETEs em massa (PATCH, DELETE) invalidam a região inteira; as baixas de estoque feitas por JDBC
+// são removidas do cache pelo CacheDeSegundoNivelListener.
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Modelo_Produto.REGIAO_CACHE)
 public class Modelo_Produto {
 
+    public static final String REGIAO_CACHE = "produtos";
+
+    // Sequência dos ids e quantos ids o Hibernate reserva por consulta a ela (ver SequenciaDeProdutos).
+    public static final String SEQUENCIA = "products_seq";
+    public static final int IDS_POR_BLOCO = 50;
+
+    // Ids gerados por sequência com otimizador 'pooled': o Hibernate reserva blocos de 50 ids por consulta
+    // e consegue agrupar os INSERTs em lotes JDBC (com IDENTITY cada INSERT precisa ir sozinho ao banco).
+    // No MySQL, que não tem sequências, o Hibernate emula a sequência com a tabela 'products_seq'.
+    // Em um banco que já tinha ids gerados por IDENTITY, a sequência é avançada na subida por SequenciaDeProdutos.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = SEQUENCIA)
+    @SequenceGenerator(name = SEQUENCIA, sequenceName = SEQUENCIA, allocationSize = IDS_POR_BLOCO)
     private Long id;
 
     // A anotação @NotBlank garante que o nome não seja nulo nem contenha apenas espaços em branco.
     @NotBlank(message = "O nome do produto é obrigatório.")
     // @Column(nullable = false) impõe a restrição a nível de banco de dados.
     @Column(nullable = false)
-    private String Nome; // Sugestão: usar camelCase (nome) para seguir a convenção Java.
+    private String nome;
 
     // Define o tamanho máximo da coluna de descrição no banco de dados.
     @Column(length = 1000)
-    private String Descricao; // Sugestão: usar camelCase (descricao).
+    private String descricao;
 
     // A anotação @Positive garante que o preço seja um número maior que zero.
     @Positive(message = "O preço deve ser maior que zero.")
     @Column(nullable = false)
-    private Double Preco; // Sugestão: usar camelCase (preco).
+    private Double preco;
 
     // Garante que a quantidade em estoque seja um número positivo.
     @Positive(message = "A quantidade em estoque deve ser um número positivo.")
     // Mapeia este campo para a coluna 'stock_quantity' no banco de dados.
     @Column(name = "stock_quantity")
-    private Integer Quantidade_estoque; // Sugestão: usar camelCase (quantidadeEstoque).
+    private Integer quantidadeEstoque;
 
     // Mapeia para a coluna 'creation_date'. 'updatable = false' impede que este campo seja alterado em um UPDATE.
-    @Column(name = "creation_date", updatable = false)
-    private LocalDateTime Data_criacao; // Sugestão: usar camelCase (dataCriacao).
+    // Sempre preenchida pelo servidor na criação; 'nullable = false' permite usá-la como limite na paginação por cursor.
+    @Column(name = "creation_date", nullable = false, updatable = false)
+    private LocalDateTime dataCriacao;
+
+    // Controle de concorrência otimista: o Hibernate incrementa a versão a cada UPDATE e a confere na cláusula WHERE
+    // ('... where id=? and version=?'), rejeitando a gravação se outra transação alterou o produto nesse meio-tempo.
+    // A versão também compõe o ETag do produto (ver ProdutoEtags). Primitivo e 'not null' para que, ao criar a coluna
+    // em uma tabela existente, as linhas antigas recebam 0.
+    @Version
+    @Column(name = "version", nullable = false)
+    private long versao;
 
 }
\ No newline at end of file
@@ -1,10 +1,13 @@
 package com.example.demo.models;
 
+import com.example.demo.service.UsuarioCacheListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -19,12 +22,17 @@ import java.util.List;
  */
 @Entity // Marca a classe como uma entidade JPA, que será mapeada para uma tabela no banco de dados.
 @Table(name = "usuarios") // Especifica o nome da tabela no banco de dados.
+@EntityListeners(UsuarioCacheListener.class) // Invalida o cache de usuários autenticados quando o usuário muda.
 @Getter // Anotação do Lombok que gera automaticamente os métodos getters para todos os campos.
 @NoArgsConstructor // Lombok: gera um construtor sem argumentos (requerido pelo JPA).
 @AllArgsConstructor // Lombok: gera um construtor com todos os campos como argumentos.
 @EqualsAndHashCode(of = "id") // Lombok: gera os métodos equals() e hashCode() baseados apenas no campo 'id'.
+@Cacheable // Entra no cache de segundo nível do Hibernate (região 'usuarios' no ehcache.xml).
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Usuario.REGIAO_CACHE)
 public class Usuario implements UserDetails {
 
+    public static final String REGIAO_CACHE = "usuarios";
+
     @Id // Marca o campo 'id' como a chave primária da tabela.
     @GeneratedValue(strategy = GenerationType.IDENTITY) // Configura a geração automática do ID pelo banco de dados (autoincremento).
     private Long id;
@@ -32,6 +40,14 @@ public class Usuario implements UserDetails {
     private String login; // Armazena o login do usuário (username).
     private String senha; // Armazena a senha do usuário (password), que deve ser codificada (hashed).
 
+    /**
+     * Substitui a senha pelo novo hash (usado quando o custo do BCrypt muda e a senha é refeita no login).
+     * @param senhaCodificada A senha já codificada.
+     */
+    public void atualizarSenha(String senhaCodificada) {
+        this.senha = senhaCodificada;
+    }
+
     // --- Métodos da interface UserDetails ---
     // O Spring Security utiliza esses métodos para gerenciar a autenticação e autorização.
 
@@ -0,0 +1,87 @@
+package com.example.demo.repository;
+
+import com.example.demo.models.Modelo_Produto;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Campos de produto que podem ser usados em consultas dinâmicas.
+ * O nome de cada campo é o mesmo na API (ProdutoResponseDTO) e na entidade Modelo_Produto.
+ */
+public enum CampoProduto {
+
+    ID("id", "id", false, Modelo_Produto::getId, Long::valueOf),
+    NOME("nome", "nome", false, Modelo_Produto::getNome, valor -> valor),
+    DESCRICAO("descricao", "descricao", true, Modelo_Produto::getDescricao, valor -> valor),
+    PRECO("preco", "preco", false, Modelo_Produto::getPreco, Double::valueOf),
+    QUANTIDADE_ESTOQUE("quantidadeEstoque", "stock_quantity", true, Modelo_Produto::getQuantidadeEstoque, Integer::valueOf),
+    DATA_CRIACAO("dataCriacao", "creation_date", false, Modelo_Produto::getDataCriacao, LocalDateTime::parse),
+    VERSAO("versao", "version", false, Modelo_Produto::getVersao, Long::valueOf);
+
+    private final String atributo; // Nome do atributo na entidade (e do campo no JSON da API).
+    private final String coluna; // Nome da coluna na tabela 'products' (como nos índices de @Table).
+    private final boolean anulavel; // Se a coluna aceita NULL (afeta o predicado de keyset).
+    private final Function<Modelo_Produto, Object> extrator;
+    private final Function<String, Object> conversor;
+
+    CampoProduto(String atributo, String coluna, boolean anulavel, Function<Modelo_Produto, Object> extrator, Function<String, Object> conversor) {
+        this.atributo = atributo;
+        this.coluna = coluna;
+        this.anulavel = anulavel;
+        this.extrator = extrator;
+        this.conversor = conversor;
+    }
+
+    public String getAtributo() {
+        return atributo;
+    }
+
+    public String getColuna() {
+        return coluna;
+    }
+
+    public boolean isAnulavel() {
+        return anulavel;
+    }
+
+    /**
+     * Lê o valor deste campo em uma entidade já carregada.
+     */
+    public Object valorDe(Modelo_Produto produto) {
+        return extrator.apply(produto);
+    }
+
+    /**
+     * Converte a representação textual (ex: vinda de um cursor) para o tipo Java do atributo.
+     * @throws RuntimeException se o texto não puder ser convertido.
+     */
+    public Object converter(String valor) {
+        return conversor.apply(valor);
+    }
+
+    /**
+     * Busca o campo pelo nome da coluna no banco, ignorando maiúsculas/minúsculas.
+     */
+    public static Optional<CampoProduto> porColuna(String coluna) {
+        for (CampoProduto campo : values()) {
+            if (campo.coluna.equalsIgnoreCase(coluna)) {
+                return Optional.of(campo);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Busca o campo pelo nome, ignorando maiúsculas/minúsculas.
+     */
+    public static Optional<CampoProduto> porNome(String nome) {
+        for (CampoProduto campo : values()) {
+            if (campo.atributo.equalsIgnoreCase(nome)) {
+                return Optional.of(campo);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.repository;
+
+import com.example.demo.models.Modelo_Produto;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Decide se uma combinação de filtros e ordenação da listagem de produtos é atendida por algum índice da tabela.
+ * Os índices são lidos da própria anotação @Table de Modelo_Produto (mais a chave primária), de modo que declarar
+ * um novo índice na entidade é o que libera uma nova combinação.
+ * Uma combinação é atendida quando existe um índice que:
+ * - entrega as linhas já na ordem pedida: a ordenação (com o desempate por id) é um prefixo das colunas do índice,
+ *   nas mesmas direções; ou
+ * - começa por uma das colunas filtradas: o banco lê só a faixa do filtro e ordena esse resultado.
+ * O filtro por nome não entra na conta: é resolvido pelo índice de trigramas em memória (ids pela chave primária).
+ */
+public final class IndicesProduto {
+
+    private static final List<List<OrdenacaoProduto.Criterio>> INDICES = lerIndices();
+
+    private IndicesProduto() {
+    }
+
+    /**
+     * @param filtrados As colunas com filtro de faixa (ver ProdutoSpecifications.camposFiltrados).
+     * @param ordenacao A ordenação pedida.
+     * @return true se algum índice atende à combinação.
+     */
+    public static boolean atende(Set<CampoProduto> filtrados, OrdenacaoProduto ordenacao) {
+        List<OrdenacaoProduto.Criterio> ordem = ordenacao.criteriosComDesempate();
+        for (List<OrdenacaoProduto.Criterio> indice : INDICES) {
+            if (filtrados.contains(indice.get(0).campo())) {
+                return true;
+            }
+            if (indice.size() >= ordem.size() && indice.subList(0, ordem.size()).equals(ordem)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Descrição das combinações atendidas, para a mensagem de erro devolvida ao cliente.
+     */
+    public static String descricao() {
+        String ordenacoes = INDICES.stream()
+                .map(indice -> indice.subList(0, indice.size() - (indice.size() > 1 ? 1 : 0)).stream() // Sem o desempate por id.
+                        .map(c -> c.campo().getAtributo() + "," + c.direcao().name().toLowerCase())
+                        .collect(Collectors.joining(",")))
+                .collect(Collectors.joining("' | '", "'", "'"));
+        String filtros = INDICES.stream()
+                .map(indice -> indice.get(0).campo())
+                .filter(campo -> campo != CampoProduto.ID && campo != CampoProduto.NOME)
+                .map(CampoProduto::getAtributo)
+                .distinct()
+                .collect(Collectors.joining(", "));
+        return "ordenações " + ordenacoes + " com quaisquer filtros, ou qualquer ordenação com filtro por " + filtros;
+    }
+
+    // Converte cada @Index ("coluna [asc|desc], ...") em critérios; a chave primária entra como o índice (id asc).
+    private static List<List<OrdenacaoProduto.Criterio>> lerIndices() {
+        List<List<OrdenacaoProduto.Criterio>> indices = new ArrayList<>();
+        indices.add(List.of(new OrdenacaoProduto.Criterio(CampoProduto.ID, Sort.Direction.ASC)));
+        for (Index indice : Modelo_Produto.class.getAnnotation(Table.class).indexes()) {
+            List<OrdenacaoProduto.Criterio> colunas = new ArrayList<>();
+            for (String coluna : indice.columnList().split(",")) {
+                String[] partes = coluna.trim().split("\\s+");
+                CampoProduto campo = CampoProduto.porColuna(partes[0])
+                        .orElseThrow(() -> new IllegalStateException("Coluna desconhecida no índice " + indice.name() + ": " + partes[0]));
+                Sort.Direction direcao = partes.length > 1 ? Sort.Direction.fromString(partes[1]) : Sort.Direction.ASC;
+                colunas.add(new OrdenacaoProduto.Criterio(campo, direcao));
+            }
+            indices.add(List.copyOf(colunas));
+        }
+        return List.copyOf(indices);
+    }
+}
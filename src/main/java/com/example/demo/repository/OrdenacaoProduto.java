@@ -0,0 +1,93 @@
+package com.example.demo.repository;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Critério de ordenação de uma listagem de produtos.
+ * É a partir dele que são montados tanto o Sort do Spring Data quanto o predicado de keyset
+ * usado na paginação por cursor.
+ */
+public record OrdenacaoProduto(List<Criterio> criterios) {
+
+    /**
+     * Uma coluna da ordenação e a sua direção.
+     */
+    public record Criterio(CampoProduto campo, Sort.Direction direcao) {}
+
+    public static final OrdenacaoProduto PADRAO = new OrdenacaoProduto(List.of(new Criterio(CampoProduto.NOME, Sort.Direction.ASC)));
+
+    /**
+     * Interpreta o parâmetro 'sort' da API: uma ou mais colunas, cada uma seguida opcionalmente da direção
+     * (ex: "preco,desc", "quantidadeEstoque,asc,preco,asc" ou "dataCriacao,desc"). A direção padrão é ascendente.
+     * Como o Spring junta com vírgula os valores repetidos de um parâmetro, "sort=preco,desc&sort=nome" também funciona.
+     * Valores desconhecidos (incluindo "relevancia", que é tratada pelo serviço) caem na ordenação padrão (nome ascendente).
+     * Se a ordenação é atendida por um índice é decidido depois, por IndicesProduto.
+     * @param sort o valor recebido (ex: "preco,asc").
+     */
+    public static OrdenacaoProduto parse(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return PADRAO;
+        }
+        List<Criterio> criterios = new ArrayList<>();
+        for (String parte : sort.split(",")) {
+            String termo = parte.trim();
+            Optional<Sort.Direction> direcao = Sort.Direction.fromOptionalString(termo);
+            if (direcao.isPresent() && !criterios.isEmpty()) {
+                // A direção se aplica à coluna que veio logo antes.
+                Criterio anterior = criterios.remove(criterios.size() - 1);
+                criterios.add(new Criterio(anterior.campo(), direcao.get()));
+                continue;
+            }
+            Optional<CampoProduto> campo = CampoProduto.porNome(termo);
+            if (campo.isEmpty()) {
+                return PADRAO;
+            }
+            if (criterios.stream().noneMatch(c -> c.campo() == campo.get())) {
+                criterios.add(new Criterio(campo.get(), Sort.Direction.ASC));
+            }
+        }
+        return criterios.isEmpty() ? PADRAO : new OrdenacaoProduto(List.copyOf(criterios));
+    }
+
+    /**
+     * Sort equivalente, sem desempate.
+     */
+    public Sort toSort() {
+        return Sort.by(criterios.stream()
+                .map(c -> new Sort.Order(c.direcao(), c.campo().getAtributo()))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Critérios acrescidos do 'id' como desempate, na mesma direção do último critério.
+     * Isso torna a ordenação total, condição necessária para a paginação por keyset.
+     */
+    public List<Criterio> criteriosComDesempate() {
+        List<Criterio> todos = new ArrayList<>(criterios);
+        if (todos.stream().noneMatch(c -> c.campo() == CampoProduto.ID)) {
+            todos.add(new Criterio(CampoProduto.ID, criterios.get(criterios.size() - 1).direcao()));
+        }
+        return todos;
+    }
+
+    public Sort toSortComDesempate() {
+        return Sort.by(criteriosComDesempate().stream()
+                .map(c -> new Sort.Order(c.direcao(), c.campo().getAtributo()))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Representação estável da ordenação, gravada dentro do cursor para impedir que um cursor
+     * gerado com uma ordenação seja reutilizado com outra.
+     */
+    public String assinatura() {
+        return criteriosComDesempate().stream()
+                .map(c -> c.campo().getAtributo() + ":" + c.direcao().name().toLowerCase())
+                .collect(Collectors.joining(";"));
+    }
+}
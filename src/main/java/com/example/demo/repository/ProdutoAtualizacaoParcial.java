@@ -0,0 +1,20 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.ProdutoPatchDTO;
+
+/**
+ * Fragmento do ProdutoRepository com a atualização parcial de produtos em um único comando SQL.
+ * A implementação (ProdutoAtualizacaoParcialImpl) é encontrada pelo Spring Data pelo sufixo 'Impl'.
+ */
+public interface ProdutoAtualizacaoParcial {
+
+    /**
+     * Atualiza apenas os campos informados, sem carregar a entidade:
+     * 'update products set <campos>, version = version + 1 where id = ? [and version = ?]'.
+     * @param id O id do produto.
+     * @param campos Os campos a alterar; os nulos são mantidos.
+     * @param versaoEsperada Se não for nula, a linha só é alterada se ainda estiver nesta versão.
+     * @return A quantidade de linhas alteradas (0 se o produto não existe ou mudou de versão).
+     */
+    int atualizarCampos(Long id, ProdutoPatchDTO campos, Long versaoEsperada);
+}
@@ -0,0 +1,53 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.ProdutoPatchDTO;
+import com.example.demo.models.Modelo_Produto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Implementação do fragmento ProdutoAtualizacaoParcial com CriteriaUpdate (um UPDATE em massa do JPA).
+ * Por não passar pelo contexto de persistência, a versão é incrementada explicitamente
+ * e o chamador deve estar em uma transação sem cópias carregadas do produto.
+ */
+class ProdutoAtualizacaoParcialImpl implements ProdutoAtualizacaoParcial {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int atualizarCampos(Long id, ProdutoPatchDTO campos, Long versaoEsperada) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Modelo_Produto> update = cb.createCriteriaUpdate(Modelo_Produto.class);
+        Root<Modelo_Produto> produto = update.from(Modelo_Produto.class);
+
+        // Só entram no SET os campos informados.
+        if (campos.nome() != null) {
+            update.set(produto.<String>get("nome"), campos.nome());
+        }
+        if (campos.descricao() != null) {
+            update.set(produto.<String>get("descricao"), campos.descricao());
+        }
+        if (campos.preco() != null) {
+            update.set(produto.<Double>get("preco"), campos.preco());
+        }
+        if (campos.quantidadeEstoque() != null) {
+            update.set(produto.<Integer>get("quantidadeEstoque"), campos.quantidadeEstoque());
+        }
+        // Mantém o @Version coerente com os UPDATEs do Hibernate, invalidando os ETags emitidos antes.
+        Path<Long> versao = produto.get("versao");
+        update.set(versao, cb.sum(versao, 1L));
+
+        Predicate filtro = cb.equal(produto.get("id"), id);
+        if (versaoEsperada != null) {
+            filtro = cb.and(filtro, cb.equal(versao, versaoEsperada));
+        }
+        update.where(filtro);
+        return entityManager.createQuery(update).executeUpdate();
+    }
+}
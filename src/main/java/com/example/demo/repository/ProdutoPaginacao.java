@@ -0,0 +1,40 @@
+package com.example.demo.repository;
+
+import com.example.demo.models.Modelo_Produto;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Fragmento do ProdutoRepository com as leituras da listagem de produtos (completa ou por página, com cursor).
+ * Substitui o 'findBy(spec, q -> q.sortBy(...).limit(...))' do Spring Data, que repete as colunas no ORDER BY
+ * ('order by nome, id, nome, id'); com a ordenação repetida o H2 deixa de usar o índice para entregar as linhas em ordem.
+ * As consultas podem ir para o cache de consultas do Hibernate (região REGIAO_CONSULTAS), que guarda os ids
+ * do resultado; os produtos vêm do cache de entidades.
+ * A implementação (ProdutoPaginacaoImpl) é encontrada pelo Spring Data pelo sufixo 'Impl'.
+ */
+public interface ProdutoPaginacao {
+
+    // Região do cache de consultas (ehcache.xml); invalidada a cada alteração na tabela de produtos.
+    String REGIAO_CONSULTAS = "produtos-consultas";
+
+    /**
+     * 'select p from Modelo_Produto p where <filtro> order by <sort> limit <limite>'.
+     * @param filtro O filtro da consulta (incluindo a posição do cursor).
+     * @param sort A ordenação, já com o desempate.
+     * @param limite Quantidade máxima de linhas.
+     * @param cachear Se o resultado pode ir para o cache de consultas.
+     * @return Os produtos encontrados, na ordem pedida.
+     */
+    List<Modelo_Produto> buscarPagina(Specification<Modelo_Produto> filtro, Sort sort, int limite, boolean cachear);
+
+    /**
+     * 'select p from Modelo_Produto p where <filtro> order by <sort>', sem limite.
+     * @param filtro O filtro da consulta.
+     * @param sort A ordenação.
+     * @param cachear Se o resultado pode ir para o cache de consultas.
+     * @return Os produtos encontrados, na ordem pedida.
+     */
+    List<Modelo_Produto> buscarTodos(Specification<Modelo_Produto> filtro, Sort sort, boolean cachear);
+}
@@ -0,0 +1,53 @@
+package com.example.demo.repository;
+
+import com.example.demo.models.Modelo_Produto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.List;
+
+/**
+ * Implementação do fragmento ProdutoPaginacao com uma CriteriaQuery de entidades.
+ */
+class ProdutoPaginacaoImpl implements ProdutoPaginacao {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Modelo_Produto> buscarPagina(Specification<Modelo_Produto> filtro, Sort sort, int limite, boolean cachear) {
+        return consulta(filtro, sort, cachear).setMaxResults(limite).getResultList();
+    }
+
+    @Override
+    public List<Modelo_Produto> buscarTodos(Specification<Modelo_Produto> filtro, Sort sort, boolean cachear) {
+        return consulta(filtro, sort, cachear).getResultList();
+    }
+
+    private TypedQuery<Modelo_Produto> consulta(Specification<Modelo_Produto> filtro, Sort sort, boolean cachear) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Modelo_Produto> query = cb.createQuery(Modelo_Produto.class);
+        Root<Modelo_Produto> produto = query.from(Modelo_Produto.class);
+
+        Predicate predicado = filtro.toPredicate(produto, query, cb);
+        if (predicado != null) {
+            query.where(predicado);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, produto, cb));
+        TypedQuery<Modelo_Produto> consulta = entityManager.createQuery(query);
+        if (cachear) {
+            consulta.setHint(HibernateHints.HINT_CACHEABLE, true);
+            consulta.setHint(HibernateHints.HINT_CACHE_REGION, REGIAO_CONSULTAS);
+        }
+        return consulta;
+    }
+}
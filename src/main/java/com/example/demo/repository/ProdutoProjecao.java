@@ -0,0 +1,28 @@
+package com.example.demo.repository;
+
+import com.example.demo.models.Modelo_Produto;
+import jakarta.persistence.Tuple;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Fragmento do ProdutoRepository com consultas que selecionam apenas algumas colunas (projeção),
+ * usadas pelo parâmetro 'fields' das leituras de produtos.
+ * A implementação (ProdutoProjecaoImpl) é encontrada pelo Spring Data pelo sufixo 'Impl'.
+ */
+public interface ProdutoProjecao {
+
+    /**
+     * Busca somente as colunas dos campos informados, como tuplas (nenhuma entidade é carregada nem gerenciada):
+     * 'select <campos> from products where <filtro> order by <sort> [limit ?]'.
+     * @param campos Os campos a selecionar; cada valor da tupla tem como alias o nome do atributo (CampoProduto.getAtributo()).
+     * @param filtro O filtro da consulta (pode ser Specification.where(null)).
+     * @param sort A ordenação.
+     * @param limite Quantidade máxima de linhas, ou nulo para não limitar.
+     * @return As tuplas encontradas, na ordem pedida.
+     */
+    List<Tuple> buscarCampos(Collection<CampoProduto> campos, Specification<Modelo_Produto> filtro, Sort sort, Integer limite);
+}
@@ -0,0 +1,55 @@
+package com.example.demo.repository;
+
+import com.example.demo.models.Modelo_Produto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Implementação do fragmento ProdutoProjecao com uma CriteriaQuery de tuplas.
+ * Como o resultado são valores soltos e não entidades, o Hibernate não cria instâncias de Modelo_Produto,
+ * não as registra no contexto de persistência e não guarda cópias para o dirty checking.
+ */
+class ProdutoProjecaoImpl implements ProdutoProjecao {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Tuple> buscarCampos(Collection<CampoProduto> campos, Specification<Modelo_Produto> filtro, Sort sort, Integer limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Modelo_Produto> produto = query.from(Modelo_Produto.class);
+
+        List<Selection<?>> colunas = new ArrayList<>(campos.size());
+        for (CampoProduto campo : campos) {
+            colunas.add(produto.get(campo.getAtributo()).alias(campo.getAtributo()));
+        }
+        query.multiselect(colunas);
+
+        Predicate predicado = filtro.toPredicate(produto, query, cb);
+        if (predicado != null) {
+            query.where(predicado);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, produto, cb));
+
+        TypedQuery<Tuple> consulta = entityManager.createQuery(query);
+        if (limite != null) {
+            consulta.setMaxResults(limite);
+        }
+        return consulta.getResultList();
+    }
+}
@@ -1,32 +1,89 @@
 package com.example.demo.repository;
 
 import com.example.demo.models.Modelo_Produto;
-import org.springframework.data.domain.Sort;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interface do repositório para a entidade Modelo_Produto.
  * Fornece operações de CRUD e consultas personalizadas para produtos.
+ * JpaSpecificationExecutor habilita consultas dinâmicas (Criteria), usadas na paginação por cursor.
+ * ProdutoAtualizacaoParcial adiciona o UPDATE de um único comando usado pelo PATCH.
+ * ProdutoProjecao adiciona as consultas que selecionam só alguns campos (parâmetro 'fields').
+ * ProdutoPaginacao adiciona a leitura de uma página de entidades (paginação por cursor).
  */
 @Repository // Anotação opcional, mas boa prática para indicar que é um bean de acesso a dados.
-public interface ProdutoRepository extends JpaRepository<Modelo_Produto, Long> {
+public interface ProdutoRepository extends JpaRepository<Modelo_Produto, Long>, JpaSpecificationExecutor<Modelo_Produto>, ProdutoAtualizacaoParcial, ProdutoProjecao,
+        ProdutoPaginacao {
 
     /**
-     * Busca uma lista de produtos cujo nome contém uma determinada string, ignorando
-     * a diferença entre maiúsculas e minúsculas, e aplica uma ordenação.
-     * * A consulta SQL correspondente é gerada automaticamente pelo Spring Data JPA
-     * com base no nome do método.
-     * - findBy...: Inicia a consulta.
-     * - Nome: Filtra pelo campo 'Nome' da entidade.
-     * - Containing: Usa a lógica do 'LIKE %string%'.
-     * - IgnoreCase: Converte os valores para minúsculo antes de comparar (ex: LOWER(nome)).
-     * * @param nome A string a ser buscada no nome dos produtos.
-     * @param sort Um objeto Sort que define o critério de ordenação.
-     * @return Uma lista de entidades Modelo_Produto que correspondem ao critério.
+     * Percorre todos os produtos em ordem de id como um Stream, sem materializar a tabela inteira.
+     * O 'fetchSize' faz o driver JDBC trazer as linhas em blocos (no MySQL isso exige 'useCursorFetch=true' na URL)
+     * e o 'readOnly' evita que o Hibernate guarde cópias das entidades para dirty checking.
+     * O Stream deve ser consumido dentro de uma transação e fechado ao final (try-with-resources).
+     * @return Um Stream de entidades Modelo_Produto.
      */
-    List<Modelo_Produto> findByNomeContainingIgnoreCase(String nome, Sort sort);
+    @Query("select p from Modelo_Produto p order by p.id")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Modelo_Produto> streamAllByOrderByIdAsc();
+
+    /**
+     * Percorre id, nome e descrição de todos os produtos em ordem de id, sem montar entidades
+     * (uma consulta escalar não passa pelo contexto de persistência nem pelo cache de segundo nível).
+     * Usado nas cargas do índice de busca; as mesmas regras de consumo de 'streamAllByOrderByIdAsc' se aplicam.
+     * @return Um Stream de linhas [id, nome, descricao].
+     */
+    @Query("select p.id, p.nome, p.descricao from Modelo_Produto p order by p.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<Object[]> streamTextosOrderByIdAsc();
+
+    /**
+     * Busca apenas a versão de um produto (uma leitura pela chave primária, sem carregar a entidade).
+     * Usada para responder requisições condicionais (If-None-Match) sem montar o DTO.
+     * @param id O id do produto.
+     * @return A versão atual, ou vazio se o produto não existir.
+     */
+    @Query("select p.versao from Modelo_Produto p where p.id = :id")
+    Optional<Long> findVersaoById(Long id);
+
+    /**
+     * Busca apenas a quantidade em estoque de um produto (nula é tratada como zero).
+     * Usada para carregar o saldo em memória das reservas de estoque.
+     * @param id O id do produto.
+     * @return A quantidade em estoque, ou vazio se o produto não existir.
+     */
+    @Query("select coalesce(p.quantidadeEstoque, 0) from Modelo_Produto p where p.id = :id")
+    Optional<Integer> findQuantidadeEstoqueById(Long id);
+
+    /**
+     * Remove o produto em um único comando, sem carregá-lo antes (o 'deleteById' do Spring Data faz um SELECT
+     * para depois remover a entidade).
+     * @return A quantidade de linhas removidas (0 se o produto não existe).
+     */
+    @Modifying
+    @Query("delete from Modelo_Produto p where p.id = :id")
+    int deleteInBulkById(Long id);
+
+    /**
+     * Remove o produto somente se ele ainda estiver na versão informada, em um único comando.
+     * A conferência e a remoção são atômicas: não há janela entre ler a versão e apagar a linha.
+     * @return A quantidade de linhas removidas (0 se o produto não existe ou mudou de versão).
+     */
+    @Modifying
+    @Query("delete from Modelo_Produto p where p.id = :id and p.versao = :versao")
+    int deleteByIdAndVersao(Long id, long versao);
 
 }
\ No newline at end of file
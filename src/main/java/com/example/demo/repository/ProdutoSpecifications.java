@@ -0,0 +1,140 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.ProdutoFiltroDTO;
+import com.example.demo.models.Modelo_Produto;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fábrica de Specifications (Criteria API) reutilizáveis nas consultas de produtos.
+ */
+public final class ProdutoSpecifications {
+
+    private ProdutoSpecifications() {
+    }
+
+    /**
+     * Busca por texto quando o índice de trigramas não pode responder: LIKE '%termo%' sobre o nome ou a descrição,
+     * normalizados em SQL pela mesma regra do índice (TextoDeBusca).
+     */
+    public static Specification<Modelo_Produto> textoContem(String termo) {
+        String padrao = TextoDeBusca.padraoContem(termo);
+        return (root, query, cb) -> cb.or(
+                cb.like(TextoDeBusca.normalizar(cb, root.get(CampoProduto.NOME.getAtributo())), padrao, '\\'),
+                cb.like(TextoDeBusca.normalizar(cb, root.get(CampoProduto.DESCRICAO.getAtributo())), padrao, '\\'));
+    }
+
+    /**
+     * Restringe a consulta a um conjunto de ids já resolvido (ex: pelo índice de busca em memória).
+     */
+    public static Specification<Modelo_Produto> idEm(Collection<Long> ids) {
+        return (root, query, cb) -> root.get(CampoProduto.ID.getAtributo()).in(ids);
+    }
+
+    /**
+     * Filtros de faixa (preço, estoque e data de criação), com limites inclusivos. Campos nulos não filtram.
+     */
+    public static Specification<Modelo_Produto> comFiltro(ProdutoFiltroDTO filtro) {
+        return (root, query, cb) -> {
+            List<Predicate> termos = new ArrayList<>();
+            faixa(cb, root.get(CampoProduto.PRECO.getAtributo()), filtro.minPrice(), filtro.maxPrice(), termos);
+            faixa(cb, root.get(CampoProduto.QUANTIDADE_ESTOQUE.getAtributo()), filtro.minStock(), filtro.maxStock(), termos);
+            faixa(cb, root.get(CampoProduto.DATA_CRIACAO.getAtributo()), filtro.createdFrom(), filtro.createdTo(), termos);
+            return termos.isEmpty() ? null : cb.and(termos.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * As colunas que o filtro restringe (usado por IndicesProduto para escolher um índice).
+     */
+    public static Set<CampoProduto> camposFiltrados(ProdutoFiltroDTO filtro) {
+        Set<CampoProduto> campos = EnumSet.noneOf(CampoProduto.class);
+        if (filtro.minPrice() != null || filtro.maxPrice() != null) {
+            campos.add(CampoProduto.PRECO);
+        }
+        if (filtro.minStock() != null || filtro.maxStock() != null) {
+            campos.add(CampoProduto.QUANTIDADE_ESTOQUE);
+        }
+        if (filtro.createdFrom() != null || filtro.createdTo() != null) {
+            campos.add(CampoProduto.DATA_CRIACAO);
+        }
+        return campos;
+    }
+
+    /**
+     * Predicado de keyset: seleciona apenas as linhas que vêm depois da última linha já entregue,
+     * segundo a ordenação (com desempate por id).
+     * Para critérios (a, b, id) e valores (x, y, z) gera:
+     * a >= x AND (a > x OR (a = x AND b > y) OR (a = x AND b = y AND id > z)), trocando '>' por '<' nas colunas descendentes.
+     * O 'a >= x' é redundante, mas dá ao otimizador o início do intervalo no índice da primeira coluna;
+     * sem ele, bancos que não decompõem o OR (ex: H2) percorrem a tabela inteira.
+     * NULL é tratado como o menor valor (como no H2 e no MySQL): vem primeiro nas colunas ascendentes e por último nas descendentes.
+     * @param valores valores da última linha, na mesma ordem de 'criteriosComDesempate()'.
+     */
+    public static Specification<Modelo_Produto> aposCursor(OrdenacaoProduto ordenacao, List<Object> valores) {
+        List<OrdenacaoProduto.Criterio> criterios = ordenacao.criteriosComDesempate();
+        return (root, query, cb) -> {
+            List<Predicate> alternativas = new ArrayList<>();
+            for (int i = 0; i < criterios.size(); i++) {
+                List<Predicate> termos = new ArrayList<>();
+                for (int j = 0; j < i; j++) {
+                    Path<Object> anterior = root.get(criterios.get(j).campo().getAtributo());
+                    termos.add(valores.get(j) == null ? cb.isNull(anterior) : cb.equal(anterior, valores.get(j)));
+                }
+                OrdenacaoProduto.Criterio criterio = criterios.get(i);
+                termos.add(depois(cb, root.get(criterio.campo().getAtributo()), valores.get(i), criterio));
+                alternativas.add(cb.and(termos.toArray(new Predicate[0])));
+            }
+            Predicate apos = cb.or(alternativas.toArray(new Predicate[0]));
+            OrdenacaoProduto.Criterio primeiro = criterios.get(0);
+            Predicate inicio = aPartirDe(cb, root.get(primeiro.campo().getAtributo()), valores.get(0), primeiro);
+            return inicio == null ? apos : cb.and(inicio, apos);
+        };
+    }
+
+    // Início do intervalo na primeira coluna, ou nulo quando não há um limite que o índice consiga usar
+    // (o resultado continua correto: 'apos' sozinho já seleciona as linhas certas).
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate aPartirDe(CriteriaBuilder cb, Path caminho, Object valor, OrdenacaoProduto.Criterio criterio) {
+        if (criterio.direcao().isAscending()) {
+            return valor == null ? null : cb.greaterThanOrEqualTo(caminho, (Comparable) valor);
+        }
+        if (valor == null) {
+            return cb.isNull(caminho); // Descendente: depois de um NULL só vêm outros NULLs.
+        }
+        // Descendente com NULLs no fim: o limite seria 'a <= x OR a IS NULL', que o índice não aproveita.
+        return criterio.campo().isAnulavel() ? null : cb.lessThanOrEqualTo(caminho, (Comparable) valor);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate depois(CriteriaBuilder cb, Path caminho, Object valor, OrdenacaoProduto.Criterio criterio) {
+        if (criterio.direcao().isAscending()) {
+            // NULL vem antes de qualquer valor: depois dele estão todas as linhas não nulas.
+            return valor == null ? cb.isNotNull(caminho) : cb.greaterThan(caminho, (Comparable) valor);
+        }
+        if (valor == null) {
+            return cb.disjunction(); // Descendente: nenhuma linha vem depois de NULL nesta coluna.
+        }
+        Predicate menor = cb.lessThan(caminho, (Comparable) valor);
+        return criterio.campo().isAnulavel() ? cb.or(menor, cb.isNull(caminho)) : menor;
+    }
+
+    // Acrescenta 'minimo <= coluna <= maximo' (cada limite só se informado).
+    private static <T extends Comparable<? super T>> void faixa(CriteriaBuilder cb, Path<T> caminho, T minimo, T maximo, List<Predicate> termos) {
+        if (minimo != null) {
+            termos.add(cb.greaterThanOrEqualTo(caminho, minimo));
+        }
+        if (maximo != null) {
+            termos.add(cb.lessThanOrEqualTo(caminho, maximo));
+        }
+    }
+}
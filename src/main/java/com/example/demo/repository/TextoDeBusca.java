@@ -0,0 +1,68 @@
+package com.example.demo.repository;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+
+import java.text.Normalizer;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Normalização única das buscas por texto (nome e descrição): minúsculas e sem acentos, como a comparação da
+ * collation padrão do MySQL (utf8mb4_0900_ai_ci).
+ * A mesma regra é aplicada em Java, pelo índice de trigramas (ProdutoSearchIndex), e em SQL, pelo LIKE usado
+ * quando o índice não pode responder: assim os dois caminhos devolvem os mesmos produtos, qualquer que seja o banco.
+ */
+public final class TextoDeBusca {
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+
+    // Letras acentuadas minúsculas do Latin-1 (as dos catálogos em português) e a letra sem acento correspondente,
+    // derivadas de 'normalizar': são as substituições que o lado SQL aplica depois do LOWER.
+    private static final Map<String, String> SEM_ACENTO = new LinkedHashMap<>();
+
+    static {
+        for (char letra = 'à'; letra <= 'ÿ'; letra++) {
+            String original = String.valueOf(letra);
+            String normalizada = normalizar(original);
+            if (!normalizada.equals(original) && normalizada.length() == 1) {
+                SEM_ACENTO.put(original, normalizada);
+            }
+        }
+    }
+
+    private TextoDeBusca() {
+    }
+
+    /**
+     * Normaliza um texto para comparação: remove acentos e converte para minúsculas.
+     */
+    public static String normalizar(String texto) {
+        String decomposto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        return MARCAS_DIACRITICAS.matcher(decomposto).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A mesma normalização sobre uma coluna, em SQL: LOWER seguido de um REPLACE por letra acentuada
+     * (funções que existem tanto no MySQL quanto no H2).
+     */
+    public static Expression<String> normalizar(CriteriaBuilder cb, Expression<String> coluna) {
+        Expression<String> expressao = cb.lower(coluna);
+        for (Map.Entry<String, String> letra : SEM_ACENTO.entrySet()) {
+            expressao = cb.function("replace", String.class, expressao, cb.literal(letra.getKey()), cb.literal(letra.getValue()));
+        }
+        return expressao;
+    }
+
+    /**
+     * Padrão LIKE '%termo%' sobre o termo normalizado, escapando (com '\') os curingas que vierem no próprio texto.
+     */
+    public static String padraoContem(String termo) {
+        return "%" + normalizar(termo)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+    }
+}
@@ -1,22 +1,38 @@
 package com.example.demo.repository;
 
 import com.example.demo.models.Usuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Interface do repositório para a entidade Usuario.
  * Estende JpaRepository para obter métodos de CRUD (Create, Read, Update, Delete) prontos.
  */
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
-    
+
+    // Região do cache de consultas (ehcache.xml) com o resultado de findByLogin.
+    String REGIAO_CONSULTAS = "usuarios-consultas";
+
     /**
      * Busca um usuário pelo seu campo 'login'.
      * Este método é crucial para o Spring Security, pois é usado pelo 'UserDetailsService'
      * para carregar os dados do usuário durante o processo de autenticação.
      * O Spring Data JPA cria a implementação deste método automaticamente com base no nome.
+     * Roda em uma transação somente leitura, então pode ser atendido por uma réplica (ver ReplicasDataSourceConfig);
+     * chamado dentro de uma transação de escrita, participa dela e lê do primário.
+     * O resultado fica no cache de consultas do Hibernate (e o usuário, no cache de entidades), invalidado a cada
+     * alteração na tabela de usuários.
      * * @param login O login do usuário a ser procurado.
      * @return Um objeto UserDetails (a própria entidade Usuario) se encontrado, ou null caso contrário.
      */
+    @Transactional(readOnly = true)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = REGIAO_CONSULTAS)
+    })
     UserDetails findByLogin(String login);
 }
\ No newline at end of file
@@ -1,18 +1,22 @@
 package com.example.demo.service;
 
+import com.example.demo.models.Usuario;
 import com.example.demo.repository.UsuarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Serviço de autenticação que se integra com o Spring Security.
- * Implementa a interface UserDetailsService para carregar dados do usuário pelo login.
+ * Implementa a interface UserDetailsService para carregar dados do usuário pelo login
+ * e UserDetailsPasswordService para regravar a senha quando o custo do BCrypt é diferente do configurado.
  */
 @Service
-public class AutenticacaoService implements UserDetailsService {
+public class AutenticacaoService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired // Injeção de dependência por campo. Para classes simples como esta, é aceitável, mas a injeção por construtor é geralmente preferível.
     private UsuarioRepository repository;
@@ -39,4 +43,23 @@ public class AutenticacaoService implements UserDetailsService {
         // Retorna o objeto UserDetails (a própria entidade Usuario, que deve implementar esta interface) para o Spring Security.
         return user;
     }
+
+    /**
+     * Chamado pelo Spring Security após um login bem-sucedido quando o hash armazenado usa um custo
+     * diferente do configurado (PasswordEncoder.upgradeEncoding). A senha já vem recodificada com o custo atual.
+     *
+     * @param user O usuário autenticado.
+     * @param newPassword A senha codificada com o custo atual.
+     * @return O usuário com a senha atualizada.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        Usuario usuario = (Usuario) repository.findByLogin(user.getUsername());
+        if (usuario == null) {
+            return user;
+        }
+        usuario.atualizarSenha(newPassword);
+        return repository.save(usuario);
+    }
 }
\ No newline at end of file
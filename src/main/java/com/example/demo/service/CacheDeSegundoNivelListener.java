@@ -0,0 +1,37 @@
+package com.example.demo.service;
+
+import com.example.demo.models.Modelo_Produto;
+import com.example.demo.repository.ProdutoPaginacao;
+import com.example.demo.service.events.ProdutoAlteradoEvent;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Mantém o cache de segundo nível do Hibernate coerente com as alterações de produto que não passam pelo Hibernate.
+ * As gravações via JPA (save, merge, UPDATE/DELETE em massa) já atualizam ou invalidam o cache sozinhas;
+ * as baixas de estoque do ReservaEstoqueService são UPDATEs via JDBC, que o Hibernate não vê.
+ */
+@Component
+public class CacheDeSegundoNivelListener {
+
+    private final Cache cache;
+
+    public CacheDeSegundoNivelListener(EntityManagerFactory entityManagerFactory) {
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    /**
+     * Remove, após o commit, o produto cujo estoque foi baixado e as listagens em cache (que podem conter o estoque antigo).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        if (evento.tipo() != ProdutoAlteradoEvent.Tipo.ESTOQUE_BAIXADO) {
+            return;
+        }
+        cache.evictEntityData(Modelo_Produto.class, evento.id());
+        cache.evictQueryRegion(ProdutoPaginacao.REGIAO_CONSULTAS);
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.demo.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Estoque disponível de um produto em memória, dividido em faixas (como um LongAdder, mas que nunca fica negativo).
+ * Cada thread retira primeiro da "sua" faixa com um CAS; só quando nenhuma faixa sozinha tem o suficiente
+ * a reserva passa pelo lock, que junta as faixas e redistribui o saldo. Assim, reservas simultâneas do mesmo
+ * produto raramente disputam a mesma linha de cache, e a soma das faixas nunca fica abaixo de zero.
+ * Também acompanha o que está comprometido (reservado e ainda não gravado), para recalcular o saldo a partir do banco.
+ */
+final class ContadorDeEstoque {
+
+    // 8 longs = 64 bytes: cada faixa fica em sua própria linha de cache (evita "false sharing" entre núcleos).
+    private static final int ESPACAMENTO = 8;
+
+    private final AtomicLongArray faixas;
+    private final int mascara;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Unidades reservadas e ainda não gravadas no banco (reservas ativas + confirmações na fila de escrita).
+    private final LongAdder comprometido = new LongAdder();
+
+    // Alterações do produto feitas por fora das reservas (ex: PUT/PATCH) e quantas delas o saldo atual já reflete.
+    // Começa com uma alteração pendente, para que o saldo seja carregado do banco na primeira reserva.
+    private final AtomicInteger alteracoes = new AtomicInteger(1);
+    private volatile int alteracoesCarregadas;
+
+    /**
+     * @param quantidadeFaixas Quantidade de faixas; arredondada para a próxima potência de 2.
+     */
+    ContadorDeEstoque(int quantidadeFaixas) {
+        int tamanho = quantidadeFaixas <= 1 ? 1 : Integer.highestOneBit(quantidadeFaixas - 1) << 1;
+        this.faixas = new AtomicLongArray(tamanho * ESPACAMENTO);
+        this.mascara = tamanho - 1;
+    }
+
+    /**
+     * Retira 'quantidade' unidades, se houver.
+     * @return true se a quantidade foi reservada; false se o estoque disponível não é suficiente.
+     */
+    boolean reservar(int quantidade) {
+        // Comprometido antes de retirar (e desfeito se faltar estoque): uma recarga concorrente pode no máximo
+        // subestimar o saldo, nunca superestimá-lo.
+        comprometido.add(quantidade);
+        if (retirarDeAlgumaFaixa(quantidade)) {
+            return true;
+        }
+        comprometido.add(-quantidade);
+        return false;
+    }
+
+    /**
+     * Devolve unidades ao disponível (reserva liberada, expirada ou que falhou ao gravar).
+     */
+    void devolver(int quantidade) {
+        faixas.getAndAdd(faixaDaThread() * ESPACAMENTO, quantidade);
+        comprometido.add(-quantidade);
+    }
+
+    /**
+     * Registra que unidades reservadas foram baixadas no banco: deixam de estar comprometidas
+     * (o estoque do banco já as descontou) e não voltam ao disponível.
+     */
+    void baixado(int quantidade) {
+        comprometido.add(-quantidade);
+    }
+
+    /**
+     * Soma das faixas. Com reservas em andamento é apenas uma aproximação.
+     */
+    long disponivel() {
+        long total = 0;
+        for (int i = 0; i <= mascara; i++) {
+            total += faixas.get(i * ESPACAMENTO);
+        }
+        return total;
+    }
+
+    boolean isDesatualizado() {
+        return alteracoesCarregadas != alteracoes.get();
+    }
+
+    void marcarDesatualizado() {
+        alteracoes.incrementAndGet();
+    }
+
+    /**
+     * Substitui o saldo pelo estoque do banco menos o que já está comprometido, se ainda estiver desatualizado.
+     * Reservas e devoluções concorrentes com a recarga podem deixar o saldo um pouco abaixo do real;
+     * a condição 'stock_quantity >= ?' do UPDATE é o que garante, no fim, que nunca se vende mais que o estoque.
+     * @param estoqueNoBanco Lê o estoque atual do banco; chamado apenas quando a recarga é necessária.
+     */
+    void recarregar(LongSupplier estoqueNoBanco) {
+        lock.lock();
+        try {
+            // Lido antes do banco: uma alteração durante a recarga mantém o contador desatualizado e força outra.
+            int alvo = alteracoes.get();
+            if (alteracoesCarregadas == alvo) {
+                return;
+            }
+            long estoque = estoqueNoBanco.getAsLong();
+            long jaComprometido = comprometido.sum(); // Lido antes de drenar as faixas (ver 'reservar').
+            drenar();
+            distribuir(Math.max(0, estoque - jaComprometido));
+            // Só agora o contador deixa de estar desatualizado: até aqui, as reservas esperam no lock desta recarga.
+            alteracoesCarregadas = alvo;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean retirarDeAlgumaFaixa(int quantidade) {
+        int inicio = faixaDaThread();
+        for (int i = 0; i <= mascara; i++) {
+            if (retirar((inicio + i) & mascara, quantidade)) {
+                return true;
+            }
+        }
+        // Nenhuma faixa tem o suficiente sozinha, mas a soma talvez tenha: junta tudo sob o lock.
+        lock.lock();
+        try {
+            long total = drenar();
+            boolean reservado = total >= quantidade;
+            distribuir(reservado ? total - quantidade : total);
+            return reservado;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // CAS na faixa: retira só se o saldo da faixa for suficiente.
+    private boolean retirar(int faixa, int quantidade) {
+        int indice = faixa * ESPACAMENTO;
+        long saldo = faixas.get(indice);
+        while (saldo >= quantidade) {
+            if (faixas.compareAndSet(indice, saldo, saldo - quantidade)) {
+                return true;
+            }
+            saldo = faixas.get(indice);
+        }
+        return false;
+    }
+
+    // Zera todas as faixas e devolve a soma. Chamado com o lock.
+    private long drenar() {
+        long total = 0;
+        for (int i = 0; i <= mascara; i++) {
+            total += faixas.getAndSet(i * ESPACAMENTO, 0);
+        }
+        return total;
+    }
+
+    // Reparte o saldo igualmente entre as faixas (o resto vai para a primeira). Chamado com o lock.
+    private void distribuir(long total) {
+        int quantidadeFaixas = mascara + 1;
+        long parte = total / quantidadeFaixas;
+        for (int i = 0; i <= mascara; i++) {
+            faixas.getAndAdd(i * ESPACAMENTO, i == 0 ? parte + total % quantidadeFaixas : parte);
+        }
+    }
+
+    // A mesma thread usa sempre a mesma faixa; o hash espalha threads vizinhas por faixas diferentes.
+    private int faixaDaThread() {
+        int h = System.identityHashCode(Thread.currentThread());
+        return (h ^ (h >>> 16)) & mascara;
+    }
+}
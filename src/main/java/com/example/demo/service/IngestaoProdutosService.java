@@ -0,0 +1,244 @@
+package com.example.demo.service;
+
+import com.example.demo.config.JanelaDeLeituraPropria;
+import com.example.demo.dto.ProdutoRequestDTO;
+import com.example.demo.dto.ProdutoResponseDTO;
+import com.example.demo.service.exceptions.ServiceUnavailableException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ingestão de produtos com commit em grupo, para os alimentadores do catálogo que enviam milhares de POST /produtos
+ * por segundo. Em vez de cada criação ter a sua transação (e o seu commit, com a escrita no log do banco),
+ * as criações entram em uma fila limitada e uma única thread grava as que chegaram juntas em uma transação:
+ * - a thread espera até 'espera-lote-ms' por mais criações depois da primeira, sem passar de 'lote-maximo';
+ * - quem criou recebe o produto (com o id gerado) só depois do commit do lote em que entrou;
+ * - com a fila cheia, a criação espera até 'espera-fila-ms' por espaço e então é recusada com 503.
+ * Se o banco recusar algum produto do lote, o lote é regravado produto a produto, para que só o recusado falhe.
+ * Se a aplicação cair, as criações ainda na fila se perdem, mas nenhuma delas tinha recebido resposta de sucesso.
+ * No encerramento normal, a fila para de aceitar criações e as que já estavam nela são gravadas.
+ * Com réplicas, a janela de leitura da própria escrita (JanelaDeLeituraPropria) é aberta na thread da requisição,
+ * depois do commit: a thread de escrita não tem o usuário no SecurityContext.
+ * Desligada por padrão ('produtos.ingestao.enabled'); com ela desligada, cada POST usa Modelo_ProdutoService.save.
+ */
+@Service
+public class IngestaoProdutosService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestaoProdutosService.class);
+
+    // Uma criação aguardando a gravação.
+    private record Criacao(ProdutoRequestDTO produto, CompletableFuture<ProdutoResponseDTO> resultado) {
+    }
+
+    private final Modelo_ProdutoService produtoService;
+    private final ObjectProvider<JanelaDeLeituraPropria> janela;
+    private final boolean habilitada;
+    private final int loteMaximo;
+    private final long esperaLoteNanos;
+    private final long esperaFilaMs;
+    private final long esperaConfirmacaoMs;
+
+    private final BlockingQueue<Criacao> fila;
+    private Thread escritor;
+    private volatile boolean encerrado;
+
+    // Métricas.
+    private final LongAdder produtosGravados = new LongAdder();
+    private final LongAdder produtosRecusados = new LongAdder();
+    private final LongAdder criacoesSemEspacoNaFila = new LongAdder();
+    private final LongAdder lotesGravados = new LongAdder();
+
+    /**
+     * @param janela Janela de leitura da própria escrita (só existe com réplicas configuradas).
+     * @param habilitada Se os POST /produtos passam pela fila.
+     * @param capacidadeFila Máximo de criações aguardando gravação.
+     * @param loteMaximo Máximo de produtos gravados em uma mesma transação.
+     * @param esperaLoteMs Quanto a thread de escrita espera por mais criações antes de gravar um lote incompleto.
+     * @param esperaFilaMs Quanto a criação espera por espaço na fila antes de ser recusada.
+     * @param esperaConfirmacaoMs Tempo máximo que a criação espera a gravação do lote.
+     */
+    @Autowired
+    public IngestaoProdutosService(Modelo_ProdutoService produtoService, ObjectProvider<JanelaDeLeituraPropria> janela,
+                                   @Value("${produtos.ingestao.enabled:false}") boolean habilitada,
+                                   @Value("${produtos.ingestao.capacidade-fila:10000}") int capacidadeFila,
+                                   @Value("${produtos.ingestao.lote-maximo:200}") int loteMaximo,
+                                   @Value("${produtos.ingestao.espera-lote-ms:5}") long esperaLoteMs,
+                                   @Value("${produtos.ingestao.espera-fila-ms:100}") long esperaFilaMs,
+                                   @Value("${produtos.ingestao.espera-confirmacao-ms:10000}") long esperaConfirmacaoMs) {
+        this.produtoService = produtoService;
+        this.janela = janela;
+        this.habilitada = habilitada;
+        this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+        this.loteMaximo = loteMaximo;
+        this.esperaLoteNanos = TimeUnit.MILLISECONDS.toNanos(esperaLoteMs);
+        this.esperaFilaMs = esperaFilaMs;
+        this.esperaConfirmacaoMs = esperaConfirmacaoMs;
+    }
+
+    /**
+     * Inicia a thread que grava os lotes (só com a ingestão habilitada).
+     */
+    @PostConstruct
+    void iniciar() {
+        if (!habilitada) {
+            return;
+        }
+        escritor = new Thread(this::gravarCriacoes, "produtos-ingestao-escrita");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    public boolean isHabilitada() {
+        return habilitada;
+    }
+
+    /**
+     * Enfileira a criação de um produto e aguarda o commit do lote em que ela foi gravada.
+     * @param produtoDTO O DTO de requisição do novo produto.
+     * @return O DTO de resposta do produto salvo.
+     * @throws ServiceUnavailableException se a fila estiver cheia, a aplicação estiver sendo encerrada
+     *                                     ou a gravação não terminar a tempo.
+     */
+    public ProdutoResponseDTO criar(ProdutoRequestDTO produtoDTO) {
+        if (encerrado) {
+            throw new ServiceUnavailableException("A aplicação está sendo encerrada. Tente novamente.");
+        }
+        Criacao criacao = new Criacao(produtoDTO, new CompletableFuture<>());
+        try {
+            if (!fila.offer(criacao, esperaFilaMs, TimeUnit.MILLISECONDS)) {
+                criacoesSemEspacoNaFila.increment();
+                throw new ServiceUnavailableException("A fila de criação de produtos está cheia. Tente novamente em instantes.");
+            }
+            // Entrou na fila depois que a thread de escrita já terminou de esvaziá-la: nunca seria gravada.
+            if (encerrado && !escritor.isAlive() && fila.remove(criacao)) {
+                throw new ServiceUnavailableException("A aplicação está sendo encerrada. Tente novamente.");
+            }
+            ProdutoResponseDTO salvo = criacao.resultado().get(esperaConfirmacaoMs, TimeUnit.MILLISECONDS);
+            JanelaDeLeituraPropria janelaDeLeitura = janela.getIfAvailable();
+            if (janelaDeLeitura != null) {
+                janelaDeLeitura.registrarEscrita();
+            }
+            return salvo;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("A criação do produto foi interrompida.");
+        } catch (TimeoutException e) {
+            // A criação continua na fila e ainda pode ser gravada.
+            throw new ServiceUnavailableException("A criação do produto ainda está em processamento.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException erro) {
+                throw erro; // O erro da gravação deste produto (ex: recusado pelo banco).
+            }
+            throw new ServiceUnavailableException("Não foi possível gravar o produto. Tente novamente.");
+        }
+    }
+
+    public long getProdutosGravados() {
+        return produtosGravados.sum();
+    }
+
+    public long getProdutosRecusados() {
+        return produtosRecusados.sum();
+    }
+
+    public long getCriacoesSemEspacoNaFila() {
+        return criacoesSemEspacoNaFila.sum();
+    }
+
+    public long getLotesGravados() {
+        return lotesGravados.sum();
+    }
+
+    public int getTamanhoFila() {
+        return fila.size();
+    }
+
+    /**
+     * Para de aceitar criações e grava as que já estão na fila.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        encerrado = true;
+        if (escritor != null) {
+            escritor.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    // Laço da thread de escrita: junta as criações que chegam até o lote encher ou a espera do lote acabar.
+    private void gravarCriacoes() {
+        List<Criacao> lote = new ArrayList<>(loteMaximo);
+        while (!encerrado || !fila.isEmpty()) {
+            try {
+                Criacao primeira = fila.poll(100, TimeUnit.MILLISECONDS);
+                if (primeira == null) {
+                    continue;
+                }
+                lote.add(primeira);
+                long limite = System.nanoTime() + esperaLoteNanos;
+                while (lote.size() < loteMaximo) {
+                    fila.drainTo(lote, loteMaximo - lote.size());
+                    long restante = limite - System.nanoTime();
+                    if (lote.size() == loteMaximo || restante <= 0 || encerrado) {
+                        break;
+                    }
+                    Criacao proxima = fila.poll(restante, TimeUnit.NANOSECONDS);
+                    if (proxima == null) {
+                        break;
+                    }
+                    lote.add(proxima);
+                }
+                gravar(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                lote.forEach(criacao -> criacao.resultado().completeExceptionally(e));
+                return;
+            } catch (RuntimeException e) {
+                log.error("Erro inesperado na gravação dos produtos", e);
+                lote.forEach(criacao -> criacao.resultado().completeExceptionally(e));
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    // Grava o lote em uma transação; se ela falhar, grava produto a produto, cada um com o seu resultado.
+    private void gravar(List<Criacao> lote) {
+        List<ProdutoResponseDTO> salvos;
+        try {
+            salvos = produtoService.saveAll(lote.stream().map(Criacao::produto).toList());
+        } catch (RuntimeException e) {
+            log.warn("Falha ao gravar um lote de {} produtos; gravando um a um: {}", lote.size(), e.getMessage());
+            for (Criacao criacao : lote) {
+                try {
+                    criacao.resultado().complete(produtoService.save(criacao.produto()));
+                    produtosGravados.increment();
+                } catch (RuntimeException erro) {
+                    produtosRecusados.increment();
+                    criacao.resultado().completeExceptionally(erro);
+                }
+            }
+            return;
+        }
+        lotesGravados.increment();
+        produtosGravados.add(salvos.size());
+        for (int i = 0; i < lote.size(); i++) {
+            lote.get(i).resultado().complete(salvos.get(i));
+        }
+    }
+}
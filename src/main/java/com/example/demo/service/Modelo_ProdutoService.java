@@ -1,62 +1,106 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.OperacaoLoteDTO;
+import com.example.demo.dto.ProdutoFiltroDTO;
+import com.example.demo.dto.ProdutoPaginaDTO;
+import com.example.demo.dto.ProdutoParcialDTO;
+import com.example.demo.dto.ProdutoPatchDTO;
 import com.example.demo.dto.ProdutoRequestDTO;
 import com.example.demo.dto.ProdutoResponseDTO;
+import com.example.demo.dto.ResultadoLoteDTO;
 import com.example.demo.models.Modelo_Produto;
+import com.example.demo.repository.CampoProduto;
+import com.example.demo.repository.IndicesProduto;
+import com.example.demo.repository.OrdenacaoProduto;
 import com.example.demo.repository.ProdutoRepository;
+import com.example.demo.repository.ProdutoSpecifications;
+import com.example.demo.service.exceptions.BadRequestException;
+import com.example.demo.service.exceptions.ConflictException;
+import com.example.demo.service.exceptions.PreconditionFailedException;
+import com.example.demo.service.events.ProdutoAlteradoEvent;
 import com.example.demo.service.exceptions.ResourceNotFoundException;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.Tuple;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * Serviço para gerenciar as operações de negócio da entidade Produto.
  */
 @Service
+@Timed(value = "produtos.service", histogram = true) // Latência de cada método público (tags 'class' e 'method').
 public class Modelo_ProdutoService {
 
+    // Tamanho de página usado quando o cliente pede paginação sem informar 'limit'.
+    static final int LIMITE_PADRAO = 50;
+    // Limite superior de itens por página, para que nenhuma requisição volte a carregar a tabela inteira.
+    static final int LIMITE_MAXIMO = 500;
+
+    // Valor do parâmetro 'sort' que ordena o resultado de uma busca por nome pela relevância.
+    static final String SORT_RELEVANCIA = "relevancia";
+
     private final ProdutoRepository produtoRepository;
+    private final ProdutoSearchIndex searchIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Construtor com injeção de dependência. É a forma recomendada pelo Spring
      * para injetar beans, promovendo um acoplamento mais fraco e facilitando testes.
      * @param produtoRepository O repositório de dados para a entidade Produto.
+     * @param searchIndex O índice de trigramas usado nas buscas por nome.
+     * @param eventPublisher Publica os eventos de alteração de produto (consumidos após o commit).
      */
     @Autowired
-    public Modelo_ProdutoService(ProdutoRepository produtoRepository) {
+    public Modelo_ProdutoService(ProdutoRepository produtoRepository, ProdutoSearchIndex searchIndex, ApplicationEventPublisher eventPublisher) {
         this.produtoRepository = produtoRepository;
+        this.searchIndex = searchIndex;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
-     * Busca todos os produtos, permitindo filtragem por nome e ordenação.
-     * @param name Filtro opcional pelo nome do produto (case-insensitive).
-     * @param sort Critério de ordenação opcional (ex: "preco,asc").
+     * Busca todos os produtos, permitindo filtragem por nome e por faixas de valores, e ordenação.
+     * O filtro por texto é resolvido pelo índice de trigramas em memória (uma única consulta por id);
+     * quando o índice não pode responder, usa o LIKE do banco.
+     * @param name Filtro opcional por um trecho do nome ou da descrição do produto (sem diferenciar maiúsculas nem acentos).
+     * @param filtros Filtros de faixa (preço, estoque, data de criação); ProdutoFiltroDTO.NENHUM para não filtrar.
+     * @param sort Critério de ordenação opcional (ex: "preco,asc", "quantidadeEstoque,preco", ou "relevancia" junto com 'name').
      * @return Uma lista de DTOs de resposta dos produtos encontrados.
+     * @throws BadRequestException se os filtros forem inválidos ou nenhum índice atender à combinação de filtros e ordenação.
      */
     @Transactional(readOnly = true) // Otimização: indica ao JPA que esta transação não fará alterações no banco.
-    public List<ProdutoResponseDTO> findAll(String name, String sort) {
-        // Lógica para criar o objeto de ordenação a partir do parâmetro 'sort'.
-        Sort sortOrder = Sort.by("Nome").ascending(); // Define uma ordenação padrão por nome ascendente.
-        if (sort != null) {
-            if (sort.equalsIgnoreCase("preco,asc")) {
-                sortOrder = Sort.by("Preco").ascending();
-            } else if (sort.equalsIgnoreCase("preco,desc")) {
-                sortOrder = Sort.by("Preco").descending();
-            }
+    public List<ProdutoResponseDTO> findAll(String name, ProdutoFiltroDTO filtros, String sort) {
+        // Interpreta o parâmetro 'sort' (padrão: nome ascendente).
+        OrdenacaoProduto ordenacao = OrdenacaoProduto.parse(sort);
+        Optional<Specification<Modelo_Produto>> filtro = filtroDaListagem(name, filtros, null, ordenacao);
+        if (filtro.isEmpty()) {
+            return List.of();
         }
 
-        List<Modelo_Produto> produtos;
-        if (name != null && !name.trim().isEmpty()) {
-            // Se um nome for fornecido, usa o método do repositório para buscar por nome (contendo, ignorando maiúsculas/minúsculas).
-            produtos = produtoRepository.findByNomeContainingIgnoreCase(name, sortOrder);
-        } else {
-            // Caso contrário, busca todos os produtos com a ordenação definida.
-            produtos = produtoRepository.findAll(sortOrder);
+        List<Modelo_Produto> produtos = produtoRepository.buscarTodos(filtro.get(), ordenacao.toSort(), cacheavel(name));
+        if (porRelevancia(name, sort)) {
+            produtos = ordenarPorRelevancia(name, produtos);
         }
 
         // Converte a lista de entidades (Modelo_Produto) para uma lista de DTOs de resposta (ProdutoResponseDTO) usando Stream API.
@@ -65,6 +109,110 @@ public class Modelo_ProdutoService {
                 .collect(Collectors.toList()); // Coleta os resultados em uma nova lista.
     }
 
+    /**
+     * Busca uma página de produtos usando paginação por keyset (seek).
+     * Em vez de OFFSET, filtra as linhas posteriores à última linha da página anterior (codificada no cursor),
+     * de modo que o custo de cada página não cresce com a profundidade da navegação.
+     * @param name Filtro opcional por um trecho do nome ou da descrição do produto (sem diferenciar maiúsculas nem acentos).
+     * @param filtros Filtros de faixa (preço, estoque, data de criação); ProdutoFiltroDTO.NENHUM para não filtrar.
+     * @param sort Critério de ordenação opcional (ex: "preco,asc").
+     * @param cursor Cursor opaco devolvido pela página anterior, ou nulo para a primeira página.
+     * @param limit Quantidade máxima de itens na página (padrão 50, máximo 500).
+     * @return A página de DTOs e o cursor da próxima página (nulo se esta for a última).
+     * @throws BadRequestException se o limite, o cursor ou os filtros forem inválidos, ou se nenhum índice atender à combinação.
+     */
+    @Transactional(readOnly = true)
+    public ProdutoPaginaDTO<ProdutoResponseDTO> findPage(String name, ProdutoFiltroDTO filtros, String sort, String cursor, Integer limit) {
+        int tamanho = tamanhoDaPagina(limit);
+        OrdenacaoProduto ordenacao = OrdenacaoProduto.parse(sort);
+        Optional<Specification<Modelo_Produto>> filtro = filtroDaListagem(name, filtros, cursor, ordenacao);
+        if (filtro.isEmpty()) {
+            return new ProdutoPaginaDTO<>(List.of(), null);
+        }
+
+        // Busca um item a mais que o pedido apenas para saber se existe uma próxima página.
+        List<Modelo_Produto> produtos = produtoRepository.buscarPagina(filtro.get(), ordenacao.toSortComDesempate(), tamanho + 1, cacheavel(name));
+
+        String proximoCursor = null;
+        if (produtos.size() > tamanho) {
+            produtos = produtos.subList(0, tamanho);
+            proximoCursor = ProdutoCursor.codificar(ordenacao, produtos.get(tamanho - 1));
+        }
+        return new ProdutoPaginaDTO<>(produtos.stream().map(ProdutoResponseDTO::new).collect(Collectors.toList()), proximoCursor);
+    }
+
+    /**
+     * Como findAll, mas lê do banco apenas as colunas dos campos pedidos (mais id e versão, usados no ETag,
+     * e as colunas necessárias para ordenar), em uma projeção que não carrega entidades.
+     * @param name Filtro opcional por um trecho do nome ou da descrição do produto (sem diferenciar maiúsculas nem acentos).
+     * @param filtros Filtros de faixa (preço, estoque, data de criação); ProdutoFiltroDTO.NENHUM para não filtrar.
+     * @param sort Critério de ordenação opcional (ex: "preco,asc", ou "relevancia" junto com 'name').
+     * @param fields Os campos a devolver, separados por vírgula (ex: "id,nome,preco").
+     * @return Uma lista de DTOs esparsos, apenas com os campos pedidos.
+     * @throws BadRequestException se 'fields' ou os filtros forem inválidos, ou se nenhum índice atender à combinação.
+     */
+    @Transactional(readOnly = true)
+    public List<ProdutoParcialDTO> findAllCampos(String name, ProdutoFiltroDTO filtros, String sort, String fields) {
+        Set<CampoProduto> campos = camposSolicitados(fields);
+        OrdenacaoProduto ordenacao = OrdenacaoProduto.parse(sort);
+        boolean porRelevancia = porRelevancia(name, sort);
+        Optional<Specification<Modelo_Produto>> filtro = filtroDaListagem(name, filtros, null, ordenacao);
+        if (filtro.isEmpty()) {
+            return List.of();
+        }
+
+        Set<CampoProduto> colunas = colunas(campos, ordenacao);
+        if (porRelevancia) {
+            // A pontuação de relevância é calculada sobre o nome e a descrição.
+            colunas.add(CampoProduto.NOME);
+            colunas.add(CampoProduto.DESCRICAO);
+        }
+        List<Tuple> linhas = produtoRepository.buscarCampos(colunas, filtro.get(), ordenacao.toSort(), null);
+        if (porRelevancia) {
+            linhas = ordenarPorRelevancia(name, linhas, linha -> linha.get(CampoProduto.ID.getAtributo(), Long.class),
+                    linha -> linha.get(CampoProduto.NOME.getAtributo(), String.class),
+                    linha -> linha.get(CampoProduto.DESCRICAO.getAtributo(), String.class));
+        }
+        return linhas.stream().map(linha -> parcial(linha, campos)).collect(Collectors.toList());
+    }
+
+    /**
+     * Os pares (id, versão) da listagem de findAll, na mesma ordem, lidos por projeção: o bastante para conferir
+     * o ETag da listagem sem carregar as entidades nem montar os DTOs.
+     * @throws BadRequestException se os filtros forem inválidos, ou se nenhum índice atender à combinação.
+     */
+    @Transactional(readOnly = true)
+    public List<ProdutoParcialDTO> findAllVersoes(String name, ProdutoFiltroDTO filtros, String sort) {
+        return findAllCampos(name, filtros, sort, CampoProduto.ID.getAtributo()); // A versão é sempre lida.
+    }
+
+    /**
+     * Como findPage, mas com a projeção de findAllCampos: só as colunas pedidas (e as da ordenação, para o cursor).
+     * @param fields Os campos a devolver, separados por vírgula (ex: "id,nome,preco").
+     * @return A página de DTOs esparsos e o cursor da próxima página (nulo se esta for a última).
+     * @throws BadRequestException se o limite, o cursor ou 'fields' forem inválidos.
+     */
+    @Transactional(readOnly = true)
+    public ProdutoPaginaDTO<ProdutoParcialDTO> findPageCampos(String name, ProdutoFiltroDTO filtros, String sort, String cursor, Integer limit, String fields) {
+        Set<CampoProduto> campos = camposSolicitados(fields);
+        int tamanho = tamanhoDaPagina(limit);
+        OrdenacaoProduto ordenacao = OrdenacaoProduto.parse(sort);
+        Optional<Specification<Modelo_Produto>> filtro = filtroDaListagem(name, filtros, cursor, ordenacao);
+        if (filtro.isEmpty()) {
+            return new ProdutoPaginaDTO<>(List.of(), null);
+        }
+
+        List<Tuple> linhas = produtoRepository.buscarCampos(colunas(campos, ordenacao), filtro.get(), ordenacao.toSortComDesempate(), tamanho + 1);
+
+        String proximoCursor = null;
+        if (linhas.size() > tamanho) {
+            linhas = linhas.subList(0, tamanho);
+            Tuple ultima = linhas.get(tamanho - 1);
+            proximoCursor = ProdutoCursor.codificar(ordenacao, campo -> ultima.get(campo.getAtributo()));
+        }
+        return new ProdutoPaginaDTO<>(linhas.stream().map(linha -> parcial(linha, campos)).collect(Collectors.toList()), proximoCursor);
+    }
+
     /**
      * Busca um produto específico pelo seu ID.
      * @param id O ID do produto a ser buscado.
@@ -79,6 +227,36 @@ public class Modelo_ProdutoService {
         return new ProdutoResponseDTO(produto); // Converte a entidade para DTO de resposta.
     }
 
+    /**
+     * Busca um produto pelo ID lendo do banco apenas as colunas dos campos pedidos (mais id e versão).
+     * @param id O ID do produto a ser buscado.
+     * @param fields Os campos a devolver, separados por vírgula (ex: "id,nome,preco").
+     * @return O DTO esparso, apenas com os campos pedidos.
+     * @throws ResourceNotFoundException se nenhum produto for encontrado com o ID fornecido.
+     * @throws BadRequestException se 'fields' estiver vazio ou tiver um campo desconhecido.
+     */
+    @Transactional(readOnly = true)
+    public ProdutoParcialDTO findByIdCampos(Long id, String fields) {
+        Set<CampoProduto> campos = camposSolicitados(fields);
+        List<Tuple> linhas = produtoRepository.buscarCampos(colunas(campos, null), ProdutoSpecifications.idEm(List.of(id)), Sort.unsorted(), null);
+        if (linhas.isEmpty()) {
+            throw new ResourceNotFoundException("Produto não encontrado com o ID: " + id);
+        }
+        return parcial(linhas.get(0), campos);
+    }
+
+    /**
+     * Busca apenas a versão de um produto, sem carregar a entidade nem montar o DTO.
+     * @param id O ID do produto.
+     * @return A versão atual do produto.
+     * @throws ResourceNotFoundException se nenhum produto for encontrado com o ID fornecido.
+     */
+    @Transactional(readOnly = true)
+    public long findVersao(Long id) {
+        return produtoRepository.findVersaoById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Produto não encontrado com o ID: " + id));
+    }
+
     /**
      * Salva um novo produto no banco de dados.
      * @param produtoDTO O DTO de requisição contendo os dados do novo produto.
@@ -87,61 +265,358 @@ public class Modelo_ProdutoService {
     @Transactional
     public ProdutoResponseDTO save(ProdutoRequestDTO produtoDTO) {
         // Converte o DTO de requisição para a entidade Modelo_Produto.
-        Modelo_Produto produto = new Modelo_Produto();
-        produto.setNome(produtoDTO.nome());
-        produto.setDescricao(produtoDTO.descricao());
-        produto.setPreco(produtoDTO.preco());
-        produto.setQuantidade_estoque(produtoDTO.quantidadeEstoque());
-        produto.setData_criacao(LocalDateTime.now()); // A data de criação é gerenciada pelo servidor.
+        Modelo_Produto produto = novoProduto(produtoDTO);
 
         // Salva a entidade no banco de dados.
         Modelo_Produto produtoSalvo = produtoRepository.save(produto);
-        return new ProdutoResponseDTO(produtoSalvo); // Retorna o DTO correspondente à entidade salva.
+        ProdutoResponseDTO resposta = new ProdutoResponseDTO(produtoSalvo); // DTO correspondente à entidade salva.
+        eventPublisher.publishEvent(ProdutoAlteradoEvent.criado(resposta));
+        return resposta;
+    }
+
+    /**
+     * Salva vários produtos novos em uma única transação: um único commit para todos (usado pela ingestão em lotes).
+     * Os INSERTs são agrupados em lotes JDBC (hibernate.jdbc.batch_size); se algum falhar, nenhum produto é gravado.
+     * @param produtosDTO Os DTOs de requisição dos novos produtos.
+     * @return Os DTOs de resposta dos produtos salvos, na mesma ordem.
+     */
+    @Transactional
+    public List<ProdutoResponseDTO> saveAll(List<ProdutoRequestDTO> produtosDTO) {
+        List<ProdutoResponseDTO> respostas = new ArrayList<>(produtosDTO.size());
+        for (ProdutoRequestDTO produtoDTO : produtosDTO) {
+            Modelo_Produto produtoSalvo = produtoRepository.save(novoProduto(produtoDTO));
+            ProdutoResponseDTO resposta = new ProdutoResponseDTO(produtoSalvo);
+            eventPublisher.publishEvent(ProdutoAlteradoEvent.criado(resposta));
+            respostas.add(resposta);
+        }
+        return respostas;
     }
 
     /**
      * Atualiza um produto existente.
+     * O UPDATE confere a versão lida (@Version): se outra transação alterar o produto entre a leitura e a gravação,
+     * a atualização é rejeitada em vez de sobrescrever a alteração concorrente.
      * @param id O ID do produto a ser atualizado.
      * @param produtoDetailsDTO O DTO com os novos dados do produto. Campos nulos são ignorados.
+     * @param versaoEsperada A versão que o cliente leu (cabeçalho If-Match), ou nulo para não exigir uma versão.
      * @return O DTO de resposta do produto atualizado.
      * @throws ResourceNotFoundException se o produto não for encontrado.
+     * @throws PreconditionFailedException se o produto não estiver mais na versão esperada.
+     * @throws ConflictException se o produto for alterado por outra requisição durante a atualização.
      */
     @Transactional
-    public ProdutoResponseDTO update(Long id, ProdutoRequestDTO produtoDetailsDTO) {
+    public ProdutoResponseDTO update(Long id, ProdutoRequestDTO produtoDetailsDTO, Long versaoEsperada) {
         // Busca a entidade existente no banco de dados.
         Modelo_Produto existingProduto = produtoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Produto não encontrado para atualização com o ID: " + id));
+        if (versaoEsperada != null && existingProduto.getVersao() != versaoEsperada) {
+            throw new PreconditionFailedException("O produto " + id + " foi alterado desde a versão informada.");
+        }
 
         // Lógica de atualização parcial (PATCH): só atualiza os campos que não forem nulos no DTO.
-        if (produtoDetailsDTO.nome() != null) {
-            existingProduto.setNome(produtoDetailsDTO.nome());
+        aplicarAlteracoes(existingProduto, produtoDetailsDTO);
+
+        // Grava as alterações já aqui (e não só no commit) para que o conflito de versão vire uma resposta clara
+        // e o DTO devolvido traga a versão nova.
+        Modelo_Produto produtoAtualizado;
+        try {
+            produtoAtualizado = produtoRepository.saveAndFlush(existingProduto);
+        } catch (OptimisticLockingFailureException e) {
+            if (versaoEsperada != null) {
+                throw new PreconditionFailedException("O produto " + id + " foi alterado desde a versão informada.");
+            }
+            throw new ConflictException("O produto " + id + " foi alterado por outra requisição. Tente novamente.");
         }
-        if (produtoDetailsDTO.descricao() != null) {
-            existingProduto.setDescricao(produtoDetailsDTO.descricao());
+        ProdutoResponseDTO resposta = new ProdutoResponseDTO(produtoAtualizado);
+        eventPublisher.publishEvent(ProdutoAlteradoEvent.atualizado(resposta));
+        return resposta;
+    }
+
+    /**
+     * Atualiza parcialmente um produto em um único comando SQL, sem carregá-lo antes.
+     * A existência do produto (e a versão, se informada) é decidida pela quantidade de linhas alteradas;
+     * só quando nada é alterado uma segunda consulta descobre se o produto não existe ou mudou de versão.
+     * @param id O ID do produto a ser atualizado.
+     * @param campos Os campos a alterar. Campos nulos são mantidos.
+     * @param versaoEsperada A versão que o cliente leu (cabeçalho If-Match), ou nulo para não exigir uma versão.
+     * @return A nova versão do produto (usada no ETag da resposta).
+     * @throws BadRequestException se nenhum campo for informado.
+     * @throws ResourceNotFoundException se o produto não for encontrado.
+     * @throws PreconditionFailedException se o produto não estiver mais na versão esperada.
+     */
+    @Transactional
+    public long patch(Long id, ProdutoPatchDTO campos, Long versaoEsperada) {
+        if (campos.vazio()) {
+            throw new BadRequestException("Informe ao menos um campo para atualizar.");
         }
-        if (produtoDetailsDTO.preco() != null) {
-            existingProduto.setPreco(produtoDetailsDTO.preco());
+        if (produtoRepository.atualizarCampos(id, campos, versaoEsperada) == 0) {
+            if (versaoEsperada != null && produtoRepository.existsById(id)) {
+                throw new PreconditionFailedException("O produto " + id + " foi alterado desde a versão informada.");
+            }
+            throw new ResourceNotFoundException("Produto não encontrado para atualização com o ID: " + id);
         }
-        if (produtoDetailsDTO.quantidadeEstoque() != null) {
-            existingProduto.setQuantidade_estoque(produtoDetailsDTO.quantidadeEstoque());
+        eventPublisher.publishEvent(ProdutoAlteradoEvent.atualizadoParcialmente(id, campos.nome(), campos.descricao()));
+        if (versaoEsperada != null) {
+            return versaoEsperada + 1;
         }
-
-        // Salva as alterações no banco de dados.
-        Modelo_Produto produtoAtualizado = produtoRepository.save(existingProduto);
-        return new ProdutoResponseDTO(produtoAtualizado);
+        // Sem If-Match, a nova versão é lida na mesma transação: a linha fica travada pelo UPDATE até o commit,
+        // então nenhuma outra escrita muda a versão entre os dois comandos.
+        return produtoRepository.findVersaoById(id).orElseThrow();
     }
 
     /**
      * Deleta um produto pelo seu ID.
      * @param id O ID do produto a ser deletado.
+     * @param versaoEsperada A versão que o cliente leu (cabeçalho If-Match), ou nulo para não exigir uma versão.
      * @throws ResourceNotFoundException se o produto não for encontrado.
+     * @throws PreconditionFailedException se o produto não estiver mais na versão esperada.
      */
     @Transactional
-    public void deleteById(Long id) {
-        // Verifica se o produto existe antes de tentar deletar para fornecer uma mensagem de erro clara.
-        if (!produtoRepository.existsById(id)) {
+    public void deleteById(Long id, Long versaoEsperada) {
+        if (versaoEsperada != null) {
+            // Remove condicionalmente em um único comando; só se nada foi removido é preciso descobrir o motivo.
+            if (produtoRepository.deleteByIdAndVersao(id, versaoEsperada) == 0) {
+                if (!produtoRepository.existsById(id)) {
+                    throw new ResourceNotFoundException("Produto não encontrado para remoção com o ID: " + id);
+                }
+                throw new PreconditionFailedException("O produto " + id + " foi alterado desde a versão informada.");
+            }
+            eventPublisher.publishEvent(ProdutoAlteradoEvent.removido(id));
+            return;
+        }
+        // Um único DELETE: se nenhuma linha foi removida, o produto não existe.
+        if (produtoRepository.deleteInBulkById(id) == 0) {
             throw new ResourceNotFoundException("Produto não encontrado para remoção com o ID: " + id);
         }
-        produtoRepository.deleteById(id);
+        eventPublisher.publishEvent(ProdutoAlteradoEvent.removido(id));
+    }
+
+    /**
+     * Aplica um lote misto de criações, atualizações e remoções em uma única transação.
+     * Os ids são gerados por sequência 'pooled', então o Hibernate consegue agrupar os INSERTs, UPDATEs
+     * e DELETEs em lotes JDBC (hibernate.jdbc.batch_size) que são enviados no flush do commit.
+     * Os produtos a atualizar/remover são carregados de uma vez, em consultas 'IN' de até 1000 ids.
+     * Erros de negócio (ex: produto inexistente) são reportados por item e não abortam o lote;
+     * erros de banco desfazem a transação inteira.
+     * Os eventos são publicados, na ordem das operações, só depois do flush do fim do lote: o de uma atualização
+     * leva o produto com a versão já incrementada pelo UPDATE.
+     * @param operacoes As operações, na ordem em que devem ser aplicadas.
+     * @return Um resultado por operação, na mesma ordem.
+     */
+    @Transactional
+    public List<ResultadoLoteDTO> processarLote(List<OperacaoLoteDTO> operacoes) {
+        Map<Long, Modelo_Produto> existentes = carregarExistentes(operacoes);
+        List<ResultadoLoteDTO> resultados = new ArrayList<>(operacoes.size());
+        List<Supplier<ProdutoAlteradoEvent>> eventos = new ArrayList<>(operacoes.size());
+
+        for (int i = 0; i < operacoes.size(); i++) {
+            OperacaoLoteDTO operacao = operacoes.get(i);
+            switch (operacao.operacao()) {
+                case CRIAR -> {
+                    if (operacao.produto() == null) {
+                        resultados.add(resultado(i, operacao, null, HttpStatus.BAD_REQUEST, "O campo 'produto' é obrigatório para CRIAR."));
+                        continue;
+                    }
+                    Modelo_Produto produto = produtoRepository.save(novoProduto(operacao.produto()));
+                    existentes.put(produto.getId(), produto);
+                    eventos.add(() -> ProdutoAlteradoEvent.criado(new ProdutoResponseDTO(produto)));
+                    resultados.add(resultado(i, operacao, produto.getId(), HttpStatus.CREATED, null));
+                }
+                case ATUALIZAR -> {
+                    if (operacao.id() == null || operacao.produto() == null) {
+                        resultados.add(resultado(i, operacao, operacao.id(), HttpStatus.BAD_REQUEST, "Os campos 'id' e 'produto' são obrigatórios para ATUALIZAR."));
+                        continue;
+                    }
+                    Modelo_Produto produto = existentes.get(operacao.id());
+                    if (produto == null) {
+                        resultados.add(resultado(i, operacao, operacao.id(), HttpStatus.NOT_FOUND, "Produto não encontrado com o ID: " + operacao.id()));
+                        continue;
+                    }
+                    // A entidade está gerenciada: o UPDATE é gerado pelo dirty checking no flush.
+                    aplicarAlteracoes(produto, operacao.produto());
+                    // O DTO só é montado depois do flush, quando @Version já tem o valor gravado.
+                    eventos.add(() -> ProdutoAlteradoEvent.atualizado(new ProdutoResponseDTO(produto)));
+                    resultados.add(resultado(i, operacao, produto.getId(), HttpStatus.OK, null));
+                }
+                case REMOVER -> {
+                    if (operacao.id() == null) {
+                        resultados.add(resultado(i, operacao, null, HttpStatus.BAD_REQUEST, "O campo 'id' é obrigatório para REMOVER."));
+                        continue;
+                    }
+                    Modelo_Produto produto = existentes.remove(operacao.id());
+                    if (produto == null) {
+                        resultados.add(resultado(i, operacao, operacao.id(), HttpStatus.NOT_FOUND, "Produto não encontrado com o ID: " + operacao.id()));
+                        continue;
+                    }
+                    produtoRepository.delete(produto);
+                    Long id = operacao.id();
+                    eventos.add(() -> ProdutoAlteradoEvent.removido(id));
+                    resultados.add(resultado(i, operacao, operacao.id(), HttpStatus.NO_CONTENT, null));
+                }
+            }
+        }
+        produtoRepository.flush();
+        eventos.forEach(evento -> eventPublisher.publishEvent(evento.get()));
+        return resultados;
+    }
+
+    // Carrega, em blocos, todos os produtos referenciados por operações de ATUALIZAR/REMOVER.
+    private Map<Long, Modelo_Produto> carregarExistentes(List<OperacaoLoteDTO> operacoes) {
+        List<Long> ids = operacoes.stream()
+                .filter(op -> op.operacao() != OperacaoLoteDTO.TipoOperacao.CRIAR)
+                .map(OperacaoLoteDTO::id)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, Modelo_Produto> existentes = new HashMap<>();
+        for (int inicio = 0; inicio < ids.size(); inicio += 1000) {
+            for (Modelo_Produto produto : produtoRepository.findAllById(ids.subList(inicio, Math.min(inicio + 1000, ids.size())))) {
+                existentes.put(produto.getId(), produto);
+            }
+        }
+        return existentes;
+    }
+
+    // Ordena por relevância decrescente para o termo buscado, desempatando pelo id.
+    private static List<Modelo_Produto> ordenarPorRelevancia(String termo, List<Modelo_Produto> produtos) {
+        return ordenarPorRelevancia(termo, produtos, Modelo_Produto::getId, Modelo_Produto::getNome, Modelo_Produto::getDescricao);
+    }
+
+    // Mesma ordenação, para qualquer forma de linha (entidade ou tupla de uma projeção).
+    private static <T> List<T> ordenarPorRelevancia(String termo, List<T> linhas, Function<T, Long> id,
+                                                    Function<T, String> nome, Function<T, String> descricao) {
+        Map<Long, Double> pontos = new HashMap<>();
+        for (T linha : linhas) {
+            pontos.put(id.apply(linha), ProdutoSearchIndex.relevancia(termo, nome.apply(linha), descricao.apply(linha)));
+        }
+        return linhas.stream()
+                .sorted(Comparator.comparing((T linha) -> pontos.get(id.apply(linha))).reversed()
+                        .thenComparing(id))
+                .collect(Collectors.toList());
+    }
+
+    private static int tamanhoDaPagina(Integer limit) {
+        int tamanho = limit == null ? LIMITE_PADRAO : limit;
+        if (tamanho < 1 || tamanho > LIMITE_MAXIMO) {
+            throw new BadRequestException("O parâmetro 'limit' deve estar entre 1 e " + LIMITE_MAXIMO + ".");
+        }
+        return tamanho;
+    }
+
+    // Filtro da listagem: nome (pelo índice de trigramas, se ele puder responder, ou pelo LIKE do banco), faixas de valores
+    // e posição do cursor. Vazio quando o índice já sabe que nenhum produto casa com o nome.
+    private Optional<Specification<Modelo_Produto>> filtroDaListagem(String name, ProdutoFiltroDTO filtros, String cursor, OrdenacaoProduto ordenacao) {
+        validarFaixas(filtros);
+        // Recusa combinações que obrigariam o banco a ler a tabela inteira (nenhum índice entrega a ordem nem restringe as linhas).
+        if (!IndicesProduto.atende(ProdutoSpecifications.camposFiltrados(filtros), ordenacao)) {
+            throw new BadRequestException("Nenhum índice atende a esta combinação de filtros e ordenação. Use "
+                    + IndicesProduto.descricao() + ".");
+        }
+        Specification<Modelo_Produto> filtro = Specification.where(ProdutoSpecifications.comFiltro(filtros));
+        if (name != null && !name.trim().isEmpty()) {
+            Optional<List<Long>> ids = searchIndex.buscarIds(name);
+            if (ids.isPresent() && ids.get().isEmpty()) {
+                return Optional.empty();
+            }
+            filtro = filtro.and(ids.isPresent() ? ProdutoSpecifications.idEm(ids.get()) : ProdutoSpecifications.textoContem(name));
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            filtro = filtro.and(ProdutoSpecifications.aposCursor(ordenacao, ProdutoCursor.decodificar(cursor, ordenacao)));
+        }
+        return Optional.of(filtro);
+    }
+
+    private static void validarFaixas(ProdutoFiltroDTO filtros) {
+        if (filtros.minPrice() != null && filtros.maxPrice() != null && filtros.minPrice() > filtros.maxPrice()) {
+            throw new BadRequestException("'minPrice' não pode ser maior que 'maxPrice'.");
+        }
+        if (filtros.minStock() != null && filtros.maxStock() != null && filtros.minStock() > filtros.maxStock()) {
+            throw new BadRequestException("'minStock' não pode ser maior que 'maxStock'.");
+        }
+        if (filtros.createdFrom() != null && filtros.createdTo() != null && filtros.createdFrom().isAfter(filtros.createdTo())) {
+            throw new BadRequestException("'createdFrom' não pode ser posterior a 'createdTo'.");
+        }
+    }
+
+    // Só as listagens sem nome vão para o cache de consultas: a chave do cache inclui os parâmetros, e uma busca por nome
+    // vira um 'id in (...)' com até 'max-candidatos' ids (e já é respondida em memória pelo índice de trigramas).
+    private static boolean cacheavel(String name) {
+        return name == null || name.trim().isEmpty();
+    }
+
+    // A ordenação por relevância só se aplica a uma busca por nome.
+    private static boolean porRelevancia(String name, String sort) {
+        return name != null && !name.trim().isEmpty() && SORT_RELEVANCIA.equalsIgnoreCase(sort);
+    }
+
+    // Interpreta o parâmetro 'fields' (ex: "id,nome,preco"); a ordem dos campos na resposta é a de ProdutoResponseDTO.
+    private static Set<CampoProduto> camposSolicitados(String fields) {
+        Set<CampoProduto> campos = EnumSet.noneOf(CampoProduto.class);
+        for (String nome : fields.split(",")) {
+            if (nome.isBlank()) {
+                continue;
+            }
+            campos.add(CampoProduto.porNome(nome.trim()).orElseThrow(() -> new BadRequestException(
+                    "Campo desconhecido em 'fields': '" + nome.trim() + "'. Campos válidos: " + Arrays.stream(CampoProduto.values())
+                            .map(CampoProduto::getAtributo).collect(Collectors.joining(", ")) + ".")));
+        }
+        if (campos.isEmpty()) {
+            throw new BadRequestException("Informe ao menos um campo em 'fields'.");
+        }
+        return campos;
+    }
+
+    // Colunas lidas na projeção: as pedidas, mais id e versão (ETag) e as da ordenação (cursor).
+    private static Set<CampoProduto> colunas(Set<CampoProduto> campos, OrdenacaoProduto ordenacao) {
+        Set<CampoProduto> colunas = EnumSet.copyOf(campos);
+        colunas.add(CampoProduto.ID);
+        colunas.add(CampoProduto.VERSAO);
+        if (ordenacao != null) {
+            for (OrdenacaoProduto.Criterio criterio : ordenacao.criteriosComDesempate()) {
+                colunas.add(criterio.campo());
+            }
+        }
+        return colunas;
+    }
+
+    // Monta o DTO esparso com os campos pedidos, a partir de uma linha da projeção.
+    private static ProdutoParcialDTO parcial(Tuple linha, Set<CampoProduto> campos) {
+        Map<String, Object> valores = new LinkedHashMap<>();
+        for (CampoProduto campo : campos) {
+            valores.put(campo.getAtributo(), linha.get(campo.getAtributo()));
+        }
+        return new ProdutoParcialDTO(linha.get(CampoProduto.ID.getAtributo(), Long.class),
+                linha.get(CampoProduto.VERSAO.getAtributo(), Long.class), valores);
+    }
+
+    private static ResultadoLoteDTO resultado(int indice, OperacaoLoteDTO operacao, Long id, HttpStatus status, String mensagem) {
+        return new ResultadoLoteDTO(indice, operacao.operacao(), id, status.value(), mensagem);
+    }
+
+    // Cria uma nova entidade a partir do DTO de requisição. A data de criação é gerenciada pelo servidor.
+    private static Modelo_Produto novoProduto(ProdutoRequestDTO produtoDTO) {
+        Modelo_Produto produto = new Modelo_Produto();
+        produto.setNome(produtoDTO.nome());
+        produto.setDescricao(produtoDTO.descricao());
+        produto.setPreco(produtoDTO.preco());
+        produto.setQuantidadeEstoque(produtoDTO.quantidadeEstoque());
+        produto.setDataCriacao(LocalDateTime.now());
+        return produto;
+    }
+
+    // Atualização parcial: copia para a entidade apenas os campos não nulos do DTO.
+    private static void aplicarAlteracoes(Modelo_Produto produto, ProdutoRequestDTO produtoDTO) {
+        if (produtoDTO.nome() != null) {
+            produto.setNome(produtoDTO.nome());
+        }
+        if (produtoDTO.descricao() != null) {
+            produto.setDescricao(produtoDTO.descricao());
+        }
+        if (produtoDTO.preco() != null) {
+            produto.setPreco(produtoDTO.preco());
+        }
+        if (produtoDTO.quantidadeEstoque() != null) {
+            produto.setQuantidadeEstoque(produtoDTO.quantidadeEstoque());
+        }
     }
 }
\ No newline at end of file
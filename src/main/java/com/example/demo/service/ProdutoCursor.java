@@ -0,0 +1,74 @@
+package com.example.demo.service;
+
+import com.example.demo.models.Modelo_Produto;
+import com.example.demo.repository.CampoProduto;
+import com.example.demo.repository.OrdenacaoProduto;
+import com.example.demo.service.exceptions.BadRequestException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Codifica e decodifica o cursor opaco da paginação por keyset.
+ * O cursor é um array JSON em Base64 (URL-safe) com a assinatura da ordenação seguida dos valores
+ * das colunas de ordenação da última linha entregue (incluindo o id de desempate).
+ */
+final class ProdutoCursor {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private ProdutoCursor() {
+    }
+
+    /**
+     * Gera o cursor que aponta para a posição logo após o produto informado.
+     */
+    static String codificar(OrdenacaoProduto ordenacao, Modelo_Produto ultimo) {
+        return codificar(ordenacao, campo -> campo.valorDe(ultimo));
+    }
+
+    /**
+     * Gera o cursor a partir dos valores da última linha, lidos campo a campo (ex: de uma projeção).
+     * @param valorDe Devolve o valor de cada campo da ordenação na última linha.
+     */
+    static String codificar(OrdenacaoProduto ordenacao, Function<CampoProduto, Object> valorDe) {
+        List<String> partes = new ArrayList<>();
+        partes.add(ordenacao.assinatura());
+        for (OrdenacaoProduto.Criterio criterio : ordenacao.criteriosComDesempate()) {
+            Object valor = valorDe.apply(criterio.campo());
+            partes.add(valor == null ? null : String.valueOf(valor)); // NULL vira 'null' no JSON (colunas anuláveis).
+        }
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(partes));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Erro ao gerar o cursor de paginação", e);
+        }
+    }
+
+    /**
+     * Recupera os valores da última linha a partir do cursor.
+     * @throws BadRequestException se o cursor estiver corrompido ou tiver sido gerado com outra ordenação.
+     */
+    static List<Object> decodificar(String cursor, OrdenacaoProduto ordenacao) {
+        List<OrdenacaoProduto.Criterio> criterios = ordenacao.criteriosComDesempate();
+        try {
+            String[] partes = MAPPER.readValue(Base64.getUrlDecoder().decode(cursor), String[].class);
+            if (partes.length != criterios.size() + 1 || !ordenacao.assinatura().equals(partes[0])) {
+                throw new BadRequestException("Cursor não corresponde à ordenação solicitada.");
+            }
+            List<Object> valores = new ArrayList<>(criterios.size());
+            for (int i = 0; i < criterios.size(); i++) {
+                valores.add(partes[i + 1] == null ? null : criterios.get(i).campo().converter(partes[i + 1]));
+            }
+            return valores;
+        } catch (BadRequestException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BadRequestException("Cursor de paginação inválido.");
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ProdutoResponseDTO;
+import com.example.demo.models.Modelo_Produto;
+import com.example.demo.repository.ProdutoRepository;
+import com.example.demo.service.exceptions.BadRequestException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Serviço de exportação do catálogo completo de produtos.
+ * Lê a tabela como um Stream e escreve cada linha diretamente na saída, de modo que o uso de memória
+ * não depende do tamanho da tabela.
+ */
+@Service
+@Timed(value = "produtos.service", histogram = true) // Latência de cada método público (tags 'class' e 'method').
+public class ProdutoExportService {
+
+    // A cada quantas linhas o contexto de persistência é limpo e a saída é descarregada.
+    static final int LIMPAR_A_CADA = 1000;
+
+    /**
+     * Formatos de exportação suportados e seus content types.
+     */
+    public enum Formato {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extensao;
+
+        Formato(String contentType, String extensao) {
+            this.contentType = contentType;
+            this.extensao = extensao;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtensao() {
+            return extensao;
+        }
+
+        /**
+         * Interpreta o parâmetro 'format' da API.
+         * @throws BadRequestException se o formato não for suportado.
+         */
+        public static Formato parse(String formato) {
+            for (Formato f : values()) {
+                if (f.extensao.equalsIgnoreCase(formato)) {
+                    return f;
+                }
+            }
+            throw new BadRequestException("Formato de exportação não suportado: " + formato);
+        }
+    }
+
+    private final ProdutoRepository produtoRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public ProdutoExportService(ProdutoRepository produtoRepository, EntityManager entityManager, ObjectMapper objectMapper) {
+        this.produtoRepository = produtoRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Escreve todos os produtos, em ordem de id, no formato solicitado.
+     * A cada LIMPAR_A_CADA linhas as entidades já escritas são removidas do contexto de persistência
+     * (que, caso contrário, manteria uma referência para cada linha lida).
+     * A leitura ignora o cache de segundo nível: cada linha exportada entraria na região de produtos
+     * e expulsaria os produtos mais acessados. (A dica de consulta 'org.hibernate.cacheMode' não vale
+     * para consultas em Stream, por isso o modo é trocado na sessão.)
+     * @param formato O formato de saída.
+     * @param saida O stream de destino (ex: o corpo da resposta HTTP). Não é fechado por este método.
+     * @return A quantidade de produtos exportados.
+     * @throws IOException se ocorrer um erro de escrita (ex: o cliente fechou a conexão).
+     */
+    @Transactional(readOnly = true)
+    public long exportar(Formato formato, OutputStream saida) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+        // O SequenceWriter separa cada objeto raiz com uma quebra de linha, gerando NDJSON.
+        SequenceWriter jsonWriter = formato == Formato.NDJSON
+                ? objectMapper.writerFor(ProdutoResponseDTO.class).withRootValueSeparator("\n").writeValues(writer)
+                : null;
+        if (formato == Formato.CSV) {
+            writer.write("id,nome,descricao,preco,quantidadeEstoque,dataCriacao\n");
+        }
+
+        long total = 0;
+        Session sessao = entityManager.unwrap(Session.class);
+        CacheMode modoAnterior = sessao.getCacheMode();
+        sessao.setCacheMode(CacheMode.IGNORE);
+        try (Stream<Modelo_Produto> produtos = produtoRepository.streamAllByOrderByIdAsc()) {
+            Iterator<Modelo_Produto> iterator = produtos.iterator();
+            while (iterator.hasNext()) {
+                ProdutoResponseDTO dto = new ProdutoResponseDTO(iterator.next());
+                if (jsonWriter != null) {
+                    jsonWriter.write(dto);
+                } else {
+                    escreverLinhaCsv(writer, dto);
+                }
+                if (++total % LIMPAR_A_CADA == 0) {
+                    entityManager.clear();
+                    writer.flush();
+                }
+            }
+        } finally {
+            sessao.setCacheMode(modoAnterior);
+        }
+
+        if (jsonWriter != null) {
+            jsonWriter.flush();
+            if (total > 0) {
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+        return total;
+    }
+
+    private static void escreverLinhaCsv(Writer writer, ProdutoResponseDTO dto) throws IOException {
+        writer.write(String.valueOf(dto.id()));
+        writer.write(',');
+        writer.write(campoCsv(dto.nome()));
+        writer.write(',');
+        writer.write(campoCsv(dto.descricao()));
+        writer.write(',');
+        writer.write(dto.preco() == null ? "" : dto.preco().toString());
+        writer.write(',');
+        writer.write(dto.quantidadeEstoque() == null ? "" : dto.quantidadeEstoque().toString());
+        writer.write(',');
+        writer.write(dto.dataCriacao() == null ? "" : dto.dataCriacao().toString());
+        writer.write('\n');
+    }
+
+    // Escapa um campo de texto segundo a RFC 4180: entre aspas quando contém vírgula, aspas ou quebra de linha.
+    private static String campoCsv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,447 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ProdutoEventoDTO;
+import com.example.demo.dto.ProdutoResponseDTO;
+import com.example.demo.models.Modelo_Produto;
+import com.example.demo.service.events.ProdutoAlteradoEvent;
+import com.example.demo.service.exceptions.ServiceUnavailableException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.CacheRetrieveMode;
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.SpecHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Feed de alterações de produtos em Server-Sent Events (GET /produtos/stream), para que os painéis deixem de
+ * consultar a listagem inteira a cada poucos segundos.
+ * - Ao conectar, o assinante recebe o evento 'snapshot', cujo id é o cursor atual do feed: ele carrega a listagem
+ *   (GET /produtos) e aplica os eventos seguintes ('criado', 'atualizado', 'removido'), ignorando as versões que já tem.
+ * - Ao reconectar, o EventSource envia o id do último evento recebido (Last-Event-ID) e o feed reenvia os eventos
+ *   posteriores a partir de um histórico limitado. Se o id tiver saído do histórico ou for de outra execução
+ *   da aplicação, o assinante recebe um novo 'snapshot'.
+ * - Os eventos vêm do ProdutoAlteradoEvent, depois do commit. As alterações que não trazem o estado do produto
+ *   (PATCH e baixas de estoque) são completadas com uma leitura do produto, uma vez por alteração e não por assinante.
+ * - Cada evento é serializado uma única vez e entregue por um pool pequeno de threads: as conexões abertas são
+ *   requisições assíncronas e não ocupam threads enquanto esperam eventos.
+ * - Cada assinante tem um buffer limitado; quem não consome no ritmo dos eventos e enche o buffer é desconectado
+ *   e, ao reconectar, retoma pelo Last-Event-ID. A publicação só enfileira: nunca espera por uma conexão.
+ * - A escrita na conexão é bloqueante (Servlet): com o buffer TCP de um cliente parado cheio, a thread de envio fica presa
+ *   até o timeout de escrita do servidor. Um envio que passa de 'envio-timeout-ms' tira o assinante do feed e o pool ganha
+ *   uma thread no lugar da presa, de modo que poucos clientes lentos não atrasam os demais.
+ * Só as alterações feitas por esta instância da aplicação aparecem no feed (como no cache de respostas e no índice de busca).
+ */
+@Service
+public class ProdutoFeedService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ProdutoFeedService.class);
+
+    // Um evento já serializado. O heartbeat (nome nulo) é um comentário SSE, sem id, que mantém a conexão ativa.
+    private record Evento(long sequencia, String nome, String dados) {
+    }
+
+    private static final Evento HEARTBEAT = new Evento(0, null, null);
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transacao;
+    private final ObjectMapper objectMapper;
+    private final int capacidadeBuffer;
+    private final int tamanhoHistorico;
+    private final int maxAssinantes;
+    private final long timeoutMs;
+    private final long envioTimeoutNanos;
+
+    // Identifica esta execução da aplicação nos ids dos eventos ("<instancia>-<sequencia>").
+    private final String instancia = Long.toString(System.currentTimeMillis(), 36);
+    // Protege a sequência, o histórico e a entrada de assinantes: quem assina não perde nem repete eventos.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Evento> historico = new ArrayDeque<>();
+    private long sequencia;
+
+    private final Set<Assinante> assinantes = ConcurrentHashMap.newKeySet();
+    // Completa e publica os eventos, um por vez e na ordem dos commits; também envia os heartbeats e confere os envios.
+    private final ScheduledExecutorService publicacao = Executors.newSingleThreadScheduledExecutor(threads("produtos-feed"));
+    private final ThreadPoolExecutor envio;
+    private volatile boolean encerrado;
+
+    // Métricas.
+    private final LongAdder eventosPublicados = new LongAdder();
+    private final LongAdder desconectadosPorLentidao = new LongAdder();
+    private final LongAdder assinaturasRecusadas = new LongAdder();
+    private final AtomicInteger enviosTravados = new AtomicInteger();
+
+    /**
+     * @param capacidadeBuffer Eventos pendentes por assinante antes de desconectá-lo.
+     * @param tamanhoHistorico Eventos guardados para a retomada pelo Last-Event-ID.
+     * @param maxAssinantes Máximo de conexões abertas no feed.
+     * @param timeoutMs Duração máxima de uma conexão (o EventSource reconecta sozinho, com o Last-Event-ID).
+     * @param heartbeatSegundos Intervalo entre os comentários que mantêm as conexões ociosas abertas.
+     * @param threadsEnvio Threads que escrevem os eventos nas conexões.
+     * @param envioTimeoutMs Tempo máximo de uma escrita em uma conexão antes de o assinante ser desconectado.
+     */
+    @Autowired
+    public ProdutoFeedService(EntityManager entityManager, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                              @Value("${produtos.feed.buffer-por-assinante:256}") int capacidadeBuffer,
+                              @Value("${produtos.feed.historico:10000}") int tamanhoHistorico,
+                              @Value("${produtos.feed.max-assinantes:10000}") int maxAssinantes,
+                              @Value("${produtos.feed.timeout-ms:1800000}") long timeoutMs,
+                              @Value("${produtos.feed.heartbeat-seconds:20}") long heartbeatSegundos,
+                              @Value("${produtos.feed.threads-envio:4}") int threadsEnvio,
+                              @Value("${produtos.feed.envio-timeout-ms:5000}") long envioTimeoutMs) {
+        this.entityManager = entityManager;
+        // Transação de escrita: a leitura vai para o primário, pois a réplica pode ainda não ter a alteração.
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.capacidadeBuffer = capacidadeBuffer;
+        this.tamanhoHistorico = tamanhoHistorico;
+        this.maxAssinantes = maxAssinantes;
+        this.timeoutMs = timeoutMs;
+        this.envioTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(envioTimeoutMs);
+        this.envio = new ThreadPoolExecutor(threadsEnvio, threadsEnvio, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threads("produtos-feed-envio"));
+        publicacao.scheduleWithFixedDelay(this::enviarHeartbeat, heartbeatSegundos, heartbeatSegundos, TimeUnit.SECONDS);
+        long verificacaoMs = Math.max(1, Math.min(1_000, envioTimeoutMs / 2));
+        publicacao.scheduleWithFixedDelay(this::verificarEnvios, verificacaoMs, verificacaoMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Abre uma conexão no feed.
+     * @param ultimoEventoId O id do último evento recebido (cabeçalho Last-Event-ID), ou nulo na primeira conexão.
+     * @return O emitter da conexão; o primeiro evento é o 'snapshot' ou os eventos perdidos desde o id informado.
+     * @throws ServiceUnavailableException se o limite de assinantes foi atingido ou a aplicação está sendo encerrada.
+     */
+    public SseEmitter assinar(String ultimoEventoId) {
+        if (encerrado) {
+            throw new ServiceUnavailableException("A aplicação está sendo encerrada. Reconecte em instantes.");
+        }
+        if (assinantes.size() >= maxAssinantes) {
+            assinaturasRecusadas.increment();
+            throw new ServiceUnavailableException("Limite de conexões no feed de produtos atingido. Reconecte em instantes.");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Assinante assinante = new Assinante(emitter);
+        emitter.onCompletion(assinante::encerrar);
+        emitter.onTimeout(assinante::encerrar);
+        emitter.onError(erro -> assinante.encerrar());
+
+        lock.lock();
+        try {
+            List<Evento> perdidos = eventosApos(ultimoEventoId);
+            List<Evento> iniciais = perdidos == null || perdidos.size() > capacidadeBuffer ? List.of(snapshot())
+                    : perdidos.isEmpty() ? List.of(HEARTBEAT) : perdidos;
+            // Antes de o emitter ser devolvido, o 'send' só guarda os eventos: o Spring os escreve ao iniciar a resposta,
+            // na thread da requisição. Assim os cabeçalhos nunca são gravados por uma thread de envio enquanto os filtros
+            // da requisição ainda os alteram (o que corrompe a resposta).
+            for (Evento evento : iniciais) {
+                emitter.send(mensagem(evento));
+            }
+            assinantes.add(assinante);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Não há escrita antes de a resposta iniciar.
+        } finally {
+            lock.unlock();
+        }
+        return emitter;
+    }
+
+    /**
+     * Enfileira a alteração para publicação, depois do commit; a leitura do produto e a entrega ficam fora desta thread.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        if (!encerrado) {
+            publicacao.execute(() -> publicar(evento));
+        }
+    }
+
+    public int getAssinantes() {
+        return assinantes.size();
+    }
+
+    public long getEventosPublicados() {
+        return eventosPublicados.sum();
+    }
+
+    public long getDesconectadosPorLentidao() {
+        return desconectadosPorLentidao.sum();
+    }
+
+    public long getAssinaturasRecusadas() {
+        return assinaturasRecusadas.sum();
+    }
+
+    /**
+     * Threads de envio presas em escritas que passaram do tempo máximo (cada uma foi substituída por uma nova no pool).
+     */
+    public int getEnviosTravados() {
+        return enviosTravados.get();
+    }
+
+    /**
+     * Publica as alterações já recebidas e encerra as conexões (os clientes reconectam em outra instância).
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        encerrado = true;
+        publicacao.shutdown();
+        publicacao.awaitTermination(5, TimeUnit.SECONDS);
+        for (Assinante assinante : assinantes) {
+            assinante.desconectar();
+        }
+        envio.shutdown();
+    }
+
+    // Roda na thread de publicação.
+    private void publicar(ProdutoAlteradoEvent evento) {
+        try {
+            String nome;
+            ProdutoResponseDTO produto = evento.produto();
+            if (evento.tipo() == ProdutoAlteradoEvent.Tipo.REMOVIDO) {
+                nome = "removido";
+            } else {
+                nome = evento.tipo() == ProdutoAlteradoEvent.Tipo.CRIADO ? "criado" : "atualizado";
+                if (produto == null) {
+                    produto = ler(evento.id());
+                    if (produto == null) {
+                        return; // Removido logo depois; o evento da remoção vem em seguida.
+                    }
+                }
+            }
+            String dados = objectMapper.writeValueAsString(new ProdutoEventoDTO(nome, evento.id(), produto));
+
+            lock.lock();
+            try {
+                Evento publicado = new Evento(++sequencia, nome, dados);
+                historico.addLast(publicado);
+                if (historico.size() > tamanhoHistorico) {
+                    historico.removeFirst();
+                }
+                for (Assinante assinante : assinantes) {
+                    assinante.enviar(publicado);
+                }
+            } finally {
+                lock.unlock();
+            }
+            eventosPublicados.increment();
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.error("Falha ao publicar a alteração do produto {} no feed", evento.id(), e);
+        }
+    }
+
+    // Sem o cache de segundo nível, que pode ainda ter o estado anterior (ex: baixas de estoque gravadas via JDBC).
+    private ProdutoResponseDTO ler(Long id) {
+        return transacao.execute(status -> {
+            Modelo_Produto produto = entityManager.find(Modelo_Produto.class, id,
+                    Map.of(SpecHints.HINT_SPEC_CACHE_RETRIEVE_MODE, CacheRetrieveMode.BYPASS));
+            return produto == null ? null : new ProdutoResponseDTO(produto);
+        });
+    }
+
+    private void enviarHeartbeat() {
+        for (Assinante assinante : assinantes) {
+            assinante.enviar(HEARTBEAT);
+        }
+    }
+
+    // Desconecta os assinantes cuja escrita em andamento passou do tempo máximo.
+    private void verificarEnvios() {
+        long limite = System.nanoTime() - envioTimeoutNanos;
+        for (Assinante assinante : assinantes) {
+            assinante.verificarEnvio(limite);
+        }
+    }
+
+    // Repõe no pool de envio a thread presa em uma escrita (delta +1) e a retira quando a escrita termina (delta -1).
+    private synchronized void compensarEnvioTravado(int delta) {
+        int threads = envio.getCorePoolSize() + delta;
+        if (delta > 0) {
+            envio.setMaximumPoolSize(threads);
+            envio.setCorePoolSize(threads);
+        } else {
+            envio.setCorePoolSize(threads);
+            envio.setMaximumPoolSize(threads);
+        }
+        enviosTravados.addAndGet(delta);
+    }
+
+    // Chamado com o lock: o cursor atual, a partir do qual o assinante passa a receber os eventos.
+    private Evento snapshot() {
+        return new Evento(sequencia, "snapshot", "{\"cursor\":\"" + id(sequencia) + "\"}");
+    }
+
+    // Chamado com o lock: os eventos após o id informado, ou nulo se o id não puder ser retomado pelo histórico.
+    private List<Evento> eventosApos(String ultimoEventoId) {
+        if (ultimoEventoId == null || !ultimoEventoId.startsWith(instancia + "-")) {
+            return null;
+        }
+        long ultimo;
+        try {
+            ultimo = Long.parseLong(ultimoEventoId.substring(instancia.length() + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        long maisAntigo = historico.isEmpty() ? sequencia + 1 : historico.peekFirst().sequencia();
+        if (ultimo > sequencia || ultimo < maisAntigo - 1) {
+            return null;
+        }
+        return historico.stream().filter(evento -> evento.sequencia() > ultimo).toList();
+    }
+
+    private SseEmitter.SseEventBuilder mensagem(Evento evento) {
+        return evento.nome() == null
+                ? SseEmitter.event().comment("")
+                : SseEmitter.event().id(id(evento.sequencia())).name(evento.nome()).data(evento.dados());
+    }
+
+    private String id(long sequencia) {
+        return instancia + "-" + sequencia;
+    }
+
+    private static ThreadFactory threads(String nome) {
+        AtomicInteger contador = new AtomicInteger();
+        return tarefa -> {
+            Thread thread = new Thread(tarefa, nome + "-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Uma conexão aberta: os eventos pendentes ficam no buffer até uma thread de envio escrevê-los.
+     * No máximo uma thread escreve em cada conexão por vez ('agendado').
+     * 'envioIniciadoEm' e 'travado' são protegidos pelo monitor do assinante: a verificação dos envios e a thread
+     * que escreve concordam sobre quem repôs e quem devolve a thread extra do pool.
+     */
+    private final class Assinante {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Evento> fila = new ArrayBlockingQueue<>(capacidadeBuffer);
+        private final AtomicBoolean agendado = new AtomicBoolean();
+        // Pede à thread de envio que conclua o emitter (a conclusão espera a escrita em andamento).
+        private final AtomicBoolean concluir = new AtomicBoolean();
+        private volatile boolean encerrado;
+        private long envioIniciadoEm;
+        private boolean travado;
+
+        private Assinante(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        // Não bloqueia: com o buffer cheio, o assinante é desconectado.
+        private void enviar(Evento evento) {
+            if (encerrado) {
+                return;
+            }
+            if (!fila.offer(evento)) {
+                desconectadosPorLentidao.increment();
+                desconectar();
+                return;
+            }
+            agendar();
+        }
+
+        // Tira o assinante do feed e conclui o emitter pela thread de envio, sem esperar aqui.
+        private void desconectar() {
+            concluir.set(true);
+            encerrar();
+            agendar();
+        }
+
+        private void agendar() {
+            if ((!encerrado || concluir.get()) && agendado.compareAndSet(false, true)) {
+                envio.execute(this::esvaziar);
+            }
+        }
+
+        // Roda em uma thread de envio: escreve tudo o que está no buffer, ou conclui o emitter se o assinante foi desconectado.
+        private void esvaziar() {
+            try {
+                if (encerrado) {
+                    if (concluir.compareAndSet(true, false)) {
+                        emitter.complete();
+                    }
+                    return;
+                }
+                Evento evento;
+                while (!encerrado && (evento = fila.poll()) != null) {
+                    iniciarEnvio();
+                    try {
+                        emitter.send(mensagem(evento));
+                    } finally {
+                        concluirEnvio();
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // O cliente fechou a conexão (o Spring conclui a requisição) ou o emitter já foi concluído.
+                encerrar();
+            } finally {
+                agendado.set(false);
+            }
+            // Eventos que chegaram depois do último poll e antes de liberar o 'agendado', ou uma desconexão pedida durante a escrita.
+            if (!fila.isEmpty() || concluir.get()) {
+                agendar();
+            }
+        }
+
+        private synchronized void iniciarEnvio() {
+            envioIniciadoEm = System.nanoTime();
+        }
+
+        private synchronized void concluirEnvio() {
+            envioIniciadoEm = 0;
+            if (travado) {
+                travado = false;
+                compensarEnvioTravado(-1);
+            }
+        }
+
+        // Roda na thread de publicação. O emitter é concluído pela thread presa quando a escrita terminar: com sucesso
+        // (cliente só lento) ou com erro no timeout de escrita do servidor, que fecha a conexão.
+        private void verificarEnvio(long limite) {
+            synchronized (this) {
+                if (envioIniciadoEm == 0 || envioIniciadoEm - limite > 0 || travado) {
+                    return;
+                }
+                travado = true;
+                compensarEnvioTravado(1);
+            }
+            desconectadosPorLentidao.increment();
+            desconectar();
+        }
+
+        private void encerrar() {
+            encerrado = true;
+            assinantes.remove(this);
+            fila.clear();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.demo.service;
+
+import com.example.demo.service.events.ProdutoAlteradoEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache limitado (por bytes) das respostas já serializadas dos endpoints de leitura de produtos.
+ * Guarda o corpo JSON pronto e o ETag, de modo que um acerto não carrega entidades nem monta DTOs.
+ * - As leituras não usam lock: um acerto é um 'get' no ConcurrentHashMap e a anotação do instante de acesso.
+ * - Ao passar do limite, quem gravou por último remove as entradas expiradas e as de acesso mais antigo
+ *   (LRU aproximado: a ordem é a do último acesso anotado, sem reordenar nada a cada leitura).
+ * - Cada entrada expira 'ttl-seconds' depois de gravada, o que limita o tempo em que uma alteração
+ *   feita por outra instância da aplicação fica sem aparecer aqui.
+ * - A invalidação acontece após o commit de cada alteração de produto: a resposta do próprio produto
+ *   e todas as listagens (que podem conter ou passar a conter o produto).
+ */
+@Component
+public class ProdutoResponseCache {
+
+    /**
+     * Resposta armazenada.
+     * @param corpo O corpo já serializado.
+     * @param etag O ETag do corpo.
+     * @param contentType O content type da resposta.
+     * @param cabecalhos Cabeçalhos definidos pelo controller (ex: X-Next-Cursor).
+     */
+    public record Entrada(byte[] corpo, String etag, String contentType, Map<String, String> cabecalhos) {
+
+        long tamanho() {
+            return corpo.length + 256L; // Estimativa do custo fixo de chave, cabeçalhos e objetos.
+        }
+    }
+
+    // Entrada no mapa: a resposta, o produto a que pertence (nulo nas listagens) e os instantes de gravação e de acesso.
+    private static final class No {
+        private final Entrada entrada;
+        private final Long idProduto;
+        private final long gravadaEm;
+        private volatile long ultimoAcesso;
+
+        No(Entrada entrada, Long idProduto, long agora) {
+            this.entrada = entrada;
+            this.idProduto = idProduto;
+            this.gravadaEm = agora;
+            this.ultimoAcesso = agora;
+        }
+    }
+
+    // Entrada considerada na remoção por espaço, com o instante de acesso copiado (a ordenação não pode vê-lo mudar).
+    private record Candidata(String chave, No no, long ultimoAcesso) {
+    }
+
+    private final boolean habilitado;
+    private final long maxBytes;
+    private final int maxBytesPorEntrada;
+    private final long ttlNanos;
+
+    private final Map<String, No> entradas = new ConcurrentHashMap<>();
+    private final AtomicLong bytesOcupados = new AtomicLong();
+    // Só uma thread por vez faz a remoção por espaço; as demais seguem sem esperar.
+    private final ReentrantLock limpeza = new ReentrantLock();
+
+    // Incrementada a cada alteração; impede que uma resposta lida antes da alteração seja armazenada depois dela.
+    private final AtomicLong geracao = new AtomicLong();
+    // Com réplicas, uma leitura logo após a alteração pode vir de uma réplica que ainda não a recebeu:
+    // durante o atraso máximo das réplicas, as respostas geradas não são armazenadas.
+    private final long atrasoReplicasNanos;
+    private volatile long ultimaAlteracao;
+
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder faltas = new LongAdder();
+    private final LongAdder remocoes = new LongAdder();
+    private final LongAdder expiracoes = new LongAdder();
+    private final LongAdder invalidacoes = new LongAdder();
+
+    /**
+     * @param ttlSegundos Tempo de vida de cada entrada, contado da gravação.
+     */
+    public ProdutoResponseCache(@Value("${produtos.cache.enabled:true}") boolean habilitado,
+                                @Value("${produtos.cache.max-bytes:33554432}") long maxBytes,
+                                @Value("${produtos.cache.max-entry-bytes:1048576}") int maxBytesPorEntrada,
+                                @Value("${produtos.cache.ttl-seconds:60}") long ttlSegundos,
+                                @Value("${datasource.replicas.urls:}") String replicas,
+                                @Value("${datasource.replicas.atraso-maximo-ms:2000}") long atrasoReplicasMs) {
+        this.habilitado = habilitado;
+        this.maxBytes = maxBytes;
+        this.maxBytesPorEntrada = maxBytesPorEntrada;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSegundos);
+        this.atrasoReplicasNanos = replicas.isBlank() ? 0 : TimeUnit.MILLISECONDS.toNanos(atrasoReplicasMs);
+        this.ultimaAlteracao = System.nanoTime() - atrasoReplicasNanos;
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /**
+     * Geração atual do cache. Deve ser lida antes de gerar a resposta e repassada para 'put'.
+     */
+    public long geracao() {
+        return geracao.get();
+    }
+
+    public Entrada get(String chave) {
+        No no = entradas.get(chave);
+        long agora = System.nanoTime();
+        if (no != null && agora - no.gravadaEm >= ttlNanos) {
+            if (remover(chave, no)) {
+                expiracoes.increment();
+            }
+            no = null;
+        }
+        if (no == null) {
+            faltas.increment();
+            return null;
+        }
+        no.ultimoAcesso = agora;
+        acertos.increment();
+        return no.entrada;
+    }
+
+    /**
+     * Armazena uma resposta.
+     * @param chave A chave da requisição (caminho, query string e variante).
+     * @param idProduto O id do produto, para respostas de um único produto; nulo para listagens.
+     * @param entrada A resposta serializada.
+     * @param geracaoNaLeitura O valor de 'geracao()' lido antes de a resposta ser gerada.
+     *                         Se algum produto foi alterado desde então, a resposta é descartada.
+     *                         Também é descartada se a última alteração foi há menos que o atraso máximo das réplicas.
+     */
+    public void put(String chave, Long idProduto, Entrada entrada, long geracaoNaLeitura) {
+        if (entrada.corpo().length > maxBytesPorEntrada || geracao.get() != geracaoNaLeitura
+                || System.nanoTime() - ultimaAlteracao < atrasoReplicasNanos) {
+            return;
+        }
+        No novo = new No(entrada, idProduto, System.nanoTime());
+        No anterior = entradas.put(chave, novo);
+        bytesOcupados.addAndGet(entrada.tamanho() - (anterior == null ? 0 : anterior.entrada.tamanho()));
+        // Conferida de novo depois de gravar: uma invalidação que começou antes da gravação já avançou a geração,
+        // e a que começar depois encontra a entrada no mapa. Nos dois casos a resposta antiga não fica.
+        if (geracao.get() != geracaoNaLeitura) {
+            remover(chave, novo);
+            return;
+        }
+        if (bytesOcupados.get() > maxBytes) {
+            liberarEspaco();
+        }
+    }
+
+    /**
+     * Invalida, após o commit, as respostas afetadas por uma alteração de produto.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        geracao.incrementAndGet();
+        ultimaAlteracao = System.nanoTime();
+        // As listagens são filtros sobre a tabela inteira: qualquer alteração pode mudar o seu conteúdo.
+        entradas.forEach((chave, no) -> {
+            if ((no.idProduto == null || no.idProduto.equals(evento.id())) && remover(chave, no)) {
+                invalidacoes.increment();
+            }
+        });
+    }
+
+    public long getAcertos() {
+        return acertos.sum();
+    }
+
+    public long getFaltas() {
+        return faltas.sum();
+    }
+
+    public long getRemocoes() {
+        return remocoes.sum();
+    }
+
+    public long getExpiracoes() {
+        return expiracoes.sum();
+    }
+
+    public long getInvalidacoes() {
+        return invalidacoes.sum();
+    }
+
+    public long getBytesOcupados() {
+        return bytesOcupados.get();
+    }
+
+    // Remove as entradas expiradas e, se ainda faltar espaço, as de acesso mais antigo, até 90% do limite
+    // (a folga evita repetir a ordenação a cada gravação).
+    private void liberarEspaco() {
+        if (!limpeza.tryLock()) {
+            return;
+        }
+        try {
+            long agora = System.nanoTime();
+            List<Candidata> candidatas = new ArrayList<>();
+            for (Map.Entry<String, No> entrada : entradas.entrySet()) {
+                No no = entrada.getValue();
+                if (agora - no.gravadaEm >= ttlNanos) {
+                    if (remover(entrada.getKey(), no)) {
+                        expiracoes.increment();
+                    }
+                } else {
+                    candidatas.add(new Candidata(entrada.getKey(), no, no.ultimoAcesso));
+                }
+            }
+            candidatas.sort(Comparator.comparingLong(Candidata::ultimoAcesso));
+            long alvo = maxBytes / 10 * 9;
+            for (int i = 0; i < candidatas.size() && bytesOcupados.get() > alvo; i++) {
+                if (remover(candidatas.get(i).chave(), candidatas.get(i).no())) {
+                    remocoes.increment();
+                }
+            }
+        } finally {
+            limpeza.unlock();
+        }
+    }
+
+    // Remove a entrada somente se ela ainda for a mesma (não substituída por uma gravação mais recente).
+    private boolean remover(String chave, No no) {
+        if (entradas.remove(chave, no)) {
+            bytesOcupados.addAndGet(-no.entrada.tamanho());
+            return true;
+        }
+        return false;
+    }
+}
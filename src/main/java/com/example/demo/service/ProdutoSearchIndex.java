@@ -0,0 +1,344 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.TextoDeBusca;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido de trigramas, em memória, sobre o nome e a descrição dos produtos.
+ * Substitui o LIKE '%termo%' (que sempre varre a tabela) na resolução dos ids que casam com um filtro por texto:
+ * a busca percorre apenas a lista de ids do trigrama mais raro do termo e confirma cada candidato
+ * com um 'contains' sobre o texto normalizado.
+ * A normalização (minúsculas, sem acentos) é a de TextoDeBusca, a mesma do LIKE usado quando o índice não responde.
+ * É mantido atualizado pelo ProdutoSearchIndexListener, a partir dos eventos de alteração de produto e de recargas
+ * periódicas do banco (que trazem as alterações feitas por outras instâncias da aplicação).
+ */
+@Component
+public class ProdutoSearchIndex {
+
+    // Separa o nome da descrição no texto indexado; nunca aparece em um termo de busca (ver buscarIds).
+    private static final char SEPARADOR = '\u0000';
+
+    // Quantidade máxima de ids que uma busca pode resolver; acima disso o chamador volta para o LIKE.
+    private final int maxCandidatos;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // id -> nome e descrição normalizados, unidos pelo SEPARADOR. É a fonte da verdade do índice: as listas de ids
+    // por trigrama podem conter entradas obsoletas (de textos antigos), descartadas na confirmação de cada candidato.
+    private final Map<Long, String> textos = new HashMap<>();
+    // trigrama (3 caracteres empacotados em um long) -> ids cujo texto contém o trigrama.
+    private final Map<Long, ListaIds> postings = new HashMap<>();
+    private long entradasObsoletas;
+
+    private volatile boolean pronto;
+    // Estado da carga em andamento; só é lido e alterado com o write lock.
+    private boolean construindo;
+    // Ids alterados por eventos durante a carga; a carga não pode sobrescrevê-los (nem removê-los) com dados antigos.
+    private final Set<Long> alteradosDuranteConstrucao = new HashSet<>();
+    // Ids lidos pela carga; os que estão no índice e não foram lidos nem alterados saíram do banco.
+    private ListaIds lidosNaConstrucao = new ListaIds();
+
+    public ProdutoSearchIndex(@Value("${produtos.search.index.max-candidatos:5000}") int maxCandidatos) {
+        this.maxCandidatos = maxCandidatos;
+    }
+
+    /**
+     * Resolve os ids dos produtos cujo nome ou descrição contém o termo (case e acento-insensitive).
+     * @return Os ids encontrados, ou Optional.empty() quando o índice não pode responder
+     *         (ainda em construção, termo com menos de 3 caracteres ou resultados demais).
+     */
+    public Optional<List<Long>> buscarIds(String termo) {
+        if (!pronto) {
+            return Optional.empty();
+        }
+        String consulta = TextoDeBusca.normalizar(termo);
+        if (consulta.length() < 3) {
+            return Optional.empty();
+        }
+        if (consulta.indexOf(SEPARADOR) >= 0) {
+            return Optional.of(List.of());
+        }
+        lock.readLock().lock();
+        try {
+            // Escolhe a lista do trigrama mais raro: todo resultado precisa estar nela.
+            ListaIds menor = null;
+            for (long trigrama : trigramas(consulta)) {
+                ListaIds lista = postings.get(trigrama);
+                if (lista == null) {
+                    return Optional.of(List.of());
+                }
+                if (menor == null || lista.tamanho < menor.tamanho) {
+                    menor = lista;
+                }
+            }
+            Set<Long> encontrados = new LinkedHashSet<>();
+            for (int i = 0; i < menor.tamanho; i++) {
+                long id = menor.ids[i];
+                String texto = textos.get(id);
+                if (texto != null && texto.contains(consulta) && encontrados.add(id) && encontrados.size() > maxCandidatos) {
+                    return Optional.empty();
+                }
+            }
+            return Optional.of(new ArrayList<>(encontrados));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Inclui ou substitui o nome e a descrição de um produto no índice.
+     */
+    public void indexar(Long id, String nome, String descricao) {
+        lock.writeLock().lock();
+        try {
+            marcarAlterado(id);
+            gravar(id, texto(nome, descricao));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Atualização parcial (PATCH): troca só o que foi informado (nulo mantém o valor indexado).
+     * Um produto ainda fora do índice entra só com o que se conhece; a próxima recarga completa o resto.
+     */
+    public void atualizar(Long id, String nome, String descricao) {
+        if (nome == null && descricao == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            marcarAlterado(id);
+            String atual = textos.get(id);
+            int separador = atual == null ? -1 : atual.indexOf(SEPARADOR);
+            String novoNome = nome != null ? TextoDeBusca.normalizar(nome) : atual == null ? "" : atual.substring(0, separador);
+            String novaDescricao = descricao != null ? TextoDeBusca.normalizar(descricao) : atual == null ? "" : atual.substring(separador + 1);
+            gravar(id, novoNome + SEPARADOR + novaDescricao);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove um produto do índice.
+     */
+    public void remover(Long id) {
+        lock.writeLock().lock();
+        try {
+            marcarAlterado(id);
+            descartar(id);
+            compactarSeNecessario();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Início de uma carga completa (a inicial ou uma recarga). Até 'concluirConstrucao', o índice continua
+     * respondendo com o que já tem (nada, na carga inicial: as buscas respondem Optional.empty()).
+     */
+    public void iniciarConstrucao() {
+        lock.writeLock().lock();
+        try {
+            alteradosDuranteConstrucao.clear();
+            lidosNaConstrucao = new ListaIds();
+            construindo = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexa uma linha lida na carga completa, a menos que o produto já tenha sido alterado por um evento mais recente.
+     * A conferência e a gravação acontecem sob o mesmo lock que os eventos usam: um evento nunca é sobrescrito
+     * por uma linha lida antes dele.
+     */
+    public void indexarDaCarga(Long id, String nome, String descricao) {
+        String texto = texto(nome, descricao);
+        lock.writeLock().lock();
+        try {
+            lidosNaConstrucao.adicionar(id);
+            if (!alteradosDuranteConstrucao.contains(id)) {
+                gravar(id, texto);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Interrompe uma carga que falhou; o índice continua como estava (sem responder buscas, se nunca foi carregado).
+     */
+    public void cancelarConstrucao() {
+        lock.writeLock().lock();
+        try {
+            encerrarConstrucao();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Fim da carga: remove os produtos que não estão mais no banco (não lidos pela carga nem alterados durante ela)
+     * e passa a responder as buscas.
+     */
+    public void concluirConstrucao() {
+        lock.writeLock().lock();
+        try {
+            long[] lidos = Arrays.copyOf(lidosNaConstrucao.ids, lidosNaConstrucao.tamanho);
+            Arrays.sort(lidos);
+            for (Long id : new ArrayList<>(textos.keySet())) {
+                if (Arrays.binarySearch(lidos, id) < 0 && !alteradosDuranteConstrucao.contains(id)) {
+                    descartar(id);
+                }
+            }
+            compactarSeNecessario();
+            encerrarConstrucao();
+            pronto = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    public int tamanho() {
+        lock.readLock().lock();
+        try {
+            return textos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Pontua a relevância de um produto para o termo buscado (quanto maior, mais relevante):
+     * nome igual ao termo > nome começando pelo termo > termo no início de uma palavra > termo em qualquer posição.
+     * Nomes mais curtos, ocorrências mais próximas do início e o termo presente também na descrição desempatam.
+     */
+    public static double relevancia(String termo, String nome, String descricao) {
+        String consulta = TextoDeBusca.normalizar(termo);
+        String nomeNormalizado = nome == null ? "" : TextoDeBusca.normalizar(nome);
+        int posicao = nomeNormalizado.indexOf(consulta);
+        double pontos = 0;
+        if (posicao >= 0) {
+            if (nomeNormalizado.equals(consulta)) {
+                pontos += 100;
+            } else if (posicao == 0) {
+                pontos += 50;
+            } else if (!Character.isLetterOrDigit(nomeNormalizado.charAt(posicao - 1))) {
+                pontos += 25;
+            } else {
+                pontos += 10;
+            }
+            pontos += 10.0 * consulta.length() / nomeNormalizado.length();
+            pontos -= Math.min(posicao, 50) * 0.1;
+        }
+        if (descricao != null && TextoDeBusca.normalizar(descricao).contains(consulta)) {
+            pontos += 5;
+        }
+        return pontos;
+    }
+
+    // Texto indexado de um produto: nome e descrição normalizados.
+    private static String texto(String nome, String descricao) {
+        return (nome == null ? "" : TextoDeBusca.normalizar(nome)) + SEPARADOR
+                + (descricao == null ? "" : TextoDeBusca.normalizar(descricao));
+    }
+
+    // Chamados com o write lock.
+    private void marcarAlterado(Long id) {
+        if (construindo) {
+            alteradosDuranteConstrucao.add(id);
+        }
+    }
+
+    private void encerrarConstrucao() {
+        construindo = false;
+        alteradosDuranteConstrucao.clear();
+        lidosNaConstrucao = new ListaIds();
+    }
+
+    private void descartar(Long id) {
+        String antigo = textos.remove(id);
+        if (antigo != null) {
+            entradasObsoletas += trigramas(antigo).length;
+        }
+    }
+
+    private void gravar(Long id, String novo) {
+        String antigo = textos.put(id, novo);
+        if (novo.equals(antigo)) {
+            return;
+        }
+        long[] trigramasAntigos = antigo == null ? new long[0] : trigramas(antigo);
+        long[] trigramasNovos = trigramas(novo);
+        for (long trigrama : trigramasNovos) {
+            // Trigramas que o texto antigo já tinha continuam válidos na lista.
+            if (Arrays.binarySearch(trigramasAntigos, trigrama) < 0) {
+                postings.computeIfAbsent(trigrama, t -> new ListaIds()).adicionar(id);
+            }
+        }
+        for (long trigrama : trigramasAntigos) {
+            if (Arrays.binarySearch(trigramasNovos, trigrama) < 0) {
+                entradasObsoletas++;
+            }
+        }
+        compactarSeNecessario();
+    }
+
+    // Reconstrói as listas quando há mais entradas obsoletas do que produtos indexados. Chamado com o write lock.
+    private void compactarSeNecessario() {
+        if (entradasObsoletas <= Math.max(textos.size(), 1024)) {
+            return;
+        }
+        postings.clear();
+        for (Map.Entry<Long, String> entrada : textos.entrySet()) {
+            for (long trigrama : trigramas(entrada.getValue())) {
+                postings.computeIfAbsent(trigrama, t -> new ListaIds()).adicionar(entrada.getKey());
+            }
+        }
+        entradasObsoletas = 0;
+    }
+
+    // Trigramas distintos do texto, ordenados (para permitir binarySearch).
+    private static long[] trigramas(String texto) {
+        Set<Long> distintos = new HashSet<>();
+        for (int i = 0; i + 3 <= texto.length(); i++) {
+            distintos.add(((long) texto.charAt(i) << 32) | ((long) texto.charAt(i + 1) << 16) | texto.charAt(i + 2));
+        }
+        long[] resultado = new long[distintos.size()];
+        int i = 0;
+        for (Long trigrama : distintos) {
+            resultado[i++] = trigrama;
+        }
+        Arrays.sort(resultado);
+        return resultado;
+    }
+
+    // Lista de ids com crescimento amortizado, sem o custo de um Long por entrada.
+    private static final class ListaIds {
+        private long[] ids = new long[4];
+        private int tamanho;
+
+        void adicionar(long id) {
+            if (tamanho == ids.length) {
+                ids = Arrays.copyOf(ids, tamanho * 2);
+            }
+            ids[tamanho++] = id;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.ProdutoRepository;
+import com.example.demo.service.events.ProdutoAlteradoEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Mantém o ProdutoSearchIndex sincronizado com o banco:
+ * faz a carga completa após a inicialização da aplicação e aplica cada alteração de produto depois do commit.
+ * Os eventos só chegam às alterações feitas nesta instância: as das demais instâncias (e as feitas direto no banco)
+ * entram no índice pela recarga completa, repetida a cada 'resync-seconds'.
+ */
+@Component
+public class ProdutoSearchIndexListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ProdutoSearchIndexListener.class);
+
+    private final ProdutoSearchIndex indice;
+    private final ProdutoRepository produtoRepository;
+    private final TransactionTemplate transacaoLeitura;
+    private final boolean habilitado;
+    private final long resyncSegundos;
+
+    // Carga inicial e recargas periódicas, sempre uma de cada vez.
+    private final ScheduledExecutorService carga = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "produto-search-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param resyncSegundos Intervalo entre as recargas completas do banco (0 desliga as recargas).
+     */
+    @Autowired
+    public ProdutoSearchIndexListener(ProdutoSearchIndex indice, ProdutoRepository produtoRepository,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${produtos.search.index.enabled:true}") boolean habilitado,
+                                      @Value("${produtos.search.index.resync-seconds:300}") long resyncSegundos) {
+        this.indice = indice;
+        this.produtoRepository = produtoRepository;
+        this.transacaoLeitura = new TransactionTemplate(transactionManager);
+        this.transacaoLeitura.setReadOnly(true);
+        this.habilitado = habilitado;
+        this.resyncSegundos = resyncSegundos;
+    }
+
+    /**
+     * Dispara a carga do índice em segundo plano, sem atrasar a subida da aplicação, e agenda as recargas.
+     * Enquanto a primeira carga não termina, as buscas por texto continuam usando o LIKE do banco.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void construirIndice() {
+        if (!habilitado) {
+            return;
+        }
+        carga.execute(this::carregar);
+        if (resyncSegundos > 0) {
+            carga.scheduleWithFixedDelay(this::carregar, resyncSegundos, resyncSegundos, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    void encerrar() {
+        carga.shutdownNow();
+    }
+
+    void carregar() {
+        long inicio = System.nanoTime();
+        indice.iniciarConstrucao();
+        try {
+            transacaoLeitura.executeWithoutResult(status -> {
+                try (Stream<Object[]> linhas = produtoRepository.streamTextosOrderByIdAsc()) {
+                    Iterator<Object[]> iterator = linhas.iterator();
+                    while (iterator.hasNext()) {
+                        Object[] linha = iterator.next();
+                        indice.indexarDaCarga((Long) linha[0], (String) linha[1], (String) linha[2]);
+                    }
+                }
+            });
+            indice.concluirConstrucao();
+            log.info("Índice de busca de produtos carregado: {} produtos em {} ms", indice.tamanho(), (System.nanoTime() - inicio) / 1_000_000);
+        } catch (RuntimeException e) {
+            // Uma exceção não tratada cancelaria as recargas seguintes do agendamento.
+            indice.cancelarConstrucao();
+            log.error("Falha ao carregar o índice de busca de produtos; {}", indice.isPronto()
+                    ? "ele continua com os dados da carga anterior" : "as buscas por texto continuarão usando LIKE", e);
+        }
+    }
+
+    /**
+     * Aplica no índice uma alteração de produto já confirmada no banco.
+     * 'fallbackExecution' cobre publicações feitas fora de transação.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        if (!habilitado) {
+            return;
+        }
+        if (evento.tipo() == ProdutoAlteradoEvent.Tipo.REMOVIDO) {
+            indice.remover(evento.id());
+        } else if (evento.produto() != null) {
+            indice.indexar(evento.id(), evento.nome(), evento.descricao());
+        } else {
+            // PATCH: só o que foi enviado muda; sem nome nem descrição (ex: baixa de estoque), o texto indexado continua válido.
+            indice.atualizar(evento.id(), evento.nome(), evento.descricao());
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.demo.service;
+
+import com.example.demo.config.JanelaDeLeituraPropria;
+import com.example.demo.dto.ProdutoFiltroDTO;
+import com.example.demo.dto.ProdutoResponseDTO;
+import com.example.demo.service.events.ProdutoAlteradoEvent;
+import com.example.demo.service.exceptions.ServiceUnavailableException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalescência ("single-flight") das leituras de produtos: requisições idênticas e simultâneas
+ * (ex: centenas de GET /produtos?name=x&sort=preco,asc quando um termo entra em alta) compartilham
+ * uma única chamada a Modelo_ProdutoService e o seu resultado, em vez de cada uma fazer a sua consulta ao banco.
+ * - A primeira requisição de uma chave faz a consulta; as que chegam enquanto ela está em andamento esperam por ela.
+ * - Nada fica guardado depois que a consulta termina: não é um cache (o cache de respostas é o ProdutoResponseCache).
+ * - Uma escrita confirmada (ver ProdutoAlteradoEvent) avança a geração, que faz parte da chave: quem chega depois
+ *   de uma escrita concluída nunca recebe o resultado de uma consulta iniciada antes dela.
+ * - Com réplicas, o usuário que acabou de escrever (JanelaDeLeituraPropria) consulta sozinho, no primário.
+ * - O erro da consulta (ex: 400, 404) é repassado a todas as requisições que a esperavam; quem espera mais que
+ *   'espera-ms' recebe 503, e a consulta continua para as demais.
+ */
+@Component
+public class ProdutoSingleFlight {
+
+    // Consulta em andamento: operação, parâmetros e geração em que começou.
+    private record Chave(String operacao, List<Object> parametros, long geracao) {
+    }
+
+    private final Modelo_ProdutoService produtoService;
+    private final ObjectProvider<JanelaDeLeituraPropria> janela;
+    private final boolean habilitado;
+    private final long esperaMs;
+
+    private final Map<Chave, CompletableFuture<Object>> emAndamento = new ConcurrentHashMap<>();
+    // Incrementada após o commit de cada alteração de produto.
+    private final AtomicLong geracao = new AtomicLong();
+
+    // Métricas.
+    private final LongAdder consultasExecutadas = new LongAdder();
+    private final LongAdder consultasCompartilhadas = new LongAdder();
+    private final LongAdder esperasEsgotadas = new LongAdder();
+
+    /**
+     * @param janela Janela de leitura da própria escrita (só existe com réplicas configuradas).
+     * @param habilitado Se as leituras idênticas são coalescidas; desligado, cada chamada vai direto ao serviço.
+     * @param esperaMs Tempo máximo que uma requisição espera pela consulta de outra.
+     */
+    @Autowired
+    public ProdutoSingleFlight(Modelo_ProdutoService produtoService, ObjectProvider<JanelaDeLeituraPropria> janela,
+                               @Value("${produtos.single-flight.enabled:true}") boolean habilitado,
+                               @Value("${produtos.single-flight.espera-ms:5000}") long esperaMs) {
+        this.produtoService = produtoService;
+        this.janela = janela;
+        this.habilitado = habilitado;
+        this.esperaMs = esperaMs;
+    }
+
+    /**
+     * Modelo_ProdutoService.findAll, compartilhado entre as chamadas simultâneas com os mesmos parâmetros.
+     * A lista devolvida é somente leitura (pode estar sendo usada por outras requisições).
+     */
+    public List<ProdutoResponseDTO> findAll(String name, ProdutoFiltroDTO filtros, String sort) {
+        return executar("findAll", Arrays.asList(name, filtros, sort),
+                () -> Collections.unmodifiableList(produtoService.findAll(name, filtros, sort)));
+    }
+
+    /**
+     * Modelo_ProdutoService.findById, compartilhado entre as chamadas simultâneas para o mesmo id.
+     */
+    public ProdutoResponseDTO findById(Long id) {
+        return executar("findById", List.of(id), () -> produtoService.findById(id));
+    }
+
+    /**
+     * Avança a geração após o commit de cada alteração de produto: as consultas já em andamento deixam de aceitar
+     * novas requisições (que passam a compartilhar uma nova consulta).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        geracao.incrementAndGet();
+    }
+
+    public long getConsultasExecutadas() {
+        return consultasExecutadas.sum();
+    }
+
+    public long getConsultasCompartilhadas() {
+        return consultasCompartilhadas.sum();
+    }
+
+    public long getEsperasEsgotadas() {
+        return esperasEsgotadas.sum();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T executar(String operacao, List<Object> parametros, Supplier<T> consulta) {
+        JanelaDeLeituraPropria janelaDeLeitura = janela.getIfAvailable();
+        if (!habilitado || (janelaDeLeitura != null && janelaDeLeitura.isDentroDaJanela())) {
+            return consulta.get();
+        }
+        Chave chave = new Chave(operacao, parametros, geracao.get());
+        CompletableFuture<Object> nova = new CompletableFuture<>();
+        CompletableFuture<Object> existente = emAndamento.putIfAbsent(chave, nova);
+        if (existente == null) {
+            consultasExecutadas.increment();
+            try {
+                T resultado = consulta.get();
+                nova.complete(resultado);
+                return resultado;
+            } catch (RuntimeException | Error e) {
+                nova.completeExceptionally(e);
+                throw e;
+            } finally {
+                emAndamento.remove(chave, nova);
+            }
+        }
+
+        consultasCompartilhadas.increment();
+        try {
+            return (T) existente.get(esperaMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("A consulta de produtos foi interrompida.");
+        } catch (TimeoutException e) {
+            esperasEsgotadas.increment();
+            throw new ServiceUnavailableException("A consulta de produtos demorou mais que o esperado. Tente novamente.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException erro) {
+                throw erro; // O mesmo erro da consulta compartilhada (ex: 404, 400).
+            }
+            throw new ServiceUnavailableException("Não foi possível consultar os produtos. Tente novamente.");
+        }
+    }
+}
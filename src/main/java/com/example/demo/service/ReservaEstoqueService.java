@@ -0,0 +1,378 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ReservaEstoqueDTO;
+import com.example.demo.repository.ProdutoRepository;
+import com.example.demo.service.events.ProdutoAlteradoEvent;
+import com.example.demo.service.exceptions.ConflictException;
+import com.example.demo.service.exceptions.ResourceNotFoundException;
+import com.example.demo.service.exceptions.ServiceUnavailableException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reservas de estoque para picos de demanda sobre poucos produtos (ex: promoções relâmpago).
+ * Em vez de cada compra fazer leitura-alteração-gravação da linha do produto (perdendo atualizações e
+ * enfileirando nos locks da linha), o estoque disponível fica em memória, em um ContadorDeEstoque por produto:
+ * - reservar: retira as unidades do contador (sem ir ao banco) e segura a reserva até a confirmação ou a expiração;
+ * - liberar: devolve as unidades ao contador;
+ * - confirmar: grava a baixa no banco. Uma única thread agrupa as confirmações que chegam juntas e grava,
+ *   em um lote JDBC e uma transação, um UPDATE condicional por produto com a soma das quantidades
+ *   ('... set stock_quantity = stock_quantity - ? where id = ? and stock_quantity >= ?').
+ * O contador impede reservar mais que o estoque; a condição do UPDATE garante o mesmo no banco, inclusive
+ * se o estoque for alterado por fora (PUT/PATCH do produto ou outra instância da aplicação).
+ */
+@Service
+public class ReservaEstoqueService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservaEstoqueService.class);
+
+    // A versão também é incrementada: a baixa muda o produto, então os ETags emitidos antes deixam de valer.
+    static final String SQL_BAIXA = "update products set stock_quantity = stock_quantity - ?, version = version + 1 "
+            + "where id = ? and stock_quantity >= ?";
+
+    private record Reserva(UUID id, Long produtoId, int quantidade, String dono, Instant expiraEm) {
+    }
+
+    // Uma confirmação aguardando a gravação; o resultado indica se o banco aceitou a baixa.
+    private record Baixa(Reserva reserva, CompletableFuture<Boolean> resultado) {
+    }
+
+    private final ProdutoRepository produtoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transacao;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration validade;
+    private final int faixas;
+    private final int loteMaximo;
+    private final long esperaConfirmacaoMs;
+
+    private final Map<Long, ContadorDeEstoque> contadores = new ConcurrentHashMap<>();
+    private final Map<UUID, Reserva> reservas = new ConcurrentHashMap<>();
+    private final BlockingQueue<Baixa> fila = new LinkedBlockingQueue<>();
+    private final ScheduledExecutorService expiracao = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "estoque-reservas-expiracao");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Thread escritor;
+    private volatile boolean encerrado;
+
+    // Métricas.
+    private final LongAdder reservasRecusadas = new LongAdder();
+    private final LongAdder reservasExpiradas = new LongAdder();
+    private final LongAdder baixasConfirmadas = new LongAdder();
+    private final LongAdder baixasRecusadas = new LongAdder();
+    private final LongAdder comandosDeBaixa = new LongAdder();
+    private final LongAdder lotesGravados = new LongAdder();
+
+    /**
+     * @param validadeSegundos Tempo que uma reserva segura o estoque antes de expirar.
+     * @param faixas Faixas de cada contador (0 = duas por núcleo).
+     * @param loteMaximo Máximo de confirmações gravadas em um mesmo lote.
+     * @param esperaConfirmacaoMs Tempo máximo que a confirmação espera a gravação da baixa.
+     */
+    @Autowired
+    public ReservaEstoqueService(ProdutoRepository produtoRepository, JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher,
+                                 @Value("${estoque.reservas.validade-seconds:300}") long validadeSegundos,
+                                 @Value("${estoque.reservas.faixas:0}") int faixas,
+                                 @Value("${estoque.reservas.lote-maximo:500}") int loteMaximo,
+                                 @Value("${estoque.reservas.espera-confirmacao-ms:10000}") long esperaConfirmacaoMs) {
+        this.produtoRepository = produtoRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.validade = Duration.ofSeconds(validadeSegundos);
+        this.faixas = faixas > 0 ? faixas : 2 * Runtime.getRuntime().availableProcessors();
+        this.loteMaximo = loteMaximo;
+        this.esperaConfirmacaoMs = esperaConfirmacaoMs;
+    }
+
+    /**
+     * Inicia a thread que grava as baixas e a varredura das reservas expiradas.
+     */
+    @PostConstruct
+    void iniciar() {
+        escritor = new Thread(this::gravarBaixas, "estoque-reservas-escrita");
+        escritor.setDaemon(true);
+        escritor.start();
+        expiracao.scheduleWithFixedDelay(this::expirarReservas, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Reserva unidades de um produto, sem ir ao banco (exceto na primeira reserva do produto
+     * ou depois de uma alteração dele, quando o saldo é carregado).
+     * @param produtoId O id do produto.
+     * @param quantidade A quantidade a reservar.
+     * @param dono O login de quem reserva; só ele pode confirmar ou liberar a reserva.
+     * @return A reserva criada.
+     * @throws ResourceNotFoundException se o produto não existir.
+     * @throws ConflictException se não houver estoque disponível suficiente.
+     */
+    public ReservaEstoqueDTO reservar(Long produtoId, int quantidade, String dono) {
+        ContadorDeEstoque contador = contadores.computeIfAbsent(produtoId, id -> new ContadorDeEstoque(faixas));
+        if (contador.isDesatualizado()) {
+            try {
+                contador.recarregar(() -> produtoRepository.findQuantidadeEstoqueById(produtoId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Produto não encontrado com o ID: " + produtoId)));
+            } catch (ResourceNotFoundException e) {
+                contadores.remove(produtoId, contador); // Não guarda contadores de ids inexistentes.
+                throw e;
+            }
+        }
+        if (!contador.reservar(quantidade)) {
+            reservasRecusadas.increment();
+            throw new ConflictException("Estoque insuficiente para o produto " + produtoId + ".");
+        }
+        Reserva reserva = new Reserva(UUID.randomUUID(), produtoId, quantidade, dono, Instant.now().plus(validade));
+        reservas.put(reserva.id(), reserva);
+        return new ReservaEstoqueDTO(reserva.id(), produtoId, quantidade, reserva.expiraEm());
+    }
+
+    /**
+     * Libera uma reserva, devolvendo as unidades ao estoque disponível.
+     * @throws ResourceNotFoundException se a reserva não existir, já tiver sido usada, expirado ou for de outro usuário.
+     */
+    public void liberar(UUID id, String dono) {
+        Reserva reserva = retirar(id, dono);
+        contador(reserva.produtoId()).devolver(reserva.quantidade());
+    }
+
+    /**
+     * Confirma uma reserva, gravando a baixa do estoque no banco. Aguarda a gravação do lote em que a baixa entrou.
+     * @throws ResourceNotFoundException se a reserva não existir, já tiver sido usada, expirado ou for de outro usuário.
+     * @throws ConflictException se o banco recusar a baixa (o estoque foi reduzido por fora das reservas).
+     * @throws ServiceUnavailableException se a gravação falhar ou não terminar a tempo.
+     */
+    public void confirmar(UUID id, String dono) {
+        Reserva reserva = retirar(id, dono);
+        if (encerrado) {
+            contador(reserva.produtoId()).devolver(reserva.quantidade());
+            throw new ServiceUnavailableException("A aplicação está sendo encerrada. Reserve novamente.");
+        }
+        Baixa baixa = new Baixa(reserva, new CompletableFuture<>());
+        fila.add(baixa);
+
+        boolean aceita;
+        try {
+            aceita = baixa.resultado().get(esperaConfirmacaoMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("A confirmação da reserva foi interrompida.");
+        } catch (TimeoutException e) {
+            // A baixa continua na fila e ainda pode ser gravada.
+            throw new ServiceUnavailableException("A confirmação da reserva " + id + " ainda está em processamento.");
+        } catch (ExecutionException e) {
+            throw new ServiceUnavailableException("Não foi possível gravar a baixa de estoque. Reserve novamente.");
+        }
+        if (!aceita) {
+            throw new ConflictException("Estoque insuficiente para o produto " + reserva.produtoId() + ".");
+        }
+    }
+
+    /**
+     * Marca o saldo em memória como desatualizado quando o produto é alterado por fora das reservas.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        if (evento.tipo() == ProdutoAlteradoEvent.Tipo.ESTOQUE_BAIXADO) {
+            return; // Baixas gravadas por este serviço já estão refletidas no contador.
+        }
+        ContadorDeEstoque contador = contadores.get(evento.id());
+        if (contador != null) {
+            contador.marcarDesatualizado();
+        }
+    }
+
+    public int getReservasAtivas() {
+        return reservas.size();
+    }
+
+    public long getReservasRecusadas() {
+        return reservasRecusadas.sum();
+    }
+
+    public long getReservasExpiradas() {
+        return reservasExpiradas.sum();
+    }
+
+    public long getBaixasConfirmadas() {
+        return baixasConfirmadas.sum();
+    }
+
+    public long getBaixasRecusadas() {
+        return baixasRecusadas.sum();
+    }
+
+    public long getComandosDeBaixa() {
+        return comandosDeBaixa.sum();
+    }
+
+    public long getLotesGravados() {
+        return lotesGravados.sum();
+    }
+
+    public int getTamanhoFila() {
+        return fila.size();
+    }
+
+    /**
+     * Para de aceitar confirmações e grava as que já estão na fila.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        encerrado = true;
+        expiracao.shutdownNow();
+        if (escritor != null) {
+            escritor.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    // Remove a reserva para confirmá-la ou liberá-la; a remoção atômica garante que só uma das duas acontece.
+    private Reserva retirar(UUID id, String dono) {
+        Reserva reserva = reservas.get(id);
+        if (reserva == null || !reserva.dono().equals(dono) || !reservas.remove(id, reserva)) {
+            throw new ResourceNotFoundException("Reserva não encontrada ou expirada: " + id);
+        }
+        if (reserva.expiraEm().isBefore(Instant.now())) {
+            // Expirou e a varredura ainda não passou: trata como expirada.
+            contador(reserva.produtoId()).devolver(reserva.quantidade());
+            reservasExpiradas.increment();
+            throw new ResourceNotFoundException("Reserva não encontrada ou expirada: " + id);
+        }
+        return reserva;
+    }
+
+    private ContadorDeEstoque contador(Long produtoId) {
+        return contadores.computeIfAbsent(produtoId, id -> new ContadorDeEstoque(faixas));
+    }
+
+    private void expirarReservas() {
+        Instant agora = Instant.now();
+        for (Reserva reserva : reservas.values()) {
+            if (reserva.expiraEm().isBefore(agora) && reservas.remove(reserva.id(), reserva)) {
+                contador(reserva.produtoId()).devolver(reserva.quantidade());
+                reservasExpiradas.increment();
+            }
+        }
+    }
+
+    // Laço da thread de escrita: cada lote reúne todas as confirmações que chegaram enquanto o anterior era gravado.
+    private void gravarBaixas() {
+        List<Baixa> lote = new ArrayList<>();
+        while (!encerrado || !fila.isEmpty()) {
+            try {
+                Baixa primeira = fila.poll(100, TimeUnit.MILLISECONDS);
+                if (primeira == null) {
+                    continue;
+                }
+                lote.add(primeira);
+                fila.drainTo(lote, loteMaximo - 1);
+                gravar(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Erro inesperado na gravação das baixas de estoque", e);
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    // Grava um lote: um UPDATE condicional por produto (soma das quantidades), todos em um lote JDBC e uma transação.
+    private void gravar(List<Baixa> lote) {
+        Map<Long, List<Baixa>> porProduto = new LinkedHashMap<>();
+        for (Baixa baixa : lote) {
+            porProduto.computeIfAbsent(baixa.reserva().produtoId(), id -> new ArrayList<>()).add(baixa);
+        }
+        List<Long> produtos = new ArrayList<>(porProduto.keySet());
+        List<Object[]> parametros = new ArrayList<>(produtos.size());
+        for (Long produtoId : produtos) {
+            int total = porProduto.get(produtoId).stream().mapToInt(baixa -> baixa.reserva().quantidade()).sum();
+            parametros.add(new Object[]{total, produtoId, total});
+        }
+
+        List<Baixa> aceitas = new ArrayList<>(lote.size());
+        List<Baixa> recusadas = new ArrayList<>();
+        try {
+            transacao.executeWithoutResult(status -> {
+                int[] linhas = jdbcTemplate.batchUpdate(SQL_BAIXA, parametros);
+                comandosDeBaixa.add(produtos.size());
+                for (int i = 0; i < produtos.size(); i++) {
+                    List<Baixa> baixas = porProduto.get(produtos.get(i));
+                    if (linhas[i] > 0) {
+                        aceitas.addAll(baixas);
+                    } else if (baixas.size() == 1) {
+                        recusadas.add(baixas.get(0));
+                    } else {
+                        // A soma não coube no estoque do banco: tenta uma a uma, na ordem de chegada.
+                        for (Baixa baixa : baixas) {
+                            int quantidade = baixa.reserva().quantidade();
+                            boolean aceita = jdbcTemplate.update(SQL_BAIXA, quantidade, produtos.get(i), quantidade) > 0;
+                            comandosDeBaixa.increment();
+                            (aceita ? aceitas : recusadas).add(baixa);
+                        }
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Falha ao gravar {} baixas de estoque; as reservas foram devolvidas", lote.size(), e);
+            for (Baixa baixa : lote) {
+                contador(baixa.reserva().produtoId()).devolver(baixa.reserva().quantidade());
+                baixa.resultado().completeExceptionally(e);
+            }
+            return;
+        }
+        lotesGravados.increment();
+
+        Set<Long> baixados = new LinkedHashSet<>();
+        for (Baixa baixa : aceitas) {
+            contador(baixa.reserva().produtoId()).baixado(baixa.reserva().quantidade());
+            baixados.add(baixa.reserva().produtoId());
+            baixasConfirmadas.increment();
+        }
+        for (Baixa baixa : recusadas) {
+            // O banco tem menos estoque do que o contador supunha: recarrega o saldo na próxima reserva.
+            ContadorDeEstoque contador = contador(baixa.reserva().produtoId());
+            contador.baixado(baixa.reserva().quantidade());
+            contador.marcarDesatualizado();
+            baixasRecusadas.increment();
+        }
+        // Invalida os caches (e avisa os demais ouvintes) dos produtos cujo estoque mudou antes de responder às
+        // confirmações: quem confirmou e lê o produto em seguida já não recebe o estoque antigo.
+        baixados.forEach(produtoId -> eventPublisher.publishEvent(ProdutoAlteradoEvent.estoqueBaixado(produtoId)));
+        aceitas.forEach(baixa -> baixa.resultado().complete(true));
+        recusadas.forEach(baixa -> baixa.resultado().complete(false));
+    }
+}
@@ -1,16 +1,33 @@
 package com.example.demo.service;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTCreationException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
 import com.example.demo.models.Usuario;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Serviço responsável pela geração e validação de Tokens JWT.
@@ -19,11 +36,74 @@ import java.time.ZoneOffset;
 @Service
 public class TokenService {
 
+    private static final String ISSUER = "API Produtos";
+    private static final String TOKEN_INVALIDO = "Token JWT inválido ou expirado!";
+
     // Injeta o segredo usado para assinar os tokens a partir do arquivo de configuração (application.properties ou application.yml).
     // É uma boa prática para não deixar segredos hardcoded no código.
     @Value("${api.security.token.secret}")
     private String secret;
 
+    // Quantidade máxima de tokens já verificados mantidos em memória.
+    @Value("${api.security.token.cache.max-size:10000}")
+    private int maxTokensEmCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Tempo das verificações completas de assinatura (os acertos do cache não passam por aqui).
+    // Um timer direto, e não @Timed: o aspecto custaria mais que a própria validação de um token em cache.
+    private Timer tempoVerificacao;
+
+    // O algoritmo e o verificador são imutáveis e thread-safe: são criados uma única vez.
+    private Algorithm algoritmo;
+    private JWTVerifier verificador;
+
+    // Tokens já verificados, indexados pelo SHA-256 do token. Evita repetir a verificação HMAC
+    // (e a decodificação do JSON) a cada requisição do mesmo cliente, até a expiração do token.
+    private final Map<String, TokenVerificado> tokensVerificados = new ConcurrentHashMap<>();
+
+    // Métricas: validações respondidas pelo cache, verificações completas da assinatura e tokens recusados.
+    private final LongAdder acertosCache = new LongAdder();
+    private final LongAdder verificacoesAssinatura = new LongAdder();
+    private final LongAdder tokensRecusados = new LongAdder();
+
+    // Nomes das claims que permitem montar o usuário autenticado sem consultar o banco.
+    public static final String CLAIM_ID = "id";
+    public static final String CLAIM_ROLES = "roles";
+
+    /**
+     * Resultado de uma verificação bem-sucedida.
+     * @param subject O login do usuário.
+     * @param id O id do usuário (claim "id"), ou null em tokens emitidos sem ela.
+     * @param roles As autoridades do usuário (claim "roles"), ou null em tokens emitidos sem ela.
+     * @param expiraEm O instante de expiração do token (epoch em ms).
+     */
+    public record TokenVerificado(String subject, Long id, List<String> roles, long expiraEm) {
+
+        /**
+         * Indica se o token traz claims suficientes para autenticar sem consultar o banco.
+         */
+        public boolean possuiClaimsDoUsuario() {
+            return id != null && roles != null;
+        }
+    }
+
+    /**
+     * Cria o algoritmo HMAC256 e o verificador (algoritmo + issuer) a partir do segredo.
+     */
+    @PostConstruct
+    void inicializar() {
+        tempoVerificacao = Timer.builder("api.security.jwt.verificacao")
+                .description("Tempo de verificação da assinatura de tokens JWT (faltas do cache)")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        algoritmo = Algorithm.HMAC256(secret);
+        verificador = JWT.require(algoritmo)
+                .withIssuer(ISSUER) // Verifica se o emissor do token é o mesmo esperado.
+                .build();
+    }
+
     /**
      * Gera um novo token JWT para um usuário autenticado.
      * @param usuario O objeto do usuário para o qual o token será gerado.
@@ -32,15 +112,14 @@ public class TokenService {
      */
     public String gerarToken(Usuario usuario) {
         try {
-            // Define o algoritmo de assinatura do token, HMAC256, usando o segredo da aplicação.
-            Algorithm algoritmo = Algorithm.HMAC256(secret);
-            
             // Inicia a criação do token.
             return JWT.create()
-                    .withIssuer("API Produtos") // Define o emissor (quem está gerando o token).
+                    .withIssuer(ISSUER) // Define o emissor (quem está gerando o token).
                     .withSubject(usuario.getLogin()) // Define o "dono" do token, geralmente o ID ou login do usuário.
+                    .withClaim(CLAIM_ID, usuario.getId()) // Id e roles permitem autenticar sem ir ao banco (ver SecurityFilter).
+                    .withClaim(CLAIM_ROLES, usuario.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList())
                     .withExpiresAt(dataExpiracao()) // Define a data e hora de expiração do token.
-                    .sign(algoritmo); // Assina o token com o algoritmo definido.
+                    .sign(algoritmo); // Assina o token com o algoritmo HMAC256 criado na inicialização.
         } catch (JWTCreationException exception){
             // Lança uma exceção de runtime se a criação do token falhar.
             throw new RuntimeException("Erro ao gerar token JWT", exception);
@@ -51,25 +130,74 @@ public class TokenService {
      * Valida um token JWT e extrai o "subject" (neste caso, o login do usuário).
      * @param tokenJWT O token JWT a ser validado.
      * @return O login do usuário (subject) se o token for válido.
-     * @throws RuntimeException se o token for inválido, expirado ou malformado.
+     * @throws JWTVerificationException se o token for inválido, expirado ou malformado (o SecurityFilter responde 401).
      */
     public String getSubject(String tokenJWT) {
+        return verificar(tokenJWT).subject();
+    }
+
+    /**
+     * Valida um token JWT e retorna o subject junto com as claims do usuário.
+     * Um token já verificado é respondido pelo cache até a sua expiração, sem nova verificação da assinatura.
+     * @param tokenJWT O token JWT a ser validado.
+     * @return Os dados extraídos do token.
+     * @throws JWTVerificationException se o token for inválido, expirado ou malformado (o SecurityFilter responde 401).
+     */
+    public TokenVerificado verificar(String tokenJWT) {
+        String chave = digest(tokenJWT);
+        TokenVerificado verificado = tokensVerificados.get(chave);
+        if (verificado != null) {
+            if (verificado.expiraEm() > System.currentTimeMillis()) {
+                acertosCache.increment();
+                return verificado;
+            }
+            // Expirou desde a última verificação: descarta e responde como o verificador responderia.
+            tokensVerificados.remove(chave, verificado);
+            tokensRecusados.increment();
+            throw new JWTVerificationException(TOKEN_INVALIDO);
+        }
+
+        verificacoesAssinatura.increment();
+        long inicio = System.nanoTime();
         try {
-            // Define o mesmo algoritmo usado para a criação para poder verificar a assinatura.
-            Algorithm algoritmo = Algorithm.HMAC256(secret);
-
-            // Cria um objeto verificador configurado com as mesmas regras da criação (algoritmo e issuer).
-            return JWT.require(algoritmo)
-                    .withIssuer("API Produtos") // Verifica se o emissor do token é o mesmo esperado.
-                    .build()
-                    .verify(tokenJWT) // Tenta verificar o token. Lança uma exceção se a assinatura, expiração ou issuer estiverem incorretos.
-                    .getSubject(); // Se a verificação for bem-sucedida, extrai e retorna o subject.
+            // Tenta verificar o token. Lança uma exceção se a assinatura, expiração ou issuer estiverem incorretos.
+            DecodedJWT decodificado = verificador.verify(tokenJWT);
+            Instant expiracao = decodificado.getExpiresAtAsInstant();
+            // Se a verificação for bem-sucedida, extrai o subject e as claims do usuário.
+            verificado = new TokenVerificado(
+                    decodificado.getSubject(),
+                    decodificado.getClaim(CLAIM_ID).asLong(),
+                    decodificado.getClaim(CLAIM_ROLES).asList(String.class),
+                    expiracao != null ? expiracao.toEpochMilli() : Long.MAX_VALUE);
+            if (expiracao != null) {
+                armazenar(chave, verificado);
+            }
+            return verificado;
         } catch (JWTVerificationException exception) {
-            // Lança uma exceção genérica para não dar detalhes sobre o erro da validação (boa prática de segurança).
-            throw new RuntimeException("Token JWT inválido ou expirado!");
+            tokensRecusados.increment();
+            // Relança com uma mensagem genérica para não dar detalhes sobre o erro da validação (boa prática de segurança).
+            throw new JWTVerificationException(TOKEN_INVALIDO);
+        } finally {
+            tempoVerificacao.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
         }
     }
 
+    public long getAcertosCache() {
+        return acertosCache.sum();
+    }
+
+    public long getVerificacoesAssinatura() {
+        return verificacoesAssinatura.sum();
+    }
+
+    public long getTokensRecusados() {
+        return tokensRecusados.sum();
+    }
+
+    public int getTamanhoCache() {
+        return tokensVerificados.size();
+    }
+
     /**
      * Calcula o momento exato da expiração do token.
      * @return Um objeto Instant representando o ponto no tempo em que o token irá expirar.
@@ -79,4 +207,28 @@ public class TokenService {
         // O fuso horário "-03:00" (horário de Brasília) é usado para garantir consistência.
         return LocalDateTime.now().plusHours(2).toInstant(ZoneOffset.of("-03:00"));
     }
-}
\ No newline at end of file
+
+    // Mantém o cache dentro do limite: remove primeiro os tokens expirados e, se ainda estiver cheio, entradas quaisquer.
+    private void armazenar(String chave, TokenVerificado verificado) {
+        if (tokensVerificados.size() >= maxTokensEmCache) {
+            long agora = System.currentTimeMillis();
+            tokensVerificados.values().removeIf(token -> token.expiraEm() <= agora);
+            Iterator<String> chaves = tokensVerificados.keySet().iterator();
+            while (tokensVerificados.size() >= maxTokensEmCache * 9 / 10 && chaves.hasNext()) {
+                chaves.next();
+                chaves.remove();
+            }
+        }
+        tokensVerificados.put(chave, verificado);
+    }
+
+    // O cache guarda o hash do token, e não o token em si, para não manter credenciais em memória.
+    private static String digest(String tokenJWT) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(tokenJWT.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
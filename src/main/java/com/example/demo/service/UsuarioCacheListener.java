@@ -0,0 +1,46 @@
+package com.example.demo.service;
+
+import com.example.demo.models.Usuario;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Listener JPA da entidade Usuario que invalida o UsuarioPrincipalCache sempre que um usuário muda.
+ * O Hibernate obtém esta instância do contexto do Spring (SpringBeanContainer), por isso a injeção funciona.
+ * O cache é opcional: em contextos parciais (ex: @DataJpaTest) ele não existe e não há o que invalidar.
+ */
+@Component
+public class UsuarioCacheListener {
+
+    private final ObjectProvider<UsuarioPrincipalCache> cache;
+
+    public UsuarioCacheListener(ObjectProvider<UsuarioPrincipalCache> cache) {
+        this.cache = cache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void usuarioAlterado(Usuario usuario) {
+        UsuarioPrincipalCache cache = this.cache.getIfAvailable();
+        if (cache == null) {
+            return;
+        }
+        cache.invalidar(usuario);
+        // Invalida de novo ao final da transação: uma requisição concorrente pode ter
+        // recarregado a versão antiga do banco entre o flush e o commit.
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidar(usuario);
+                }
+            });
+        }
+    }
+}
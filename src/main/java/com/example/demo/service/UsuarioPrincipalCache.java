@@ -0,0 +1,123 @@
+package com.example.demo.service;
+
+import com.example.demo.models.Usuario;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache de curta duração dos usuários autenticados, indexado pelo login.
+ * Evita que o SecurityFilter consulte a tabela de usuários a cada requisição autenticada.
+ * As entradas expiram após um TTL curto e são removidas explicitamente quando um Usuario
+ * é alterado ou removido (ver UsuarioCacheListener).
+ */
+@Component
+public class UsuarioPrincipalCache {
+
+    // Tempo de vida de cada entrada, em segundos.
+    @Value("${api.security.principal-cache.ttl-seconds:60}")
+    private long ttlSegundos;
+
+    // Quantidade máxima de usuários mantidos em memória.
+    @Value("${api.security.principal-cache.max-size:10000}")
+    private int maxUsuarios;
+
+    private final Map<String, Entrada> usuariosPorLogin = new ConcurrentHashMap<>();
+
+    // Métricas: consultas ao banco realizadas e evitadas (pelo cache ou pelas claims do token).
+    private final LongAdder consultasAoBanco = new LongAdder();
+    private final LongAdder consultasEvitadasPorCache = new LongAdder();
+    private final LongAdder consultasEvitadasPorClaims = new LongAdder();
+
+    private record Entrada(UserDetails usuario, long expiraEm) {}
+
+    /**
+     * Retorna o usuário do cache ou, se ausente/expirado, o carrega com a função informada.
+     * Usuários inexistentes (carregador retorna null) não são armazenados.
+     * @param login O login do usuário.
+     * @param carregador A consulta ao banco, executada apenas em caso de falta.
+     * @return O usuário, ou null se ele não existir.
+     */
+    public UserDetails buscar(String login, Function<String, UserDetails> carregador) {
+        long agora = System.currentTimeMillis();
+        Entrada entrada = usuariosPorLogin.get(login);
+        if (entrada != null && entrada.expiraEm() > agora) {
+            consultasEvitadasPorCache.increment();
+            return entrada.usuario();
+        }
+
+        consultasAoBanco.increment();
+        UserDetails usuario = carregador.apply(login);
+        if (usuario != null) {
+            armazenar(login, new Entrada(usuario, agora + ttlSegundos * 1000));
+        } else if (entrada != null) {
+            usuariosPorLogin.remove(login, entrada);
+        }
+        return usuario;
+    }
+
+    /**
+     * Remove do cache o usuário informado, tanto pelo login quanto pelo id
+     * (cobre o caso de o login ter sido alterado).
+     */
+    public void invalidar(Usuario usuario) {
+        if (usuario.getLogin() != null) {
+            usuariosPorLogin.remove(usuario.getLogin());
+        }
+        if (usuario.getId() != null) {
+            usuariosPorLogin.values().removeIf(entrada -> entrada.usuario() instanceof Usuario u
+                    && Objects.equals(u.getId(), usuario.getId()));
+        }
+    }
+
+    /**
+     * Esvazia o cache.
+     */
+    public void invalidarTodos() {
+        usuariosPorLogin.clear();
+    }
+
+    /**
+     * Registra uma autenticação montada apenas com as claims do token, sem consulta ao banco.
+     */
+    public void registrarAutenticacaoPorClaims() {
+        consultasEvitadasPorClaims.increment();
+    }
+
+    public long getConsultasAoBanco() {
+        return consultasAoBanco.sum();
+    }
+
+    public long getConsultasEvitadasPorCache() {
+        return consultasEvitadasPorCache.sum();
+    }
+
+    public long getConsultasEvitadasPorClaims() {
+        return consultasEvitadasPorClaims.sum();
+    }
+
+    public int tamanho() {
+        return usuariosPorLogin.size();
+    }
+
+    // Mantém o cache dentro do limite: remove primeiro as entradas expiradas e, se ainda estiver cheio, entradas quaisquer.
+    private void armazenar(String login, Entrada entrada) {
+        if (usuariosPorLogin.size() >= maxUsuarios) {
+            long agora = System.currentTimeMillis();
+            usuariosPorLogin.values().removeIf(e -> e.expiraEm() <= agora);
+            Iterator<String> logins = usuariosPorLogin.keySet().iterator();
+            while (usuariosPorLogin.size() >= maxUsuarios * 9 / 10 && logins.hasNext()) {
+                logins.next();
+                logins.remove();
+            }
+        }
+        usuariosPorLogin.put(login, entrada);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demo.service.events;
+
+import com.example.demo.dto.ProdutoResponseDTO;
+
+/**
+ * Evento publicado pelo Modelo_ProdutoService a cada criação, atualização ou remoção de produto.
+ * Os ouvintes usam @TransactionalEventListener para reagir somente depois do commit,
+ * mantendo estruturas em memória (índices, caches) consistentes com o banco.
+ * @param tipo O tipo de alteração.
+ * @param id O id do produto alterado.
+ * @param produto O estado do produto após a alteração (nulo nas remoções e nas atualizações parciais, que não leem o produto).
+ * @param nome O nome do produto após a alteração (nulo nas remoções e nas atualizações parciais que não mudam o nome).
+ * @param descricao A descrição após a alteração (nula nas remoções, nas atualizações parciais que não mudam a descrição
+ *                  e nos produtos sem descrição).
+ */
+public record ProdutoAlteradoEvent(Tipo tipo, Long id, ProdutoResponseDTO produto, String nome, String descricao) {
+
+    public enum Tipo {
+        CRIADO,
+        ATUALIZADO,
+        REMOVIDO,
+        // Baixa de estoque por reservas confirmadas (ReservaEstoqueService); os demais campos não mudam.
+        ESTOQUE_BAIXADO
+    }
+
+    public static ProdutoAlteradoEvent criado(ProdutoResponseDTO produto) {
+        return new ProdutoAlteradoEvent(Tipo.CRIADO, produto.id(), produto, produto.nome(), produto.descricao());
+    }
+
+    public static ProdutoAlteradoEvent atualizado(ProdutoResponseDTO produto) {
+        return new ProdutoAlteradoEvent(Tipo.ATUALIZADO, produto.id(), produto, produto.nome(), produto.descricao());
+    }
+
+    // Atualização parcial (PATCH): só se conhece o que foi enviado na requisição.
+    public static ProdutoAlteradoEvent atualizadoParcialmente(Long id, String nome, String descricao) {
+        return new ProdutoAlteradoEvent(Tipo.ATUALIZADO, id, null, nome, descricao);
+    }
+
+    public static ProdutoAlteradoEvent estoqueBaixado(Long id) {
+        return new ProdutoAlteradoEvent(Tipo.ESTOQUE_BAIXADO, id, null, null, null);
+    }
+
+    public static ProdutoAlteradoEvent removido(Long id) {
+        return new ProdutoAlteradoEvent(Tipo.REMOVIDO, id, null, null, null);
+    }
+}
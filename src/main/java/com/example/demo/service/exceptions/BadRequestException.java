@@ -0,0 +1,17 @@
+package com.example.demo.service.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exceção customizada para parâmetros de requisição inválidos (ex: cursor corrompido).
+ * A anotação @ResponseStatus(HttpStatus.BAD_REQUEST) faz com que o Spring retorne
+ * automaticamente o código de status HTTP 400 quando esta exceção é lançada pelo controller.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class BadRequestException extends RuntimeException {
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
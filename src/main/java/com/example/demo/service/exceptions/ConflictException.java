@@ -0,0 +1,18 @@
+package com.example.demo.service.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exceção customizada para alterações que conflitam com outra alteração concorrente do mesmo recurso
+ * (ex: dois clientes atualizando o mesmo produto ao mesmo tempo, sem If-Match).
+ * A anotação @ResponseStatus(HttpStatus.CONFLICT) faz com que o Spring retorne
+ * automaticamente o código de status HTTP 409 quando esta exceção é lançada pelo controller.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ConflictException extends RuntimeException {
+
+    public ConflictException(String message) {
+        super(message);
+    }
+}
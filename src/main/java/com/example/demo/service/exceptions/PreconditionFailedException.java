@@ -0,0 +1,18 @@
+package com.example.demo.service.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exceção customizada para requisições condicionais cuja pré-condição não vale mais
+ * (ex: o If-Match informa uma versão do produto que já foi alterada por outro cliente).
+ * A anotação @ResponseStatus(HttpStatus.PRECONDITION_FAILED) faz com que o Spring retorne
+ * automaticamente o código de status HTTP 412 quando esta exceção é lançada pelo controller.
+ */
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.demo.service.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exceção customizada para quando o servidor está sobrecarregado e recusa o trabalho imediatamente
+ * (ex: fila do pool de hashing de senhas cheia), em vez de deixar a requisição esperando.
+ * A anotação @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE) faz com que o Spring retorne
+ * automaticamente o código de status HTTP 503.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ServiceUnavailableException extends RuntimeException {
+
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
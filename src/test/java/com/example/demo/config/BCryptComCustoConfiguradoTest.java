@@ -0,0 +1,32 @@
+package com.example.demo.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recodificação das senhas no login: pedida para hashes com custo menor ou maior que o configurado.
+ */
+class BCryptComCustoConfiguradoTest {
+
+	private final BCryptComCustoConfigurado encoder = new BCryptComCustoConfigurado(5);
+
+	@Test
+	void recodificaQuandoOCustoGravadoEDiferente() {
+		assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("senha")));
+		assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("senha")));
+		assertFalse(encoder.upgradeEncoding(encoder.encode("senha")));
+		// Sem a versão no prefixo ($2$), o custo vem logo após o primeiro '$'.
+		assertTrue(encoder.upgradeEncoding("$2$06$" + encoder.encode("senha").substring(7)));
+	}
+
+	@Test
+	void hashVazioOuForaDoFormatoSegueOBCryptPasswordEncoder() {
+		assertFalse(encoder.upgradeEncoding(null));
+		assertFalse(encoder.upgradeEncoding(""));
+		assertThrows(IllegalArgumentException.class, () -> encoder.upgradeEncoding("texto-puro"));
+	}
+}
@@ -0,0 +1,132 @@
+package com.example.demo.config;
+
+import com.example.demo.dto.ProdutoRequestDTO;
+import com.example.demo.models.Usuario;
+import com.example.demo.repository.UsuarioRepository;
+import com.example.demo.service.Modelo_ProdutoService;
+import com.example.demo.service.TokenService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Negociação do formato pelo Accept (JSON, Smile e CBOR, com o mesmo conteúdo) e compressão gzip do Tomcat,
+ * aplicada só às respostas acima de server.compression.min-response-size (2 KB).
+ * Sobe o servidor de verdade: a compressão é feita pelo Tomcat, fora do alcance do MockMvc.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"api.security.rate-limit.enabled=false", "api.security.load-shedding.enabled=false"})
+class FormatosBinariosConfigTest {
+
+	private static final int LIMITE_COMPRESSAO = 2 * 1024;
+
+	@LocalServerPort
+	private int porta;
+
+	@Autowired
+	private Modelo_ProdutoService produtoService;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private TokenService tokenService;
+
+	private final HttpClient cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+	private String token;
+	private Long id;
+
+	@BeforeEach
+	void preparar() {
+		Usuario usuario = usuarioRepository.findByLogin("formatos") instanceof Usuario existente
+				? existente : usuarioRepository.save(new Usuario(null, "formatos", "x"));
+		token = tokenService.gerarToken(usuario);
+		id = produtoService.save(new ProdutoRequestDTO("Formatos", "Produto lido em três formatos", 10.0, 5)).id();
+	}
+
+	@Test
+	void acceptEscolheOFormatoDaResposta() throws Exception {
+		HttpResponse<byte[]> json = obter("/produtos/" + id, "application/json", null);
+		HttpResponse<byte[]> smile = obter("/produtos/" + id, "application/x-jackson-smile", null);
+		HttpResponse<byte[]> cbor = obter("/produtos/" + id, "application/cbor", null);
+
+		assertEquals("application/json", tipo(json));
+		assertEquals("application/x-jackson-smile", tipo(smile));
+		assertEquals("application/cbor", tipo(cbor));
+		assertTrue(smile.headers().allValues(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT));
+
+		// Os três formatos trazem o mesmo produto; os binários são menores que o JSON.
+		JsonNode esperado = ler(new JsonFactory(), json.body());
+		assertEquals("Formatos", esperado.get("nome").asText());
+		assertEquals(esperado, ler(new SmileFactory(), smile.body()));
+		assertEquals(esperado, ler(new CBORFactory(), cbor.body()));
+		assertTrue(smile.body().length < json.body().length);
+		assertTrue(cbor.body().length < json.body().length);
+
+		// Sem Accept (ou com */*), JSON continua sendo o padrão.
+		assertEquals("application/json", tipo(obter("/produtos/" + id, null, null)));
+	}
+
+	@Test
+	void gzipSoAcimaDoTamanhoMinimo() throws Exception {
+		HttpResponse<byte[]> pequena = obter("/produtos/" + id, "application/json", "gzip");
+		assertTrue(pequena.body().length < LIMITE_COMPRESSAO, "Resposta de " + pequena.body().length + " bytes");
+		assertFalse(pequena.headers().firstValue(HttpHeaders.CONTENT_ENCODING).isPresent());
+
+		// Produtos suficientes para a listagem passar do limite.
+		for (int i = 0; i < 30; i++) {
+			produtoService.save(new ProdutoRequestDTO("Formatos " + i, "Descrição longa o bastante para ocupar espaço na listagem", 10.0 + i, 5));
+		}
+		HttpResponse<byte[]> semGzip = obter("/produtos", "application/json", null);
+		HttpResponse<byte[]> comGzip = obter("/produtos", "application/json", "gzip");
+		assertTrue(semGzip.body().length > LIMITE_COMPRESSAO, "Resposta de " + semGzip.body().length + " bytes");
+		assertFalse(semGzip.headers().firstValue(HttpHeaders.CONTENT_ENCODING).isPresent());
+		assertEquals("gzip", comGzip.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null));
+		assertTrue(comGzip.body().length < semGzip.body().length);
+		try (GZIPInputStream descomprimida = new GZIPInputStream(new ByteArrayInputStream(comGzip.body()))) {
+			assertEquals(ler(new JsonFactory(), semGzip.body()), ler(new JsonFactory(), descomprimida.readAllBytes()));
+		}
+	}
+
+	// O HttpClient não descomprime as respostas: o corpo vem como o servidor enviou.
+	private HttpResponse<byte[]> obter(String caminho, String accept, String acceptEncoding) throws Exception {
+		HttpRequest.Builder requisicao = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + caminho))
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+		if (accept != null) {
+			requisicao.header(HttpHeaders.ACCEPT, accept);
+		}
+		if (acceptEncoding != null) {
+			requisicao.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+		}
+		HttpResponse<byte[]> resposta = cliente.send(requisicao.build(), HttpResponse.BodyHandlers.ofByteArray());
+		assertEquals(200, resposta.statusCode());
+		return resposta;
+	}
+
+	private static String tipo(HttpResponse<?> resposta) {
+		return resposta.headers().firstValue(HttpHeaders.CONTENT_TYPE).orElse("").split(";")[0];
+	}
+
+	private static JsonNode ler(JsonFactory formato, byte[] corpo) throws Exception {
+		return new ObjectMapper(formato).readTree(corpo);
+	}
+}
@@ -0,0 +1,90 @@
+package com.example.demo.config;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo da instrumentação no caminho das requisições, para confirmar que pode ficar ligada em produção:
+ * um timer com histograma, o resumo de consultas por requisição (registro + gravação, como no filtro)
+ * e um método anotado com @Timed chamado direto e pelo proxy do TimedAspect (custo fixo por chamada; por isso
+ * TokenService.verificar usa um timer direto, e @Timed fica nos serviços que vão ao banco).
+ * Executado com 4 threads para incluir a contenção entre requisições simultâneas.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class MetricasBenchmark {
+
+	private PrometheusMeterRegistry registro;
+	private Timer timer;
+	private Servico servico;
+	private Servico servicoComTimed;
+
+	// Um método barato, para que o resultado mostre só o custo do aspecto.
+	public static class Servico {
+
+		@Timed(value = "benchmark.servico", histogram = true)
+		public int executar(int valor) {
+			return valor * 31;
+		}
+	}
+
+	@Setup
+	public void preparar() {
+		registro = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+		timer = Timer.builder("benchmark.timer").publishPercentileHistogram().register(registro);
+
+		servico = new Servico();
+		AspectJProxyFactory proxy = new AspectJProxyFactory(servico);
+		proxy.setProxyTargetClass(true);
+		proxy.addAspect(new TimedAspect(registro));
+		servicoComTimed = proxy.getProxy();
+	}
+
+	@Benchmark
+	public void timerComHistograma() {
+		timer.record(1_500_000, TimeUnit.NANOSECONDS);
+	}
+
+	@Benchmark
+	public void consultasPorRequisicao() {
+		DistributionSummary.builder("hibernate.statements.por.requisicao")
+				.tag("method", "GET")
+				.tag("uri", "/produtos/{id}")
+				.publishPercentileHistogram()
+				.register(registro)
+				.record(2);
+	}
+
+	@Benchmark
+	public int semTimed() {
+		return servico.executar(7);
+	}
+
+	@Benchmark
+	public int comTimed() {
+		return servicoComTimed.executar(7);
+	}
+}
@@ -0,0 +1,112 @@
+package com.example.demo.config;
+
+import com.example.demo.dto.ProdutoRequestDTO;
+import com.example.demo.models.Usuario;
+import com.example.demo.repository.UsuarioRepository;
+import com.example.demo.service.Modelo_ProdutoService;
+import com.example.demo.service.ProdutoResponseCache;
+import com.example.demo.service.TokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Cache de respostas pela API: o segundo GET é servido pelo cache, e PUT, PATCH e DELETE invalidam
+ * a resposta do produto e a listagem.
+ */
+@SpringBootTest(properties = {"api.security.rate-limit.enabled=false", "api.security.load-shedding.enabled=false"})
+@AutoConfigureMockMvc
+class ProdutoResponseCacheFilterTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private Modelo_ProdutoService produtoService;
+
+	@Autowired
+	private ProdutoResponseCache cache;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private TokenService tokenService;
+
+	private String token;
+	private Long id;
+
+	@BeforeEach
+	void preparar() {
+		Usuario usuario = usuarioRepository.findByLogin("cache") instanceof Usuario existente
+				? existente : usuarioRepository.save(new Usuario(null, "cache", "x"));
+		token = tokenService.gerarToken(usuario);
+		id = produtoService.save(new ProdutoRequestDTO("Cacheado original", null, 10.0, 5)).id();
+	}
+
+	@Test
+	void segundaLeituraVemDoCache() throws Exception {
+		lerProdutoELista("Cacheado original");
+		long acertos = cache.getAcertos();
+		lerProdutoELista("Cacheado original");
+		assertEquals(acertos + 2, cache.getAcertos());
+	}
+
+	@Test
+	void putInvalidaOProdutoEAListagem() throws Exception {
+		lerProdutoELista("Cacheado original");
+		executar(put("/produtos/" + id).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"nome\":\"Cacheado por PUT\",\"preco\":11.0,\"quantidadeEstoque\":5}"));
+		lerProdutoELista("Cacheado por PUT");
+	}
+
+	@Test
+	void patchInvalidaOProdutoEAListagem() throws Exception {
+		lerProdutoELista("Cacheado original");
+		executar(patch("/produtos/" + id).contentType(MediaType.APPLICATION_JSON).content("{\"nome\":\"Cacheado por PATCH\"}"));
+		lerProdutoELista("Cacheado por PATCH");
+	}
+
+	@Test
+	void deleteInvalidaOProdutoEAListagem() throws Exception {
+		lerProdutoELista("Cacheado original");
+		executar(delete("/produtos/" + id));
+		mockMvc.perform(autenticado(get("/produtos/" + id))).andExpect(status().isNotFound());
+		mockMvc.perform(autenticado(get("/produtos")))
+				.andExpect(status().isOk())
+				.andExpect(content().string(not(containsString("\"id\":" + id + ","))));
+	}
+
+	// Lê o produto e a listagem, que devem trazer o produto com o nome informado.
+	private void lerProdutoELista(String nome) throws Exception {
+		String esperado = "\"id\":" + id + ",\"nome\":\"" + nome + "\"";
+		mockMvc.perform(autenticado(get("/produtos/" + id)))
+				.andExpect(status().isOk()).andExpect(content().string(containsString(esperado)));
+		mockMvc.perform(autenticado(get("/produtos")))
+				.andExpect(status().isOk()).andExpect(content().string(containsString(esperado)));
+	}
+
+	private void executar(MockHttpServletRequestBuilder requisicao) throws Exception {
+		mockMvc.perform(autenticado(requisicao)).andExpect(status().is2xxSuccessful());
+	}
+
+	private MockHttpServletRequestBuilder autenticado(MockHttpServletRequestBuilder requisicao) {
+		return requisicao.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+	}
+}
@@ -0,0 +1,204 @@
+package com.example.demo.config;
+
+import com.example.demo.dto.ProdutoFiltroDTO;
+import com.example.demo.dto.ProdutoRequestDTO;
+import com.example.demo.dto.ProdutoResponseDTO;
+import com.example.demo.repository.UsuarioRepository;
+import com.example.demo.service.IngestaoProdutosService;
+import com.example.demo.service.Modelo_ProdutoService;
+import com.example.demo.service.exceptions.ResourceNotFoundException;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Roteamento entre primário e réplica com dois H2 em memória: cada banco tem produtos diferentes,
+ * então o resultado de cada leitura mostra de onde ela veio.
+ * A réplica usa IFEXISTS: depois de um SHUTDOWN ela fica fora do ar até ser recriada pelo teste.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"spring.datasource.url=jdbc:h2:mem:replicas-primario;DB_CLOSE_DELAY=-1",
+		"datasource.replicas.urls=" + ReplicasDataSourceTest.REPLICA + ";IFEXISTS=TRUE",
+		"datasource.replicas.maximum-pool-size=2",
+		"datasource.replicas.connection-timeout-ms=250",
+		"datasource.replicas.verificacao-ms=100",
+		"datasource.replicas.atraso-maximo-ms=500",
+		"produtos.search.index.enabled=false",
+		"produtos.ingestao.enabled=true",
+		// Sem o cache de segundo nível, para que cada leitura chegue ao banco e mostre para onde foi roteada.
+		"spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+		"spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+class ReplicasDataSourceTest {
+
+	static final String REPLICA = "jdbc:h2:mem:replicas-replica";
+
+	@Autowired
+	private Modelo_ProdutoService produtoService;
+
+	@Autowired
+	private IngestaoProdutosService ingestao;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private HikariDataSource dataSourcePrimario;
+
+	@Autowired
+	private ReplicasDataSource dataSourceReplicas;
+
+	@Autowired
+	private DescarteDeCarga descarte;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private JdbcTemplate primario;
+
+	static {
+		// A réplica precisa existir antes de o contexto subir, já que o pool só se conecta a bancos existentes.
+		criarReplica();
+	}
+
+	@BeforeEach
+	void preparar() {
+		primario = new JdbcTemplate(dataSourcePrimario);
+		primario.update("delete from products");
+		comReplica(replica -> {
+			if (replica.queryForObject("select count(*) from information_schema.tables where table_name = 'PRODUCTS'", Integer.class) == 0) {
+				// Mesmas tabelas do primário (criadas pelo Hibernate), sem os dados.
+				primario.queryForList("script nodata", String.class).forEach(replica::execute);
+			}
+			replica.update("delete from products");
+			replica.update("delete from usuarios");
+			replica.update("insert into products (id, nome, preco, creation_date, version) values (1000, 'Produto da réplica', 10, current_timestamp, 0)");
+			replica.update("insert into usuarios (id, login, senha) values (1000, 'leitor-da-replica', 'x')");
+		});
+	}
+
+	@AfterEach
+	void limparUsuario() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void leiturasVaoParaAReplicaEEscritasParaOPrimario() {
+		produtoService.save(new ProdutoRequestDTO("Produto do primário", null, 20.0, 1));
+
+		assertEquals(1, primario.queryForObject("select count(*) from products where nome = 'Produto do primário'", Integer.class));
+		assertEquals(List.of("Produto da réplica"), nomes(produtoService.findAll(null, ProdutoFiltroDTO.NENHUM, null)));
+		// A busca do usuário autenticado (SecurityFilter) também é uma leitura somente leitura.
+		assertNotNull(usuarioRepository.findByLogin("leitor-da-replica"));
+	}
+
+	@Test
+	void usuarioLeAPropriaEscritaDuranteAJanela() throws InterruptedException {
+		autenticar("escritor");
+		Long id = produtoService.save(new ProdutoRequestDTO("Recém-criado", null, 20.0, 1)).id();
+
+		// Quem escreveu lê do primário; os demais usuários, da réplica (que não tem o produto).
+		assertEquals("Recém-criado", produtoService.findById(id).nome());
+		autenticar("outro");
+		assertThrows(ResourceNotFoundException.class, () -> produtoService.findById(id));
+
+		// Terminada a janela, o próprio escritor volta a ler da réplica.
+		autenticar("escritor");
+		Thread.sleep(600);
+		assertThrows(ResourceNotFoundException.class, () -> produtoService.findById(id));
+	}
+
+	@Test
+	void criacaoPelaFilaDeIngestaoAbreAJanelaDeQuemCriou() {
+		// A gravação é feita pela thread de escrita da fila, sem o usuário no SecurityContext.
+		autenticar("alimentador");
+		Long id = ingestao.criar(new ProdutoRequestDTO("Criado pela fila", null, 20.0, 1)).id();
+
+		assertEquals("Criado pela fila", produtoService.findById(id).nome());
+		autenticar("outro");
+		assertThrows(ResourceNotFoundException.class, () -> produtoService.findById(id));
+	}
+
+	@Test
+	void credenciaisDiferentesDasDoPoolNaoSaoSuportadas() {
+		assertThrows(SQLFeatureNotSupportedException.class, () -> dataSourceReplicas.getConnection("sa", ""));
+	}
+
+	@Test
+	void replicaForaDoArSaiDoRodizioEVoltaQuandoResponde() {
+		produtoService.save(new ProdutoRequestDTO("Produto do primário", null, 20.0, 1));
+		comReplica(replica -> replica.execute("shutdown"));
+		aguardar(() -> dataSourceReplicas.getReplicasDisponiveis() == 0);
+
+		assertEquals(List.of("Produto do primário"), nomes(produtoService.findAll(null, ProdutoFiltroDTO.NENHUM, null)));
+		assertTrue(dataSourceReplicas.getLeiturasSemReplicaNoPrimario() > 0);
+
+		criarReplica();
+		preparar();
+		aguardar(() -> dataSourceReplicas.getReplicasDisponiveis() == 1);
+		assertEquals(List.of("Produto da réplica"), nomes(produtoService.findAll(null, ProdutoFiltroDTO.NENHUM, null)));
+	}
+
+	@Test
+	void descarteDeCargaMedeOsPoolsDasReplicas() {
+		assertEquals(List.of(dataSourcePrimario.getPoolName(), "replica-0"), descarte.getNomesDosPools());
+
+		// A espera por conexão da réplica vai para o mesmo timer que o DescarteDeCarga lê no primário.
+		assertEquals(List.of("Produto da réplica"), nomes(produtoService.findAll(null, ProdutoFiltroDTO.NENHUM, null)));
+		Timer esperaConexao = meterRegistry.find("hikaricp.connections.acquire").tag("pool", "replica-0").timer();
+		assertNotNull(esperaConexao);
+		assertTrue(esperaConexao.count() > 0);
+	}
+
+	private static void autenticar(String login) {
+		SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(login, null, List.of()));
+	}
+
+	private static List<String> nomes(List<ProdutoResponseDTO> produtos) {
+		return produtos.stream().map(ProdutoResponseDTO::nome).toList();
+	}
+
+	// Sem IFEXISTS: cria o banco da réplica, que fica aberto até um SHUTDOWN.
+	private static void criarReplica() {
+		comReplica(REPLICA + ";DB_CLOSE_DELAY=-1", replica -> replica.execute("select 1"));
+	}
+
+	private static void comReplica(java.util.function.Consumer<JdbcTemplate> acao) {
+		comReplica(REPLICA + ";IFEXISTS=TRUE", acao);
+	}
+
+	private static void comReplica(String url, java.util.function.Consumer<JdbcTemplate> acao) {
+		SingleConnectionDataSource conexao = new SingleConnectionDataSource(url, "sa", "", true);
+		try {
+			acao.accept(new JdbcTemplate(conexao));
+		} finally {
+			conexao.destroy();
+		}
+	}
+
+	private static void aguardar(BooleanSupplier condicao) {
+		long limite = System.currentTimeMillis() + 5_000;
+		while (!condicao.getAsBoolean()) {
+			assertTrue(System.currentTimeMillis() < limite, "Condição não atingida em 5 s");
+			Thread.onSpinWait();
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package com.example.demo.config;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.example.demo.models.Usuario;
+import com.example.demo.repository.UsuarioRepository;
+import com.example.demo.service.TokenService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Respostas da API para requisições sem autenticação válida: sem token, com token adulterado ou expirado, 401.
+ */
+@SpringBootTest(properties = {"api.security.rate-limit.enabled=false", "api.security.load-shedding.enabled=false"})
+@AutoConfigureMockMvc
+class SecurityConfigurationsTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private TokenService tokenService;
+
+	@Value("${api.security.token.secret}")
+	private String segredo;
+
+	@Test
+	void tokenValidoAcessaAAPI() throws Exception {
+		Usuario usuario = usuarioRepository.findByLogin("seguranca") instanceof Usuario existente
+				? existente : usuarioRepository.save(new Usuario(null, "seguranca", "x"));
+		mockMvc.perform(get("/produtos").header(HttpHeaders.AUTHORIZATION, "Bearer " + tokenService.gerarToken(usuario)))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void semTokenRecebe401() throws Exception {
+		mockMvc.perform(get("/produtos")).andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	void tokenAdulteradoRecebe401() throws Exception {
+		String token = tokenService.gerarToken(new Usuario(1L, "seguranca", "x"));
+		mockMvc.perform(get("/produtos").header(HttpHeaders.AUTHORIZATION, "Bearer " + token + "x"))
+				.andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	void tokenExpiradoRecebe401() throws Exception {
+		String token = JWT.create().withIssuer("API Produtos").withSubject("seguranca")
+				.withExpiresAt(Instant.now().minusSeconds(60)).sign(Algorithm.HMAC256(segredo));
+		mockMvc.perform(get("/produtos").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+				.andExpect(status().isUnauthorized());
+	}
+}
@@ -0,0 +1,197 @@
+package com.example.demo.config;
+
+import com.example.demo.models.Usuario;
+import com.example.demo.repository.UsuarioRepository;
+import com.example.demo.service.TokenService;
+import com.example.demo.service.UsuarioPrincipalCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Custo do SecurityFilter por requisição: extração do token do cabeçalho (recuperarToken),
+ * validação e montagem da autenticação, com o usuário vindo do cache ou das claims do token.
+ * O parâmetro 'metricas' compara o filtro com o timer desligado e publicando no registro Prometheus.
+ * As requisições recusadas (limite do usuário excedido e descarte de carga) devem custar poucos microssegundos:
+ * elas não consultam o cache de usuários nem seguem pela cadeia.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecurityFilterBenchmark {
+
+	private static final FilterChain CADEIA_VAZIA = (request, response) -> { };
+
+	@Param({"desligadas", "prometheus"})
+	private String metricas;
+
+	private SecurityFilter filtroComCache;
+	private SecurityFilter filtroPorClaims;
+	private SecurityFilter filtroLimiteEsgotado;
+	private SecurityFilter filtroDescartando;
+	private DescarteDeCarga semDescarte;
+	private DescarteDeCarga descartandoTudo;
+	private MockHttpServletRequest requisicaoSemToken;
+	private MockHttpServletRequest requisicaoComToken;
+	private MockHttpServletResponse resposta;
+	private HttpServletResponse respostaSemCorpo;
+
+	@Setup
+	public void preparar() {
+		TokenService tokenService = new TokenService();
+		ReflectionTestUtils.setField(tokenService, "secret", "segredo-usado-apenas-no-benchmark");
+		ReflectionTestUtils.setField(tokenService, "maxTokensEmCache", 10_000);
+		ReflectionTestUtils.setField(tokenService, "meterRegistry", new CompositeMeterRegistry());
+		ReflectionTestUtils.invokeMethod(tokenService, "inicializar");
+
+		Usuario usuario = new Usuario(1L, "benchmark", "senha");
+		UsuarioRepository repository = mock(UsuarioRepository.class);
+		when(repository.findByLogin("benchmark")).thenReturn(usuario);
+
+		// Um registro composto sem registros filhos não armazena nada: é o custo das métricas desligadas.
+		MeterRegistry registro = "prometheus".equals(metricas)
+				? new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)
+				: new CompositeMeterRegistry();
+		// O limite fica ligado nos demais cenários, mas alto o bastante para nunca recusar: mede o custo do balde.
+		LimiteDeRequisicoes semLimite = new LimiteDeRequisicoes(true, 1e9, 1_000_000, List.of(), 10_000);
+		LimiteDeRequisicoes limiteEsgotado = new LimiteDeRequisicoes(true, 0.001, 1, List.of(), 10_000);
+		limiteEsgotado.consumir("benchmark", "GET", "/produtos");
+		semDescarte = new DescarteDeCarga(List.of(), null, false, 100, 100, 0.1, 0.9);
+		descartandoTudo = new DescarteDeCarga(List.of(), null, false, 100, 100, 1.0, 1.0);
+		descartandoTudo.ajustar(true);
+
+		filtroComCache = criarFiltro(tokenService, repository, registro, false, semLimite, semDescarte);
+		filtroPorClaims = criarFiltro(tokenService, repository, registro, true, semLimite, semDescarte);
+		filtroLimiteEsgotado = criarFiltro(tokenService, repository, registro, false, limiteEsgotado, semDescarte);
+		filtroDescartando = criarFiltro(tokenService, repository, registro, false, semLimite, descartandoTudo);
+
+		requisicaoSemToken = new MockHttpServletRequest("GET", "/produtos");
+		requisicaoComToken = new MockHttpServletRequest("GET", "/produtos");
+		requisicaoComToken.addHeader("Authorization", "Bearer " + tokenService.gerarToken(usuario));
+		resposta = new MockHttpServletResponse();
+		respostaSemCorpo = new RespostaSemCorpo(resposta);
+	}
+
+	@Benchmark
+	public Authentication semToken() throws Exception {
+		return filtrar(filtroComCache, requisicaoSemToken);
+	}
+
+	@Benchmark
+	public Authentication comTokenUsuarioEmCache() throws Exception {
+		return filtrar(filtroComCache, requisicaoComToken);
+	}
+
+	@Benchmark
+	public Authentication comTokenUsuarioPorClaims() throws Exception {
+		return filtrar(filtroPorClaims, requisicaoComToken);
+	}
+
+	@Benchmark
+	public Authentication recusadaPeloLimiteDoUsuario() throws Exception {
+		return filtrar(filtroLimiteEsgotado, requisicaoComToken);
+	}
+
+	@Benchmark
+	public Authentication descartadaPorSobrecarga() throws Exception {
+		return filtrar(filtroDescartando, requisicaoComToken);
+	}
+
+	@TearDown
+	public void encerrar() {
+		semDescarte.destroy();
+		descartandoTudo.destroy();
+	}
+
+	private Authentication filtrar(SecurityFilter filtro, MockHttpServletRequest requisicao) throws Exception {
+		resposta.reset();
+		filtro.doFilterInternal(requisicao, respostaSemCorpo, CADEIA_VAZIA);
+		Authentication autenticacao = SecurityContextHolder.getContext().getAuthentication();
+		SecurityContextHolder.clearContext();
+		return autenticacao;
+	}
+
+	private static SecurityFilter criarFiltro(TokenService tokenService, UsuarioRepository repository, MeterRegistry registro, boolean porClaims,
+											  LimiteDeRequisicoes limite, DescarteDeCarga descarte) {
+		UsuarioPrincipalCache cache = new UsuarioPrincipalCache();
+		ReflectionTestUtils.setField(cache, "ttlSegundos", 60L);
+		ReflectionTestUtils.setField(cache, "maxUsuarios", 10_000);
+
+		SecurityFilter filtro = new SecurityFilter();
+		ReflectionTestUtils.setField(filtro, "tokenService", tokenService);
+		ReflectionTestUtils.setField(filtro, "usuarioRepository", repository);
+		ReflectionTestUtils.setField(filtro, "principalCache", cache);
+		ReflectionTestUtils.setField(filtro, "autenticacaoPorClaims", porClaims);
+		ReflectionTestUtils.setField(filtro, "limiteDeRequisicoes", limite);
+		ReflectionTestUtils.setField(filtro, "descarteDeCarga", descarte);
+		ReflectionTestUtils.setField(filtro, "meterRegistry", registro);
+		filtro.registrarMetricas();
+		return filtro;
+	}
+
+	// O MockHttpServletResponse leva alguns microssegundos só para guardar o corpo das recusas (o Tomcat apenas
+	// o copia para o buffer da resposta); descartando o corpo, o benchmark mede o filtro e não o mock.
+	private static final class RespostaSemCorpo extends HttpServletResponseWrapper {
+
+		private final ServletOutputStream descarte = new ServletOutputStream() {
+
+			@Override
+			public boolean isReady() {
+				return true;
+			}
+
+			@Override
+			public void setWriteListener(WriteListener listener) {
+			}
+
+			@Override
+			public void write(int b) {
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+			}
+		};
+
+		RespostaSemCorpo(HttpServletResponse response) {
+			super(response);
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() {
+			return descarte;
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package com.example.demo.config;
+
+import com.example.demo.models.Usuario;
+import com.example.demo.repository.UsuarioRepository;
+import com.example.demo.service.TokenService;
+import com.example.demo.service.UsuarioPrincipalCache;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Limite de requisições por usuário e descarte de carga no SecurityFilter, sem subir o contexto:
+ * o filtro é montado como no SecurityFilterBenchmark e cada requisição mostra se chegou ao restante da cadeia.
+ */
+class SecurityFilterProtecaoTest {
+
+	private TokenService tokenService;
+	private UsuarioRepository repository;
+	private DescarteDeCarga descarte;
+
+	@BeforeEach
+	void preparar() {
+		tokenService = new TokenService();
+		ReflectionTestUtils.setField(tokenService, "secret", "segredo-usado-apenas-no-teste");
+		ReflectionTestUtils.setField(tokenService, "maxTokensEmCache", 100);
+		ReflectionTestUtils.setField(tokenService, "meterRegistry", new CompositeMeterRegistry());
+		ReflectionTestUtils.invokeMethod(tokenService, "inicializar");
+
+		repository = mock(UsuarioRepository.class);
+		when(repository.findByLogin(anyString())).thenAnswer(chamada -> new Usuario(1L, chamada.getArgument(0), "senha"));
+		// Sem pools e com medições a cada hora: a fração descartada só muda pelo teste.
+		descarte = new DescarteDeCarga(List.of(), null, true, 100, 3_600_000, 1.0, 1.0);
+	}
+
+	@AfterEach
+	void encerrar() {
+		descarte.destroy();
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void acimaDaRajadaOUsuarioRecebe429SemConsultarOBanco() throws Exception {
+		SecurityFilter filtro = filtro(new LimiteDeRequisicoes(true, 1, 5, List.of(), 1_000));
+		for (int i = 0; i < 5; i++) {
+			assertEquals(200, executar(filtro, "GET", "/produtos", "abusivo").getStatus());
+		}
+
+		MockHttpServletResponse recusada = executar(filtro, "GET", "/produtos", "abusivo");
+		assertEquals(429, recusada.getStatus());
+		assertEquals("1", recusada.getHeader("Retry-After"));
+		assertTrue(recusada.getContentAsString().contains("\"status\":429"));
+		// O usuário só é carregado (e cacheado) na primeira requisição aceita.
+		verify(repository, atMost(1)).findByLogin("abusivo");
+
+		// Os outros usuários têm os seus próprios baldes.
+		assertEquals(200, executar(filtro, "GET", "/produtos", "comportado").getStatus());
+	}
+
+	@Test
+	void oBaldeSeReabasteceNoRitmoConfigurado() throws Exception {
+		SecurityFilter filtro = filtro(new LimiteDeRequisicoes(true, 100, 1, List.of(), 1_000));
+		assertEquals(200, executar(filtro, "GET", "/produtos", "usuario").getStatus());
+		assertEquals(429, executar(filtro, "GET", "/produtos", "usuario").getStatus());
+		Thread.sleep(20); // 100 por segundo: uma nova requisição a cada 10 ms.
+		assertEquals(200, executar(filtro, "GET", "/produtos", "usuario").getStatus());
+	}
+
+	@Test
+	void rotaComLimiteProprioNaoConsomeOLimiteDasDemais() throws Exception {
+		SecurityFilter filtro = filtro(new LimiteDeRequisicoes(true, 1, 2, List.of("POST /produtos/batch=0.1/1", "/produtos/export=0.1/1"), 1_000));
+		assertEquals(200, executar(filtro, "POST", "/produtos/batch", "usuario").getStatus());
+		MockHttpServletResponse lote = executar(filtro, "POST", "/produtos/batch", "usuario");
+		assertEquals(429, lote.getStatus());
+		assertEquals("10", lote.getHeader("Retry-After"));
+
+		// Mesmo caminho com outro método, e outra rota: baldes diferentes.
+		assertEquals(200, executar(filtro, "GET", "/produtos/batch", "usuario").getStatus());
+		assertEquals(200, executar(filtro, "GET", "/produtos/export", "usuario").getStatus());
+		assertEquals(429, executar(filtro, "GET", "/produtos/export", "usuario").getStatus());
+	}
+
+	@Test
+	void comOPoolSaturadoAsRequisicoesSaoDescartadasMenosOHealthCheck() throws Exception {
+		SecurityFilter filtro = filtro(new LimiteDeRequisicoes(false, 1, 1, List.of(), 1_000));
+		descarte.ajustar(true); // Fração descartada: 100%.
+
+		MockHttpServletResponse descartada = executar(filtro, "GET", "/produtos", "usuario");
+		assertEquals(503, descartada.getStatus());
+		assertEquals("1", descartada.getHeader("Retry-After"));
+		assertEquals(200, executar(filtro, "GET", "/actuator/health", null).getStatus());
+
+		// Recuperado: a fração desce meio passo por medição.
+		descarte.ajustar(false);
+		descarte.ajustar(false);
+		assertEquals(0, descarte.getFracao());
+		assertEquals(200, executar(filtro, "GET", "/produtos", "usuario").getStatus());
+		assertEquals(1, descarte.getDescartadas());
+	}
+
+	private MockHttpServletResponse executar(SecurityFilter filtro, String metodo, String caminho, String login) throws Exception {
+		MockHttpServletRequest requisicao = new MockHttpServletRequest(metodo, caminho);
+		if (login != null) {
+			requisicao.addHeader("Authorization", "Bearer " + tokenService.gerarToken(new Usuario(1L, login, "senha")));
+		}
+		MockHttpServletResponse resposta = new MockHttpServletResponse();
+		MockFilterChain cadeia = new MockFilterChain();
+		filtro.doFilterInternal(requisicao, resposta, cadeia);
+		// Recusada pelo filtro: a requisição não pode ter seguido para o restante da cadeia.
+		assertEquals(resposta.getStatus() == 200, cadeia.getRequest() != null);
+		return resposta;
+	}
+
+	private SecurityFilter filtro(LimiteDeRequisicoes limite) {
+		UsuarioPrincipalCache cache = new UsuarioPrincipalCache();
+		ReflectionTestUtils.setField(cache, "ttlSegundos", 60L);
+		ReflectionTestUtils.setField(cache, "maxUsuarios", 100);
+
+		SecurityFilter filtro = new SecurityFilter();
+		ReflectionTestUtils.setField(filtro, "tokenService", tokenService);
+		ReflectionTestUtils.setField(filtro, "usuarioRepository", repository);
+		ReflectionTestUtils.setField(filtro, "principalCache", cache);
+		ReflectionTestUtils.setField(filtro, "limiteDeRequisicoes", limite);
+		ReflectionTestUtils.setField(filtro, "descarteDeCarga", descarte);
+		ReflectionTestUtils.setField(filtro, "meterRegistry", new CompositeMeterRegistry());
+		filtro.registrarMetricas();
+		return filtro;
+	}
+}
@@ -0,0 +1,147 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.ProdutoRequestDTO;
+import com.example.demo.models.Usuario;
+import com.example.demo.repository.UsuarioRepository;
+import com.example.demo.service.Modelo_ProdutoService;
+import com.example.demo.service.ProdutoSingleFlight;
+import com.example.demo.service.TokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Requisições condicionais nos endpoints de produto: If-None-Match responde 304 enquanto a versão não muda,
+ * If-Match desatualizado responde 412 sem alterar o produto, e toda escrita devolve o ETag da nova versão.
+ */
+// Sem o ProdutoResponseCache, que responderia às leituras repetidas antes do controller.
+@SpringBootTest(properties = {"api.security.rate-limit.enabled=false", "api.security.load-shedding.enabled=false",
+		"produtos.cache.enabled=false"})
+@AutoConfigureMockMvc
+class ProdutoControllerEtagTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private Modelo_ProdutoService produtoService;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private TokenService tokenService;
+
+	@Autowired
+	private ProdutoSingleFlight singleFlight;
+
+	private String token;
+	private Long id;
+
+	@BeforeEach
+	void preparar() {
+		Usuario usuario = usuarioRepository.findByLogin("etag") instanceof Usuario existente
+				? existente : usuarioRepository.save(new Usuario(null, "etag", "x"));
+		token = tokenService.gerarToken(usuario);
+		id = produtoService.save(new ProdutoRequestDTO("Versionado", null, 10.0, 5)).id();
+	}
+
+	@Test
+	void ifNoneMatchComAVersaoAtualRecebe304() throws Exception {
+		String etag = etag(get("/produtos/" + id), 200);
+		assertEquals("\"" + id + "-0\"", etag);
+		mockMvc.perform(autenticado(get("/produtos/" + id)).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, etag))
+				.andExpect(content().string(""));
+
+		// A listagem tem um ETag fraco, que também vale no If-None-Match.
+		String etagLista = etag(get("/produtos"), 200);
+		mockMvc.perform(autenticado(get("/produtos")).header(HttpHeaders.IF_NONE_MATCH, etagLista))
+				.andExpect(status().isNotModified());
+
+		// Depois de uma alteração, o ETag antigo não vale mais: o produto vem completo.
+		etag(patch("/produtos/" + id).contentType(MediaType.APPLICATION_JSON).content("{\"preco\":11.0}"), 204);
+		mockMvc.perform(autenticado(get("/produtos/" + id)).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"" + id + "-1\""));
+	}
+
+	@Test
+	void ifMatchDesatualizadoRecebe412() throws Exception {
+		String lido = etag(get("/produtos/" + id), 200);
+		etag(patch("/produtos/" + id).contentType(MediaType.APPLICATION_JSON).content("{\"nome\":\"Alterado\"}"), 204);
+
+		mockMvc.perform(autenticado(put("/produtos/" + id)).header(HttpHeaders.IF_MATCH, lido)
+						.contentType(MediaType.APPLICATION_JSON).content("{\"nome\":\"Por PUT\",\"preco\":12.0,\"quantidadeEstoque\":5}"))
+				.andExpect(status().isPreconditionFailed());
+		mockMvc.perform(autenticado(patch("/produtos/" + id)).header(HttpHeaders.IF_MATCH, lido)
+						.contentType(MediaType.APPLICATION_JSON).content("{\"nome\":\"Por PATCH\"}"))
+				.andExpect(status().isPreconditionFailed());
+		mockMvc.perform(autenticado(delete("/produtos/" + id)).header(HttpHeaders.IF_MATCH, lido))
+				.andExpect(status().isPreconditionFailed());
+
+		// Nenhuma das escritas recusadas foi aplicada.
+		assertEquals("Alterado", produtoService.findById(id).nome());
+		assertEquals(1L, produtoService.findById(id).versao());
+	}
+
+	@Test
+	void patchSemIfMatchDevolveONovoETag() throws Exception {
+		String etag = etag(patch("/produtos/" + id).contentType(MediaType.APPLICATION_JSON).content("{\"preco\":11.0}"), 204);
+		assertEquals("\"" + id + "-1\"", etag);
+		assertEquals(etag, etag(get("/produtos/" + id), 200));
+
+		// O ETag devolvido serve como If-Match da próxima escrita.
+		mockMvc.perform(autenticado(patch("/produtos/" + id)).header(HttpHeaders.IF_MATCH, etag)
+						.contentType(MediaType.APPLICATION_JSON).content("{\"preco\":12.0}"))
+				.andExpect(status().isNoContent())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"" + id + "-2\""));
+	}
+
+	@Test
+	void listagemComETagAtualRecebe304SemCarregarOsProdutos() throws Exception {
+		String etagLista = etag(get("/produtos"), 200);
+		long consultas = singleFlight.getConsultasExecutadas();
+
+		// O ETag é conferido por uma projeção de id e versão: a listagem completa (entidades e DTOs) não é lida.
+		mockMvc.perform(autenticado(get("/produtos")).header(HttpHeaders.IF_NONE_MATCH, etagLista))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, etagLista));
+		assertEquals(consultas, singleFlight.getConsultasExecutadas());
+
+		// Com um produto alterado, a listagem volta completa e com o ETag da projeção.
+		etag(patch("/produtos/" + id).contentType(MediaType.APPLICATION_JSON).content("{\"preco\":11.0}"), 204);
+		String novoEtag = mockMvc.perform(autenticado(get("/produtos")).header(HttpHeaders.IF_NONE_MATCH, etagLista))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		mockMvc.perform(autenticado(get("/produtos")).header(HttpHeaders.IF_NONE_MATCH, novoEtag))
+				.andExpect(status().isNotModified());
+	}
+
+	// Executa a requisição, confere o status e devolve o ETag da resposta.
+	private String etag(MockHttpServletRequestBuilder requisicao, int status) throws Exception {
+		return mockMvc.perform(autenticado(requisicao))
+				.andExpect(status().is(status))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+	}
+
+	private MockHttpServletRequestBuilder autenticado(MockHttpServletRequestBuilder requisicao) {
+		return requisicao.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+	}
+}
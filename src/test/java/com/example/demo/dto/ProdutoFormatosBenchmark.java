@@ -0,0 +1,92 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Tamanho e custo de codificar/decodificar a listagem de produtos em JSON, Smile e CBOR (ver FormatosBinariosConfig),
+ * com e sem o gzip aplicado pelo Tomcat. Os tamanhos de cada combinação são impressos no início de cada execução.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProdutoFormatosBenchmark {
+
+	private static final TypeReference<List<ProdutoResponseDTO>> LISTA = new TypeReference<>() {
+	};
+
+	@Param({"100", "10000", "100000"})
+	private int tamanho;
+
+	@Param({"json", "smile", "cbor"})
+	private String formato;
+
+	private List<ProdutoResponseDTO> dtos;
+	private ObjectMapper objectMapper;
+	private byte[] codificado;
+
+	@Setup
+	public void preparar() throws Exception {
+		dtos = new ArrayList<>(tamanho);
+		LocalDateTime agora = LocalDateTime.now();
+		for (int i = 0; i < tamanho; i++) {
+			dtos.add(new ProdutoResponseDTO((long) i, "Produto " + i, "Descrição do produto " + i, 10.0 + i, i % 100, agora.minusMinutes(i), 0L));
+		}
+		// Mesma configuração base dos ObjectMappers criados pelo Spring Boot para cada formato.
+		objectMapper = Jackson2ObjectMapperBuilder.json().factory(fabrica(formato)).build();
+		codificado = serializar();
+		System.out.printf("%n%s com %d produtos: %d bytes, %d bytes com gzip%n", formato, tamanho, codificado.length, serializarComGzip().length);
+	}
+
+	@Benchmark
+	public byte[] serializar() throws Exception {
+		return objectMapper.writeValueAsBytes(dtos);
+	}
+
+	@Benchmark
+	public List<ProdutoResponseDTO> desserializar() throws Exception {
+		return objectMapper.readValue(codificado, LISTA);
+	}
+
+	@Benchmark
+	public byte[] serializarComGzip() throws Exception {
+		ByteArrayOutputStream saida = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(saida)) {
+			objectMapper.writeValue(gzip, dtos);
+		}
+		return saida.toByteArray();
+	}
+
+	private static JsonFactory fabrica(String formato) {
+		return switch (formato) {
+			case "smile" -> new SmileFactory();
+			case "cbor" -> new CBORFactory();
+			default -> new JsonFactory();
+		};
+	}
+}
@@ -0,0 +1,71 @@
+package com.example.demo.dto;
+
+import com.example.demo.models.Modelo_Produto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Custo de converter entidades em ProdutoResponseDTO (como em Modelo_ProdutoService.findAll)
+ * e de serializar a lista em JSON, para listas de tamanhos variados.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProdutoResponseDTOBenchmark {
+
+	@Param({"10", "100", "1000", "10000"})
+	private int tamanho;
+
+	private List<Modelo_Produto> produtos;
+	private List<ProdutoResponseDTO> dtos;
+	private ObjectMapper objectMapper;
+
+	@Setup
+	public void preparar() {
+		produtos = new ArrayList<>(tamanho);
+		LocalDateTime agora = LocalDateTime.now();
+		for (int i = 0; i < tamanho; i++) {
+			produtos.add(new Modelo_Produto((long) i, "Produto " + i, "Descrição do produto " + i, 10.0 + i, i % 100, agora, 0L));
+		}
+		dtos = mapear();
+		// Mesma configuração base do ObjectMapper criado pelo Spring Boot.
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+	}
+
+	@Benchmark
+	public List<ProdutoResponseDTO> mapear() {
+		return produtos.stream()
+				.map(ProdutoResponseDTO::new)
+				.collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public byte[] serializar() throws Exception {
+		return objectMapper.writeValueAsBytes(dtos);
+	}
+
+	@Benchmark
+	public byte[] mapearESerializar() throws Exception {
+		return objectMapper.writeValueAsBytes(mapear());
+	}
+}
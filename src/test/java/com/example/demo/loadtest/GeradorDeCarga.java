@@ -0,0 +1,156 @@
+package com.example.demo.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Gerador de carga em modelo aberto: dispara requisições a uma taxa fixa, com no máximo 'clientes' em andamento.
+ * A latência de cada requisição é medida a partir do instante planejado para o envio; se o servidor (ou o limite
+ * de clientes) atrasar o envio, esse atraso entra na medida, como aconteceria com usuários reais.
+ */
+final class GeradorDeCarga {
+
+	/**
+	 * Uma requisição a ser enviada.
+	 * @param endpoint Nome do endpoint no relatório.
+	 * @param requisicao A requisição HTTP.
+	 * @param aoConcluir Callback opcional com a resposta (ex: guardar o cursor da próxima página).
+	 */
+	record Requisicao(String endpoint, HttpRequest requisicao, Consumer<HttpResponse<String>> aoConcluir) {
+
+		Requisicao(String endpoint, HttpRequest requisicao) {
+			this(endpoint, requisicao, null);
+		}
+	}
+
+	/**
+	 * Estatísticas de um endpoint no período medido.
+	 */
+	record Estatisticas(String endpoint, long total, long erros, double vazao, double p50, double p95, double p99, double max) {
+
+		double taxaErros() {
+			return total == 0 ? 0 : (double) erros / total;
+		}
+	}
+
+	private final HttpClient cliente;
+	private final Map<String, Amostras> amostras = new ConcurrentHashMap<>();
+
+	GeradorDeCarga(HttpClient cliente) {
+		this.cliente = cliente;
+	}
+
+	/**
+	 * Executa a carga e retorna as estatísticas por endpoint (apenas do período após o aquecimento).
+	 * @param proxima Fornece a próxima requisição segundo a mistura de operações.
+	 * @param taxaPorSegundo Requisições por segundo.
+	 * @param clientes Máximo de requisições simultâneas.
+	 * @param aquecimento Período inicial descartado das estatísticas.
+	 * @param duracao Período medido.
+	 */
+	Map<String, Estatisticas> executar(Supplier<Requisicao> proxima, double taxaPorSegundo, int clientes,
+									   Duration aquecimento, Duration duracao) throws InterruptedException {
+		Semaphore emAndamento = new Semaphore(clientes);
+		long intervalo = (long) (TimeUnit.SECONDS.toNanos(1) / taxaPorSegundo);
+		long inicio = System.nanoTime();
+		long inicioMedicao = inicio + aquecimento.toNanos();
+		long fim = inicioMedicao + duracao.toNanos();
+
+		for (long planejado = inicio; planejado < fim; planejado += intervalo) {
+			long espera = planejado - System.nanoTime();
+			if (espera > 0) {
+				LockSupport.parkNanos(espera);
+			}
+			emAndamento.acquire();
+			Requisicao requisicao = proxima.get();
+			boolean medida = planejado >= inicioMedicao;
+			long instantePlanejado = planejado;
+			cliente.sendAsync(requisicao.requisicao(), HttpResponse.BodyHandlers.ofString())
+					.whenComplete((resposta, erro) -> {
+						long latencia = System.nanoTime() - instantePlanejado;
+						emAndamento.release();
+						boolean falhou = erro != null || resposta.statusCode() >= 400;
+						if (medida) {
+							amostras.computeIfAbsent(requisicao.endpoint(), chave -> new Amostras()).registrar(latencia, falhou);
+						}
+						if (erro == null && requisicao.aoConcluir() != null) {
+							requisicao.aoConcluir().accept(resposta);
+						}
+					});
+		}
+		// Aguarda as requisições ainda em andamento.
+		emAndamento.tryAcquire(clientes, 60, TimeUnit.SECONDS);
+
+		double segundos = duracao.toNanos() / 1e9;
+		Map<String, Estatisticas> resultado = new TreeMap<>();
+		amostras.forEach((endpoint, dados) -> resultado.put(endpoint, dados.estatisticas(endpoint, segundos)));
+		return resultado;
+	}
+
+	/**
+	 * Tabela com as estatísticas, uma linha por endpoint mais o total.
+	 */
+	static String relatorio(String titulo, Map<String, Estatisticas> estatisticas) {
+		StringBuilder texto = new StringBuilder("\n=== ").append(titulo).append(" ===\n");
+		texto.append(String.format(Locale.ROOT, "%-18s %8s %7s %9s %9s %9s %9s %9s%n",
+				"endpoint", "total", "erros", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+		long total = 0;
+		long erros = 0;
+		double vazao = 0;
+		for (Estatisticas e : estatisticas.values()) {
+			texto.append(String.format(Locale.ROOT, "%-18s %8d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+					e.endpoint(), e.total(), e.erros(), e.vazao(), e.p50(), e.p95(), e.p99(), e.max()));
+			total += e.total();
+			erros += e.erros();
+			vazao += e.vazao();
+		}
+		texto.append(String.format(Locale.ROOT, "%-18s %8d %7d %9.1f%n", "TOTAL", total, erros, vazao));
+		return texto.toString();
+	}
+
+	// Latências (ns) e erros de um endpoint.
+	private static final class Amostras {
+
+		private final Queue<Long> latencias = new ConcurrentLinkedQueue<>();
+		private final LongAdder erros = new LongAdder();
+
+		void registrar(long latencia, boolean falhou) {
+			latencias.add(latencia);
+			if (falhou) {
+				erros.increment();
+			}
+		}
+
+		Estatisticas estatisticas(String endpoint, double segundos) {
+			List<Long> ordenadas = new ArrayList<>(latencias);
+			Collections.sort(ordenadas);
+			return new Estatisticas(endpoint, ordenadas.size(), erros.sum(), ordenadas.size() / segundos,
+					percentil(ordenadas, 0.50), percentil(ordenadas, 0.95), percentil(ordenadas, 0.99), percentil(ordenadas, 1.0));
+		}
+
+		private static double percentil(List<Long> ordenadas, double fracao) {
+			if (ordenadas.isEmpty()) {
+				return 0;
+			}
+			int indice = (int) Math.ceil(fracao * ordenadas.size()) - 1;
+			return ordenadas.get(Math.max(indice, 0)) / 1e6;
+		}
+	}
+}
@@ -0,0 +1,389 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.dto.OperacaoLoteDTO;
+import com.example.demo.dto.ProdutoRequestDTO;
+import com.example.demo.dto.ResultadoLoteDTO;
+import com.example.demo.loadtest.GeradorDeCarga.Estatisticas;
+import com.example.demo.loadtest.GeradorDeCarga.Requisicao;
+import com.example.demo.models.Usuario;
+import com.example.demo.repository.UsuarioRepository;
+import com.example.demo.service.Modelo_ProdutoService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Teste de carga de ponta a ponta: sobe a aplicação em uma porta aleatória com o banco H2 em memória,
+ * popula produtos e usuários, faz login e dispara uma mistura de operações em todos os endpoints de /produtos.
+ * Falha se algum SLO configurado em application-loadtest.properties for violado.
+ * Fica fora do build padrão (tag "loadtest"); execute com: mvn -Ploadtest verify
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("loadtest")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ProdutoLoadTest {
+
+	private static final String[] TIPOS = {"Teclado", "Mouse", "Monitor", "Cadeira", "Mesa", "Headset", "Notebook",
+			"Webcam", "Microfone", "Roteador"};
+	private static final String[] VARIANTES = {"Gamer", "Sem Fio", "Compacto", "Profissional", "Premium", "Slim",
+			"Azul", "Preto", "Branco", "Prata"};
+	private static final String SENHA = "senha-do-teste-de-carga";
+	private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+	private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+	private static final int MAX_CURSORES = 1_000;
+
+	@LocalServerPort
+	private int porta;
+
+	@Autowired
+	private Environment env;
+
+	@Autowired
+	private Modelo_ProdutoService produtoService;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	private HttpClient cliente;
+	private String base;
+	private final List<Long> idsPopulados = new ArrayList<>();
+	private final List<String> tokens = new ArrayList<>();
+	private final Queue<Long> idsCriados = new ConcurrentLinkedQueue<>();
+	private final Queue<String> cursores = new ConcurrentLinkedQueue<>();
+
+	@BeforeAll
+	void popular() throws Exception {
+		cliente = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+		base = "http://localhost:" + porta;
+
+		// Produtos pelo mesmo caminho do POST /produtos/batch (lotes JDBC + eventos para índice e cache).
+		int produtos = inteiro("loadtest.produtos");
+		for (int inicio = 0; inicio < produtos; inicio += 5_000) {
+			List<OperacaoLoteDTO> operacoes = new ArrayList<>();
+			for (int i = inicio; i < Math.min(inicio + 5_000, produtos); i++) {
+				operacoes.add(new OperacaoLoteDTO(OperacaoLoteDTO.TipoOperacao.CRIAR, null, novoProduto(i)));
+			}
+			for (ResultadoLoteDTO resultado : produtoService.processarLote(operacoes)) {
+				idsPopulados.add(resultado.id());
+			}
+		}
+
+		// Usuários com o mesmo hash: o BCrypt roda uma única vez na preparação.
+		String hash = passwordEncoder.encode(SENHA);
+		List<Usuario> usuarios = new ArrayList<>();
+		for (int i = 0; i < inteiro("loadtest.usuarios"); i++) {
+			usuarios.add(new Usuario(null, "carga-" + i, hash));
+		}
+		usuarioRepository.saveAll(usuarios);
+		for (Usuario usuario : usuarios) {
+			HttpResponse<String> resposta = cliente.send(login(usuario.getLogin()), HttpResponse.BodyHandlers.ofString());
+			Matcher token = TOKEN.matcher(resposta.body());
+			assertTrue(token.find(), "Login falhou: " + resposta.statusCode());
+			tokens.add(token.group(1));
+		}
+	}
+
+	@Test
+	void misturaDeOperacoesRespeitaOsSlos() throws Exception {
+		double taxa = decimal("loadtest.taxa-por-segundo");
+		Map<String, Estatisticas> estatisticas = new GeradorDeCarga(cliente).executar(misturaDeOperacoes(), taxa,
+				inteiro("loadtest.clientes"), segundos("loadtest.aquecimento-segundos"), segundos("loadtest.duracao-segundos"));
+		System.out.println(GeradorDeCarga.relatorio("Mistura de operações em /produtos", estatisticas));
+
+		List<String> violacoes = new ArrayList<>();
+		long total = 0;
+		long erros = 0;
+		double vazao = 0;
+		for (Estatisticas e : estatisticas.values()) {
+			double limite = env.getProperty("loadtest.slo.p99-ms." + e.endpoint(), Double.class, decimal("loadtest.slo.p99-ms"));
+			if (e.p99() > limite) {
+				violacoes.add(String.format("%s: p99 de %.1f ms acima do SLO de %.0f ms", e.endpoint(), e.p99(), limite));
+			}
+			total += e.total();
+			erros += e.erros();
+			vazao += e.vazao();
+		}
+		double taxaErros = total == 0 ? 0 : (double) erros / total;
+		if (taxaErros > decimal("loadtest.slo.taxa-erros-maxima")) {
+			violacoes.add(String.format("taxa de erros de %.2f%% acima do SLO", taxaErros * 100));
+		}
+		if (vazao < taxa * decimal("loadtest.slo.vazao-minima")) {
+			violacoes.add(String.format("vazão de %.1f req/s abaixo do mínimo de %.1f req/s", vazao, taxa * decimal("loadtest.slo.vazao-minima")));
+		}
+		assertTrue(violacoes.isEmpty(), "SLOs violados:\n" + String.join("\n", violacoes));
+	}
+
+	@Test
+	void leiturasEstaveisDuranteInundacaoDeLogins() throws Exception {
+		double taxaLeituras = decimal("loadtest.inundacao.taxa-leituras-por-segundo");
+		Duration duracao = segundos("loadtest.inundacao.duracao-segundos");
+		Duration aquecimento = segundos("loadtest.aquecimento-segundos");
+		int clientes = inteiro("loadtest.clientes");
+
+		// 1. Referência: apenas leituras.
+		Estatisticas referencia = new GeradorDeCarga(cliente)
+				.executar(this::leitura, taxaLeituras, clientes, aquecimento, duracao).get("leitura");
+
+		// 2. As mesmas leituras com uma rajada de logins em paralelo.
+		CompletableFuture<Map<String, Estatisticas>> logins = CompletableFuture.supplyAsync(() -> {
+			try {
+				return new GeradorDeCarga(cliente).executar(
+						() -> new Requisicao("login", login("carga-" + ThreadLocalRandom.current().nextInt(tokens.size()))),
+						decimal("loadtest.inundacao.taxa-logins-por-segundo"), inteiro("loadtest.inundacao.clientes-login"),
+						aquecimento, duracao);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+		});
+		Estatisticas sobInundacao = new GeradorDeCarga(cliente)
+				.executar(this::leitura, taxaLeituras, clientes, aquecimento, duracao).get("leitura");
+
+		Map<String, Estatisticas> relatorio = new LinkedHashMap<>();
+		relatorio.put("leitura (ref.)", referencia);
+		relatorio.put("leitura (inund.)", sobInundacao);
+		relatorio.putAll(logins.get());
+		System.out.println(GeradorDeCarga.relatorio("Leituras durante inundação de logins (erros de login = 503 por fila cheia)", relatorio));
+
+		double limite = Math.max(referencia.p99() * decimal("loadtest.inundacao.fator-p99-maximo"), decimal("loadtest.inundacao.piso-p99-ms"));
+		assertTrue(sobInundacao.p99() <= limite, String.format(
+				"p99 das leituras subiu de %.1f ms para %.1f ms durante a inundação de logins (limite %.1f ms)",
+				referencia.p99(), sobInundacao.p99(), limite));
+		assertTrue(sobInundacao.taxaErros() <= decimal("loadtest.slo.taxa-erros-maxima"), "Leituras falharam durante a inundação de logins");
+	}
+
+	@Test
+	void leiturasEstaveisComUmUsuarioAbusivo() throws Exception {
+		double taxaLeituras = decimal("loadtest.inundacao.taxa-leituras-por-segundo");
+		Duration duracao = segundos("loadtest.abuso.duracao-segundos");
+		Duration aquecimento = segundos("loadtest.aquecimento-segundos");
+		int clientes = inteiro("loadtest.clientes");
+		// O primeiro usuário é o abusivo; as leituras medidas são dos demais.
+		String tokenAbusivo = tokens.get(0);
+		Supplier<Requisicao> leituraComportada = () -> new Requisicao("leitura",
+				enviar("GET", "/produtos/" + idPopulado(), null, tokens.get(1 + ThreadLocalRandom.current().nextInt(tokens.size() - 1))));
+
+		// 1. Referência: apenas as leituras dos usuários comportados.
+		Estatisticas referencia = new GeradorDeCarga(cliente)
+				.executar(leituraComportada, taxaLeituras, clientes, aquecimento, duracao).get("leitura");
+
+		// 2. As mesmas leituras com um único usuário disparando bem acima do seu limite (ver api.security.rate-limit.*).
+		CompletableFuture<Map<String, Estatisticas>> abuso = CompletableFuture.supplyAsync(() -> {
+			try {
+				return new GeradorDeCarga(cliente).executar(
+						() -> new Requisicao("abusivo", enviar("GET", "/produtos/" + idPopulado(), null, tokenAbusivo)),
+						decimal("loadtest.abuso.taxa-por-segundo"), inteiro("loadtest.abuso.clientes"), aquecimento, duracao);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+		});
+		Estatisticas sobAbuso = new GeradorDeCarga(cliente)
+				.executar(leituraComportada, taxaLeituras, clientes, aquecimento, duracao).get("leitura");
+
+		Map<String, Estatisticas> relatorio = new LinkedHashMap<>();
+		relatorio.put("leitura (ref.)", referencia);
+		relatorio.put("leitura (abuso)", sobAbuso);
+		relatorio.putAll(abuso.get());
+		System.out.println(GeradorDeCarga.relatorio("Leituras com um usuário acima do limite (erros do abusivo = 429)", relatorio));
+
+		double limite = Math.max(referencia.p99() * decimal("loadtest.abuso.fator-p99-maximo"), decimal("loadtest.abuso.piso-p99-ms"));
+		assertTrue(sobAbuso.p99() <= limite, String.format(
+				"p99 das leituras subiu de %.1f ms para %.1f ms com o usuário abusivo (limite %.1f ms)",
+				referencia.p99(), sobAbuso.p99(), limite));
+		assertTrue(sobAbuso.taxaErros() <= decimal("loadtest.slo.taxa-erros-maxima"), "Leituras dos usuários comportados falharam");
+		Estatisticas abusivo = relatorio.get("abusivo");
+		assertTrue(abusivo.erros() > abusivo.total() / 2, "O usuário abusivo deveria ter a maior parte das requisições recusada");
+	}
+
+	@Test
+	void loteGravaMaisRapidoQueUmaRequisicaoPorProduto() throws Exception {
+		int itens = inteiro("loadtest.lote-vs-unitario.itens");
+		int clientes = inteiro("loadtest.lote-vs-unitario.clientes");
+
+		// 1. Um POST /produtos por produto, com 'clientes' requisições em paralelo (cada uma é uma transação).
+		Semaphore emAndamento = new Semaphore(clientes);
+		List<CompletableFuture<HttpResponse<String>>> respostas = new ArrayList<>();
+		long inicio = System.nanoTime();
+		for (int i = 0; i < itens; i++) {
+			emAndamento.acquire();
+			HttpRequest criacao = enviar("POST", "/produtos", json(novoProduto(i)), tokens.get(i % tokens.size()));
+			respostas.add(cliente.sendAsync(criacao, HttpResponse.BodyHandlers.ofString()).whenComplete((r, e) -> emAndamento.release()));
+		}
+		for (CompletableFuture<HttpResponse<String>> resposta : respostas) {
+			assertEquals(201, resposta.get().statusCode());
+		}
+		double segundosUnitario = (System.nanoTime() - inicio) / 1e9;
+
+		// 2. Os mesmos produtos em um único POST /produtos/batch (uma transação, INSERTs em lotes JDBC).
+		StringBuilder lote = new StringBuilder("{\"operacoes\":[");
+		for (int i = 0; i < itens; i++) {
+			lote.append(i > 0 ? "," : "").append("{\"operacao\":\"CRIAR\",\"produto\":").append(json(novoProduto(i))).append('}');
+		}
+		HttpRequest requisicaoLote = enviar("POST", "/produtos/batch", lote.append("]}").toString(), tokens.get(0));
+		inicio = System.nanoTime();
+		HttpResponse<String> respostaLote = cliente.send(requisicaoLote, HttpResponse.BodyHandlers.ofString());
+		double segundosLote = (System.nanoTime() - inicio) / 1e9;
+		assertEquals(200, respostaLote.statusCode());
+		assertEquals(itens, respostaLote.body().split("\"status\":201", -1).length - 1);
+
+		double ganho = segundosUnitario / segundosLote;
+		System.out.printf(Locale.ROOT, "%d produtos: %.0f produtos/s um por requisição (%d em paralelo), %.0f produtos/s em um lote; ganho de %.1fx%n",
+				itens, itens / segundosUnitario, clientes, itens / segundosLote, ganho);
+		assertTrue(ganho >= decimal("loadtest.lote-vs-unitario.ganho-minimo"),
+				String.format(Locale.ROOT, "O lote foi só %.1fx mais rápido que uma requisição por produto", ganho));
+	}
+
+	// Escolhe a próxima operação de acordo com os pesos configurados.
+	private Supplier<Requisicao> misturaDeOperacoes() {
+		String[] operacoes = {"listar", "buscar-nome", "listar-paginado", "obter", "criar", "atualizar", "remover", "lote", "exportar"};
+		int[] acumulado = new int[operacoes.length];
+		int soma = 0;
+		for (int i = 0; i < operacoes.length; i++) {
+			soma += inteiro("loadtest.peso." + operacoes[i]);
+			acumulado[i] = soma;
+		}
+		int total = soma;
+		return () -> {
+			int sorteio = ThreadLocalRandom.current().nextInt(total);
+			int i = 0;
+			while (sorteio >= acumulado[i]) {
+				i++;
+			}
+			return requisicao(operacoes[i]);
+		};
+	}
+
+	private Requisicao requisicao(String operacao) {
+		ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+		int tamanhoPagina = inteiro("loadtest.tamanho-pagina");
+		switch (operacao) {
+			case "listar":
+				return new Requisicao(operacao, get("/produtos"));
+			case "buscar-nome":
+				String termo = TIPOS[aleatorio.nextInt(TIPOS.length)] + " " + VARIANTES[aleatorio.nextInt(VARIANTES.length)];
+				return new Requisicao(operacao, get("/produtos?name=" + URLEncoder.encode(termo, StandardCharsets.UTF_8)));
+			case "listar-paginado":
+				String cursor = cursores.poll();
+				String uri = "/produtos?limit=" + tamanhoPagina + (cursor != null ? "&cursor=" + cursor : "");
+				return new Requisicao(operacao, get(uri), resposta -> resposta.headers().firstValue("X-Next-Cursor")
+						.filter(proximo -> cursores.size() < MAX_CURSORES)
+						.ifPresent(cursores::add));
+			case "obter":
+				return new Requisicao(operacao, get("/produtos/" + idPopulado()));
+			case "criar":
+				return new Requisicao(operacao, enviar("POST", "/produtos", json(novoProduto(aleatorio.nextInt(1_000_000)))),
+						resposta -> idCriado(resposta).ifPresent(idsCriados::add));
+			case "atualizar":
+				return new Requisicao(operacao, enviar("PUT", "/produtos/" + idPopulado(), json(novoProduto(aleatorio.nextInt(1_000_000)))));
+			case "remover":
+				Long id = idsCriados.poll();
+				return id != null ? new Requisicao(operacao, enviar("DELETE", "/produtos/" + id, null)) : requisicao("criar");
+			case "lote":
+				StringBuilder lote = new StringBuilder("{\"operacoes\":[");
+				for (int i = 0; i < inteiro("loadtest.tamanho-lote"); i++) {
+					lote.append(i > 0 ? "," : "").append("{\"operacao\":\"CRIAR\",\"produto\":")
+							.append(json(novoProduto(aleatorio.nextInt(1_000_000)))).append('}');
+				}
+				return new Requisicao(operacao, enviar("POST", "/produtos/batch", lote.append("]}").toString()));
+			case "exportar":
+				return new Requisicao(operacao, get("/produtos/export?format=ndjson"));
+			default:
+				throw new IllegalArgumentException(operacao);
+		}
+	}
+
+	private Requisicao leitura() {
+		return new Requisicao("leitura", get("/produtos/" + idPopulado()));
+	}
+
+	private HttpRequest get(String caminho) {
+		return enviar("GET", caminho, null);
+	}
+
+	private HttpRequest enviar(String metodo, String caminho, String corpo) {
+		return enviar(metodo, caminho, corpo, tokens.get(ThreadLocalRandom.current().nextInt(tokens.size())));
+	}
+
+	private HttpRequest enviar(String metodo, String caminho, String corpo, String token) {
+		return HttpRequest.newBuilder(URI.create(base + caminho))
+				.header("Authorization", "Bearer " + token)
+				.header("Content-Type", "application/json")
+				.method(metodo, corpo != null ? HttpRequest.BodyPublishers.ofString(corpo) : HttpRequest.BodyPublishers.noBody())
+				.build();
+	}
+
+	private HttpRequest login(String usuario) {
+		return HttpRequest.newBuilder(URI.create(base + "/login"))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString("{\"login\":\"" + usuario + "\",\"senha\":\"" + SENHA + "\"}"))
+				.build();
+	}
+
+	private long idPopulado() {
+		return idsPopulados.get(ThreadLocalRandom.current().nextInt(idsPopulados.size()));
+	}
+
+	private static Optional<Long> idCriado(HttpResponse<String> resposta) {
+		Matcher id = ID.matcher(resposta.body());
+		return resposta.statusCode() == 201 && id.find() ? Optional.of(Long.parseLong(id.group(1))) : Optional.empty();
+	}
+
+	private static ProdutoRequestDTO novoProduto(int i) {
+		String nome = TIPOS[i % TIPOS.length] + " " + VARIANTES[(i / TIPOS.length) % VARIANTES.length] + " " + i;
+		return new ProdutoRequestDTO(nome, "Produto gerado pelo teste de carga", 10.0 + i % 500, 1 + i % 100);
+	}
+
+	private static String json(ProdutoRequestDTO produto) {
+		return String.format(Locale.ROOT, "{\"nome\":\"%s\",\"descricao\":\"%s\",\"preco\":%.2f,\"quantidadeEstoque\":%d}",
+				produto.nome(), produto.descricao(), produto.preco(), produto.quantidadeEstoque());
+	}
+
+	private int inteiro(String chave) {
+		return env.getRequiredProperty(chave, Integer.class);
+	}
+
+	private double decimal(String chave) {
+		return env.getRequiredProperty(chave, Double.class);
+	}
+
+	private Duration segundos(String chave) {
+		return Duration.ofSeconds(env.getRequiredProperty(chave, Long.class));
+	}
+}
@@ -0,0 +1,125 @@
+package com.example.demo.repository;
+
+import com.example.demo.NeurotechApplication;
+import com.example.demo.models.Modelo_Produto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paginação por OFFSET versus keyset (cursor) em páginas cada vez mais profundas, na listagem ordenada por nome.
+ * Sobe a aplicação (com a configuração dos testes: H2 em memória, tabela e índices criados pelo Hibernate a partir
+ * de Modelo_Produto) e lê pelo ProdutoRepository:
+ * 'keyset' pelo mesmo caminho de GET /produtos?cursor=... (buscarPagina com ProdutoSpecifications.aposCursor,
+ * sem o cache de consultas); 'offset' pela paginação do Spring Data (Pageable), com a contagem que ela faz a cada página.
+ * Os números absolutos diferem do MySQL, mas a tendência com a profundidade é a mesma.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class PaginacaoBenchmark {
+
+	private static final int PRODUTOS = 200_000;
+	private static final int TAMANHO_PAGINA = 50;
+
+	@Param({"1", "100", "1000", "3999"})
+	private int pagina;
+
+	private ConfigurableApplicationContext contexto;
+	private ProdutoRepository produtoRepository;
+	private final OrdenacaoProduto ordenacao = OrdenacaoProduto.PADRAO;
+	private Sort sort;
+	private List<Object> cursor;
+
+	@Setup(Level.Trial)
+	public void preparar() {
+		contexto = SpringApplication.run(NeurotechApplication.class,
+				// Sem o reaproveitamento de resultados do H2, que devolveria a mesma página sem executar a consulta.
+				"--spring.datasource.url=jdbc:h2:mem:paginacao;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;OPTIMIZE_REUSE_RESULTS=FALSE",
+				"--server.port=0",
+				"--logging.level.root=WARN",
+				"--spring.jpa.properties.hibernate.generate_statistics=false",
+				"--api.security.rate-limit.enabled=false",
+				"--api.security.load-shedding.enabled=false");
+		produtoRepository = contexto.getBean(ProdutoRepository.class);
+		popular(contexto.getBean(JdbcTemplate.class));
+		sort = ordenacao.toSortComDesempate();
+
+		// Posição do cursor equivalente ao início da página pedida: a última linha da página anterior.
+		if (pagina > 1) {
+			Modelo_Produto anterior = produtoRepository
+					.findAll(PageRequest.of((pagina - 1) * TAMANHO_PAGINA - 1, 1, sort)).getContent().get(0);
+			cursor = List.of(anterior.getNome(), anterior.getId());
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void encerrar() {
+		contexto.close();
+	}
+
+	@Benchmark
+	public List<Long> offset() {
+		return ids(produtoRepository.findAll(PageRequest.of(pagina - 1, TAMANHO_PAGINA, sort)).getContent());
+	}
+
+	@Benchmark
+	public List<Long> keyset() {
+		// Como em Modelo_ProdutoService.findPage: um item a mais, para saber se existe uma próxima página.
+		List<Modelo_Produto> produtos = pagina == 1
+				? produtoRepository.buscarPagina((root, query, cb) -> null, sort, TAMANHO_PAGINA + 1, false)
+				: produtoRepository.buscarPagina(ProdutoSpecifications.aposCursor(ordenacao, cursor), sort, TAMANHO_PAGINA + 1, false);
+		return ids(produtos.subList(0, Math.min(TAMANHO_PAGINA, produtos.size())));
+	}
+
+	// Carga direta por JDBC na tabela criada pelo Hibernate (os INSERTs pelo repositório levariam minutos).
+	private static void popular(JdbcTemplate jdbc) {
+		Timestamp criacao = Timestamp.valueOf(LocalDateTime.now());
+		List<Object[]> linhas = new ArrayList<>(1_000);
+		for (int i = 1; i <= PRODUTOS; i++) {
+			// Nomes com repetições, para que o desempate por id seja exercitado.
+			linhas.add(new Object[]{(long) i, "Produto " + (i * 7919L % (PRODUTOS / 4)), 10.0 + i % 1000, 1 + i % 500, criacao});
+			if (linhas.size() == 1_000) {
+				inserir(jdbc, linhas);
+			}
+		}
+		inserir(jdbc, linhas);
+	}
+
+	private static void inserir(JdbcTemplate jdbc, List<Object[]> linhas) {
+		jdbc.batchUpdate("insert into products (id, nome, preco, stock_quantity, creation_date, version) values (?, ?, ?, ?, ?, 0)", linhas);
+		linhas.clear();
+	}
+
+	private static List<Long> ids(List<Modelo_Produto> produtos) {
+		List<Long> ids = new ArrayList<>(produtos.size());
+		for (Modelo_Produto produto : produtos) {
+			ids.add(produto.getId());
+		}
+		return ids;
+	}
+}
@@ -0,0 +1,11 @@
+package com.example.demo.scratch;
+
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:scratch;DB_CLOSE_DELAY=-1", "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa", "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect", "spring.jpa.show-sql=false"})
+@AutoConfigureMockMvc
+abstract class AppScratchBase {
+}
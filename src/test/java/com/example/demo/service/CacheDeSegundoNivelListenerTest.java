@@ -0,0 +1,99 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ProdutoRequestDTO;
+import com.example.demo.dto.ProdutoResponseDTO;
+import com.example.demo.dto.ReservaEstoqueDTO;
+import com.example.demo.models.Modelo_Produto;
+import com.example.demo.service.events.ProdutoAlteradoEvent;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Baixas de estoque gravadas por JDBC (ReservaEstoqueService), que o Hibernate não vê: o evento ESTOQUE_BAIXADO
+ * tira o produto do cache de segundo nível, e a leitura seguinte vê o estoque e a versão gravados no banco.
+ */
+@SpringBootTest(properties = {"api.security.rate-limit.enabled=false", "api.security.load-shedding.enabled=false"})
+class CacheDeSegundoNivelListenerTest {
+
+	@Autowired
+	private Modelo_ProdutoService produtoService;
+
+	@Autowired
+	private ReservaEstoqueService reservaService;
+
+	@Autowired
+	private CacheDeSegundoNivelListener listener;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Cache cache;
+	private Long id;
+
+	@BeforeEach
+	void preparar() {
+		cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+		id = produtoService.save(new ProdutoRequestDTO("Em cache", null, 10.0, 5)).id();
+		// O CacheManager do JCache é único na JVM: o contexto de outra classe de teste (com o seu próprio banco)
+		// pode ter deixado no cache um produto com o mesmo id, que o INSERT não substitui.
+		cache.evictEntityData(Modelo_Produto.class, id);
+	}
+
+	@Test
+	void estoqueBaixadoTiraOProdutoDoCache() {
+		assertEquals(5, produtoService.findById(id).quantidadeEstoque());
+		assertTrue(cache.containsEntity(Modelo_Produto.class, id));
+
+		// A baixa por JDBC, sem o evento: a leitura continua vindo do cache, com o estoque e a versão antigos.
+		assertEquals(1, jdbcTemplate.update(ReservaEstoqueService.SQL_BAIXA, 2, id, 2));
+		assertEquals(5, produtoService.findById(id).quantidadeEstoque());
+
+		// Chamado direto, sem publicar o evento: os outros ouvintes (ex: o ProdutoFeedService, que relê o produto
+		// em outra thread e o devolve ao cache) não interferem.
+		listener.aoAlterarProduto(ProdutoAlteradoEvent.estoqueBaixado(id));
+
+		assertFalse(cache.containsEntity(Modelo_Produto.class, id));
+		ProdutoResponseDTO produto = produtoService.findById(id);
+		assertEquals(3, produto.quantidadeEstoque());
+		assertEquals(1L, produto.versao());
+	}
+
+	@Test
+	void confirmacaoDaReservaDevolveOEstoqueGravado() {
+		assertEquals(5, produtoService.findById(id).quantidadeEstoque());
+		assertTrue(cache.containsEntity(Modelo_Produto.class, id));
+
+		ReservaEstoqueDTO reserva = reservaService.reservar(id, 2, "cliente");
+		reservaService.confirmar(reserva.id(), "cliente");
+
+		// Não confere a ausência da entrada: o ProdutoFeedService relê o produto alterado em outra thread,
+		// o que pode devolvê-lo ao cache (já atualizado) a qualquer momento.
+		ProdutoResponseDTO produto = produtoService.findById(id);
+		assertEquals(3, produto.quantidadeEstoque());
+		assertEquals(1L, produto.versao());
+	}
+
+	@Test
+	void liberacaoNaoGravaNemTiraDoCache() {
+		produtoService.findById(id);
+
+		ReservaEstoqueDTO reserva = reservaService.reservar(id, 2, "cliente");
+		reservaService.liberar(reserva.id(), "cliente");
+
+		assertTrue(cache.containsEntity(Modelo_Produto.class, id));
+		assertEquals(5, produtoService.findById(id).quantidadeEstoque());
+	}
+}
@@ -0,0 +1,180 @@
+package com.example.demo.service;
+
+import com.example.demo.config.JanelaDeLeituraPropria;
+import com.example.demo.dto.ProdutoRequestDTO;
+import com.example.demo.dto.ProdutoResponseDTO;
+import com.example.demo.repository.ProdutoRepository;
+import com.example.demo.service.exceptions.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ingestão com commit em grupo: muitas threads criando produtos ao mesmo tempo, com diferentes tamanhos máximos de lote.
+ * Verifica que cada criação recebe o seu id só depois de gravada, que as criações viram poucas transações
+ * e que o encerramento grava o que já estava na fila.
+ * Os números de vazão são do H2 em memória (sem escrita em disco no commit); no MySQL, onde cada commit
+ * espera a gravação do log, a diferença entre os tamanhos de lote é maior.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({Modelo_ProdutoService.class, ProdutoSearchIndex.class})
+// A thread de escrita usa as suas próprias transações: o teste não pode ter uma transação aberta.
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IngestaoProdutosServiceTest {
+
+	private static final int THREADS = 32;
+	private static final int CRIACOES_POR_THREAD = 100;
+
+	@Autowired
+	private Modelo_ProdutoService produtoService;
+
+	@Autowired
+	private ProdutoRepository produtoRepository;
+
+	@Autowired
+	private ObjectProvider<JanelaDeLeituraPropria> janela;
+
+	private ExecutorService pool;
+
+	@BeforeEach
+	void preparar() {
+		produtoRepository.deleteAllInBatch();
+		pool = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@AfterEach
+	void encerrar() {
+		pool.shutdownNow();
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {1, 10, 50, 200})
+	void criacoesSimultaneasSaoGravadasEmPoucosCommits(int loteMaximo) throws Exception {
+		IngestaoProdutosService ingestao = iniciar(loteMaximo, 2, 10_000);
+		Set<Long> ids = ConcurrentHashMap.newKeySet();
+		CountDownLatch largada = new CountDownLatch(1);
+		List<Future<?>> clientes = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			int cliente = i;
+			clientes.add(pool.submit(() -> {
+				largada.await();
+				for (int j = 0; j < CRIACOES_POR_THREAD; j++) {
+					ProdutoResponseDTO produto = ingestao.criar(produto("Produto " + cliente + "-" + j));
+					assertNotNull(produto.id());
+					ids.add(produto.id());
+				}
+				return null;
+			}));
+		}
+
+		long inicio = System.nanoTime();
+		largada.countDown();
+		for (Future<?> cliente : clientes) {
+			cliente.get(); // Propaga qualquer falha (ex: 503).
+		}
+		double segundos = (System.nanoTime() - inicio) / 1e9;
+		ingestao.destroy();
+
+		int total = THREADS * CRIACOES_POR_THREAD;
+		System.out.printf("Ingestão com lote máximo %d: %d produtos em %.2f s (%.0f produtos/s) em %d commits%n",
+				loteMaximo, total, segundos, total / segundos, ingestao.getLotesGravados());
+
+		// Cada criação recebeu um id próprio e está no banco quando a resposta sai.
+		assertEquals(total, ids.size());
+		assertEquals(total, produtoRepository.count());
+		assertEquals(total, ingestao.getProdutosGravados());
+		if (loteMaximo > 1) {
+			assertTrue(ingestao.getLotesGravados() < total / 2, "As criações simultâneas deveriam ser agrupadas");
+		}
+	}
+
+	@Test
+	void produtoRecusadoPeloBancoNaoDerrubaOLote() throws Exception {
+		// Espera longa pelo lote: as três criações entram na mesma transação.
+		IngestaoProdutosService ingestao = iniciar(3, 1_000, 10_000);
+		Future<ProdutoResponseDTO> antes = pool.submit(() -> ingestao.criar(produto("Antes")));
+		Future<ProdutoResponseDTO> recusado = pool.submit(() -> ingestao.criar(produto("x".repeat(300)))); // Nome maior que a coluna.
+		Future<ProdutoResponseDTO> depois = pool.submit(() -> ingestao.criar(produto("Depois")));
+
+		assertNotNull(antes.get().id());
+		assertNotNull(depois.get().id());
+		Exception erro = assertThrows(Exception.class, recusado::get);
+		assertInstanceOf(DataIntegrityViolationException.class, erro.getCause());
+		assertEquals(2, produtoRepository.count());
+		assertEquals(1, ingestao.getProdutosRecusados());
+		ingestao.destroy();
+	}
+
+	@Test
+	void encerramentoGravaAsCriacoesQueJaEstavamNaFila() throws Exception {
+		// Lotes pequenos e espera longa: a fila ainda tem criações quando o encerramento começa.
+		IngestaoProdutosService ingestao = iniciar(5, 50, 30_000);
+		LongAdder gravadas = new LongAdder();
+		LongAdder recusadas = new LongAdder();
+		List<Future<?>> clientes = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			int cliente = i;
+			clientes.add(pool.submit(() -> {
+				for (int j = 0; j < CRIACOES_POR_THREAD; j++) {
+					try {
+						ingestao.criar(produto("Produto " + cliente + "-" + j));
+						gravadas.increment();
+					} catch (ServiceUnavailableException e) {
+						recusadas.increment(); // Chegou depois do início do encerramento.
+					}
+				}
+				return null;
+			}));
+		}
+		while (ingestao.getTamanhoFila() < THREADS / 2) {
+			Thread.onSpinWait();
+		}
+
+		ingestao.destroy();
+		for (Future<?> cliente : clientes) {
+			cliente.get();
+		}
+
+		// Toda criação aceita foi gravada e respondida; nenhuma ficou esperando nem foi gravada sem resposta.
+		assertEquals(0, ingestao.getTamanhoFila());
+		assertEquals(gravadas.sum(), produtoRepository.count());
+		assertEquals(THREADS * CRIACOES_POR_THREAD, gravadas.sum() + recusadas.sum());
+		assertTrue(recusadas.sum() > 0);
+	}
+
+	private IngestaoProdutosService iniciar(int loteMaximo, long esperaLoteMs, long esperaConfirmacaoMs) {
+		IngestaoProdutosService ingestao = new IngestaoProdutosService(produtoService, janela, true, 1_000, loteMaximo,
+				esperaLoteMs, 1_000, esperaConfirmacaoMs);
+		ingestao.iniciar();
+		return ingestao;
+	}
+
+	private static ProdutoRequestDTO produto(String nome) {
+		return new ProdutoRequestDTO(nome, null, 10.0, 1);
+	}
+}
@@ -0,0 +1,93 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ProdutoFiltroDTO;
+import com.example.demo.dto.ProdutoResponseDTO;
+import com.example.demo.repository.ProdutoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Filtro por texto: o LIKE do banco (usado enquanto o índice não carregou ou quando há resultados demais)
+ * e o índice de trigramas encontram os mesmos produtos, inclusive com acentos, maiúsculas e curingas no termo.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({Modelo_ProdutoService.class, ProdutoSearchIndex.class})
+class Modelo_ProdutoServiceBuscaTest {
+
+	private static final String[] TERMOS = {"cafe", "CAFÉ", "manhã", "acucar", "ÇÚC", "50%", "a_b", "verde", "inexistente"};
+
+	@Autowired
+	private Modelo_ProdutoService produtoService;
+
+	@Autowired
+	private ProdutoSearchIndex searchIndex;
+
+	@Autowired
+	private ProdutoRepository produtoRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void popular() {
+		String[][] produtos = {
+				{"Café Especial", null},
+				{"Chá Verde", "Combina com CAFÉ da manhã"},
+				{"Açúcar", "Refinado"},
+				{"ACUCAR MASCAVO", "Orgânico"},
+				{"Desconto 50% off", null},
+				{"Desconto 500", null},
+				{"Cabo a_b", "Conector"},
+				{"Cabo aXb", "Conector"}};
+		for (int i = 0; i < produtos.length; i++) {
+			jdbcTemplate.update("insert into products (id, nome, descricao, preco, stock_quantity, creation_date, version) "
+					+ "values (?, ?, ?, 10, 1, current_timestamp, 0)", i + 1, produtos[i][0], produtos[i][1]);
+		}
+	}
+
+	@Test
+	void likeEIndiceEncontramOsMesmosProdutos() {
+		assertFalse(searchIndex.isPronto());
+		Map<String, List<Long>> peloLike = buscar();
+
+		new ProdutoSearchIndexListener(searchIndex, produtoRepository, transactionManager, true, 0).carregar();
+		assertTrue(searchIndex.isPronto());
+		Map<String, List<Long>> peloIndice = buscar();
+
+		assertEquals(peloLike, peloIndice);
+		assertEquals(List.of(1L, 2L), peloLike.get("cafe"));
+		assertEquals(List.of(1L, 2L), peloLike.get("CAFÉ"));
+		assertEquals(List.of(2L), peloLike.get("manhã"));
+		assertEquals(List.of(3L, 4L), peloLike.get("acucar"));
+		assertEquals(List.of(3L, 4L), peloLike.get("ÇÚC"));
+		assertEquals(List.of(5L), peloLike.get("50%"));
+		assertEquals(List.of(7L), peloLike.get("a_b"));
+		assertEquals(List.of(), peloLike.get("inexistente"));
+	}
+
+	// Ids encontrados por termo, em ordem de id.
+	private Map<String, List<Long>> buscar() {
+		Map<String, List<Long>> encontrados = new LinkedHashMap<>();
+		for (String termo : TERMOS) {
+			encontrados.put(termo, produtoService.findAll(termo, ProdutoFiltroDTO.NENHUM, null).stream()
+					.map(ProdutoResponseDTO::id).sorted().toList());
+		}
+		return encontrados;
+	}
+}
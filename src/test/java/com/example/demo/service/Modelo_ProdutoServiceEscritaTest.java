@@ -0,0 +1,101 @@
+package com.example.demo.service;
+
+import com.example.demo.config.ContadorDeConsultas;
+import com.example.demo.dto.ProdutoPatchDTO;
+import com.example.demo.models.Modelo_Produto;
+import com.example.demo.repository.ProdutoRepository;
+import com.example.demo.service.exceptions.PreconditionFailedException;
+import com.example.demo.service.exceptions.ResourceNotFoundException;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Conta os comandos SQL das escritas de um produto: PATCH e DELETE devem ir ao banco uma única vez
+ * (o PATCH sem If-Match, duas: a nova versão, usada no ETag, é lida depois do UPDATE).
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({Modelo_ProdutoService.class, ProdutoSearchIndex.class, ContadorDeConsultas.class})
+class Modelo_ProdutoServiceEscritaTest {
+
+	@Autowired
+	private Modelo_ProdutoService produtoService;
+
+	@Autowired
+	private ProdutoRepository produtoRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private ContadorDeConsultas contador;
+
+	private Long id;
+
+	@BeforeEach
+	void criarProduto() {
+		Modelo_Produto produto = new Modelo_Produto();
+		produto.setNome("Produto");
+		produto.setPreco(10.0);
+		produto.setQuantidadeEstoque(5);
+		produto.setDataCriacao(LocalDateTime.now());
+		id = produtoRepository.saveAndFlush(produto).getId();
+		entityManager.clear();
+	}
+
+	@Test
+	void patchAlteraApenasOsCamposInformadosEmUmUnicoComando() {
+		contador.iniciar();
+		long novaVersao = produtoService.patch(id, new ProdutoPatchDTO(null, null, 12.5, null), 0L);
+		assertEquals(1, contador.encerrar());
+
+		Modelo_Produto produto = produtoRepository.findById(id).orElseThrow();
+		assertEquals(12.5, produto.getPreco());
+		assertEquals("Produto", produto.getNome());
+		assertEquals(5, produto.getQuantidadeEstoque());
+		assertEquals(1L, produto.getVersao());
+		assertEquals(1L, novaVersao);
+	}
+
+	@Test
+	void patchSemVersaoEsperadaLeANovaVersao() {
+		contador.iniciar();
+		long novaVersao = produtoService.patch(id, new ProdutoPatchDTO(null, null, 12.5, null), null);
+		assertEquals(2, contador.encerrar());
+		assertEquals(1L, novaVersao);
+		assertEquals(1L, produtoRepository.findById(id).orElseThrow().getVersao());
+	}
+
+	@Test
+	void patchDecideNaoEncontradoEVersaoPelasLinhasAlteradas() {
+		contador.iniciar();
+		assertThrows(ResourceNotFoundException.class, () -> produtoService.patch(id + 1, new ProdutoPatchDTO("Outro", null, null, null), null));
+		assertEquals(1, contador.encerrar());
+
+		// Versão desatualizada: o UPDATE não altera nada e uma consulta a mais distingue o 412 do 404.
+		contador.iniciar();
+		assertThrows(PreconditionFailedException.class, () -> produtoService.patch(id, new ProdutoPatchDTO("Outro", null, null, null), 7L));
+		assertEquals(2, contador.encerrar());
+	}
+
+	@Test
+	void deleteEmUmUnicoComando() {
+		contador.iniciar();
+		produtoService.deleteById(id, null);
+		assertEquals(1, contador.encerrar());
+		assertFalse(produtoRepository.existsById(id));
+
+		contador.iniciar();
+		assertThrows(ResourceNotFoundException.class, () -> produtoService.deleteById(id, null));
+		assertEquals(1, contador.encerrar());
+	}
+}
@@ -0,0 +1,209 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ProdutoFiltroDTO;
+import com.example.demo.dto.ProdutoPaginaDTO;
+import com.example.demo.dto.ProdutoResponseDTO;
+import com.example.demo.repository.CampoProduto;
+import com.example.demo.service.exceptions.BadRequestException;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Confere, com EXPLAIN no H2, que toda combinação de filtros e ordenação aceita pela listagem usa um índice
+ * (nenhum plano com 'tableScan'), e que as demais são recusadas antes de ir ao banco.
+ * As tabelas são criadas pelo Hibernate a partir da entidade, então os índices testados são os de @Table.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({Modelo_ProdutoService.class, ProdutoSearchIndex.class, Modelo_ProdutoServiceIndicesTest.CapturaDeSql.class})
+class Modelo_ProdutoServiceIndicesTest {
+
+	private static final int PRODUTOS = 2_000;
+
+	@Autowired
+	private Modelo_ProdutoService produtoService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private CapturaDeSql capturaDeSql;
+
+	// Guarda os comandos preparados pelo Hibernate, para rodar EXPLAIN sobre eles.
+	static class CapturaDeSql implements StatementInspector, HibernatePropertiesCustomizer {
+
+		private final List<String> comandos = new CopyOnWriteArrayList<>();
+
+		@Override
+		public void customize(Map<String, Object> hibernateProperties) {
+			hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+		}
+
+		@Override
+		public String inspect(String sql) {
+			comandos.add(sql);
+			return sql;
+		}
+	}
+
+	@BeforeEach
+	void popular() {
+		// O ANALYZE do H2 confirma a transação do teste: os produtos ficam gravados para os testes seguintes.
+		if (jdbcTemplate.queryForObject("select count(*) from products", Integer.class) > 0) {
+			return;
+		}
+		// Sem NULLs nas colunas ordenáveis: um cursor parado em um NULL não tem limite inicial (ver ProdutoSpecifications.aposCursor).
+		jdbcTemplate.update("insert into products (id, nome, descricao, preco, stock_quantity, creation_date, version) "
+				+ "select x, 'Produto ' || mod(x * 7919, " + PRODUTOS / 4 + "), 'Descrição ' || x, 10 + mod(x, 500), 1 + mod(x, 100), "
+				+ "timestamp '2024-01-01 00:00:00' + x * interval '1' minute, 0 from system_range(1, " + PRODUTOS + ")");
+		// Estatísticas atualizadas, como em um banco em produção.
+		jdbcTemplate.execute("analyze");
+	}
+
+	@Test
+	void todaCombinacaoAceitaUsaUmIndice() {
+		// Sem filtro, cada filtro de faixa sozinho e todos juntos.
+		LocalDateTime janela = LocalDateTime.of(2024, 1, 2, 0, 0);
+		List<ProdutoFiltroDTO> filtros = List.of(
+				ProdutoFiltroDTO.NENHUM,
+				new ProdutoFiltroDTO(100.0, 300.0, null, null, null, null),
+				new ProdutoFiltroDTO(null, null, null, 10, null, null),
+				new ProdutoFiltroDTO(null, null, null, null, janela, null),
+				new ProdutoFiltroDTO(100.0, 300.0, 10, null, janela, janela.plusDays(1)));
+
+		int aceitas = 0;
+		int recusadas = 0;
+		for (String sort : ordenacoes()) {
+			for (ProdutoFiltroDTO filtro : filtros) {
+				ProdutoPaginaDTO<ProdutoResponseDTO> pagina;
+				capturaDeSql.comandos.clear();
+				try {
+					pagina = produtoService.findPage(null, filtro, sort, null, 20);
+				} catch (BadRequestException recusada) {
+					assertTrue(capturaDeSql.comandos.isEmpty(), "Combinação recusada não deve ir ao banco: " + sort);
+					recusadas++;
+					continue;
+				}
+				aceitas++;
+				// A página seguinte acrescenta o predicado de keyset; a listagem completa, a ordenação sem desempate.
+				if (pagina.proximoCursor() != null) {
+					produtoService.findPage(null, filtro, sort, pagina.proximoCursor(), 20);
+				}
+				produtoService.findAllCampos(null, filtro, sort, "id");
+
+				for (String sql : capturaDeSql.comandos) {
+					String plano = explain(sql);
+					assertFalse(plano.contains("tableScan"), "Sem índice para sort=" + sort + ", " + filtro + ":\n" + plano);
+				}
+			}
+		}
+		assertTrue(aceitas > 500, "Combinações aceitas: " + aceitas);
+		assertTrue(recusadas > 0, "Combinações recusadas: " + recusadas);
+	}
+
+	@Test
+	void ordenacoesExistentesContinuamAceitasESemIndiceSaoRecusadas() {
+		for (String sort : new String[] {null, "preco,asc", "preco,desc", "relevancia", "desconhecida"}) {
+			assertDoesNotThrow(() -> produtoService.findPage(null, ProdutoFiltroDTO.NENHUM, sort, null, 5));
+		}
+		assertDoesNotThrow(() -> produtoService.findPage(null, ProdutoFiltroDTO.NENHUM, "dataCriacao,desc", null, 5));
+		assertDoesNotThrow(() -> produtoService.findPage(null, ProdutoFiltroDTO.NENHUM, "quantidadeEstoque,preco", null, 5));
+
+		// Sem filtro, ordenar por uma coluna sem índice obrigaria a ler e ordenar a tabela inteira.
+		ProdutoFiltroDTO semFiltro = ProdutoFiltroDTO.NENHUM;
+		assertThrows(BadRequestException.class, () -> produtoService.findPage(null, semFiltro, "descricao", null, 5));
+		assertThrows(BadRequestException.class, () -> produtoService.findPage(null, semFiltro, "nome,desc", null, 5));
+		// Com um filtro de faixa indexado, o banco lê só a faixa e a ordena.
+		ProdutoFiltroDTO faixaDePreco = new ProdutoFiltroDTO(100.0, 110.0, null, null, null, null);
+		assertDoesNotThrow(() -> produtoService.findPage(null, faixaDePreco, "descricao", null, 5));
+	}
+
+	@Test
+	void cursorPercorreColunasComNulos() {
+		// Produtos sem estoque informado vêm primeiro na ordenação ascendente (NULL é o menor valor).
+		jdbcTemplate.update("update products set stock_quantity = null where mod(id, 7) = 0");
+		String sort = "quantidadeEstoque,asc,preco,asc";
+
+		List<Long> esperados = produtoService.findAll(null, ProdutoFiltroDTO.NENHUM, sort + ",id,asc").stream()
+				.map(ProdutoResponseDTO::id).toList();
+		List<Long> paginados = new ArrayList<>();
+		ProdutoPaginaDTO<ProdutoResponseDTO> pagina = produtoService.findPage(null, ProdutoFiltroDTO.NENHUM, sort, null, 500);
+		paginados.addAll(pagina.conteudo().stream().map(ProdutoResponseDTO::id).toList());
+		while (pagina.proximoCursor() != null) {
+			pagina = produtoService.findPage(null, ProdutoFiltroDTO.NENHUM, sort, pagina.proximoCursor(), 500);
+			paginados.addAll(pagina.conteudo().stream().map(ProdutoResponseDTO::id).toList());
+		}
+		assertEquals(PRODUTOS, paginados.size());
+		assertEquals(esperados, paginados);
+	}
+
+	@Test
+	void paginasCobremAListagemSemRepetirNemPular() {
+		// Nomes e preços se repetem: as fronteiras das páginas caem no meio de empates, resolvidos pelo id.
+		for (String sort : new String[] {null, "preco,asc", "preco,desc"}) {
+			List<Long> esperados = produtoService.findAll(null, ProdutoFiltroDTO.NENHUM, sort).stream()
+					.map(ProdutoResponseDTO::id).toList();
+			// 7 não divide o total (última página incompleta); 50 divide (a última página cheia não traz cursor).
+			for (int limite : new int[] {7, 50}) {
+				List<Long> paginados = new ArrayList<>();
+				int paginas = 0;
+				String cursor = null;
+				do {
+					ProdutoPaginaDTO<ProdutoResponseDTO> pagina = produtoService.findPage(null, ProdutoFiltroDTO.NENHUM, sort, cursor, limite);
+					assertTrue(pagina.conteudo().size() <= limite);
+					assertFalse(pagina.conteudo().isEmpty(), "Página vazia com cursor: " + sort + ", limite " + limite);
+					paginados.addAll(pagina.conteudo().stream().map(ProdutoResponseDTO::id).toList());
+					cursor = pagina.proximoCursor();
+					paginas++;
+				} while (cursor != null);
+				assertEquals(esperados, paginados, sort + ", limite " + limite);
+				assertEquals((PRODUTOS + limite - 1) / limite, paginas);
+			}
+		}
+	}
+
+	// Ordenação padrão, cada coluna em cada direção e cada par de colunas em cada combinação de direções.
+	private static List<String> ordenacoes() {
+		List<String> ordenacoes = new ArrayList<>();
+		ordenacoes.add(null);
+		String[] direcoes = {"asc", "desc"};
+		for (CampoProduto primeiro : CampoProduto.values()) {
+			for (String direcao : direcoes) {
+				ordenacoes.add(primeiro.getAtributo() + "," + direcao);
+				for (CampoProduto segundo : CampoProduto.values()) {
+					if (segundo == primeiro) {
+						continue;
+					}
+					for (String direcaoSegundo : direcoes) {
+						ordenacoes.add(primeiro.getAtributo() + "," + direcao + "," + segundo.getAtributo() + "," + direcaoSegundo);
+					}
+				}
+			}
+		}
+		return ordenacoes;
+	}
+
+	private String explain(String sql) {
+		// Os parâmetros ficam sem valor: o H2 monta o plano na preparação do comando.
+		return jdbcTemplate.query(conexao -> conexao.prepareStatement("explain " + sql),
+				resultado -> resultado.next() ? resultado.getString(1) : "");
+	}
+}
@@ -0,0 +1,191 @@
+package com.example.demo.service;
+
+import com.example.demo.config.SequenciaDeProdutos;
+import com.example.demo.dto.OperacaoLoteDTO;
+import com.example.demo.dto.ProdutoRequestDTO;
+import com.example.demo.dto.ResultadoLoteDTO;
+import com.example.demo.repository.ProdutoRepository;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.sequence.NoSequenceSupport;
+import org.hibernate.dialect.sequence.SequenceSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * POST /produtos/batch no nível do JDBC: os comandos de um lote de operações saem em lotes JDBC de até
+ * 'hibernate.jdbc.batch_size' (50), e os ids gerados não colidem com os que já existiam no banco.
+ * O dialeto do teste não tem sequências, como o MySQL: o Hibernate emula 'products_seq' com uma tabela,
+ * e os produtos "antigos" são gravados com ids explícitos, como os que o IDENTITY gerava.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=com.example.demo.service.Modelo_ProdutoServiceLoteTest$H2SemSequencias")
+@Import({Modelo_ProdutoService.class, ProdutoSearchIndex.class, SequenciaDeProdutos.class, Modelo_ProdutoServiceLoteTest.ContadorDeLotes.class})
+// A tabela da sequência é lida pelo Hibernate em uma transação própria: o ajuste do teste precisa estar confirmado.
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class Modelo_ProdutoServiceLoteTest {
+
+	private static final int PRODUTOS_ANTIGOS = 300;
+
+	// H2 sem sequências nativas (como o MySQL).
+	public static class H2SemSequencias extends H2Dialect {
+
+		@Override
+		public SequenceSupport getSequenceSupport() {
+			return NoSequenceSupport.INSTANCE;
+		}
+	}
+
+	// Envolve o DataSource para registrar o tamanho de cada lote JDBC executado, por comando SQL.
+	static class ContadorDeLotes implements BeanPostProcessor {
+
+		private final List<String> lotes = new CopyOnWriteArrayList<>();
+		private final Map<PreparedStatement, Integer> pendentes = new ConcurrentHashMap<>();
+
+		@Override
+		public Object postProcessAfterInitialization(Object bean, String nome) {
+			if (!(bean instanceof DataSource dataSource)) {
+				return bean;
+			}
+			return proxy(DataSource.class, dataSource, (metodo, resultado, argumentos) ->
+					resultado instanceof Connection conexao ? proxy(Connection.class, conexao, (m, r, a) ->
+							r instanceof PreparedStatement comando && m.equals("prepareStatement") ? instrumentar(comando, (String) a[0]) : r) : resultado);
+		}
+
+		// Tamanhos dos lotes cujo SQL começa com 'prefixo' (ex: "insert into products").
+		List<Integer> lotes(String prefixo) {
+			return lotes.stream().filter(lote -> lote.startsWith(prefixo))
+					.map(lote -> Integer.parseInt(lote.substring(lote.lastIndexOf('=') + 1))).toList();
+		}
+
+		void limpar() {
+			lotes.clear();
+		}
+
+		private PreparedStatement instrumentar(PreparedStatement comando, String sql) {
+			return proxy(PreparedStatement.class, comando, (metodo, resultado, argumentos) -> {
+				if (metodo.equals("addBatch")) {
+					pendentes.merge(comando, 1, Integer::sum);
+				} else if (metodo.equals("executeBatch")) {
+					lotes.add(sql.toLowerCase() + "=" + pendentes.remove(comando));
+				}
+				return resultado;
+			});
+		}
+
+		// Depois de cada chamada ao objeto real, 'aoChamar' pode trocar o resultado (ex: por outro proxy).
+		interface AoChamar {
+			Object depois(String metodo, Object resultado, Object[] argumentos);
+		}
+
+		@SuppressWarnings("unchecked")
+		private static <T> T proxy(Class<T> tipo, T real, AoChamar aoChamar) {
+			InvocationHandler handler = (proxy, metodo, argumentos) -> {
+				try {
+					return aoChamar.depois(metodo.getName(), metodo.invoke(real, argumentos), argumentos);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+			};
+			return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[] {tipo}, handler);
+		}
+	}
+
+	@Autowired
+	private Modelo_ProdutoService produtoService;
+
+	@Autowired
+	private ProdutoRepository produtoRepository;
+
+	@Autowired
+	private SequenciaDeProdutos sequencia;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ContadorDeLotes contador;
+
+	@BeforeEach
+	void preparar() {
+		contador.limpar();
+		if (produtoRepository.count() > 0) {
+			return;
+		}
+		// Banco migrado de IDENTITY: produtos com ids já usados e a sequência criada pelo Hibernate ainda no início.
+		// Como na subida da aplicação, o ajuste vem antes de o Hibernate reservar o primeiro bloco de ids
+		// (o bloco reservado fica em memória: um ajuste depois dele só vale para o bloco seguinte).
+		jdbcTemplate.update("insert into products (id, nome, preco, stock_quantity, creation_date, version) "
+				+ "select x, 'Antigo ' || x, 10, 1, current_timestamp, 0 from system_range(1, " + PRODUTOS_ANTIGOS + ")");
+		jdbcTemplate.update("update products_seq set next_val = 1");
+		assertTrue(sequencia.ajustar());
+	}
+
+	@Test
+	void idsGeradosNaoColidemComOsExistentes() {
+		assertFalse(sequencia.ajustar()); // Já à frente: nada a fazer (ex: outra instância subindo).
+
+		List<ResultadoLoteDTO> resultados = produtoService.processarLote(criacoes(120));
+		Set<Long> ids = new HashSet<>();
+		for (ResultadoLoteDTO resultado : resultados) {
+			assertEquals(201, resultado.status());
+			assertTrue(resultado.id() > PRODUTOS_ANTIGOS, "Id reutilizado: " + resultado.id());
+			ids.add(resultado.id());
+		}
+		assertEquals(120, ids.size());
+	}
+
+	@Test
+	void operacoesSaemEmLotesJdbcDeAte50Comandos() {
+		long antes = produtoRepository.count();
+		List<ResultadoLoteDTO> criados = produtoService.processarLote(criacoes(120));
+		assertEquals(List.of(50, 50, 20), contador.lotes("insert into products"));
+
+		contador.limpar();
+		List<OperacaoLoteDTO> operacoes = new ArrayList<>();
+		for (int i = 0; i < criados.size(); i++) {
+			Long id = criados.get(i).id();
+			operacoes.add(i % 2 == 0
+					? new OperacaoLoteDTO(OperacaoLoteDTO.TipoOperacao.ATUALIZAR, id, new ProdutoRequestDTO("Alterado " + i, null, 20.0, 2))
+					: new OperacaoLoteDTO(OperacaoLoteDTO.TipoOperacao.REMOVER, id, null));
+		}
+		// Os produtos antigos também podem ser alterados no mesmo lote.
+		operacoes.add(new OperacaoLoteDTO(OperacaoLoteDTO.TipoOperacao.REMOVER, 1L, null));
+		produtoService.processarLote(operacoes);
+
+		assertEquals(List.of(50, 10), contador.lotes("update products"));
+		assertEquals(List.of(50, 11), contador.lotes("delete from products"));
+		assertEquals(antes + 60 - 1, produtoRepository.count());
+	}
+
+	private static List<OperacaoLoteDTO> criacoes(int quantidade) {
+		List<OperacaoLoteDTO> operacoes = new ArrayList<>();
+		for (int i = 0; i < quantidade; i++) {
+			operacoes.add(new OperacaoLoteDTO(OperacaoLoteDTO.TipoOperacao.CRIAR, null, new ProdutoRequestDTO("Novo " + i, null, 10.0 + i, 1)));
+		}
+		return operacoes;
+	}
+}
@@ -0,0 +1,93 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ProdutoFiltroDTO;
+import com.example.demo.dto.ProdutoPaginaDTO;
+import com.example.demo.dto.ProdutoParcialDTO;
+import com.example.demo.dto.ProdutoResponseDTO;
+import com.example.demo.models.Modelo_Produto;
+import com.example.demo.repository.ProdutoRepository;
+import com.example.demo.service.exceptions.BadRequestException;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Leituras com o parâmetro 'fields': só os campos pedidos, nenhuma entidade no contexto de persistência
+ * e a mesma ordem e paginação das leituras completas.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({Modelo_ProdutoService.class, ProdutoSearchIndex.class})
+class Modelo_ProdutoServiceProjecaoTest {
+
+	@Autowired
+	private Modelo_ProdutoService produtoService;
+
+	@Autowired
+	private ProdutoRepository produtoRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@BeforeEach
+	void criarProdutos() {
+		for (int i = 0; i < 7; i++) {
+			Modelo_Produto produto = new Modelo_Produto();
+			produto.setNome("Produto " + i);
+			produto.setDescricao("Descrição longa ".repeat(50));
+			produto.setPreco(10.0 + i % 3);
+			produto.setQuantidadeEstoque(5);
+			produto.setDataCriacao(LocalDateTime.now());
+			produtoRepository.save(produto);
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	void listagemDevolveSoOsCamposPedidosSemCarregarEntidades() {
+		List<ProdutoParcialDTO> produtos = produtoService.findAllCampos(null, ProdutoFiltroDTO.NENHUM, "preco,desc", "preco,NOME");
+
+		// Nenhuma instância de Modelo_Produto foi criada nem registrada no contexto de persistência.
+		assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+		List<ProdutoResponseDTO> completos = produtoService.findAll(null, ProdutoFiltroDTO.NENHUM, "preco,desc");
+		assertEquals(completos.size(), produtos.size());
+		for (int i = 0; i < produtos.size(); i++) {
+			// Mesma ordem da leitura completa; os campos seguem a ordem de ProdutoResponseDTO.
+			assertEquals(List.of("nome", "preco"), List.copyOf(produtos.get(i).campos().keySet()));
+			assertEquals(completos.get(i).id(), produtos.get(i).id());
+			assertEquals(completos.get(i).versao(), produtos.get(i).versao());
+			assertEquals(completos.get(i).nome(), produtos.get(i).campos().get("nome"));
+		}
+	}
+
+	@Test
+	void paginacaoPorCursorComProjecaoPercorreOsMesmosProdutos() {
+		ProdutoPaginaDTO<ProdutoParcialDTO> pagina = produtoService.findPageCampos(null, ProdutoFiltroDTO.NENHUM, "preco,asc", null, 3, "id");
+		ProdutoPaginaDTO<ProdutoResponseDTO> completa = produtoService.findPage(null, ProdutoFiltroDTO.NENHUM, "preco,asc", null, 3);
+		while (completa.proximoCursor() != null) {
+			assertEquals(completa.conteudo().stream().map(ProdutoResponseDTO::id).toList(),
+					pagina.conteudo().stream().map(ProdutoParcialDTO::id).toList());
+			assertEquals(completa.proximoCursor(), pagina.proximoCursor());
+			pagina = produtoService.findPageCampos(null, ProdutoFiltroDTO.NENHUM, "preco,asc", pagina.proximoCursor(), 3, "id");
+			completa = produtoService.findPage(null, ProdutoFiltroDTO.NENHUM, "preco,asc", completa.proximoCursor(), 3);
+		}
+		assertNull(pagina.proximoCursor());
+	}
+
+	@Test
+	void campoDesconhecidoEhRecusado() {
+		assertThrows(BadRequestException.class, () -> produtoService.findAllCampos(null, ProdutoFiltroDTO.NENHUM, null, "id,senha"));
+		assertThrows(BadRequestException.class, () -> produtoService.findByIdCampos(1L, " , "));
+	}
+}
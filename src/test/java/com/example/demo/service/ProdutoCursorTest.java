@@ -0,0 +1,70 @@
+package com.example.demo.service;
+
+import com.example.demo.models.Modelo_Produto;
+import com.example.demo.repository.OrdenacaoProduto;
+import com.example.demo.service.exceptions.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Cursor da paginação por keyset: o que é codificado volta com o mesmo tipo e valor (inclusive NULL),
+ * e cursores adulterados ou de outra ordenação são recusados com 400.
+ */
+class ProdutoCursorTest {
+
+	private static final LocalDateTime CRIACAO = LocalDateTime.of(2024, 5, 17, 13, 45, 30, 123_000_000);
+
+	@Test
+	void valoresVoltamComOMesmoTipo() {
+		Modelo_Produto produto = produto(42L, "Café, \"especial\"", 19.9, 7);
+		for (String sort : List.of("nome", "preco,desc", "quantidadeEstoque,asc,preco,asc", "dataCriacao,desc", "id,desc")) {
+			OrdenacaoProduto ordenacao = OrdenacaoProduto.parse(sort);
+			List<Object> valores = ProdutoCursor.decodificar(ProdutoCursor.codificar(ordenacao, produto), ordenacao);
+			List<Object> esperados = ordenacao.criteriosComDesempate().stream().map(c -> c.campo().valorDe(produto)).toList();
+			assertEquals(esperados, valores, sort);
+		}
+	}
+
+	@Test
+	void colunaAnulavelComNullVoltaComoNull() {
+		OrdenacaoProduto ordenacao = OrdenacaoProduto.parse("quantidadeEstoque,asc,preco,asc");
+		String cursor = ProdutoCursor.codificar(ordenacao, produto(3L, "Sem estoque", 5.0, null));
+
+		// NULL vai como null do JSON, não como o texto "null" (que não converteria para Integer).
+		String json = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+		assertEquals("[\"quantidadeEstoque:asc;preco:asc;id:asc\",null,\"5.0\",\"3\"]", json);
+		assertEquals(Arrays.asList(null, 5.0, 3L), ProdutoCursor.decodificar(cursor, ordenacao));
+	}
+
+	@Test
+	void cursorDeOutraOrdenacaoOuAdulteradoERecusado() {
+		Modelo_Produto produto = produto(1L, "Produto", 10.0, 1);
+		String porPreco = ProdutoCursor.codificar(OrdenacaoProduto.parse("preco,asc"), produto);
+
+		assertThrows(BadRequestException.class, () -> ProdutoCursor.decodificar(porPreco, OrdenacaoProduto.parse("preco,desc")));
+		assertThrows(BadRequestException.class, () -> ProdutoCursor.decodificar(porPreco, OrdenacaoProduto.parse("nome")));
+		assertThrows(BadRequestException.class, () -> ProdutoCursor.decodificar("não é base64!", OrdenacaoProduto.PADRAO));
+		String precoInvalido = Base64.getUrlEncoder().withoutPadding()
+				.encodeToString("[\"preco:asc;id:asc\",\"barato\",\"1\"]".getBytes(StandardCharsets.UTF_8));
+		assertThrows(BadRequestException.class, () -> ProdutoCursor.decodificar(precoInvalido, OrdenacaoProduto.parse("preco,asc")));
+	}
+
+	private static Modelo_Produto produto(Long id, String nome, Double preco, Integer estoque) {
+		Modelo_Produto produto = new Modelo_Produto();
+		produto.setId(id);
+		produto.setNome(nome);
+		produto.setPreco(preco);
+		produto.setQuantidadeEstoque(estoque);
+		produto.setDataCriacao(CRIACAO);
+		produto.setVersao(0L);
+		return produto;
+	}
+}
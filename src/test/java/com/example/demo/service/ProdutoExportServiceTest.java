@@ -0,0 +1,120 @@
+package com.example.demo.service;
+
+import com.example.demo.models.Modelo_Produto;
+import com.example.demo.repository.ProdutoRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.transaction.TestTransaction;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(ProdutoExportService.class)
+class ProdutoExportServiceTest {
+
+	private static final int TOTAL = 5_000;
+
+	@Autowired
+	private ProdutoExportService exportService;
+
+	@Autowired
+	private ProdutoRepository produtoRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@BeforeEach
+	void popularCatalogo() {
+		List<Modelo_Produto> produtos = new ArrayList<>();
+		for (int i = 0; i < TOTAL; i++) {
+			Modelo_Produto produto = new Modelo_Produto();
+			produto.setNome("Produto " + i);
+			produto.setDescricao(i % 10 == 0 ? "Descrição com vírgula, \"aspas\"\ne quebra de linha" : null);
+			produto.setPreco(10.0 + i);
+			produto.setQuantidadeEstoque(1 + i % 50);
+			produto.setDataCriacao(LocalDateTime.now());
+			produtos.add(produto);
+		}
+		produtoRepository.saveAll(produtos);
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	void exportaNdjsonComUmObjetoPorLinha() throws Exception {
+		ByteArrayOutputStream saida = new ByteArrayOutputStream();
+
+		long exportados = exportService.exportar(ProdutoExportService.Formato.NDJSON, saida);
+
+		String[] linhas = saida.toString(StandardCharsets.UTF_8).split("\n");
+		assertEquals(TOTAL, exportados);
+		assertEquals(TOTAL, linhas.length);
+		JsonNode primeiro = objectMapper.readTree(linhas[0]);
+		assertEquals("Produto 0", primeiro.get("nome").asText());
+		assertEquals("Produto " + (TOTAL - 1), objectMapper.readTree(linhas[TOTAL - 1]).get("nome").asText());
+	}
+
+	@Test
+	void exportaCsvComCabecalhoECamposEscapados() throws Exception {
+		ByteArrayOutputStream saida = new ByteArrayOutputStream();
+
+		exportService.exportar(ProdutoExportService.Formato.CSV, saida);
+
+		String csv = saida.toString(StandardCharsets.UTF_8);
+		assertTrue(csv.startsWith("id,nome,descricao,preco,quantidadeEstoque,dataCriacao\n"));
+		assertTrue(csv.contains(",\"Descrição com vírgula, \"\"aspas\"\"\ne quebra de linha\","));
+	}
+
+	@Test
+	void naoAcumulaEntidadesNoContextoDePersistencia() throws Exception {
+		// O teste roda na mesma transação do serviço, então enxerga o mesmo contexto de persistência.
+		exportService.exportar(ProdutoExportService.Formato.NDJSON, new ByteArrayOutputStream());
+
+		int entidadesGerenciadas = entityManager.unwrap(Session.class).getStatistics().getEntityCount();
+		assertTrue(entidadesGerenciadas <= ProdutoExportService.LIMPAR_A_CADA,
+				"O contexto de persistência reteve " + entidadesGerenciadas + " entidades");
+	}
+
+	@Test
+	void naoPassaOCatalogoPeloCacheDeSegundoNivel() throws Exception {
+		// O cache só recebe entidades de transações confirmadas: o catálogo do teste é gravado de verdade.
+		TestTransaction.flagForCommit();
+		TestTransaction.end();
+		try {
+			List<Long> ids = entityManager.createQuery("select p.id from Modelo_Produto p", Long.class).getResultList();
+			Cache cache = entityManager.getEntityManagerFactory().getCache();
+			cache.evictAll();
+			produtoRepository.findById(ids.get(0)); // Um produto muito lido, já no cache.
+			assertTrue(cache.contains(Modelo_Produto.class, ids.get(0)));
+
+			exportService.exportar(ProdutoExportService.Formato.NDJSON, new ByteArrayOutputStream());
+
+			// Os produtos exportados não entraram no cache, e o que já estava lá continua.
+			assertEquals(1, ids.stream().filter(id -> cache.contains(Modelo_Produto.class, id)).count());
+			assertTrue(cache.contains(Modelo_Produto.class, ids.get(0)));
+		} finally {
+			produtoRepository.deleteAllInBatch();
+		}
+	}
+}
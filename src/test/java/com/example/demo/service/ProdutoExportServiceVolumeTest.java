@@ -0,0 +1,103 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.OutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Exportação de um milhão de produtos com o heap limitado a 64 MB (-Xmx64m na execução "volume" do surefire):
+ * se o serviço retivesse as linhas lidas (no contexto de persistência, no cache ou na saída), o teste terminaria
+ * em OutOfMemoryError. O ProdutoExportServiceTest continua sendo a verificação rápida do build padrão.
+ * O H2 grava em arquivo, com cache pequeno, para que a tabela não fique no heap; um resultado acima de
+ * MAX_MEMORY_ROWS também vai para um arquivo temporário.
+ * Fica fora do build padrão (tag "volume"); execute com: mvn -Pvolume verify
+ */
+@Tag("volume")
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:file:./target/h2-exportacao-volume;CACHE_SIZE=8192",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(ProdutoExportService.class)
+// Sem a transação do teste: a carga é confirmada em blocos e a exportação abre a sua própria transação.
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProdutoExportServiceVolumeTest {
+
+	private static final int TOTAL = 1_000_000;
+	private static final int BLOCO = 100_000;
+
+	@Autowired
+	private ProdutoExportService exportService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void popularCatalogo() {
+		// A exportação lê pela chave primária; com os índices secundários, a carga levaria minutos.
+		jdbcTemplate.queryForList("select index_name from information_schema.indexes where table_name = 'PRODUCTS' "
+						+ "and index_type_name <> 'PRIMARY KEY'", String.class)
+				.forEach(indice -> jdbcTemplate.execute("drop index " + indice));
+		// Gerado pelo próprio H2 (SYSTEM_RANGE), sem passar as linhas pelo heap do teste.
+		for (int inicio = 1; inicio <= TOTAL; inicio += BLOCO) {
+			jdbcTemplate.update("insert into products (id, nome, descricao, preco, stock_quantity, creation_date, version) "
+					+ "select x, concat('Produto ', x), case when mod(x, 10) = 0 then 'Descrição do produto' end, "
+					+ "10.0 + mod(x, 1000), 1 + mod(x, 50), current_timestamp, 0 from system_range(?, ?)",
+					inicio, inicio + BLOCO - 1);
+		}
+	}
+
+	@Test
+	void exportaUmMilhaoDeLinhasComHeapLimitado() throws Exception {
+		ContadorDeSaida saida = new ContadorDeSaida();
+
+		long exportados = exportService.exportar(ProdutoExportService.Formato.NDJSON, saida);
+
+		assertEquals(TOTAL, exportados);
+		assertEquals(TOTAL, saida.linhas);
+		long heapMaximo = Runtime.getRuntime().maxMemory();
+		System.out.printf("Exportação: %d linhas, %d MB escritos, heap máximo de %d MB%n",
+				saida.linhas, saida.bytes >> 20, heapMaximo >> 20);
+		// A saída é muito maior que o heap: ela não pode ter sido acumulada em memória.
+		assertTrue(saida.bytes > heapMaximo, "Saída de " + saida.bytes + " bytes para um heap de " + heapMaximo);
+	}
+
+	// Descarta o que recebe, contando os bytes e as quebras de linha.
+	private static final class ContadorDeSaida extends OutputStream {
+
+		private long bytes;
+		private long linhas;
+
+		@Override
+		public void write(int b) {
+			bytes++;
+			if (b == '\n') {
+				linhas++;
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			bytes += len;
+			for (int i = off; i < off + len; i++) {
+				if (b[i] == '\n') {
+					linhas++;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,220 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ProdutoPatchDTO;
+import com.example.demo.dto.ProdutoRequestDTO;
+import com.example.demo.models.Usuario;
+import com.example.demo.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Feed de alterações (GET /produtos/stream) por HTTP, com a aplicação em uma porta aleatória.
+ * As conexões são lidas por um HttpClient assíncrono com poucas threads, então as threads da JVM
+ * mostram se o servidor precisou de uma thread por conexão.
+ */
+// Sem as proteções do SecurityFilter: as mil conexões são do mesmo usuário (o limite recusaria a partir da 5ª)
+// e chegam juntas, antes de o usuário estar em cache (a espera pelo pool do H2 ligaria o descarte de carga).
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"api.security.rate-limit.enabled=false", "api.security.load-shedding.enabled=false"})
+class ProdutoFeedServiceTest {
+
+	private static final int ASSINANTES = 1_000;
+
+	@LocalServerPort
+	private int porta;
+
+	@Autowired
+	private Modelo_ProdutoService produtoService;
+
+	@Autowired
+	private ProdutoFeedService feedService;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private TokenService tokenService;
+
+	private ExecutorService executor;
+	private HttpClient cliente;
+	private String token;
+	private final List<Conexao> conexoes = new ArrayList<>();
+
+	@BeforeEach
+	void preparar() {
+		Usuario usuario = usuarioRepository.findByLogin("painel") instanceof Usuario existente
+				? existente : usuarioRepository.save(new Usuario(null, "painel", "x"));
+		token = tokenService.gerarToken(usuario);
+		executor = Executors.newFixedThreadPool(2);
+		cliente = HttpClient.newBuilder().executor(executor).version(HttpClient.Version.HTTP_1_1).build();
+	}
+
+	@AfterEach
+	void encerrar() {
+		conexoes.forEach(Conexao::fechar);
+		executor.shutdownNow();
+	}
+
+	@Test
+	void milAssinantesRecebemAsAlteracoesSemUmaThreadPorConexao() throws Exception {
+		int threadsAntes = Thread.activeCount();
+		for (int i = 0; i < ASSINANTES; i++) {
+			conectar(null);
+		}
+		for (Conexao conexao : conexoes) {
+			assertTrue(conexao.snapshot.await(30, TimeUnit.SECONDS), "Assinante sem o evento 'snapshot'");
+		}
+		assertEquals(ASSINANTES, feedService.getAssinantes());
+		int threadsComConexoes = Thread.activeCount();
+
+		long inicio = System.nanoTime();
+		Long id = produtoService.save(new ProdutoRequestDTO("Produto novo", null, 10.0, 3)).id();
+		for (Conexao conexao : conexoes) {
+			assertTrue(conexao.alteracao.await(30, TimeUnit.SECONDS), "Assinante sem o evento 'criado'");
+		}
+		System.out.printf("Feed: %d assinantes receberam a criação em %d ms; threads na JVM: %d antes das conexões, %d com elas%n",
+				ASSINANTES, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio), threadsAntes, threadsComConexoes);
+
+		String inicioDoEvento = "data:{\"tipo\":\"criado\",\"id\":" + id + ",\"produto\":{\"id\":" + id
+				+ ",\"nome\":\"Produto novo\",\"descricao\":null,\"preco\":10.0,\"quantidadeEstoque\":3,";
+		assertTrue(conexoes.get(0).linhas.stream().anyMatch(linha -> linha.startsWith(inicioDoEvento)), "Evento sem o produto");
+		// O Tomcat tem no máximo 200 threads de requisição (que ele cria na rajada de conexões): mil conexões abertas
+		// só recebem o snapshot porque a requisição devolve a thread assim que o SseEmitter é criado.
+		assertTrue(threadsComConexoes - threadsAntes < ASSINANTES / 2, "As conexões abertas criaram threads: " + (threadsComConexoes - threadsAntes));
+	}
+
+	@Test
+	void reconexaoComLastEventIdRecebeOsEventosPerdidos() throws Exception {
+		Conexao primeira = conectar(null);
+		assertTrue(primeira.snapshot.await(10, TimeUnit.SECONDS));
+		String cursor = primeira.ultimoId();
+		primeira.fechar();
+
+		// Alterações enquanto o painel estava desconectado: uma criação e um PATCH (que não traz o produto no evento).
+		Long id = produtoService.save(new ProdutoRequestDTO("Perdido", null, 10.0, 3)).id();
+		produtoService.patch(id, new ProdutoPatchDTO(null, null, 12.5, null), null);
+
+		Conexao retomada = conectar(cursor);
+		assertTrue(retomada.alteracao.await(10, TimeUnit.SECONDS));
+		aguardar(() -> retomada.linhas.stream().filter(linha -> linha.startsWith("event:")).count() == 2);
+		List<String> eventos = retomada.linhas.stream().filter(linha -> linha.startsWith("event:")).toList();
+		assertEquals(List.of("event:criado", "event:atualizado"), eventos);
+		assertTrue(retomada.linhas.stream().anyMatch(linha -> linha.startsWith("data:{\"tipo\":\"atualizado\"") && linha.contains("\"preco\":12.5")),
+				"O evento do PATCH deveria trazer o produto alterado");
+
+		// Um id desconhecido (ex: de antes de um restart) recebe um novo snapshot.
+		Conexao desconhecida = conectar("outra-execucao-42");
+		assertTrue(desconhecida.snapshot.await(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void loteComAtualizacaoPublicaANovaVersao() throws Exception {
+		Long id = produtoService.save(new ProdutoRequestDTO("Antes do lote", null, 10.0, 3)).id();
+		Conexao conexao = conectar(null);
+		assertTrue(conexao.snapshot.await(10, TimeUnit.SECONDS));
+
+		String lote = "{\"operacoes\":[{\"operacao\":\"ATUALIZAR\",\"id\":" + id
+				+ ",\"produto\":{\"nome\":\"Pelo lote\",\"preco\":11.0,\"quantidadeEstoque\":4}}]}";
+		HttpResponse<String> resposta = cliente.send(HttpRequest.newBuilder(URI.create("http://localhost:" + porta + "/produtos/batch"))
+				.header("Authorization", "Bearer " + token)
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(lote))
+				.build(), HttpResponse.BodyHandlers.ofString());
+		assertEquals(200, resposta.statusCode());
+
+		// O evento leva o produto com a versão gravada pelo UPDATE, a mesma de uma leitura logo depois do lote.
+		assertTrue(conexao.alteracao.await(10, TimeUnit.SECONDS));
+		aguardar(() -> conexao.linhas.stream().anyMatch(linha -> linha.startsWith("data:{\"tipo\":\"atualizado\",\"id\":" + id + ",")));
+		String evento = conexao.linhas.stream()
+				.filter(linha -> linha.startsWith("data:{\"tipo\":\"atualizado\",\"id\":" + id + ",")).findFirst().orElseThrow();
+		assertEquals(1L, produtoService.findById(id).versao());
+		assertTrue(evento.contains("\"nome\":\"Pelo lote\"") && evento.contains("\"versao\":1"), evento);
+	}
+
+	private Conexao conectar(String ultimoEventoId) {
+		HttpRequest.Builder requisicao = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + "/produtos/stream"))
+				.header("Authorization", "Bearer " + token)
+				.header("Accept", "text/event-stream");
+		if (ultimoEventoId != null) {
+			requisicao.header("Last-Event-ID", ultimoEventoId);
+		}
+		Conexao conexao = new Conexao();
+		conexao.resposta = cliente.sendAsync(requisicao.build(), HttpResponse.BodyHandlers.fromLineSubscriber(conexao));
+		conexoes.add(conexao);
+		return conexao;
+	}
+
+	private static void aguardar(java.util.function.BooleanSupplier condicao) throws InterruptedException {
+		long limite = System.currentTimeMillis() + 10_000;
+		while (!condicao.getAsBoolean()) {
+			assertTrue(System.currentTimeMillis() < limite, "Condição não atingida em 10 s");
+			Thread.sleep(10);
+		}
+	}
+
+	// Guarda as linhas recebidas e sinaliza o 'snapshot' e o primeiro evento de alteração.
+	private static final class Conexao implements Flow.Subscriber<String> {
+
+		private final List<String> linhas = new CopyOnWriteArrayList<>();
+		private final CountDownLatch snapshot = new CountDownLatch(1);
+		private final CountDownLatch alteracao = new CountDownLatch(1);
+		private CompletableFuture<HttpResponse<Void>> resposta;
+		private Flow.Subscription assinatura;
+
+		@Override
+		public void onSubscribe(Flow.Subscription assinatura) {
+			this.assinatura = assinatura;
+			assinatura.request(Long.MAX_VALUE);
+		}
+
+		@Override
+		public void onNext(String linha) {
+			linhas.add(linha);
+			if (linha.equals("event:snapshot")) {
+				snapshot.countDown();
+			} else if (linha.startsWith("event:")) {
+				alteracao.countDown();
+			}
+		}
+
+		@Override
+		public void onError(Throwable erro) {
+		}
+
+		@Override
+		public void onComplete() {
+		}
+
+		String ultimoId() {
+			return linhas.stream().filter(linha -> linha.startsWith("id:")).reduce((a, b) -> b).orElseThrow().substring(3);
+		}
+
+		void fechar() {
+			if (assinatura != null) {
+				assinatura.cancel();
+			}
+			resposta.cancel(true);
+		}
+	}
+}
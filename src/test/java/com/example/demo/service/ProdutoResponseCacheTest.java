@@ -0,0 +1,92 @@
+package com.example.demo.service;
+
+import com.example.demo.service.events.ProdutoAlteradoEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Regras do cache de respostas, sem subir o contexto: acerto, remoção por espaço (menos usadas primeiro),
+ * expiração após a gravação e descarte de respostas lidas antes de uma alteração.
+ */
+class ProdutoResponseCacheTest {
+
+	// Cada entrada ocupa 1000 bytes de corpo + 256 de custo fixo.
+	private static final int CORPO = 1_000;
+
+	@Test
+	void acertoDevolveARespostaGravada() {
+		ProdutoResponseCache cache = cache(1_000_000, 60);
+		ProdutoResponseCache.Entrada entrada = entrada();
+		assertNull(cache.get("/produtos/1"));
+		cache.put("/produtos/1", 1L, entrada, cache.geracao());
+
+		assertSame(entrada, cache.get("/produtos/1"));
+		assertEquals(1, cache.getAcertos());
+		assertEquals(1, cache.getFaltas());
+		assertEquals(CORPO + 256, cache.getBytesOcupados());
+	}
+
+	@Test
+	void semEspacoSaemAsMenosUsadasRecentemente() {
+		// Cabem 10 entradas; ao passar do limite, a limpeza desce até 90% (9 entradas).
+		ProdutoResponseCache cache = cache(10 * (CORPO + 256), 60);
+		for (int i = 0; i < 10; i++) {
+			cache.put("/produtos/" + i, (long) i, entrada(), cache.geracao());
+		}
+		assertNotNull(cache.get("/produtos/0")); // A mais antiga passa a ser a de acesso mais recente.
+
+		cache.put("/produtos/10", 10L, entrada(), cache.geracao());
+		assertEquals(2, cache.getRemocoes());
+		assertNotNull(cache.get("/produtos/0"));
+		assertNull(cache.get("/produtos/1"));
+		assertNull(cache.get("/produtos/2"));
+		assertNotNull(cache.get("/produtos/3"));
+		assertNotNull(cache.get("/produtos/10"));
+		assertEquals(9L * (CORPO + 256), cache.getBytesOcupados());
+	}
+
+	@Test
+	void entradaExpiraDepoisDoTempoDeVida() throws InterruptedException {
+		ProdutoResponseCache cache = cache(1_000_000, 1);
+		cache.put("/produtos", null, entrada(), cache.geracao());
+		assertNotNull(cache.get("/produtos"));
+
+		Thread.sleep(1_100);
+		assertNull(cache.get("/produtos"));
+		assertEquals(1, cache.getExpiracoes());
+		assertEquals(0, cache.getBytesOcupados());
+	}
+
+	@Test
+	void alteracaoInvalidaOProdutoEAsListagensENaoAsDemaisRespostas() {
+		ProdutoResponseCache cache = cache(1_000_000, 60);
+		cache.put("/produtos/1", 1L, entrada(), cache.geracao());
+		cache.put("/produtos/2", 2L, entrada(), cache.geracao());
+		cache.put("/produtos?sort=preco", null, entrada(), cache.geracao());
+		long geracaoAntes = cache.geracao();
+
+		cache.aoAlterarProduto(ProdutoAlteradoEvent.removido(1L));
+		assertNull(cache.get("/produtos/1"));
+		assertNull(cache.get("/produtos?sort=preco"));
+		assertNotNull(cache.get("/produtos/2"));
+		assertEquals(2, cache.getInvalidacoes());
+
+		// Uma resposta gerada antes da alteração não é gravada depois dela.
+		cache.put("/produtos/1", 1L, entrada(), geracaoAntes);
+		assertNull(cache.get("/produtos/1"));
+	}
+
+	private static ProdutoResponseCache cache(long maxBytes, long ttlSegundos) {
+		return new ProdutoResponseCache(true, maxBytes, 1_048_576, ttlSegundos, "", 0);
+	}
+
+	private static ProdutoResponseCache.Entrada entrada() {
+		return new ProdutoResponseCache.Entrada(new byte[CORPO], "\"1-0\"", "application/json", Map.of());
+	}
+}
@@ -0,0 +1,108 @@
+package com.example.demo.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Busca por nome: índice de trigramas em memória versus o LIKE '%termo%' que o repositório
+ * executaria (aqui em um H2 embarcado, já que o benchmark não tem acesso ao MySQL).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ProdutoSearchIndexBenchmark {
+
+	private static final String[] TIPOS = {"Teclado", "Mouse", "Monitor", "Cadeira", "Mesa", "Headset", "Notebook",
+			"Webcam", "Microfone", "Caixa de som", "Impressora", "Roteador", "Pendrive", "Carregador", "Cabo HDMI",
+			"Tablet", "Smartphone", "Luminária", "Mousepad", "Suporte"};
+	private static final String[] VARIANTES = {"Gamer", "Sem Fio", "Ergonômico", "Compacto", "Profissional", "Básico",
+			"Premium", "Portátil", "Slim", "Turbo", "Azul", "Preto", "Branco", "Vermelho", "Prata", "Mini", "Max",
+			"Ultra", "Eco", "Plus", "Pro", "Lite", "Duo", "Neo", "Flex"};
+
+	@Param({"100000", "1000000"})
+	private int produtos;
+
+	// Um termo seletivo (poucas dezenas de resultados) e um intermediário (1 a cada 500 produtos).
+	@Param({"modelo 4217", "cadeira gamer"})
+	private String termo;
+
+	private ProdutoSearchIndex indice;
+	private Connection conexao;
+	private PreparedStatement consultaLike;
+
+	@Setup(Level.Trial)
+	public void preparar() throws Exception {
+		indice = new ProdutoSearchIndex(5_000);
+		indice.iniciarConstrucao();
+
+		conexao = DriverManager.getConnection("jdbc:h2:mem:busca-" + produtos + ";OPTIMIZE_REUSE_RESULTS=FALSE", "sa", "");
+		try (Statement ddl = conexao.createStatement()) {
+			ddl.execute("create table products (id bigint primary key, nome varchar(255) not null)");
+		}
+		try (PreparedStatement insert = conexao.prepareStatement("insert into products (id, nome) values (?, ?)")) {
+			for (int i = 1; i <= produtos; i++) {
+				String nome = nome(i);
+				indice.indexarDaCarga((long) i, nome, null);
+				insert.setLong(1, i);
+				insert.setString(2, nome);
+				insert.addBatch();
+				if (i % 1_000 == 0) {
+					insert.executeBatch();
+				}
+			}
+			insert.executeBatch();
+		}
+		indice.concluirConstrucao();
+
+		consultaLike = conexao.prepareStatement("select id from products where lower(nome) like ? escape '\\'");
+	}
+
+	@TearDown(Level.Trial)
+	public void encerrar() throws Exception {
+		conexao.close();
+	}
+
+	@Benchmark
+	public List<Long> indice() {
+		return indice.buscarIds(termo).orElseThrow();
+	}
+
+	@Benchmark
+	public List<Long> like() throws Exception {
+		consultaLike.setString(1, "%" + termo.toLowerCase() + "%");
+		List<Long> ids = new ArrayList<>();
+		try (ResultSet resultado = consultaLike.executeQuery()) {
+			while (resultado.next()) {
+				ids.add(resultado.getLong(1));
+			}
+		}
+		return ids;
+	}
+
+	private static String nome(int i) {
+		return TIPOS[i % TIPOS.length] + " " + VARIANTES[(i / TIPOS.length) % VARIANTES.length] + " Modelo " + i;
+	}
+}
@@ -0,0 +1,128 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Índice de trigramas: o que ele encontra e como as cargas completas convivem com os eventos de alteração.
+ */
+class ProdutoSearchIndexTest {
+
+	@Test
+	void encontraNoNomeOuNaDescricaoSemDiferenciarMaiusculasNemAcentos() {
+		ProdutoSearchIndex indice = carregado();
+		indice.indexar(1L, "Café Especial", null);
+		indice.indexar(2L, "Chá Verde", "Combina com CAFÉ da manhã");
+		indice.indexar(3L, "Açúcar", "Refinado");
+
+		assertEquals(List.of(1L, 2L), ordenados(indice.buscarIds("cafe")));
+		assertEquals(List.of(2L), ordenados(indice.buscarIds("MANHA")));
+		assertEquals(List.of(3L), ordenados(indice.buscarIds("acucar")));
+		// O termo não atravessa a fronteira entre o nome e a descrição.
+		assertEquals(List.of(), ordenados(indice.buscarIds("verdecombina")));
+		assertEquals(Optional.empty(), indice.buscarIds("ca")); // Curto demais: o chamador usa o LIKE.
+	}
+
+	@Test
+	void atualizacaoParcialTrocaSoOQueFoiInformado() {
+		ProdutoSearchIndex indice = carregado();
+		indice.indexar(1L, "Teclado", "Mecânico");
+
+		indice.atualizar(1L, null, "Silencioso");
+		assertEquals(List.of(1L), ordenados(indice.buscarIds("teclado")));
+		assertEquals(List.of(), ordenados(indice.buscarIds("mecanico")));
+		assertEquals(List.of(1L), ordenados(indice.buscarIds("silencioso")));
+
+		indice.atualizar(1L, "Mouse", null);
+		assertEquals(List.of(), ordenados(indice.buscarIds("teclado")));
+		assertEquals(List.of(1L), ordenados(indice.buscarIds("silencioso")));
+	}
+
+	@Test
+	void cargaNaoSobrescreveNemRessuscitaAlteracoesFeitasDuranteEla() {
+		ProdutoSearchIndex indice = new ProdutoSearchIndex(5_000);
+		indice.iniciarConstrucao();
+		// Eventos confirmados depois de a carga ter lido as linhas antigas.
+		indice.indexar(1L, "Monitor Novo", null);
+		indice.remover(2L);
+		indice.indexarDaCarga(1L, "Monitor Antigo", null);
+		indice.indexarDaCarga(2L, "Monitor Removido", null);
+		indice.concluirConstrucao();
+
+		assertEquals(List.of(1L), ordenados(indice.buscarIds("monitor")));
+		assertEquals(List.of(), ordenados(indice.buscarIds("antigo")));
+	}
+
+	@Test
+	void recargaTiraOQueSaiuDoBancoEMantemOQueFoiCriadoDuranteEla() {
+		ProdutoSearchIndex indice = carregado();
+		indice.indexar(1L, "Cadeira Um", null);
+		indice.indexar(2L, "Cadeira Dois", null);
+
+		// Outra instância removeu o 2 e renomeou o 1; o 3 foi criado aqui enquanto a recarga lia a tabela.
+		indice.iniciarConstrucao();
+		indice.indexar(3L, "Cadeira Três", null);
+		indice.indexarDaCarga(1L, "Cadeira Renomeada", null);
+		assertEquals(List.of(1L, 2L, 3L), ordenados(indice.buscarIds("cadeira"))); // Durante a recarga, responde com o que tem.
+		indice.concluirConstrucao();
+
+		assertEquals(List.of(1L, 3L), ordenados(indice.buscarIds("cadeira")));
+		assertEquals(List.of(1L), ordenados(indice.buscarIds("renomeada")));
+	}
+
+	@Test
+	void eventosConcorrentesComACargaPrevalecem() throws InterruptedException {
+		int produtos = 20_000;
+		ProdutoSearchIndex indice = new ProdutoSearchIndex(produtos);
+		indice.iniciarConstrucao();
+		CountDownLatch largada = new CountDownLatch(1);
+		Thread carga = new Thread(() -> {
+			aguardar(largada);
+			for (long id = 1; id <= produtos; id++) {
+				indice.indexarDaCarga(id, "Produto antigo " + id, null);
+			}
+		});
+		Thread eventos = new Thread(() -> {
+			aguardar(largada);
+			for (long id = 1; id <= produtos; id++) {
+				indice.indexar(id, "Produto novo " + id, null);
+			}
+		});
+		carga.start();
+		eventos.start();
+		largada.countDown();
+		carga.join();
+		eventos.join();
+		indice.concluirConstrucao();
+
+		assertEquals(List.of(), ordenados(indice.buscarIds("antigo")));
+		assertEquals(LongStream.rangeClosed(1, produtos).boxed().toList(), ordenados(indice.buscarIds("novo")));
+	}
+
+	private static ProdutoSearchIndex carregado() {
+		ProdutoSearchIndex indice = new ProdutoSearchIndex(5_000);
+		indice.iniciarConstrucao();
+		indice.concluirConstrucao();
+		assertTrue(indice.isPronto());
+		return indice;
+	}
+
+	private static List<Long> ordenados(Optional<List<Long>> ids) {
+		return ids.orElseThrow().stream().sorted().toList();
+	}
+
+	private static void aguardar(CountDownLatch largada) {
+		try {
+			largada.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
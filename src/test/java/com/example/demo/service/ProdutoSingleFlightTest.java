@@ -0,0 +1,242 @@
+package com.example.demo.service;
+
+import com.example.demo.config.JanelaDeLeituraPropria;
+import com.example.demo.dto.ProdutoFiltroDTO;
+import com.example.demo.dto.ProdutoRequestDTO;
+import com.example.demo.dto.ProdutoResponseDTO;
+import com.example.demo.repository.ProdutoRepository;
+import com.example.demo.service.exceptions.ResourceNotFoundException;
+import com.example.demo.service.exceptions.ServiceUnavailableException;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Coalescência das leituras de produtos: muitas threads pedindo a mesma listagem ou o mesmo produto ao mesmo tempo.
+ * O ProdutoSingleFlight consulta o serviço real por um mock que conta as chamadas e permite segurar a consulta
+ * em andamento; os comandos SQL são contados pelas estatísticas do Hibernate.
+ */
+// Sem o cache de consultas do Hibernate: cada chamada ao serviço executa o SELECT, e a contagem mostra só a coalescência.
+@DataJpaTest(properties = {"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"spring.jpa.properties.hibernate.cache.use_query_cache=false"})
+@Import({Modelo_ProdutoService.class, ProdutoSearchIndex.class, ProdutoSingleFlightTest.Configuracao.class})
+// As alterações precisam de commit para avançar a geração: o teste não pode ter uma transação aberta.
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProdutoSingleFlightTest {
+
+	private static final int THREADS = 32;
+
+	@TestConfiguration
+	static class Configuracao {
+
+		@Bean
+		ProdutoSingleFlight produtoSingleFlight(Modelo_ProdutoService produtoService, ObjectProvider<JanelaDeLeituraPropria> janela) {
+			return new ProdutoSingleFlight(mock(Modelo_ProdutoService.class, delegatesTo(produtoService)), janela, true, 2_000);
+		}
+	}
+
+	@Autowired
+	private Modelo_ProdutoService produtoService;
+
+	@Autowired
+	private ProdutoSingleFlight singleFlight;
+
+	@Autowired
+	private ProdutoRepository produtoRepository;
+
+	@Autowired
+	private ObjectProvider<JanelaDeLeituraPropria> janela;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	// O mock por onde o ProdutoSingleFlight chega ao serviço.
+	private Modelo_ProdutoService consultas;
+	private ExecutorService pool;
+
+	@BeforeEach
+	void preparar() {
+		consultas = (Modelo_ProdutoService) ReflectionTestUtils.getField(singleFlight, "produtoService");
+		reset(consultas);
+		produtoRepository.deleteAllInBatch();
+		pool = Executors.newFixedThreadPool(THREADS);
+		for (int i = 0; i < 50; i++) {
+			produtoService.save(new ProdutoRequestDTO("Produto " + i, null, 10.0 + i, i + 1));
+		}
+	}
+
+	@AfterEach
+	void encerrar() {
+		pool.shutdownNow();
+	}
+
+	@Test
+	void leiturasIdenticasSimultaneasFazemUmaUnicaConsulta() throws Exception {
+		Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		long antes = estatisticas.getPrepareStatementCount();
+		produtoService.findAll(null, ProdutoFiltroDTO.NENHUM, "preco,desc");
+		long comandosPorConsulta = estatisticas.getPrepareStatementCount() - antes;
+
+		// Sem coalescência, cada requisição faz a sua consulta.
+		ProdutoSingleFlight desligado = new ProdutoSingleFlight(produtoService, janela, false, 2_000);
+		antes = estatisticas.getPrepareStatementCount();
+		rebanho(() -> desligado.findAll(null, ProdutoFiltroDTO.NENHUM, "preco,desc"));
+		long comandosSemCoalescencia = estatisticas.getPrepareStatementCount() - antes;
+
+		// A primeira consulta só prossegue quando todas as outras requisições estão esperando por ela.
+		long compartilhadasAntes = singleFlight.getConsultasCompartilhadas();
+		doAnswer(chamada -> {
+			aguardar(() -> singleFlight.getConsultasCompartilhadas() - compartilhadasAntes == THREADS - 1);
+			return produtoService.findAll(chamada.getArgument(0), chamada.getArgument(1), chamada.getArgument(2));
+		}).when(consultas).findAll(any(), any(), any());
+		antes = estatisticas.getPrepareStatementCount();
+		List<List<ProdutoResponseDTO>> resultados = rebanho(() -> singleFlight.findAll(null, ProdutoFiltroDTO.NENHUM, "preco,desc"));
+		long comandosComCoalescencia = estatisticas.getPrepareStatementCount() - antes;
+
+		System.out.printf("Single-flight: %d leituras idênticas = %d comandos SQL sem coalescência, %d com%n",
+				THREADS, comandosSemCoalescencia, comandosComCoalescencia);
+		verify(consultas, times(1)).findAll(null, ProdutoFiltroDTO.NENHUM, "preco,desc");
+		assertEquals(THREADS * comandosPorConsulta, comandosSemCoalescencia);
+		assertEquals(comandosPorConsulta, comandosComCoalescencia);
+		resultados.forEach(produtos -> assertEquals(resultados.get(0), produtos));
+		assertEquals(50, resultados.get(0).size());
+		assertThrows(UnsupportedOperationException.class, () -> resultados.get(0).clear());
+
+		// Terminada a consulta, nada fica guardado: a próxima leitura vai ao banco.
+		clearInvocations(consultas);
+		singleFlight.findAll(null, ProdutoFiltroDTO.NENHUM, "preco,desc");
+		verify(consultas, times(1)).findAll(null, ProdutoFiltroDTO.NENHUM, "preco,desc");
+	}
+
+	@Test
+	void oErroDaConsultaChegaATodasAsRequisicoes() throws Exception {
+		long compartilhadasAntes = singleFlight.getConsultasCompartilhadas();
+		doAnswer(chamada -> {
+			aguardar(() -> singleFlight.getConsultasCompartilhadas() - compartilhadasAntes == THREADS - 1);
+			return produtoService.findById(chamada.getArgument(0));
+		}).when(consultas).findById(anyLong());
+
+		List<Future<ProdutoResponseDTO>> futuros = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			futuros.add(pool.submit(() -> singleFlight.findById(-1L)));
+		}
+		for (Future<ProdutoResponseDTO> futuro : futuros) {
+			ExecutionException erro = assertThrows(ExecutionException.class, () -> futuro.get(10, TimeUnit.SECONDS));
+			assertInstanceOf(ResourceNotFoundException.class, erro.getCause());
+		}
+		verify(consultas, times(1)).findById(-1L);
+	}
+
+	@Test
+	void leituraDepoisDeUmaAlteracaoConfirmadaNaoAproveitaAConsultaAnterior() throws Exception {
+		CountDownLatch consultaIniciada = new CountDownLatch(1);
+		CountDownLatch liberar = new CountDownLatch(1);
+		doAnswer(chamada -> {
+			List<ProdutoResponseDTO> produtos = produtoService.findAll(chamada.getArgument(0), chamada.getArgument(1), chamada.getArgument(2));
+			consultaIniciada.countDown();
+			liberar.await(10, TimeUnit.SECONDS);
+			return produtos;
+		}).doAnswer(delegatesTo(produtoService)).when(consultas).findAll(any(), any(), any());
+
+		// Uma consulta já leu os produtos e ainda não respondeu quando um novo produto é gravado.
+		Future<List<ProdutoResponseDTO>> anterior = pool.submit(() -> singleFlight.findAll(null, ProdutoFiltroDTO.NENHUM, null));
+		assertTrue(consultaIniciada.await(10, TimeUnit.SECONDS));
+		produtoService.save(new ProdutoRequestDTO("Produto novo", null, 99.0, 1));
+
+		// Quem chega depois do commit faz a sua própria consulta e vê o produto novo.
+		List<ProdutoResponseDTO> depois = singleFlight.findAll(null, ProdutoFiltroDTO.NENHUM, null);
+		liberar.countDown();
+		List<ProdutoResponseDTO> antes = anterior.get(10, TimeUnit.SECONDS);
+		assertEquals(50, antes.size());
+		assertEquals(51, depois.size());
+		assertNotSame(antes, depois);
+		verify(consultas, times(2)).findAll(null, ProdutoFiltroDTO.NENHUM, null);
+	}
+
+	@Test
+	void quemEsperaDemaisRecebe503EAConsultaContinua() throws Exception {
+		ProdutoSingleFlight impaciente = new ProdutoSingleFlight(consultas, janela, true, 50);
+		CountDownLatch consultaIniciada = new CountDownLatch(1);
+		CountDownLatch liberar = new CountDownLatch(1);
+		doAnswer(chamada -> {
+			consultaIniciada.countDown();
+			liberar.await(10, TimeUnit.SECONDS);
+			return produtoService.findById(chamada.getArgument(0));
+		}).when(consultas).findById(anyLong());
+		Long id = produtoService.findAll(null, ProdutoFiltroDTO.NENHUM, null).get(0).id();
+
+		Future<ProdutoResponseDTO> primeira = pool.submit(() -> impaciente.findById(id));
+		assertTrue(consultaIniciada.await(10, TimeUnit.SECONDS));
+		assertThrows(ServiceUnavailableException.class, () -> impaciente.findById(id));
+		assertEquals(1, impaciente.getEsperasEsgotadas());
+
+		liberar.countDown();
+		assertEquals(id, primeira.get(10, TimeUnit.SECONDS).id());
+		verify(consultas, times(1)).findById(id);
+	}
+
+	// Dispara a mesma leitura em todas as threads ao mesmo tempo e devolve os resultados.
+	private <T> List<T> rebanho(Callable<T> leitura) throws Exception {
+		CountDownLatch largada = new CountDownLatch(1);
+		List<Future<T>> futuros = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			futuros.add(pool.submit(() -> {
+				largada.await();
+				return leitura.call();
+			}));
+		}
+		largada.countDown();
+		List<T> resultados = new ArrayList<>();
+		for (Future<T> futuro : futuros) {
+			resultados.add(futuro.get(30, TimeUnit.SECONDS));
+		}
+		return resultados;
+	}
+
+	private static void aguardar(BooleanSupplier condicao) throws InterruptedException {
+		long limite = System.currentTimeMillis() + 10_000;
+		while (!condicao.getAsBoolean()) {
+			assertTrue(System.currentTimeMillis() < limite, "Condição não atingida em 10 s");
+			Thread.sleep(1);
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ReservaEstoqueDTO;
+import com.example.demo.models.Modelo_Produto;
+import com.example.demo.repository.ProdutoRepository;
+import com.example.demo.service.exceptions.ConflictException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Estresse de uma promoção relâmpago: muitas threads reservando, liberando e confirmando o mesmo produto.
+ * Verifica que nada é vendido além do estoque, que nenhuma reserva confirmada se perde e que as baixas
+ * simultâneas viram poucos UPDATEs no banco.
+ */
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"estoque.reservas.faixas=8"
+})
+@Import(ReservaEstoqueService.class)
+// A thread de escrita usa as suas próprias transações: o produto precisa estar gravado, não na transação do teste.
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReservaEstoqueServiceStressTest {
+
+	private static final int ESTOQUE = 5_000;
+	private static final int THREADS = 32;
+
+	@Autowired
+	private ReservaEstoqueService reservaService;
+
+	@Autowired
+	private ProdutoRepository produtoRepository;
+
+	@Test
+	void produtoDisputadoNuncaVendeMaisQueOEstoque() throws Exception {
+		Modelo_Produto produto = new Modelo_Produto();
+		produto.setNome("Produto em promoção");
+		produto.setPreco(9.9);
+		produto.setQuantidadeEstoque(ESTOQUE);
+		produto.setDataCriacao(LocalDateTime.now());
+		Long id = produtoRepository.save(produto).getId();
+
+		LongAdder vendidas = new LongAdder();
+		LongAdder liberadas = new LongAdder();
+		CountDownLatch largada = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> clientes = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			String cliente = "cliente-" + i;
+			clientes.add(pool.submit(() -> {
+				largada.await();
+				// Cada cliente compra uma unidade por vez até o estoque acabar; 1 em cada 10 desiste e libera a reserva.
+				while (true) {
+					ReservaEstoqueDTO reserva;
+					try {
+						reserva = reservaService.reservar(id, 1, cliente);
+					} catch (ConflictException esgotado) {
+						return null;
+					}
+					if (ThreadLocalRandom.current().nextInt(10) == 0) {
+						reservaService.liberar(reserva.id(), cliente);
+						liberadas.increment();
+					} else {
+						reservaService.confirmar(reserva.id(), cliente);
+						vendidas.increment();
+					}
+				}
+			}));
+		}
+
+		long inicio = System.nanoTime();
+		largada.countDown();
+		for (Future<?> cliente : clientes) {
+			cliente.get(); // Propaga qualquer falha (ex: confirmação recusada ou 503).
+		}
+		double segundos = (System.nanoTime() - inicio) / 1e9;
+		pool.shutdown();
+
+		int estoqueFinal = produtoRepository.findQuantidadeEstoqueById(id).orElseThrow();
+		System.out.printf("Reservas de estoque: %d vendidas e %d liberadas em %.2f s (%.0f confirmações/s); "
+						+ "%d UPDATEs em %d lotes%n", vendidas.sum(), liberadas.sum(), segundos, vendidas.sum() / segundos,
+				reservaService.getComandosDeBaixa(), reservaService.getLotesGravados());
+
+		// Todo o estoque foi vendido, nenhuma unidade a mais, e o banco reflete exatamente as confirmações.
+		assertEquals(ESTOQUE, vendidas.sum());
+		assertEquals(0, estoqueFinal);
+		assertEquals(0, reservaService.getBaixasRecusadas());
+		assertEquals(0, reservaService.getReservasAtivas());
+		// As confirmações simultâneas foram agrupadas: menos UPDATEs que vendas.
+		assertTrue(reservaService.getComandosDeBaixa() < vendidas.sum());
+		// Cada UPDATE aceito incrementou a versão do produto uma única vez.
+		assertEquals(reservaService.getComandosDeBaixa(), produtoRepository.findVersaoById(id).orElseThrow());
+	}
+}
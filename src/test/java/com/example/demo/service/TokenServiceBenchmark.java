@@ -0,0 +1,75 @@
+package com.example.demo.service;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.example.demo.models.Usuario;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo da emissão e da validação de tokens JWT.
+ * getSubjectSemCache reproduz a validação antiga (algoritmo e verificador criados a cada chamada),
+ * como referência para o cache de tokens verificados.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenServiceBenchmark {
+
+	private static final String SEGREDO = "segredo-usado-apenas-no-benchmark";
+
+	private TokenService tokenService;
+	private JWTVerifier verificador;
+	private Usuario usuario;
+	private String token;
+
+	@Setup
+	public void preparar() {
+		tokenService = new TokenService();
+		ReflectionTestUtils.setField(tokenService, "secret", SEGREDO);
+		ReflectionTestUtils.setField(tokenService, "maxTokensEmCache", 10_000);
+		ReflectionTestUtils.setField(tokenService, "meterRegistry", new CompositeMeterRegistry());
+		tokenService.inicializar();
+
+		verificador = JWT.require(Algorithm.HMAC256(SEGREDO)).withIssuer("API Produtos").build();
+		usuario = new Usuario(1L, "benchmark", "senha");
+		token = tokenService.gerarToken(usuario);
+		tokenService.getSubject(token);
+	}
+
+	@Benchmark
+	public String gerarToken() {
+		return tokenService.gerarToken(usuario);
+	}
+
+	@Benchmark
+	public String getSubject() {
+		return tokenService.getSubject(token);
+	}
+
+	@Benchmark
+	public String verificarAssinatura() {
+		return verificador.verify(token).getSubject();
+	}
+
+	@Benchmark
+	public String getSubjectSemCache() {
+		return JWT.require(Algorithm.HMAC256(SEGREDO)).withIssuer("API Produtos").build().verify(token).getSubject();
+	}
+}
@@ -0,0 +1,94 @@
+package com.example.demo.service;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.example.demo.models.Usuario;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cache de tokens verificados do TokenService, sem subir o contexto: acerto sem nova verificação da assinatura,
+ * recusa a partir do 'exp' mesmo para tokens em cache, limite de tamanho e a exceção dos tokens inválidos.
+ */
+class TokenServiceTest {
+
+	private static final String SEGREDO = "segredo-usado-apenas-no-teste";
+
+	private TokenService tokenService;
+
+	@BeforeEach
+	void preparar() {
+		tokenService = new TokenService();
+		ReflectionTestUtils.setField(tokenService, "secret", SEGREDO);
+		ReflectionTestUtils.setField(tokenService, "maxTokensEmCache", 10);
+		ReflectionTestUtils.setField(tokenService, "meterRegistry", new CompositeMeterRegistry());
+		ReflectionTestUtils.invokeMethod(tokenService, "inicializar");
+	}
+
+	@Test
+	void segundaValidacaoVemDoCacheSemVerificarAAssinatura() {
+		String token = tokenService.gerarToken(new Usuario(7L, "cliente", "senha"));
+
+		TokenService.TokenVerificado primeira = tokenService.verificar(token);
+		TokenService.TokenVerificado segunda = tokenService.verificar(token);
+
+		assertEquals(primeira, segunda);
+		assertEquals("cliente", segunda.subject());
+		assertEquals(7L, segunda.id());
+		assertEquals(1, tokenService.getVerificacoesAssinatura());
+		assertEquals(1, tokenService.getAcertosCache());
+	}
+
+	@Test
+	void tokenEmCacheDeixaDeValerNoExp() throws InterruptedException {
+		// O 'exp' tem precisão de segundos: o token vale até o início do segundo seguinte ao próximo.
+		Instant expiracao = Instant.now().plusSeconds(2).truncatedTo(ChronoUnit.SECONDS);
+		String token = token("cliente", expiracao);
+		assertEquals(expiracao.toEpochMilli(), tokenService.verificar(token).expiraEm());
+
+		Thread.sleep(Math.max(0, expiracao.toEpochMilli() - System.currentTimeMillis()) + 50);
+		assertThrows(JWTVerificationException.class, () -> tokenService.verificar(token));
+		// Recusado pelo cache, sem nova verificação da assinatura; a entrada sai do cache.
+		assertEquals(1, tokenService.getVerificacoesAssinatura());
+		assertEquals(1, tokenService.getTokensRecusados());
+		assertEquals(0, tokenService.getTamanhoCache());
+	}
+
+	@Test
+	void cacheNaoPassaDoTamanhoMaximo() {
+		for (int i = 0; i < 25; i++) {
+			String token = tokenService.gerarToken(new Usuario((long) i, "cliente" + i, "senha"));
+			assertEquals("cliente" + i, tokenService.verificar(token).subject());
+			assertTrue(tokenService.getTamanhoCache() <= 10, "Cache com " + tokenService.getTamanhoCache() + " tokens");
+		}
+		assertEquals(25, tokenService.getVerificacoesAssinatura());
+	}
+
+	@Test
+	void tokenInvalidoLancaJWTVerificationException() {
+		String token = tokenService.gerarToken(new Usuario(7L, "cliente", "senha"));
+		String adulterado = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+		assertThrows(JWTVerificationException.class, () -> tokenService.verificar(adulterado));
+		assertThrows(JWTVerificationException.class, () -> tokenService.verificar("nao-e-um-jwt"));
+		assertThrows(JWTVerificationException.class, () -> tokenService.verificar(token("cliente", Instant.now().minusSeconds(5))));
+		assertEquals(3, tokenService.getTokensRecusados());
+		assertEquals(0, tokenService.getTamanhoCache());
+	}
+
+	// Token assinado com o mesmo segredo e emissor do TokenService, com a expiração informada.
+	private static String token(String login, Instant expiracao) {
+		return JWT.create().withIssuer("API Produtos").withSubject(login).withExpiresAt(expiracao)
+				.sign(Algorithm.HMAC256(SEGREDO));
+	}
+}
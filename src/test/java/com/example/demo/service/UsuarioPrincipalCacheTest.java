@@ -0,0 +1,99 @@
+package com.example.demo.service;
+
+import com.example.demo.models.Usuario;
+import com.example.demo.repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Cache de usuários autenticados: as requisições seguintes do mesmo usuário não consultam o banco,
+ * e a alteração de um Usuario (pelo UsuarioCacheListener) tira a entrada antiga do cache antes do TTL.
+ */
+@SpringBootTest(properties = {"api.security.rate-limit.enabled=false", "api.security.load-shedding.enabled=false"})
+@AutoConfigureMockMvc
+class UsuarioPrincipalCacheTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UsuarioPrincipalCache cache;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private TokenService tokenService;
+
+	private Usuario usuario;
+
+	@BeforeEach
+	void preparar() {
+		// Um login por teste: o contexto (e o cache) é compartilhado com as outras classes de teste.
+		usuario = usuarioRepository.save(new Usuario(null, "principal-" + System.nanoTime(), "senha"));
+	}
+
+	@Test
+	void requisicoesSeguintesNaoConsultamOBanco() throws Exception {
+		String token = tokenService.gerarToken(usuario);
+		long consultasAntes = cache.getConsultasAoBanco();
+		long evitadasAntes = cache.getConsultasEvitadasPorCache();
+
+		for (int i = 0; i < 3; i++) {
+			mockMvc.perform(get("/produtos").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+					.andExpect(status().isOk());
+		}
+
+		assertEquals(consultasAntes + 1, cache.getConsultasAoBanco());
+		assertEquals(evitadasAntes + 2, cache.getConsultasEvitadasPorCache());
+	}
+
+	@Test
+	void alteracaoDoUsuarioTiraAEntradaDoCache() {
+		AtomicInteger carregamentos = new AtomicInteger();
+		assertEquals("senha", buscar(usuario.getLogin(), carregamentos).getPassword());
+		assertEquals("senha", buscar(usuario.getLogin(), carregamentos).getPassword());
+		assertEquals(1, carregamentos.get());
+
+		Usuario alterado = usuarioRepository.findById(usuario.getId()).orElseThrow();
+		alterado.atualizarSenha("senha-nova");
+		usuarioRepository.save(alterado);
+
+		// Dentro do TTL, a próxima busca volta ao banco e vê a senha nova.
+		assertEquals("senha-nova", buscar(usuario.getLogin(), carregamentos).getPassword());
+		assertEquals(2, carregamentos.get());
+	}
+
+	@Test
+	void trocaDeLoginTiraAEntradaDoLoginAntigo() {
+		AtomicInteger carregamentos = new AtomicInteger();
+		String loginAntigo = usuario.getLogin();
+		buscar(loginAntigo, carregamentos);
+
+		usuarioRepository.save(new Usuario(usuario.getId(), loginAntigo + "-renomeado", "senha"));
+
+		assertNull(buscar(loginAntigo, carregamentos));
+		assertEquals(2, carregamentos.get());
+	}
+
+	// Busca pelo cache, contando as idas ao banco.
+	private UserDetails buscar(String login, AtomicInteger carregamentos) {
+		return cache.buscar(login, l -> {
+			carregamentos.incrementAndGet();
+			return usuarioRepository.findByLogin(l);
+		});
+	}
+}
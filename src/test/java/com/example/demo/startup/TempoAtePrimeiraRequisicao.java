@@ -0,0 +1,142 @@
+package com.example.demo.startup;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Mede o tempo entre iniciar a JVM da aplicação e a primeira resposta 200 de GET /actuator/health
+ * (que inclui a verificação do banco), comparando o jar padrão com o modo de subida rápida (perfil Maven "fast-startup").
+ * Cada rodada sobe uma vez cada variante, alternando-as, e a primeira rodada é descartada (cache de disco frio).
+ * O banco é um H2 em memória, para que o tempo medido seja o da aplicação e não o da rede; argumentos extras
+ * são repassados à aplicação (ex: --spring.datasource.url=... para medir contra o MySQL).
+ * Execute com: mvn -Pfast-startup verify -Dstartup.medicao.skip=false [-Dstartup.medicao.execucoes=5]
+ * A saída de cada subida fica em target/fast-startup/medicao-&lt;variante&gt;.log.
+ */
+public final class TempoAtePrimeiraRequisicao {
+
+	private static final Duration LIMITE = Duration.ofMinutes(2);
+
+	/**
+	 * Uma forma de subir a aplicação.
+	 * @param nome Nome no relatório.
+	 * @param comando Comando da JVM (sem os argumentos da aplicação).
+	 */
+	private record Variante(String nome, List<String> comando) {
+	}
+
+	private TempoAtePrimeiraRequisicao() {
+	}
+
+	/**
+	 * @param args jar empacotado, diretório extraído pelo perfil "fast-startup", número de rodadas medidas
+	 *             e, opcionalmente, argumentos extras para a aplicação.
+	 */
+	public static void main(String[] args) throws Exception {
+		Path jar = Path.of(args[0]).toAbsolutePath();
+		Path diretorio = Path.of(args[1]).toAbsolutePath();
+		int execucoes = Integer.parseInt(args[2]);
+		List<String> extras = Arrays.asList(args).subList(3, args.length);
+
+		// O driver do H2 vem do classpath de teste; entra no fim do classpath para não invalidar o arquivo CDS.
+		String h2 = Path.of(org.h2.Driver.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+		String aplicacao = jar.getFileName().toString();
+		List<Variante> variantes = List.of(
+				new Variante("jar padrão", List.of("-cp", jar + File.pathSeparator + h2,
+						"org.springframework.boot.loader.launch.JarLauncher")),
+				new Variante("fast-startup (AOT)", List.of("-Dspring.aot.enabled=true", "-Dspring.profiles.active=fast-startup",
+						"-cp", aplicacao + File.pathSeparator + h2, "com.example.demo.NeurotechApplication")),
+				new Variante("fast-startup (AOT + CDS)", List.of("-XX:SharedArchiveFile=application.jsa", "-Xlog:cds=off",
+						"-Dspring.aot.enabled=true", "-Dspring.profiles.active=fast-startup",
+						"-cp", aplicacao + File.pathSeparator + h2, "com.example.demo.NeurotechApplication")));
+
+		Map<String, List<Long>> tempos = new LinkedHashMap<>();
+		variantes.forEach(variante -> tempos.put(variante.nome(), new ArrayList<>()));
+		HttpClient cliente = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+		for (int rodada = 0; rodada <= execucoes; rodada++) {
+			for (Variante variante : variantes) {
+				long ms = medir(variante, diretorio, extras, cliente);
+				System.out.printf(Locale.ROOT, "%s rodada %d: %d ms%s%n", variante.nome(), rodada, ms, rodada == 0 ? " (descartada)" : "");
+				if (rodada > 0) {
+					tempos.get(variante.nome()).add(ms);
+				}
+			}
+		}
+
+		System.out.println();
+		System.out.printf(Locale.ROOT, "%-26s %10s %10s %10s%n", "Tempo até a 1ª requisição", "mediana", "mínimo", "máximo");
+		tempos.forEach((nome, amostras) -> {
+			List<Long> ordenadas = amostras.stream().sorted().toList();
+			System.out.printf(Locale.ROOT, "%-26s %8d ms %8d ms %8d ms%n", nome,
+					ordenadas.get(ordenadas.size() / 2), ordenadas.get(0), ordenadas.get(ordenadas.size() - 1));
+		});
+	}
+
+	// Sobe a variante, espera o primeiro 200 do health check e encerra o processo.
+	private static long medir(Variante variante, Path diretorio, List<String> extras, HttpClient cliente)
+			throws IOException, InterruptedException {
+		int porta = portaLivre();
+		List<String> comando = new ArrayList<>();
+		comando.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		comando.addAll(variante.comando());
+		Stream.of("--server.port=" + porta,
+				"--spring.datasource.url=jdbc:h2:mem:inicializacao;DB_CLOSE_DELAY=-1",
+				"--spring.datasource.driver-class-name=org.h2.Driver",
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+				"--spring.jpa.show-sql=false").forEach(comando::add);
+		comando.addAll(extras);
+
+		Path log = diretorio.resolve("medicao-" + variante.nome().replaceAll("[^a-zA-Z0-9]+", "-") + ".log");
+		Files.deleteIfExists(log);
+		HttpRequest health = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + "/actuator/health"))
+				.timeout(Duration.ofSeconds(5)).build();
+
+		long inicio = System.nanoTime();
+		Process processo = new ProcessBuilder(comando).directory(diretorio.toFile())
+				.redirectErrorStream(true).redirectOutput(log.toFile()).start();
+		try {
+			while (System.nanoTime() - inicio < LIMITE.toNanos()) {
+				if (!processo.isAlive()) {
+					throw new IllegalStateException(variante.nome() + " encerrou ao subir; ver " + log);
+				}
+				try {
+					if (cliente.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+						return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+					}
+				} catch (IOException e) {
+					// Ainda não está aceitando conexões.
+				}
+				Thread.sleep(10);
+			}
+			throw new IllegalStateException(variante.nome() + " não respondeu em " + LIMITE + "; ver " + log);
+		} finally {
+			processo.destroy();
+			if (!processo.waitFor(30, TimeUnit.SECONDS)) {
+				processo.destroyForcibly().waitFor();
+			}
+		}
+	}
+
+	private static int portaLivre() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}